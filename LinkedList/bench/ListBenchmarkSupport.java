@@ -0,0 +1,645 @@
+/**
+ * This file gives the JMH benchmarks in the benchmarks package a way to reach
+ * our lists, choosers and transformers. JMH refuses to generate code for a
+ * benchmark in the default package, and classes in a named package can't
+ * import anything from the default package, so the benchmarks look this class
+ * up by name once and then only talk to it through java.util.function types.
+ * **/
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/* This class builds benchmark inputs and hands out our list operations as
+ * plain functions. Every method here is called once per trial, so nothing in
+ * this class shows up in the measured time. Our choosers and transformers are
+ * the extra classes in Choosers.java and Transformers.java, which javac warns
+ * about using from here. */
+@SuppressWarnings("auxiliaryclass")
+public class ListBenchmarkSupport {
+
+    /** constructor returns a function that builds a new list of the requested
+     * implementation from an input array
+     *
+     * @param impl, "Linked", "Array", "Unrolled", "Concurrent",
+     *             "ConcurrentArray", "Adaptive", "Persistent",
+     *             "StringArena" for String
+     *             inputs only, or "SynchronizedLinked" and
+     *             "SynchronizedArray" for a LinkedGL or ArrayGL behind one
+     *             lock
+     * @return a function from the input array to the new MyList
+     * **/
+    @SuppressWarnings("unchecked")
+    public static Function<Object[], Object> constructor(String impl) {
+        switch (impl) {
+        case "Linked":
+            return contents -> new LinkedGL<Object>(contents);
+        case "Array":
+            return contents -> new ArrayGL<Object>(contents);
+        case "Unrolled":
+            return contents -> new UnrolledLinkedGL<Object>(contents);
+        case "Concurrent":
+            return contents -> new ConcurrentLinkedGL<Object>(contents);
+        case "SynchronizedLinked":
+            return contents -> new SynchronizedList<Object>(
+                    new LinkedGL<Object>(contents));
+        case "ConcurrentArray":
+            return contents -> new ConcurrentArrayGL<Object>(contents);
+        case "SynchronizedArray":
+            return contents -> new SynchronizedList<Object>(
+                    new ArrayGL<Object>(contents));
+        case "Adaptive":
+            return contents -> new AdaptiveGL<Object>(contents);
+        case "Persistent":
+            return contents -> new PersistentGL<Object>(contents);
+        case "StringArena":
+            return contents -> new StringArenaGL((String[]) contents);
+        }
+        throw new IllegalArgumentException("Unknown list type: " + impl);
+    }
+
+    /* This class guards every call to another list with one lock, the usual
+     * way to share a list that isn't thread safe, so the concurrent lists
+     * have something to be measured against. */
+    static class SynchronizedList<E> implements MyList<E> {
+        final MyList<E> list;
+        //The last node of the LinkedGL we wrap, for append. chooseAll can
+        //unlink it, so it's forgotten and found again after every change
+        LinkedGL.Node<E> last;
+
+        SynchronizedList(MyList<E> list) {
+            this.list = list;
+        }
+
+        @Override
+        public synchronized E[] toArray() {
+            return this.list.toArray();
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public synchronized void transformAll(MyTransformer mt) {
+            this.list.transformAll(mt);
+            this.last = null;
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public synchronized void chooseAll(MyChooser mc) {
+            this.list.chooseAll(mc);
+            this.last = null;
+        }
+
+        /* Adds value to the end of the LinkedGL we wrap, which has no append
+         * of its own */
+        synchronized void append(E value) {
+            LinkedGL<E> linked = (LinkedGL<E>) this.list;
+            if(this.last == null){
+                this.last = linked.front;
+                while(this.last.next != null){
+                    this.last = this.last.next;
+                }
+            }
+            this.last.next = new LinkedGL.Node<E>(value, null);
+            this.last = this.last.next;
+            linked.size += 1;
+        }
+
+        @Override
+        public synchronized boolean isEmpty() {
+            return this.list.isEmpty();
+        }
+    }
+
+    /** toArray returns a function calling toArray on a list built by one of
+     * our constructor functions
+     *
+     * @return a function from a MyList to its array representation
+     * **/
+    public static Function<Object, Object[]> toArray() {
+        return list -> ((MyList<?>) list).toArray();
+    }
+
+    /** append returns a function adding one element to the end of a list
+     * built by one of our constructor functions
+     *
+     * @param impl, "Concurrent" or "SynchronizedLinked", the only lists
+     *             with an append
+     * @return a function from a list and a value to append to it
+     * **/
+    @SuppressWarnings("unchecked")
+    public static BiConsumer<Object, Object> append(String impl) {
+        switch (impl) {
+        case "Concurrent":
+            return (list, value) ->
+                    ((ConcurrentLinkedGL<Object>) list).append(value);
+        case "SynchronizedLinked":
+            return (list, value) ->
+                    ((SynchronizedList<Object>) list).append(value);
+        }
+        throw new IllegalArgumentException("No append for list type: "
+                + impl);
+    }
+
+    /** chooseAll returns a function calling chooseAll with the named chooser
+     *
+     * @param chooser, the simple class name of one of our choosers
+     * @return a function filtering the list it is given
+     * **/
+    public static Consumer<Object> chooseAll(String chooser) {
+        MyChooser<?> mc = newChooser(chooser);
+        return list -> ((MyList<?>) list).chooseAll(mc);
+    }
+
+    /** transformAll returns a function calling transformAll with the named
+     * transformer
+     *
+     * @param transformer, the simple class name of one of our transformers
+     * @return a function transforming the list it is given
+     * **/
+    public static Consumer<Object> transformAll(String transformer) {
+        MyTransformer<?> mt = newTransformer(transformer);
+        return list -> ((MyList<?>) list).transformAll(mt);
+    }
+
+    /** chooserInput builds an input array for the named chooser where each
+     * element is chosen with probability selectivity
+     *
+     * @param chooser, the simple class name of one of our choosers
+     * @param size, the number of elements to build
+     * @param selectivity, the fraction of elements the chooser should keep
+     * @param seed, the seed for the random generator so runs are repeatable
+     * @return the input array, typed to match the chooser
+     * **/
+    public static Object[] chooserInput(String chooser, int size,
+                                        double selectivity, long seed) {
+        Random rand = new Random(seed);
+        switch (chooser) {
+        case "LongWordChooser": {
+            String[] input = new String[size];
+            for(int i = 0; i < size; i += 1){
+                //Long words have 6 to 10 letters, short ones 1 to 5
+                boolean keep = rand.nextDouble() < selectivity;
+                input[i] = word(rand, keep ? 6 + rand.nextInt(5)
+                        : 1 + rand.nextInt(5), false);
+            }
+            return input;
+        }
+        case "CapitalizedWordChooser": {
+            String[] input = new String[size];
+            for(int i = 0; i < size; i += 1){
+                boolean keep = rand.nextDouble() < selectivity;
+                input[i] = word(rand, 3 + rand.nextInt(6), keep);
+            }
+            return input;
+        }
+        case "MultipleOfTwelveChooser": {
+            Integer[] input = new Integer[size];
+            for(int i = 0; i < size; i += 1){
+                boolean keep = rand.nextDouble() < selectivity;
+                int base = 12 * rand.nextInt(1 << 20);
+                input[i] = keep ? base : base + 1 + rand.nextInt(11);
+            }
+            return input;
+        }
+        case "HasAThreeChooser": {
+            Double[] input = new Double[size];
+            for(int i = 0; i < size; i += 1){
+                //HasAThreeChooser keeps the doubles without a 3 in them, so we
+                //keep drawing until the double lands on the side we want
+                boolean keep = rand.nextDouble() < selectivity;
+                double d;
+                do {
+                    d = rand.nextInt(100000) / 64.0;
+                } while(Double.toString(d).contains("3") == keep);
+                input[i] = d;
+            }
+            return input;
+        }
+        }
+        throw new IllegalArgumentException("Unknown chooser: " + chooser);
+    }
+
+    /** transformerInput builds an input array for the named transformer
+     *
+     * @param transformer, the simple class name of one of our transformers
+     * @param size, the number of elements to build
+     * @param seed, the seed for the random generator so runs are repeatable
+     * @return the input array, typed to match the transformer
+     * **/
+    public static Object[] transformerInput(String transformer, int size,
+                                            long seed) {
+        Random rand = new Random(seed);
+        switch (transformer) {
+        case "UpperCaseTransformer": {
+            String[] input = new String[size];
+            for(int i = 0; i < size; i += 1){
+                input[i] = word(rand, 3 + rand.nextInt(8), rand.nextBoolean());
+            }
+            return input;
+        }
+        case "RemovePluralsTransformer": {
+            String[] input = new String[size];
+            for(int i = 0; i < size; i += 1){
+                //Roughly half our words end in an "s"
+                String w = word(rand, 3 + rand.nextInt(8), false);
+                input[i] = rand.nextBoolean() ? w + "s" : w;
+            }
+            return input;
+        }
+        case "IntegerToFibonacciCounterpartTransformer": {
+            Integer[] input = new Integer[size];
+            for(int i = 0; i < size; i += 1){
+                //Mostly values the transformer works on, plus a few it skips
+                input[i] = rand.nextInt(50);
+            }
+            return input;
+        }
+        case "DoubleToSquareAreaTransformer": {
+            Double[] input = new Double[size];
+            for(int i = 0; i < size; i += 1){
+                input[i] = rand.nextDouble() * 200.0 - 100.0;
+            }
+            return input;
+        }
+        }
+        throw new IllegalArgumentException("Unknown transformer: "
+                + transformer);
+    }
+
+    /** primitiveInput builds the int or double array for one of the
+     * primitive kernels in NumericKernels
+     *
+     * @param kernel, "IntMultipleOfTwelveChooser", "IntAtLeastChooser" or
+     *               "DoubleSquareAreaTransformer"
+     * @param size, the number of elements to build
+     * @param seed, the seed for the random generator so runs are repeatable
+     * @return an int[] where about half the elements are multiples of 12, or
+     * are at least 0, or a double[] of side lengths where about half are
+     * negative
+     * **/
+    public static Object primitiveInput(String kernel, int size, long seed) {
+        Random rand = new Random(seed);
+        switch (kernel) {
+        case "IntMultipleOfTwelveChooser": {
+            int[] input = new int[size];
+            for(int i = 0; i < size; i += 1){
+                int base = 12 * rand.nextInt(1 << 20);
+                input[i] = rand.nextBoolean() ? base : base + 1
+                        + rand.nextInt(11);
+            }
+            return input;
+        }
+        case "IntAtLeastChooser": {
+            int[] input = new int[size];
+            for(int i = 0; i < size; i += 1){
+                input[i] = rand.nextInt();
+            }
+            return input;
+        }
+        case "DoubleSquareAreaTransformer": {
+            double[] input = new double[size];
+            for(int i = 0; i < size; i += 1){
+                input[i] = rand.nextDouble() * 200.0 - 100.0;
+            }
+            return input;
+        }
+        }
+        throw new IllegalArgumentException("Unknown kernel: " + kernel);
+    }
+
+    /** primitiveList returns a function that builds an IntGL or DoubleGL
+     * over a copy of the input from primitiveInput
+     *
+     * @param kernel, the same name given to primitiveInput
+     * @return a function from the primitive input to the new list
+     * **/
+    public static Function<Object, Object> primitiveList(String kernel) {
+        if(kernel.startsWith("Int")){
+            return input -> new IntGL(((int[]) input).clone());
+        }
+        return input -> new DoubleGL(((double[]) input).clone());
+    }
+
+    /** primitiveReset returns a function that puts a list from primitiveList
+     * back the way it was built, without allocating
+     *
+     * @return a function taking the list and the original input
+     * **/
+    public static BiConsumer<Object, Object> primitiveReset() {
+        return (list, input) -> {
+            if(list instanceof IntGL){
+                IntGL ints = (IntGL) list;
+                int[] source = (int[]) input;
+                System.arraycopy(source, 0, ints.elements, 0, source.length);
+                ints.size = source.length;
+            } else {
+                DoubleGL doubles = (DoubleGL) list;
+                double[] source = (double[]) input;
+                System.arraycopy(source, 0, doubles.elements, 0,
+                        source.length);
+                doubles.size = source.length;
+            }
+        };
+    }
+
+    /** primitiveOperation returns a function running the named kernel on a
+     * list from primitiveList
+     *
+     * @param kernel, the same name given to primitiveInput
+     * @param wholeArray, true to let the list use its NumericKernels
+     *                   version, false to call the chooser or transformer
+     *                   once per element like any other
+     * @return a function filtering or transforming the list it is given
+     * **/
+    public static Consumer<Object> primitiveOperation(String kernel,
+                                                      boolean wholeArray) {
+        switch (kernel) {
+        case "IntMultipleOfTwelveChooser": {
+            IntChooser chooser = new IntMultipleOfTwelveChooser();
+            //Wrapping the chooser hides its class from IntGL, so it takes the
+            //per-element path
+            IntChooser used = wholeArray ? chooser
+                    : i -> chooser.chooseElement(i);
+            return list -> ((IntGL) list).chooseAllInt(used);
+        }
+        case "IntAtLeastChooser": {
+            IntChooser chooser = new IntAtLeastChooser(0);
+            IntChooser used = wholeArray ? chooser
+                    : i -> chooser.chooseElement(i);
+            return list -> ((IntGL) list).chooseAllInt(used);
+        }
+        case "DoubleSquareAreaTransformer": {
+            DoubleTransformer transformer = new DoubleSquareAreaTransformer();
+            DoubleTransformer used = wholeArray ? transformer
+                    : d -> transformer.transformElement(d);
+            return list -> ((DoubleGL) list).transformAllDouble(used);
+        }
+        }
+        throw new IllegalArgumentException("Unknown kernel: " + kernel);
+    }
+
+    /** snapshotFiles saves the same random ints twice in dir, once as text
+     * with one number per line in "ints.txt" and once as a ListSnapshot in
+     * "ints.snapshot", for snapshotLoad to read back
+     *
+     * @param dir, the directory to write the files into
+     * @param size, the number of ints to save
+     * @param seed, the seed for the random generator so runs are repeatable
+     * @throws IOException if either file can't be written
+     * **/
+    public static void snapshotFiles(String dir, int size, long seed)
+            throws IOException {
+        Random rand = new Random(seed);
+        int[] input = new int[size];
+        for(int i = 0; i < size; i += 1){
+            input[i] = rand.nextInt();
+        }
+        try(BufferedWriter out = Files.newBufferedWriter(
+                Paths.get(dir, "ints.txt"))){
+            for(int i : input){
+                out.write(Integer.toString(i));
+                out.newLine();
+            }
+        }
+        ListSnapshot.write(new IntGL(input), Paths.get(dir, "ints.snapshot"),
+                true);
+    }
+
+    /** snapshotLoad returns a function that loads the files from
+     * snapshotFiles back into a list
+     *
+     * @param format, "text" to parse ints.txt into an ArrayGL, "snapshot" to
+     *               load ints.snapshot into an ArrayGL, or "primitive" to
+     *               load ints.snapshot into an IntGL
+     * @return a function from the directory to the loaded list
+     * **/
+    public static Function<String, Object> snapshotLoad(String format) {
+        switch (format) {
+        case "text":
+            return dir -> {
+                try(BufferedReader in = Files.newBufferedReader(
+                        Paths.get(dir, "ints.txt"))){
+                    Integer[] elements = in.lines().map(Integer::valueOf)
+                            .toArray(Integer[]::new);
+                    return new ArrayGL<Integer>(elements);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            };
+        case "snapshot":
+            return dir -> {
+                try {
+                    return ListSnapshot.readArrayGL(
+                            Paths.get(dir, "ints.snapshot"));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            };
+        case "primitive":
+            return dir -> {
+                try {
+                    return ListSnapshot.readIntGL(
+                            Paths.get(dir, "ints.snapshot"));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            };
+        }
+        throw new IllegalArgumentException("Unknown format: " + format);
+    }
+
+    /** flowPipeline returns a function that runs MultipleOfTwelveChooser and
+     * then IntegerToFibonacciCounterpartTransformer over an input array and
+     * collects what's left, either through our lists or through a Flow
+     * pipeline of ListProcessors
+     *
+     * @param path, "array" to use ArrayGL's chooseAll and transformAll, or
+     *             "flow" to publish the input through a choosing and a
+     *             transforming ListProcessor into a ListCollector
+     * @return a function from the input array to the surviving elements
+     * **/
+    @SuppressWarnings("unchecked")
+    public static Function<Object[], Object> flowPipeline(String path) {
+        MyChooser<Integer> chooser = new MultipleOfTwelveChooser();
+        MyTransformer<Integer> transformer =
+                new IntegerToFibonacciCounterpartTransformer();
+        switch (path) {
+        case "array":
+            return input -> {
+                ArrayGL<Integer> list = new ArrayGL<Integer>(
+                        (Integer[]) input.clone());
+                list.chooseAll(chooser);
+                list.transformAll(transformer);
+                return list.toArray();
+            };
+        case "flow":
+            return input -> {
+                ListProcessor<Integer> choose =
+                        ListProcessor.choosing(chooser);
+                ListProcessor<Integer> transform =
+                        ListProcessor.transforming(transformer);
+                ListCollector<Integer> collector =
+                        new ListCollector<Integer>(input.length);
+                new ArrayPublisher((Integer[]) input).subscribe(choose);
+                choose.subscribe(transform);
+                transform.subscribe(collector);
+                return collector.elements().join();
+            };
+        }
+        throw new IllegalArgumentException("Unknown path: " + path);
+    }
+
+    /* A publisher that sends an array's elements on whichever thread asks for
+     * them, so the flow benchmark measures our stages rather than handing
+     * elements between threads */
+    static class ArrayPublisher implements Flow.Publisher<Integer> {
+        final Integer[] source;
+
+        ArrayPublisher(Integer[] source) {
+            this.source = source;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super Integer> subscriber) {
+            AtomicLong requested = new AtomicLong();
+            int[] next = new int[1];
+            boolean[] cancelled = new boolean[1];
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    //Only the call that finds nothing requested sends, a
+                    //request from inside onNext just adds to the count
+                    if(requested.getAndAdd(n) != 0){
+                        return;
+                    }
+                    long sent = 0;
+                    while(true){
+                        long wanted = requested.get();
+                        while(sent != wanted && next[0] < source.length
+                                && !cancelled[0]){
+                            subscriber.onNext(source[next[0]]);
+                            next[0] += 1;
+                            sent += 1;
+                        }
+                        if(next[0] == source.length && !cancelled[0]){
+                            cancelled[0] = true;
+                            subscriber.onComplete();
+                            return;
+                        }
+                        if(cancelled[0]
+                                || requested.addAndGet(-sent) == 0){
+                            return;
+                        }
+                        sent = 0;
+                    }
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled[0] = true;
+                }
+            });
+        }
+    }
+
+    /** requestCycle returns a function that does what one request of a
+     * service using LinkedGL does: builds a list from the input, filters it
+     * with MultipleOfTwelveChooser, reads the survivors out and throws the
+     * list away
+     *
+     * @param impl, "Linked" to leave the nodes for the garbage collector, or
+     *             "PooledLinked" to build from this thread's LinkedNodePool
+     *             and release the list back to it at the end
+     * @return a function from the input array to the surviving elements
+     * **/
+    public static Function<Object[], Object> requestCycle(String impl) {
+        MyChooser<Integer> chooser = new MultipleOfTwelveChooser();
+        boolean pooled;
+        switch (impl) {
+        case "Linked":
+            pooled = false;
+            break;
+        case "PooledLinked":
+            pooled = true;
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown impl: " + impl);
+        }
+        return input -> {
+            LinkedGL<Object> list = new LinkedGL<Object>(input, pooled);
+            list.chooseAll(chooser);
+            Object[] survivors = list.toArray();
+            if(pooled){
+                list.release();
+            }
+            return survivors;
+        };
+    }
+
+    /** integerInput builds a plain Integer array for the benchmarks that
+     * don't depend on the kind of element, like the constructors and toArray
+     *
+     * @param size, the number of elements to build
+     * @return an array holding 0 to size - 1
+     * **/
+    public static Object[] integerInput(int size) {
+        Integer[] input = new Integer[size];
+        for(int i = 0; i < size; i += 1){
+            input[i] = i;
+        }
+        return input;
+    }
+
+    /* Builds one of our choosers from its class name */
+    private static MyChooser<?> newChooser(String chooser) {
+        switch (chooser) {
+        case "LongWordChooser":
+            return new LongWordChooser();
+        case "CapitalizedWordChooser":
+            return new CapitalizedWordChooser();
+        case "MultipleOfTwelveChooser":
+            return new MultipleOfTwelveChooser();
+        case "HasAThreeChooser":
+            return new HasAThreeChooser();
+        }
+        throw new IllegalArgumentException("Unknown chooser: " + chooser);
+    }
+
+    /* Builds one of our transformers from its class name */
+    private static MyTransformer<?> newTransformer(String transformer) {
+        switch (transformer) {
+        case "UpperCaseTransformer":
+            return new UpperCaseTransformer();
+        case "RemovePluralsTransformer":
+            return new RemovePluralsTransformer();
+        case "IntegerToFibonacciCounterpartTransformer":
+            return new IntegerToFibonacciCounterpartTransformer();
+        case "DoubleToSquareAreaTransformer":
+            return new DoubleToSquareAreaTransformer();
+        }
+        throw new IllegalArgumentException("Unknown transformer: "
+                + transformer);
+    }
+
+    /* Builds a random lower case word, capitalizing the first letter if asked */
+    private static String word(Random rand, int length, boolean capitalized) {
+        char[] letters = new char[length];
+        for(int i = 0; i < length; i += 1){
+            letters[i] = (char) ('a' + rand.nextInt(26));
+        }
+        if(capitalized){
+            letters[0] = Character.toUpperCase(letters[0]);
+        }
+        return new String(letters);
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * This file runs our JMH benchmarks with the GC profiler attached and prints
+ * a summary table with throughput, time per element and allocation rate, so
+ * it's easy to see where each list stops scaling.
+ * **/
+package benchmarks;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/* Any normal JMH command line option can be passed through, for example
+ * "-p size=1000" to run a single size, or a regex to pick benchmarks. With no
+ * regex given, every benchmark in MyListBenchmark runs, pass
+ * "ConcurrentListBenchmark" to run the shared list benchmarks instead.
+ *
+ * A benchmark named like another with BASELINE on the end, such as
+ * chooseAllBaseline, measures the setup the other one does inside its call.
+ * When both ran with the same parameters, the other one's row also gets net
+ * columns with the baseline taken off. */
+public class BenchmarkRunner {
+
+    static final String BASELINE = "Baseline";
+
+    public static void main(String[] args)
+            throws RunnerException, CommandLineOptionException {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(cmd);
+        if(cmd.getIncludes().isEmpty()){
+            builder.include(MyListBenchmark.class.getSimpleName());
+        }
+        Options opts = builder.addProfiler(GCProfiler.class).build();
+        print(new Runner(opts).run());
+    }
+
+    /** print writes one line per benchmark and parameter combination
+     *
+     * @param results, the results handed back by the JMH runner
+     * **/
+    static void print(Collection<RunResult> results) {
+        Map<String, RunResult> byKey = new HashMap<String, RunResult>();
+        for(RunResult r : results){
+            byKey.put(key(r, r.getParams().getBenchmark()), r);
+        }
+        System.out.printf("%n%-40s %-70s %14s %12s %10s %12s %12s %12s %12s%n",
+                "Benchmark", "Params", "ops/s", "ns/op", "ns/elem",
+                "MB/s alloc", "B/op alloc", "net ns/elem", "net B/op");
+        for(RunResult r : results){
+            String label = r.getParams().getBenchmark();
+            int size = 1;
+            for(String key : r.getParams().getParamsKeys()){
+                if(key.equals("size")){
+                    size = Integer.parseInt(r.getParams().getParam(key));
+                }
+            }
+            //Throughput and the cost per element both fall out of the time
+            //per call, the net columns take the baseline's off both
+            double nsPerOp = nanosPerOp(r);
+            double allocPerOp = secondary(r, "gc.alloc.rate.norm");
+            RunResult baseline = byKey.get(key(r, label + BASELINE));
+            double netNs = baseline == null ? Double.NaN
+                    : nsPerOp - nanosPerOp(baseline);
+            double netAlloc = baseline == null ? Double.NaN
+                    : allocPerOp - secondary(baseline, "gc.alloc.rate.norm");
+            System.out.printf("%-40s %-70s %14.1f %12.1f %10.3f %12.1f %12.1f"
+                    + " %12.3f %12.1f%n",
+                    label.substring(label.lastIndexOf('.') + 1),
+                    params(r), 1e9 / nsPerOp, nsPerOp,
+                    nsPerOp / Math.max(size, 1),
+                    secondary(r, "gc.alloc.rate"), allocPerOp,
+                    netNs / Math.max(size, 1), netAlloc);
+        }
+    }
+
+    /* The parameters of a result, as key=value pairs */
+    private static String params(RunResult r) {
+        StringBuilder params = new StringBuilder();
+        for(String key : r.getParams().getParamsKeys()){
+            params.append(key).append('=')
+                    .append(r.getParams().getParam(key)).append(' ');
+        }
+        return params.toString().trim();
+    }
+
+    /* What a result with these parameters would be filed under, for the
+     * benchmark with the given full name */
+    private static String key(RunResult r, String benchmark) {
+        return benchmark + " " + params(r);
+    }
+
+    /* Turns the primary score into nanoseconds per call, whichever mode and
+     * time unit the benchmark reported it in */
+    private static double nanosPerOp(RunResult r) {
+        double score = r.getPrimaryResult().getScore();
+        double unitNanos = r.getParams().getTimeUnit().toNanos(1);
+        if(r.getParams().getMode() == Mode.Throughput){
+            return unitNanos / score;
+        }
+        return score * unitNanos;
+    }
+
+    /* Looks up one of the GC profiler's numbers, NaN if it wasn't recorded */
+    private static double secondary(RunResult r, String name) {
+        Result<?> result = r.getSecondaryResults().get(name);
+        return result == null ? Double.NaN : result.getScore();
+    }
+}
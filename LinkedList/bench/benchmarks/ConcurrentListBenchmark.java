@@ -0,0 +1,98 @@
+/**
+ * This file holds the JMH benchmarks for lists shared between threads. Reader
+ * threads call toArray while one writer thread keeps calling transformAll and
+ * chooseAll on the same list, and in the appending group one more thread keeps
+ * appending to it at the same time.
+ * **/
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.openjdk.jmh.annotations.*;
+
+/* The writer's chooser keeps every element and the transformer gives back the
+ * same words once they're upper case, so the list stays the same size for
+ * the whole run and every iteration does the same amount of work. The
+ * appender only appends words too short for that chooser, so each of the
+ * writer's chooseAll calls takes them out again and the list stays near its
+ * starting size in the appending group too. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ConcurrentListBenchmark {
+
+    //Too short for LongWordChooser
+    static final String APPENDED = "ox";
+
+    @State(Scope.Group)
+    public static class SharedState {
+        @Param({"Concurrent", "SynchronizedLinked"})
+        public String impl;
+        @Param({"1000", "100000"})
+        public int size;
+
+        Object list;
+        Function<Object, Object[]> toArray;
+        Consumer<Object> transformAll;
+        Consumer<Object> chooseAll;
+        BiConsumer<Object, Object> append;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            Object[] input = Support.call("chooserInput", "LongWordChooser",
+                    size, 1.0, MyListBenchmark.SEED);
+            Function<Object[], Object> constructor =
+                    Support.call("constructor", impl);
+            list = constructor.apply(input);
+            toArray = Support.call("toArray");
+            transformAll = Support.call("transformAll", "UpperCaseTransformer");
+            chooseAll = Support.call("chooseAll", "LongWordChooser");
+            append = Support.call("append", impl);
+        }
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(3)
+    public Object[] read(SharedState s) {
+        return s.toArray.apply(s.list);
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public Object write(SharedState s) {
+        s.transformAll.accept(s.list);
+        s.chooseAll.accept(s.list);
+        return s.list;
+    }
+
+    @Benchmark
+    @Group("appendReadWrite")
+    @GroupThreads(2)
+    public Object[] appendGroupRead(SharedState s) {
+        return s.toArray.apply(s.list);
+    }
+
+    @Benchmark
+    @Group("appendReadWrite")
+    @GroupThreads(1)
+    public Object appendGroupWrite(SharedState s) {
+        s.transformAll.accept(s.list);
+        s.chooseAll.accept(s.list);
+        return s.list;
+    }
+
+    @Benchmark
+    @Group("appendReadWrite")
+    @GroupThreads(1)
+    public Object appendGroupAppend(SharedState s) {
+        s.append.accept(s.list, APPENDED);
+        return s.list;
+    }
+}
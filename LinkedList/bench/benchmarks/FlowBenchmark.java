@@ -0,0 +1,46 @@
+/**
+ * This file holds the JMH benchmark comparing a Flow pipeline of
+ * ListProcessors against running the same chooser and transformer with
+ * ArrayGL's chooseAll and transformAll.
+ * **/
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.openjdk.jmh.annotations.*;
+
+/* Both paths start from the same Integer array and end with an array of the
+ * survivors. The flow path publishes the input on the benchmark thread, so
+ * the difference is the cost of our stages: the ring buffers, the demand
+ * bookkeeping and one onNext per element per stage. Divide the gap by size
+ * for the extra cost per element. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class FlowBenchmark {
+
+    @State(Scope.Thread)
+    public static class FlowState {
+        @Param({"array", "flow"})
+        public String path;
+        @Param({"1000", "100000", "10000000"})
+        public int size;
+
+        Object[] input;
+        Function<Object[], Object> pipeline;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            input = Support.call("integerInput", size);
+            pipeline = Support.call("flowPipeline", path);
+        }
+    }
+
+    @Benchmark
+    public Object run(FlowState s) {
+        return s.pipeline.apply(s.input);
+    }
+}
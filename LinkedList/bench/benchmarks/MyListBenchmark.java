@@ -0,0 +1,152 @@
+/**
+ * This file holds the JMH benchmarks comparing LinkedGL and ArrayGL on every
+ * MyList operation: the constructor, toArray, transformAll and chooseAll.
+ * Run it through BenchmarkRunner to get the GC profiler and ns/element
+ * columns alongside the raw JMH scores.
+ * **/
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.openjdk.jmh.annotations.*;
+
+/* Each benchmark method here takes its own State class, so JMH only builds the
+ * cross product of the parameters that operation actually cares about. The
+ * chooser inputs are generated so each chooser keeps roughly the requested
+ * selectivity of the list.
+ *
+ * chooseAll and transformAll change the list, so each call builds a new one
+ * from a copy of the input first. Building it inside the measured call, rather
+ * than in a per call setup, keeps the timing reliable down to tiny sizes and
+ * keeps the GC profiler's allocation numbers honest. Their Baseline
+ * benchmarks only build the list, and BenchmarkRunner subtracts them to get
+ * the net time and allocation of the operation itself. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class MyListBenchmark {
+
+    static final long SEED = 12L;
+
+    /* State for the operations that don't change the list, the list is
+     * only built once per trial. */
+    @State(Scope.Thread)
+    public static class ReadState {
+        @Param({"Linked", "Array", "Unrolled"})
+        public String impl;
+        @Param({"10", "1000", "100000", "10000000"})
+        public int size;
+
+        Object[] input;
+        Function<Object[], Object> constructor;
+        Function<Object, Object[]> toArray;
+        Object list;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            input = Support.call("integerInput", size);
+            constructor = Support.call("constructor", impl);
+            toArray = Support.call("toArray");
+            list = constructor.apply(input);
+        }
+    }
+
+    /* State for chooseAll. The input is only made once per trial. */
+    @State(Scope.Thread)
+    public static class ChooseState {
+        @Param({"Linked", "Array", "Unrolled"})
+        public String impl;
+        @Param({"10", "1000", "100000", "10000000"})
+        public int size;
+        @Param({"LongWordChooser", "CapitalizedWordChooser",
+                "MultipleOfTwelveChooser", "HasAThreeChooser"})
+        public String chooser;
+        @Param({"0.01", "0.5", "0.99"})
+        public double selectivity;
+
+        Object[] input;
+        Function<Object[], Object> constructor;
+        Consumer<Object> chooseAll;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            input = Support.call("chooserInput", chooser, size, selectivity,
+                    SEED);
+            constructor = Support.call("constructor", impl);
+            chooseAll = Support.call("chooseAll", chooser);
+        }
+
+        /* A new list to run chooseAll on. ArrayGL keeps the array it is
+         * given, so it gets a copy. */
+        Object build() {
+            return constructor.apply(input.clone());
+        }
+    }
+
+    /* State for transformAll, the same as ChooseState. */
+    @State(Scope.Thread)
+    public static class TransformState {
+        @Param({"Linked", "Array", "Unrolled"})
+        public String impl;
+        @Param({"10", "1000", "100000", "10000000"})
+        public int size;
+        @Param({"UpperCaseTransformer", "RemovePluralsTransformer",
+                "IntegerToFibonacciCounterpartTransformer",
+                "DoubleToSquareAreaTransformer"})
+        public String transformer;
+
+        Object[] input;
+        Function<Object[], Object> constructor;
+        Consumer<Object> transformAll;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            input = Support.call("transformerInput", transformer, size, SEED);
+            constructor = Support.call("constructor", impl);
+            transformAll = Support.call("transformAll", transformer);
+        }
+
+        /* A new list to run transformAll on */
+        Object build() {
+            return constructor.apply(input.clone());
+        }
+    }
+
+    @Benchmark
+    public Object construct(ReadState s) {
+        return s.constructor.apply(s.input);
+    }
+
+    @Benchmark
+    public Object[] toArray(ReadState s) {
+        return s.toArray.apply(s.list);
+    }
+
+    @Benchmark
+    public Object chooseAll(ChooseState s) {
+        Object list = s.build();
+        s.chooseAll.accept(list);
+        return list;
+    }
+
+    @Benchmark
+    public Object chooseAllBaseline(ChooseState s) {
+        return s.build();
+    }
+
+    @Benchmark
+    public Object transformAll(TransformState s) {
+        Object list = s.build();
+        s.transformAll.accept(list);
+        return list;
+    }
+
+    @Benchmark
+    public Object transformAllBaseline(TransformState s) {
+        return s.build();
+    }
+}
@@ -0,0 +1,46 @@
+/**
+ * This file holds the JMH benchmark comparing a LinkedGL that's built,
+ * filtered and thrown away against a pooled one that reuses its nodes.
+ * **/
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.openjdk.jmh.annotations.*;
+
+/* Each call is one whole request: build, chooseAll keeping half the
+ * elements, toArray, and either drop the list or release it. The numbers to
+ * compare are the allocation rate and the gc.count and gc.time lines from
+ * the GC profiler BenchmarkRunner attaches, as well as the time. A small
+ * young generation makes the difference in collections easy to see. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-Xmn64m"})
+public class NodePoolBenchmark {
+
+    @State(Scope.Thread)
+    public static class PoolState {
+        @Param({"Linked", "PooledLinked"})
+        public String impl;
+        @Param({"1000", "100000"})
+        public int size;
+
+        Object[] input;
+        Function<Object[], Object> cycle;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            input = Support.call("chooserInput", "MultipleOfTwelveChooser",
+                    size, 0.5, MyListBenchmark.SEED);
+            cycle = Support.call("requestCycle", impl);
+        }
+    }
+
+    @Benchmark
+    public Object run(PoolState s) {
+        return s.cycle.apply(s.input);
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * This file holds the JMH benchmarks comparing the whole-array kernels in
+ * NumericKernels against calling the same chooser or transformer once per
+ * element, on IntGL and DoubleGL.
+ * **/
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.openjdk.jmh.annotations.*;
+
+/* Every call first copies the input back into the list, since every kernel
+ * changes it, so subtract the reset benchmark's score from the others to get
+ * the cost of the kernel alone. Each chooser input keeps half its elements,
+ * the worst case for a branch. Run through BenchmarkRunner for the ns/element
+ * column, and compare wholeArray=true against false on the machine you care
+ * about: how much the JIT vectorizes depends on whether it has SSE, AVX2 or
+ * AVX-512 to work with. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class NumericKernelBenchmark {
+
+    @State(Scope.Thread)
+    public static class KernelState {
+        @Param({"IntMultipleOfTwelveChooser", "IntAtLeastChooser",
+                "DoubleSquareAreaTransformer"})
+        public String kernel;
+        @Param({"true", "false"})
+        public boolean wholeArray;
+        @Param({"1000", "100000", "10000000"})
+        public int size;
+
+        Object input;
+        Object list;
+        BiConsumer<Object, Object> reset;
+        Consumer<Object> operation;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            input = Support.call("primitiveInput", kernel, size,
+                    MyListBenchmark.SEED);
+            Function<Object, Object> constructor =
+                    Support.call("primitiveList", kernel);
+            list = constructor.apply(input);
+            reset = Support.call("primitiveReset");
+            operation = Support.call("primitiveOperation", kernel, wholeArray);
+        }
+    }
+
+    @Benchmark
+    public Object run(KernelState s) {
+        s.reset.accept(s.list, s.input);
+        s.operation.accept(s.list);
+        return s.list;
+    }
+
+    @Benchmark
+    public Object reset(KernelState s) {
+        s.reset.accept(s.list, s.input);
+        return s.list;
+    }
+}
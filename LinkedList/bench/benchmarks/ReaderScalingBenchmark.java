@@ -0,0 +1,70 @@
+/**
+ * This file holds the JMH benchmarks showing how reader throughput scales
+ * with the number of reader threads, for ConcurrentArrayGL and for an ArrayGL
+ * behind one lock.
+ * **/
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.openjdk.jmh.annotations.*;
+
+/* JMH can't take the thread count as a @Param, so run this once per count
+ * with -t, for example -t 1, -t 2, -t 4 and -t 8, and compare the ops/s. The
+ * readMostly group adds one writer alongside seven readers, which is how the
+ * list gets used in practice. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ReaderScalingBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class SharedState {
+        @Param({"ConcurrentArray", "SynchronizedArray"})
+        public String impl;
+        @Param({"1000", "100000"})
+        public int size;
+
+        Object list;
+        Function<Object, Object[]> toArray;
+        Consumer<Object> transformAll;
+        Consumer<Object> chooseAll;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            Object[] input = Support.call("chooserInput", "LongWordChooser",
+                    size, 1.0, MyListBenchmark.SEED);
+            Function<Object[], Object> constructor =
+                    Support.call("constructor", impl);
+            list = constructor.apply(input);
+            toArray = Support.call("toArray");
+            transformAll = Support.call("transformAll", "UpperCaseTransformer");
+            chooseAll = Support.call("chooseAll", "LongWordChooser");
+        }
+    }
+
+    @Benchmark
+    public Object[] readOnly(SharedState s) {
+        return s.toArray.apply(s.list);
+    }
+
+    @Benchmark
+    @Group("readMostly")
+    @GroupThreads(7)
+    public Object[] reader(SharedState s) {
+        return s.toArray.apply(s.list);
+    }
+
+    @Benchmark
+    @Group("readMostly")
+    @GroupThreads(1)
+    public Object writer(SharedState s) {
+        s.transformAll.accept(s.list);
+        s.chooseAll.accept(s.list);
+        return s.list;
+    }
+}
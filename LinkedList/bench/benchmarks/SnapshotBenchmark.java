@@ -0,0 +1,57 @@
+/**
+ * This file holds the JMH benchmarks comparing loading a list from a
+ * ListSnapshot against parsing the same numbers from a text file.
+ * **/
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.openjdk.jmh.annotations.*;
+
+/* The files are written once per trial and then read back on every call, so
+ * after the first call they come from the page cache and we're measuring
+ * decoding rather than the disk. "text" parses one int per line into an
+ * ArrayGL, "snapshot" loads the binary file into an ArrayGL, boxing each
+ * element, and "primitive" loads it into an IntGL without boxing. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class SnapshotBenchmark {
+
+    @State(Scope.Thread)
+    public static class SnapshotState {
+        @Param({"text", "snapshot", "primitive"})
+        public String format;
+        @Param({"1000", "100000", "10000000"})
+        public int size;
+
+        Path dir;
+        Function<String, Object> load;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            dir = Files.createTempDirectory("snapshot-bench");
+            Support.call("snapshotFiles", dir.toString(), size,
+                    MyListBenchmark.SEED);
+            load = Support.call("snapshotLoad", format);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            Files.walk(dir).sorted(Comparator.reverseOrder())
+                    .forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Object load(SnapshotState s) {
+        return s.load.apply(s.dir.toString());
+    }
+}
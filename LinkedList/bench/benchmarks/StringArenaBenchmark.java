@@ -0,0 +1,75 @@
+/**
+ * This file holds the JMH benchmarks comparing StringArenaGL against ArrayGL
+ * on our string choosers and transformer.
+ * **/
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.openjdk.jmh.annotations.*;
+
+/* Every call builds the list from a copy of the same input first, and
+ * runBaseline only builds it, so BenchmarkRunner can subtract the two like it
+ * does for MyListBenchmark. The choosers get input where half the
+ * words are chosen, and toArray is measured too, since that's the one place
+ * StringArenaGL makes a String for every element. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class StringArenaBenchmark {
+
+    @State(Scope.Thread)
+    public static class ArenaState {
+        @Param({"Array", "StringArena"})
+        public String impl;
+        @Param({"1000", "100000", "10000000"})
+        public int size;
+        @Param({"LongWordChooser", "CapitalizedWordChooser",
+                "UpperCaseTransformer", "toArray"})
+        public String operation;
+
+        Object[] input;
+        Function<Object[], Object> constructor;
+        Consumer<Object> run;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            constructor = Support.call("constructor", impl);
+            if(operation.endsWith("Chooser")){
+                input = Support.call("chooserInput", operation, size, 0.5,
+                        MyListBenchmark.SEED);
+                run = Support.call("chooseAll", operation);
+            } else {
+                input = Support.call("transformerInput",
+                        "UpperCaseTransformer", size, MyListBenchmark.SEED);
+                if(operation.equals("toArray")){
+                    Function<Object, Object[]> toArray =
+                            Support.call("toArray");
+                    run = list -> toArray.apply(list);
+                } else {
+                    run = Support.call("transformAll", operation);
+                }
+            }
+        }
+
+        Object build() {
+            return constructor.apply(input.clone());
+        }
+    }
+
+    @Benchmark
+    public Object run(ArenaState s) {
+        Object list = s.build();
+        s.run.accept(list);
+        return list;
+    }
+
+    @Benchmark
+    public Object runBaseline(ArenaState s) {
+        return s.build();
+    }
+}
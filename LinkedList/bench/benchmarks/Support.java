@@ -0,0 +1,47 @@
+/**
+ * This file reaches across to ListBenchmarkSupport in the default package. We
+ * can't import it from here, so we look it up by name and call its static
+ * methods reflectively. This only happens while setting up a trial, the
+ * measured code only ever calls the functions handed back.
+ * **/
+package benchmarks;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/* This class has one static helper that calls a method of ListBenchmarkSupport
+ * by name and returns its result. */
+final class Support {
+
+    private Support() {
+    }
+
+    /** call runs the named static method of ListBenchmarkSupport
+     *
+     * @param name, the name of the method to call
+     * @param args, the arguments to pass along
+     * @return whatever the method returned
+     * **/
+    @SuppressWarnings("unchecked")
+    static <T> T call(String name, Object... args) {
+        try {
+            Class<?> support = Class.forName("ListBenchmarkSupport");
+            for(Method m : support.getMethods()){
+                if(m.getName().equals(name)
+                        && m.getParameterCount() == args.length){
+                    return (T) m.invoke(null, args);
+                }
+            }
+            throw new IllegalStateException("No support method " + name);
+        } catch (InvocationTargetException e) {
+            //Hand back whatever went wrong inside the support method itself
+            Throwable cause = e.getCause();
+            if(cause instanceof RuntimeException){
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,323 @@
+/**
+ * This file implements a list that keeps its elements in either an ArrayGL or
+ * a LinkedGL, and moves them from one to the other when the operations it's
+ * being asked to do would run cheaper on the other kind.
+ * **/
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/* This class implements MyList by handing every call to the ArrayGL or
+ * LinkedGL it currently holds. After each call it updates its running mix of
+ * operations and what fraction of elements its choosers keep, and asks its
+ * AdaptivePolicy whether converting to the other kind would pay for itself.
+ * Every conversion is written down as a Decision, and the most recent ones
+ * can be read back with decisions(), to see how a policy behaves on a real
+ * workload and tune it.
+ *
+ * It also implements LazySource, handing lazy pipelines straight to the list
+ * it currently holds. A pipeline only walks our list once, so it counts as a
+ * single operation in the mix: a toArray if it builds an array, otherwise a
+ * chooseAll if it has any choosers and a transformAll if it doesn't. */
+public class AdaptiveGL<E> implements MyList<E>, LazySource<E> {
+
+    //How many decisions we remember
+    static final int DECISION_LOG = 64;
+
+    /* One conversion from one kind of list to the other, and why */
+    public static final class Decision {
+        final long operation;
+        final int from;
+        final int to;
+        final int size;
+        final double[] mix;
+        final double selectivity;
+        final double savings;
+        final double conversionCost;
+
+        Decision(long operation, int from, int to, int size, double[] mix,
+                 double selectivity, double savings, double conversionCost) {
+            this.operation = operation;
+            this.from = from;
+            this.to = to;
+            this.size = size;
+            this.mix = mix.clone();
+            this.selectivity = selectivity;
+            this.savings = savings;
+            this.conversionCost = conversionCost;
+        }
+
+        /** @return how many operations the list had done when it converted */
+        public long operation() {
+            return this.operation;
+        }
+
+        /** @return the kind of list we converted from, AdaptivePolicy.ARRAY
+         * or AdaptivePolicy.LINKED */
+        public int from() {
+            return this.from;
+        }
+
+        /** @return the kind of list we converted into */
+        public int to() {
+            return this.to;
+        }
+
+        /** @return how many elements were converted */
+        public int size() {
+            return this.size;
+        }
+
+        /** @return the running fraction of toArray, transformAll and
+         * chooseAll calls, indexed like AdaptivePolicy's operations */
+        public double[] mix() {
+            return this.mix.clone();
+        }
+
+        /** @return the running fraction of elements choosers kept */
+        public double selectivity() {
+            return this.selectivity;
+        }
+
+        /** @return the nanoseconds converting was projected to save over
+         * the policy's horizon */
+        public double savings() {
+            return this.savings;
+        }
+
+        /** @return the nanoseconds converting was projected to cost */
+        public double conversionCost() {
+            return this.conversionCost;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("#%d %s->%s size=%d mix=[toArray %.2f,"
+                    + " transform %.2f, choose %.2f] kept=%.2f"
+                    + " savings=%.0fns cost=%.0fns", this.operation,
+                    name(this.from), name(this.to), this.size,
+                    this.mix[AdaptivePolicy.TO_ARRAY],
+                    this.mix[AdaptivePolicy.TRANSFORM],
+                    this.mix[AdaptivePolicy.CHOOSE], this.selectivity,
+                    this.savings, this.conversionCost);
+        }
+    }
+
+    final AdaptivePolicy policy;
+    //Exactly one of these is in use, the other is null
+    ArrayGL<E> array;
+    LinkedGL<E> linked;
+
+    //Running fraction of operations that were toArray, transformAll and
+    //chooseAll, indexed like AdaptivePolicy's operations
+    final double[] mix = new double[3];
+    //Running fraction of elements our choosers kept
+    double selectivity = 1.0;
+    long operations;
+    long lastConversion;
+    final ArrayDeque<Decision> decisions = new ArrayDeque<Decision>();
+
+    /** This constructor starts out as an ArrayGL of the input array, using
+     * the default policy
+     *
+     * @param initialElements, the array to build our list from
+     * **/
+    public AdaptiveGL(E[] initialElements) {
+        this(initialElements, new AdaptivePolicy());
+    }
+
+    /** This constructor starts out as an ArrayGL of the input array, using
+     * the given policy
+     *
+     * @param initialElements, the array to build our list from
+     * @param policy, the cost model deciding when to convert
+     * **/
+    public AdaptiveGL(E[] initialElements, AdaptivePolicy policy) {
+        //Check null case
+        if(initialElements == null || policy == null){
+            throw new NullPointerException();
+        }
+        this.array = new ArrayGL<E>(initialElements);
+        this.policy = policy;
+        this.lastConversion = -policy.cooldown;
+    }
+
+    /** representation tells us which kind of list is holding our elements
+     *
+     * @return AdaptivePolicy.ARRAY or AdaptivePolicy.LINKED
+     * **/
+    public int representation() {
+        return this.array != null ? AdaptivePolicy.ARRAY
+                : AdaptivePolicy.LINKED;
+    }
+
+    /** policy gives us the cost model this list uses, so it can be tuned
+     * while the list is in use
+     *
+     * @return our policy
+     * **/
+    public AdaptivePolicy policy() {
+        return this.policy;
+    }
+
+    /** decisions gives us the most recent conversions, oldest first
+     *
+     * @return a copy of our recent decisions
+     * **/
+    public List<Decision> decisions() {
+        return new ArrayList<Decision>(this.decisions);
+    }
+
+    /** This method turns our list back into an array
+     *
+     * @return the array representation of this list.*/
+    @Override
+    public E[] toArray() {
+        E[] toRet = current().toArray();
+        observe(AdaptivePolicy.TO_ARRAY, toRet.length);
+        return toRet;
+    }
+
+    /** transformAll changes every value within our list to the transformed
+     * version
+     *
+     * @param mt, the class which extends from MyTransformer to draw our
+     *            transform method from
+     * */
+    @Override
+    @SuppressWarnings("rawtypes")
+    public void transformAll(MyTransformer mt) {
+        current().transformAll(mt);
+        observe(AdaptivePolicy.TRANSFORM, size());
+    }
+
+    /** chooseAll filters out values from our list which aren't accepted by
+     * the chooser called, keeping track of what fraction it kept
+     *
+     * @param mc, the class which extends from MyChooser to draw our
+     *            chooser method from
+     * */
+    @Override
+    @SuppressWarnings("rawtypes")
+    public void chooseAll(MyChooser mc) {
+        int before = size();
+        current().chooseAll(mc);
+        kept(before, size());
+    }
+
+    /** isEmpty returns true if our list has 0 elements stored
+     *
+     * @return true if our list is empty, false otherwise
+     * */
+    @Override
+    public boolean isEmpty() {
+        return current().isEmpty();
+    }
+
+    /** pipelineToArray runs a lazy pipeline on the list currently holding
+     * our elements, leaving our list unchanged. It builds an array in one
+     * walk down the list, so it counts as one toArray in our mix.
+     *
+     * @param pipeline, the lazy pipeline to run
+     * @return the elements that made it through every step, in order
+     * */
+    @Override
+    public E[] pipelineToArray(LazyList<E> pipeline) {
+        int size = size();
+        E[] toRet = source().pipelineToArray(pipeline);
+        observe(AdaptivePolicy.TO_ARRAY, size);
+        return toRet;
+    }
+
+    /** pipelineAll runs a lazy pipeline on the list currently holding our
+     * elements, changing our list. It's one walk down the list, so it counts
+     * as one operation in our mix: a chooseAll, with the fraction of
+     * elements it kept added to our selectivity, if any step is a chooser,
+     * otherwise a transformAll.
+     *
+     * @param pipeline, the lazy pipeline to run
+     * */
+    @Override
+    public void pipelineAll(LazyList<E> pipeline) {
+        int before = size();
+        source().pipelineAll(pipeline);
+        for(Object step : pipeline.steps){
+            if(step instanceof MyChooser){
+                kept(before, size());
+                return;
+            }
+        }
+        observe(AdaptivePolicy.TRANSFORM, size());
+    }
+
+    /* The list currently holding our elements */
+    private MyList<E> current() {
+        return this.array != null ? this.array : this.linked;
+    }
+
+    /* The list currently holding our elements, as a LazySource */
+    private LazySource<E> source() {
+        return this.array != null ? this.array : this.linked;
+    }
+
+    private int size() {
+        return this.array != null ? this.array.size : this.linked.size;
+    }
+
+    /* Adds what fraction of elements a filter kept to the running
+     * selectivity, then adds the filter to the running mix */
+    private void kept(int before, int after) {
+        if(before > 0){
+            double decay = this.policy.decay;
+            this.selectivity = this.selectivity * decay
+                    + (double) after / before * (1.0 - decay);
+        }
+        observe(AdaptivePolicy.CHOOSE, after);
+    }
+
+    /* Adds an operation to the running mix, then converts if the policy
+     * says the other kind of list would pay for it */
+    private void observe(int operation, int size) {
+        AdaptivePolicy p = this.policy;
+        for(int i = 0; i < this.mix.length; i += 1){
+            this.mix[i] = this.mix[i] * p.decay
+                    + (i == operation ? 1.0 - p.decay : 0.0);
+        }
+        this.operations += 1;
+        if(size < p.minSize
+                || this.operations - this.lastConversion < p.cooldown){
+            return;
+        }
+        int from = representation();
+        int to = 1 - from;
+        double savings = p.horizon * (p.operationCost(from, this.mix,
+                this.selectivity, size) - p.operationCost(to, this.mix,
+                this.selectivity, size));
+        double cost = p.conversionCost(to, size);
+        if(savings > cost * p.margin){
+            convert();
+            this.lastConversion = this.operations;
+            if(this.decisions.size() == DECISION_LOG){
+                this.decisions.removeFirst();
+            }
+            this.decisions.addLast(new Decision(this.operations, from, to,
+                    size, this.mix, this.selectivity, savings, cost));
+        }
+    }
+
+    /* Moves our elements into the other kind of list */
+    private void convert() {
+        if(this.array != null){
+            this.linked = new LinkedGL<E>(this.array.toArray());
+            this.array = null;
+        } else {
+            this.array = new ArrayGL<E>(this.linked.toArray());
+            this.linked = null;
+        }
+    }
+
+    private static String name(int list) {
+        return list == AdaptivePolicy.ARRAY ? "ArrayGL" : "LinkedGL";
+    }
+}
@@ -0,0 +1,201 @@
+/**
+ * This file holds the cost model AdaptiveGL uses to decide whether its
+ * elements should be kept in an ArrayGL or a LinkedGL. Every number in it
+ * can be changed, so the model can be tuned to a machine and a workload.
+ * **/
+
+/* The model gives each kind of list a cost in nanoseconds per element for
+ * each operation:
+ *
+ *   TO_ARRAY   for toArray
+ *   TRANSFORM  for walking the list in transformAll, not counting the
+ *              transformer itself, which costs the same either way
+ *   CHOOSE     for walking the list in chooseAll, not counting the chooser
+ *   KEEP       for each element chooseAll keeps. An ArrayGL has to copy the
+ *              elements it keeps into a new array, a LinkedGL only relinks
+ *              its nodes
+ *
+ * plus a cost per element of converting from one kind of list to the other.
+ * The defaults come from MyListBenchmark at 100k Integers: walking nodes
+ * costs about twice what walking an array does, and building nodes about
+ * four times what copying an array does. KEEP for an ArrayGL also counts
+ * the new arrays its chooseAll allocates, which the benchmark's short runs
+ * don't pay the garbage collection for. So with the defaults, toArray and
+ * transformAll pull a list towards an ArrayGL, and chooseAll calls that
+ * keep most of the list pull it towards a LinkedGL.
+ *
+ * AdaptiveGL keeps a running mix of which operations it's been asked to do
+ * and what fraction of elements its choosers keep. From those, the model
+ * works out what an average operation costs each kind of list. If the other
+ * kind would save enough over the next horizon operations to pay for
+ * converting margin times over, AdaptiveGL converts. */
+public class AdaptivePolicy {
+
+    //Which kind of list a cost is for
+    public static final int ARRAY = 0;
+    public static final int LINKED = 1;
+
+    //Which operation a cost is for
+    public static final int TO_ARRAY = 0;
+    public static final int TRANSFORM = 1;
+    public static final int CHOOSE = 2;
+    public static final int KEEP = 3;
+
+    //Nanoseconds per element, indexed by kind of list then operation
+    final double[][] costs = {
+            {1.8, 1.0, 1.0, 2.0},
+            {3.3, 2.0, 1.5, 0.0}};
+    //Nanoseconds per element to convert into each kind of list
+    final double[] conversionCosts = {3.3, 8.3};
+    //How many operations ahead we count savings for
+    int horizon = 32;
+    //How many times over the savings have to pay for converting
+    double margin = 2.0;
+    //How much of the running mix carries over from one operation to the
+    //next, closer to 1 means slower to react
+    double decay = 0.8;
+    //Lists smaller than this never convert, it can't be worth it
+    int minSize = 1024;
+    //Operations to wait after converting before we can convert again
+    int cooldown = 8;
+
+    /** setCost changes what the model thinks one operation costs per
+     * element for one kind of list
+     *
+     * @param list, ARRAY or LINKED
+     * @param operation, TO_ARRAY, TRANSFORM, CHOOSE or KEEP
+     * @param nanos, the cost in nanoseconds per element
+     * @return this policy, so more settings can be changed
+     * **/
+    public AdaptivePolicy setCost(int list, int operation, double nanos) {
+        checkNotNegative(nanos);
+        this.costs[list][operation] = nanos;
+        return this;
+    }
+
+    /** setConversionCost changes what the model thinks converting into one
+     * kind of list costs per element
+     *
+     * @param list, the kind of list being converted into, ARRAY or LINKED
+     * @param nanos, the cost in nanoseconds per element
+     * @return this policy, so more settings can be changed
+     * **/
+    public AdaptivePolicy setConversionCost(int list, double nanos) {
+        checkNotNegative(nanos);
+        this.conversionCosts[list] = nanos;
+        return this;
+    }
+
+    /** setHorizon changes how many operations ahead savings are counted
+     *
+     * @param operations, how many operations to count savings over
+     * @return this policy, so more settings can be changed
+     * **/
+    public AdaptivePolicy setHorizon(int operations) {
+        checkPositive(operations);
+        this.horizon = operations;
+        return this;
+    }
+
+    /** setMargin changes how many times over the projected savings have to
+     * pay for a conversion before we convert
+     *
+     * @param margin, at least 1, higher converts less often
+     * @return this policy, so more settings can be changed
+     * **/
+    public AdaptivePolicy setMargin(double margin) {
+        if(margin < 1.0){
+            throw new IllegalArgumentException("Margin must be at least 1: "
+                    + margin);
+        }
+        this.margin = margin;
+        return this;
+    }
+
+    /** setDecay changes how quickly the running mix of operations and
+     * selectivity forgets the past
+     *
+     * @param decay, between 0 for only the last operation and just under 1
+     *              for a very long memory
+     * @return this policy, so more settings can be changed
+     * **/
+    public AdaptivePolicy setDecay(double decay) {
+        if(!(decay >= 0.0 && decay < 1.0)){
+            throw new IllegalArgumentException("Decay must be in [0, 1): "
+                    + decay);
+        }
+        this.decay = decay;
+        return this;
+    }
+
+    /** setMinSize changes the smallest list that will ever convert
+     *
+     * @param elements, the smallest size worth converting
+     * @return this policy, so more settings can be changed
+     * **/
+    public AdaptivePolicy setMinSize(int elements) {
+        if(elements < 0){
+            throw new IllegalArgumentException("Min size can't be negative: "
+                    + elements);
+        }
+        this.minSize = elements;
+        return this;
+    }
+
+    /** setCooldown changes how many operations a list waits after
+     * converting before it can convert again
+     *
+     * @param operations, how many operations to wait
+     * @return this policy, so more settings can be changed
+     * **/
+    public AdaptivePolicy setCooldown(int operations) {
+        if(operations < 0){
+            throw new IllegalArgumentException("Cooldown can't be negative: "
+                    + operations);
+        }
+        this.cooldown = operations;
+        return this;
+    }
+
+    /** operationCost works out what an average operation costs one kind of
+     * list, given the mix of operations and how much choosers keep
+     *
+     * @param list, ARRAY or LINKED
+     * @param mix, the fraction of operations that are TO_ARRAY, TRANSFORM
+     *            and CHOOSE, indexed the same way
+     * @param selectivity, the fraction of elements choosers keep
+     * @param size, how many elements the list has
+     * @return the projected cost in nanoseconds
+     * **/
+    public double operationCost(int list, double[] mix, double selectivity,
+                                int size) {
+        double[] c = this.costs[list];
+        return size * (mix[TO_ARRAY] * c[TO_ARRAY]
+                + mix[TRANSFORM] * c[TRANSFORM]
+                + mix[CHOOSE] * (c[CHOOSE] + selectivity * c[KEEP]));
+    }
+
+    /** conversionCost works out what converting a list into one kind costs
+     *
+     * @param list, the kind of list being converted into, ARRAY or LINKED
+     * @param size, how many elements the list has
+     * @return the projected cost in nanoseconds
+     * **/
+    public double conversionCost(int list, int size) {
+        return size * this.conversionCosts[list];
+    }
+
+    private static void checkNotNegative(double nanos) {
+        if(!(nanos >= 0.0)){
+            throw new IllegalArgumentException("Cost can't be negative: "
+                    + nanos);
+        }
+    }
+
+    private static void checkPositive(int operations) {
+        if(operations < 1){
+            throw new IllegalArgumentException("Must be positive: "
+                    + operations);
+        }
+    }
+}
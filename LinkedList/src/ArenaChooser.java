@@ -0,0 +1,12 @@
+
+/* String choosers that can test a string straight from the UTF-8 bytes a
+ * StringArenaGL keeps it in implement this interface, so the list never has
+ * to make a String to test it. They're still normal choosers too, so they
+ * work on every other list. */
+public interface ArenaChooser extends MyChooser<String> {
+
+	/* Tests the string whose UTF-8 bytes are arena[start] up to
+	 * arena[end - 1], giving the same answer chooseElement would give for
+	 * that string. */
+	boolean chooseElement(byte[] arena, int start, int end);
+}
@@ -0,0 +1,13 @@
+
+/* String transformers that can change a string straight in the UTF-8 bytes
+ * a StringArenaGL keeps it in implement this interface. They're still
+ * normal transformers too, so they work on every other list. */
+public interface ArenaTransformer extends MyTransformer<String> {
+
+	/* Changes the string whose UTF-8 bytes are arena[start] up to
+	 * arena[end - 1] in place, to what transformElement would give back for
+	 * it, and returns true. If the answer wouldn't take exactly the same
+	 * number of bytes, it leaves the bytes alone and returns false, and the
+	 * list calls transformElement on that string instead. */
+	boolean transformInPlace(byte[] arena, int start, int end);
+}
@@ -7,15 +7,47 @@
  * and alter the elements in ways defined by our choosers and transformers
  * **/
 
+import java.util.Arrays;
+import java.util.function.Consumer;
+
 /* This class implements MyList, so it has to override the 4 methods introduced
  * there. This is a generic class, and can be applied to any object. This class
  * will allow us to convert normal arrays to this specific kind of array, and back.
  * We will also be able to call chooser and transformer methods from here, altering
- * the list from within the class in specific ways. */
-public class ArrayGL<E> implements MyList<E> {
+ * the list from within the class in specific ways. It also implements
+ * LazySource, so lazy pipelines run straight over our elements array.
+ * toArray, transformAll and chooseAll all report to ListMetrics, and hand
+ * choosers and transformers our elements in batches, see BatchChooser. With a
+ * change listener, every call that changes our list also hands it a
+ * ListDelta of what changed. Choosers given to addIndex keep a bitmap of the
+ * positions they pick, so chooseAll, query and count can answer from it
+ * without calling them again, see ChooserIndexes. */
+public class ArrayGL<E> implements MyList<E>, LazySource<E> {
 
     E[] elements;
     int size;
+    //When true, transformAll and chooseAll split big lists up across the
+    //ForkJoinPool, see ParallelArrayOps
+    boolean parallel;
+    //When above 0, transformAll runs this many chunks at once on their own
+    //threads, see setBlocking and BlockingTransformOps
+    int blockingConcurrency;
+    int blockingChunkSize;
+    //When not null, our list is made of elements[selection[0]] up to
+    //elements[selection[size - 1]] instead of the first size elements, see
+    //setSelectionMode
+    int[] selection;
+    boolean selectionMode;
+    //When not null, told what every transformAll, chooseAll and pipelineAll
+    //changed, see setChangeListener
+    Consumer<? super ListDelta> changeListener;
+    //When not null, the choosers with an index and their bitmaps, see
+    //addIndex
+    ChooserIndexes indexes;
+
+    //In selection mode, we only pay for copying the chosen elements into a
+    //new array once at most 1 in COMPACT_FRACTION of them are left
+    static final int COMPACT_FRACTION = 8;
 
     /** This constructor simply assigns the input array to our elements field,
      * then gives our size field the size of the input array
@@ -38,71 +70,624 @@ public class ArrayGL<E> implements MyList<E> {
         //wants to throw an error that we don't know if this typecast works,
         //but we know it does because E is an Object, so we can simply suppress
         //this warning
+        ListMetrics.Span span = ListMetrics.begin();
         E[] toRet = (E[])(new Object[this.size]);
-        //Fill toRet array
-        for(int i = 0; i < this.size; i += 1){
-            toRet[i] = this.elements[i];
+        //Fill toRet array, going through our selection if we have one
+        if(this.selection != null){
+            for(int i = 0; i < this.size; i += 1){
+                toRet[i] = this.elements[this.selection[i]];
+            }
+        } else {
+            for(int i = 0; i < this.size; i += 1){
+                toRet[i] = this.elements[i];
+            }
         }
+        ListMetrics.end(span, this, ListMetrics.TO_ARRAY, null, this.size,
+                this.size);
         return toRet;
     }
 
+    /** setParallel turns parallel mode on or off for every later call to
+     * transformAll and chooseAll on this list. Choosers and transformers used
+     * in parallel mode get called from several threads at once.
+     *
+     * @param parallel, true to split big lists up across the ForkJoinPool
+     * */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /** setBlocking turns blocking mode on or off for every later call to
+     * transformAll on this list, using the default concurrency and chunk
+     * size. Blocking mode is for transformers that spend their time waiting
+     * rather than computing, see BlockingTransformOps.
+     *
+     * @param blocking, true to transform many elements at once on their own
+     *                 threads
+     * */
+    public void setBlocking(boolean blocking) {
+        if(blocking){
+            setBlocking(BlockingTransformOps.DEFAULT_CONCURRENCY,
+                    BlockingTransformOps.DEFAULT_CHUNK_SIZE);
+        } else {
+            this.blockingConcurrency = 0;
+        }
+    }
+
+    /** setBlocking turns blocking mode on for every later call to
+     * transformAll on this list. Blocking mode takes priority over parallel
+     * mode.
+     *
+     * @param maxConcurrency, the most chunks to transform at the same time
+     * @param chunkSize, how many elements each thread transforms at once, 1
+     *                  to give every element its own turn
+     * @throws IllegalArgumentException if either isn't positive
+     * */
+    public void setBlocking(int maxConcurrency, int chunkSize) {
+        BlockingTransformOps.checkSettings(maxConcurrency, chunkSize);
+        this.blockingConcurrency = maxConcurrency;
+        this.blockingChunkSize = chunkSize;
+    }
+
+    /** setSelectionMode turns selection mode on or off for this list. In
+     * selection mode, chooseAll doesn't copy the chosen elements into a new
+     * array, it only writes down which positions were chosen, and each later
+     * chooseAll only looks at the positions still chosen. The elements are
+     * copied over for real once only a small fraction of them are left, or
+     * when selection mode is turned back off.
+     *
+     * @param selectionMode, true to only keep track of chosen positions
+     * */
+    public void setSelectionMode(boolean selectionMode) {
+        this.selectionMode = selectionMode;
+        if(!selectionMode){
+            compact();
+        }
+    }
+
+    /** setChangeListener turns change tracking on or off for this list. With
+     * a listener, every later transformAll, chooseAll and lazy pipeline run
+     * on this list hands it a ListDelta once the call is done, saying which
+     * positions were removed or changed. Most calls work that out as they
+     * go, while parallel and blocking calls, and filters answered from our
+     * indexes, copy our elements once before the call and once after it to
+     * compare. A call that throws doesn't hand over anything.
+     *
+     * @param listener, what to tell about each change, or null to stop
+     *                 tracking
+     * */
+    public void setChangeListener(Consumer<? super ListDelta> listener) {
+        this.changeListener = listener;
+    }
+
+    /** addIndex keeps a bitmap of which elements mc picks, calling mc on
+     * every element once now. After that, chooseAll, query and count answer
+     * for mc from the bitmap. chooseAll keeps every bitmap up to date
+     * without calling any chooser, and transformAll only calls each indexed
+     * chooser on the elements it changed, working out which those are the
+     * way a change listener's ListDelta does. Choosers are told apart by
+     * which object they are, so queries have to use the same mc object.
+     * A chooser only belongs in an index if it always gives the same answer
+     * for the same element.
+     *
+     * @param mc, the chooser to index
+     * */
+    public void addIndex(MyChooser<?> mc) {
+        //Check null case
+        if(mc == null){
+            throw new NullPointerException();
+        }
+        if(this.indexes == null){
+            this.indexes = new ChooserIndexes();
+        }
+        this.indexes.bitmaps.put(mc, null);
+        this.indexes.build(mc, contiguous(), this.size);
+    }
+
+    /** removeIndex forgets mc's bitmap, if it has one
+     *
+     * @param mc, the chooser to stop indexing
+     * */
+    public void removeIndex(MyChooser<?> mc) {
+        if(this.indexes != null){
+            this.indexes.bitmaps.remove(mc);
+        }
+    }
+
+    /** query hands back the elements a query picks, in order, leaving this
+     * list unchanged. With every chooser in q indexed, this costs about one
+     * step per 64 elements plus one per element picked.
+     *
+     * @param q, the query to run
+     * @return the elements q picks
+     * */
+    @SuppressWarnings("unchecked")
+    public E[] query(ChooserQuery q) {
+        long[] bits = bitmap(q);
+        E[] toRet = (E[])(new Object[ChooserIndexes.count(bits)]);
+        int at = 0;
+        for(int w = 0; w < bits.length; w += 1){
+            long word = bits[w];
+            while(word != 0){
+                int i = (w << 6) + Long.numberOfTrailingZeros(word);
+                toRet[at] = this.elements[this.selection == null ? i
+                        : this.selection[i]];
+                at += 1;
+                word &= word - 1;
+            }
+        }
+        return toRet;
+    }
+
+    /** count tells us how many elements a query picks, leaving this list
+     * unchanged
+     *
+     * @param q, the query to run
+     * @return the number of elements q picks
+     * */
+    public int count(ChooserQuery q) {
+        return ChooserIndexes.count(bitmap(q));
+    }
+
     /** transformAll attempts to change every value within our ArrayGL to the
-     * transformed version
+     * transformed version, in parallel if this list is set to be
      *
      * @param mt, the class which extends from MyTransformer to draw our
      *            transform method from
      * */
     @Override
-    @SuppressWarnings("unchecked")
     public void transformAll(MyTransformer mt) {
-        //We have to typecast in this for loop to tell the compiler that we are
-        //getting a value of type E to store, compiler would usually throw an
-        //error because of this typecast, so we suppresswarnings to stop that
-        for(int i = 0; i < this.size; i += 1){
-            this.elements[i] = (E) mt.transformElement(this.elements[i]);
+        if(this.blockingConcurrency > 0){
+            transformAllBlocking(mt, this.blockingConcurrency,
+                    this.blockingChunkSize);
+        } else {
+            transformAll(mt, this.parallel);
+        }
+    }
+
+    /** transformAllBlocking changes every value within our ArrayGL to the
+     * transformed version, with up to maxConcurrency chunks of the list
+     * being transformed at once on their own threads. The values stay in
+     * order, and if the transformer throws, the first exception thrown is
+     * thrown again from here once every running chunk has finished, and our
+     * list is left as it was.
+     *
+     * @param mt, the class which extends from MyTransformer to draw our
+     *            transform method from
+     * @param maxConcurrency, the most chunks to transform at the same time
+     * @param chunkSize, how many elements each thread transforms at once
+     * @throws IllegalArgumentException if maxConcurrency or chunkSize isn't
+     * positive
+     * */
+    @SuppressWarnings("rawtypes")
+    public void transformAllBlocking(MyTransformer mt, int maxConcurrency,
+                                     int chunkSize) {
+        ListMetrics.Span span = ListMetrics.begin();
+        Object[] before = valuesBefore(true);
+        //The workers transform one run of values in place, so they get a copy
+        //of our elements, and we only put it back once every chunk is done
+        compact();
+        Object[] copy = Arrays.copyOf(this.elements, this.size);
+        BlockingTransformOps.transformAll(copy, this.size, mt,
+                maxConcurrency, chunkSize);
+        System.arraycopy(copy, 0, this.elements, 0, this.size);
+        if(before != null){
+            changed(ListDelta.transformed(before, values(), this.size));
+        }
+        ListMetrics.end(span, this, ListMetrics.TRANSFORM_ALL, mt, this.size,
+                this.size);
+    }
+
+    /** transformAll attempts to change every value within our ArrayGL to the
+     * transformed version. Lists smaller than the parallel threshold are
+     * always done on this thread, since splitting them up costs more than
+     * it saves.
+     *
+     * @param mt, the class which extends from MyTransformer to draw our
+     *            transform method from
+     * @param parallel, true to split this call up across the ForkJoinPool
+     * */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void transformAll(MyTransformer mt, boolean parallel) {
+        ListMetrics.Span span = ListMetrics.begin();
+        Object[] before = null;
+        //On this thread we can write down what changed as we go, instead of
+        //copying our whole list before and after to compare
+        ListDelta.Recorder recorder = null;
+        if(parallel && this.size >= ParallelArrayOps.PARALLEL_THRESHOLD){
+            before = valuesBefore(true);
+            compact();
+            ParallelArrayOps.transformAll(this.elements, this.size, mt);
+        } else if(this.selection != null){
+            recorder = recorder(true);
+            //Only the chosen positions are part of our list, the rest are left
+            //alone, so we gather them up a batch at a time, transform the
+            //batch and put it back
+            BatchTransformer<E> batch = BatchTransformer.adapt(mt);
+            Object[] gathered = new Object[Math.min(this.size,
+                    BatchChooser.BATCH_SIZE)];
+            for(int first = 0; first < this.size;
+                    first += BatchChooser.BATCH_SIZE){
+                int count = Math.min(BatchChooser.BATCH_SIZE,
+                        this.size - first);
+                for(int j = 0; j < count; j += 1){
+                    gathered[j] = this.elements[this.selection[first + j]];
+                }
+                batch.transformBatch(gathered, 0, count);
+                for(int j = 0; j < count; j += 1){
+                    int index = this.selection[first + j];
+                    if(recorder != null){
+                        recorder.transformed(first + j, this.elements[index],
+                                gathered[j]);
+                    }
+                    this.elements[index] = (E) gathered[j];
+                }
+            }
+        } else {
+            recorder = recorder(true);
+            transformRun(BatchTransformer.adapt(mt), recorder);
+        }
+        if(before != null){
+            changed(ListDelta.transformed(before, values(), this.size));
+        } else if(recorder != null){
+            changed(recorder.finish(this.size, this.size));
+        }
+        ListMetrics.end(span, this, ListMetrics.TRANSFORM_ALL, mt, this.size,
+                this.size);
+    }
+
+    /* Transforms our elements in place when they're already one run. Without
+     * a recorder the transformer can change them all in one call, with one
+     * each batch's old values are kept just long enough to compare. */
+    private void transformRun(BatchTransformer<E> batch,
+                              ListDelta.Recorder recorder) {
+        if(recorder == null){
+            batch.transformBatch(this.elements, 0, this.size);
+            return;
+        }
+        Object[] old = new Object[Math.min(this.size,
+                BatchChooser.BATCH_SIZE)];
+        for(int first = 0; first < this.size;
+                first += BatchChooser.BATCH_SIZE){
+            int count = Math.min(BatchChooser.BATCH_SIZE, this.size - first);
+            System.arraycopy(this.elements, first, old, 0, count);
+            batch.transformBatch(this.elements, first, first + count);
+            for(int j = 0; j < count; j += 1){
+                recorder.transformed(first + j, old[j],
+                        this.elements[first + j]);
+            }
         }
     }
 
     /** chooseAll will filter out values from our ArrayGL which aren't accepted
-     * by the Chooser class called
+     * by the Chooser class called, in parallel if this list is set to be
      *
      * @param mc, the class which extends from MyChooser to draw our
      *            chooser method from
      * */
     @Override
-    @SuppressWarnings("unchecked")
     public void chooseAll(MyChooser mc) {
-        //Initialize newSize and OldElementsIndex to be defined outside of for
-        //loops in this method
+        chooseAll(mc, this.parallel);
+    }
+
+    /** chooseAll will filter out values from our ArrayGL which aren't accepted
+     * by the Chooser class called. The kept values stay in the same order
+     * either way, and lists smaller than the parallel threshold are always
+     * done on this thread.
+     *
+     * @param mc, the class which extends from MyChooser to draw our
+     *            chooser method from
+     * @param parallel, true to split this call up across the ForkJoinPool
+     * */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void chooseAll(MyChooser mc, boolean parallel) {
+        ListMetrics.Span span = ListMetrics.begin();
+        int oldSize = this.size;
+        Object[] before = null;
+        ListDelta.Recorder recorder = null;
+        if(hasIndexes()){
+            before = valuesBefore(false);
+            //Our bitmaps have to be squeezed down to the positions left, so
+            //we need the chosen positions as a bitmap too
+            keep(bitmap(mc));
+        } else if(parallel && this.size >= ParallelArrayOps.PARALLEL_THRESHOLD){
+            before = valuesBefore(false);
+            compact();
+            this.elements = (E[]) ParallelArrayOps.chooseAll(this.elements,
+                    this.size, mc);
+            this.size = this.elements.length;
+        } else {
+            //Write down which positions were chosen, calling the chooser only
+            //once for each element still in our list, and what was removed
+            //as we go if we need a delta
+            recorder = recorder(false);
+            select(mc, recorder);
+            //Outside of selection mode, we copy the chosen elements into a new
+            //array right away. In selection mode, we wait until only a few are
+            //left so back to back chooseAll calls don't copy anything
+            if(!this.selectionMode
+                    || this.size <= this.selection.length / COMPACT_FRACTION){
+                compact();
+            }
+        }
+        if(before != null){
+            changed(ListDelta.chosen(before, oldSize, values(), this.size));
+        } else if(recorder != null){
+            changed(recorder.finish(oldSize, this.size));
+        }
+        ListMetrics.end(span, this, ListMetrics.CHOOSE_ALL, mc, oldSize,
+                this.size);
+    }
+
+    /** chooseAll filters out the values of our ArrayGL a query doesn't
+     * pick. The choosers in q that have an index aren't called at all.
+     *
+     * @param q, the query to filter with
+     * */
+    public void chooseAll(ChooserQuery q) {
+        ListMetrics.Span span = ListMetrics.begin();
+        int oldSize = this.size;
+        Object[] before = valuesBefore(false);
+        keep(bitmap(q));
+        if(before != null){
+            changed(ListDelta.chosen(before, oldSize, values(), this.size));
+        }
+        ListMetrics.end(span, this, ListMetrics.CHOOSE_ALL, q, oldSize,
+                this.size);
+    }
+
+    /** keep narrows our list down to the positions set in kept, squeezing
+     * our bitmaps down to match, and copies the kept elements into a new
+     * array by the same rule chooseAll uses
+     *
+     * @param kept, the bitmap of positions to keep
+     * */
+    private void keep(long[] kept) {
+        //Our kept positions only ever move towards the front, so we can
+        //narrow a selection we already have down in place
+        int[] chosen = this.selection == null ? new int[this.size]
+                : this.selection;
         int newSize = 0;
-        int oldElementsIndex = 0;
-        //First, this for loop tells us the size of the new array we need to
-        //create to store our filtered elements
-        for(int i = 0; i < this.size; i += 1){
-            if(mc.chooseElement(this.elements[i])){
+        for(int w = 0; w < kept.length; w += 1){
+            long word = kept[w];
+            while(word != 0){
+                int i = (w << 6) + Long.numberOfTrailingZeros(word);
+                chosen[newSize] = this.selection == null ? i
+                        : this.selection[i];
                 newSize += 1;
+                word &= word - 1;
             }
         }
-        //Create a new array to store our filtered elements in
-        E[] toReplace = (E[]) (new Object[newSize]);
-        //This for loop puts the elements we want to keep in our array to replace
-        for(int i = 0; i < newSize; i += 1){
-            //This for loop keeps track of the elements that have already been
-            //added to our filtered array so we get no repeats
-            for(int j = oldElementsIndex; j < this.size; j += 1){
-                if(mc.chooseElement(this.elements[j])){
-                    toReplace[i] = this.elements[j];
-                    //The next time we get to this loop, we start searching
-                    //from the element after the one we just added to our updated
-                    //array
-                    oldElementsIndex = j + 1;
-                    break;
+        if(this.indexes != null){
+            this.indexes.removed(kept, newSize);
+        }
+        this.selection = chosen;
+        this.size = newSize;
+        if(!this.selectionMode
+                || this.size <= this.selection.length / COMPACT_FRACTION){
+            compact();
+        }
+    }
+
+    /* The bitmap of the positions mc picks, from our index if it has an up
+     * to date one, otherwise built now and kept if mc is indexed. It's ours,
+     * so it mustn't be changed. */
+    private long[] bitmap(MyChooser<?> mc) {
+        long[] bits = this.indexes == null ? null : this.indexes.get(mc);
+        if(bits != null){
+            return bits;
+        }
+        if(this.indexes == null){
+            return ChooserIndexes.bitmapOf(mc, contiguous(), this.size);
+        }
+        return this.indexes.build(mc, contiguous(), this.size);
+    }
+
+    /* The bitmap of the positions q picks, which is a new one */
+    private long[] bitmap(ChooserQuery q) {
+        //Check null case
+        if(q == null){
+            throw new NullPointerException();
+        }
+        return q.evaluate(this::bitmap, this.size);
+    }
+
+    /* True if we have at least one indexed chooser */
+    private boolean hasIndexes() {
+        return this.indexes != null && !this.indexes.bitmaps.isEmpty();
+    }
+
+    /* Brings our indexes up to date with delta and hands it to our change
+     * listener, whichever of them we have */
+    private void changed(ListDelta delta) {
+        if(this.indexes != null){
+            this.indexes.changed(delta, this.size);
+        }
+        if(this.changeListener != null){
+            this.changeListener.accept(delta);
+        }
+    }
+
+    /** select narrows down our selection to the positions the chooser keeps,
+     * making a selection of every position first if we don't have one yet.
+     * The chooser tests our elements a batch at a time, see BatchChooser.
+     *
+     * @param mc, the chooser to test our elements with
+     * @param recorder, where to write down the elements not kept, or null
+     * */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void select(MyChooser mc, ListDelta.Recorder recorder) {
+        BatchChooser<E> batch = BatchChooser.adapt(mc);
+        int batchSize = BatchChooser.BATCH_SIZE;
+        long[] bits = new long[batchSize / 64];
+        //Without a selection our elements are one run the chooser can test in
+        //place, with one we gather the chosen positions up first
+        int[] chosen = this.selection;
+        Object[] gathered = null;
+        if(chosen == null){
+            chosen = new int[this.size];
+        } else {
+            gathered = new Object[Math.min(this.size, batchSize)];
+        }
+        int newSize = 0;
+        for(int start = 0; start < this.size; start += batchSize){
+            int count = Math.min(batchSize, this.size - start);
+            if(this.selection == null){
+                batch.chooseBatch(this.elements, start, start + count, bits);
+            } else {
+                for(int j = 0; j < count; j += 1){
+                    gathered[j] = this.elements[this.selection[start + j]];
+                }
+                batch.chooseBatch(gathered, 0, count, bits);
+            }
+            //Our chosen positions only ever move towards the front, so we can
+            //narrow the selection down in place
+            for(int j = 0; j < count; j += 1){
+                int index = this.selection == null ? start + j
+                        : this.selection[start + j];
+                if((bits[j >>> 6] & (1L << j)) != 0){
+                    chosen[newSize] = index;
+                    newSize += 1;
+                } else if(recorder != null){
+                    recorder.removed(start + j, this.elements[index]);
                 }
             }
         }
+        this.selection = chosen;
         this.size = newSize;
+    }
+
+    /* Our elements in order, copied, if we have a change listener to work
+     * out a delta for, or are transforming and have indexes to update,
+     * otherwise null */
+    private Object[] valuesBefore(boolean transforming) {
+        return recording(transforming) ? values() : null;
+    }
+
+    /* A new recorder, in the same cases valuesBefore gives a copy, otherwise
+     * null */
+    private ListDelta.Recorder recorder(boolean transforming) {
+        return recording(transforming) ? new ListDelta.Recorder() : null;
+    }
+
+    /* True if we have a change listener to work out a delta for, or are
+     * transforming and have indexes to update */
+    private boolean recording(boolean transforming) {
+        return this.changeListener != null || (transforming && hasIndexes());
+    }
+
+    /* Our elements in order as one run, which is our elements array itself
+     * when we don't have a selection, so don't change it */
+    private Object[] contiguous() {
+        return this.selection == null ? this.elements : values();
+    }
+
+    /* Copies our elements out in order, going through our selection if we
+     * have one */
+    private Object[] values() {
+        if(this.selection == null){
+            return Arrays.copyOf(this.elements, this.size, Object[].class);
+        }
+        Object[] values = new Object[this.size];
+        for(int i = 0; i < this.size; i += 1){
+            values[i] = this.elements[this.selection[i]];
+        }
+        return values;
+    }
+
+    /** compact copies the chosen elements into a new array of exactly the
+     * right size and forgets our selection. It does nothing if we don't have
+     * a selection.
+     * */
+    @SuppressWarnings("unchecked")
+    private void compact() {
+        if(this.selection == null){
+            return;
+        }
+        E[] toReplace = (E[]) (new Object[this.size]);
+        for(int i = 0; i < this.size; i += 1){
+            toReplace[i] = this.elements[this.selection[i]];
+        }
         this.elements = toReplace;
-        //Update our instance variables
+        this.selection = null;
+    }
+
+    /** pipelineToArray runs every step of a lazy pipeline over our elements
+     * in one pass, putting what's left into a new array and leaving this
+     * list unchanged
+     *
+     * @param pipeline, the lazy pipeline to run
+     * @return the elements that made it through every step, in order
+     * */
+    @Override
+    @SuppressWarnings("unchecked")
+    public E[] pipelineToArray(LazyList<E> pipeline) {
+        //We can't know how many elements survive without running the steps,
+        //so we fill an array big enough for all of them and trim it at the end
+        E[] toRet = (E[])(new Object[this.size]);
+        int newSize = 0;
+        for(int i = 0; i < this.size; i += 1){
+            int index = this.selection == null ? i : this.selection[i];
+            Object out = pipeline.apply(this.elements[index]);
+            if(out != LazyList.DROPPED){
+                toRet[newSize] = (E) out;
+                newSize += 1;
+            }
+        }
+        return newSize == this.size ? toRet : Arrays.copyOf(toRet, newSize);
+    }
+
+    /** pipelineAll runs every step of a lazy pipeline over our elements in one
+     * pass, sliding the elements that make it through down in place, and
+     * writing down what changed as it goes if we have a change listener.
+     * Our indexes are built again the next time they're used. If a step
+     * throws, the elements already run keep their changes and the rest are
+     * left as they were, the way transformAll leaves them.
+     *
+     * @param pipeline, the lazy pipeline to run
+     * */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void pipelineAll(LazyList<E> pipeline) {
+        //Sliding elements down in place only works on a plain array
+        compact();
+        ListDelta.Recorder recorder = this.changeListener == null ? null
+                : new ListDelta.Recorder();
+        int oldSize = this.size;
+        int newSize = 0;
+        int i = 0;
+        try {
+            for(; i < oldSize; i += 1){
+                E before = this.elements[i];
+                Object out = pipeline.apply(before);
+                if(out != LazyList.DROPPED){
+                    this.elements[newSize] = (E) out;
+                    newSize += 1;
+                    if(recorder != null){
+                        recorder.transformed(i, before, out);
+                    }
+                } else if(recorder != null){
+                    recorder.removed(i, before);
+                }
+            }
+        } finally {
+            //If a step threw, the elements it never got to slide down behind
+            //the ones it did, so no element is lost or seen twice
+            int rest = oldSize - i;
+            System.arraycopy(this.elements, i, this.elements, newSize, rest);
+            //Clear out the leftovers past our new size so they can be
+            //collected
+            Arrays.fill(this.elements, newSize + rest, oldSize, null);
+            this.size = newSize + rest;
+            //Elements were removed and changed at once, so our bitmaps are
+            //simply built again the next time they're used
+            if(this.indexes != null){
+                this.indexes.invalidate();
+            }
+        }
+        if(recorder != null){
+            this.changeListener.accept(recorder.finish(oldSize, newSize));
+        }
     }
 
     /** isEmpty returns true if our ArrayGL has 0 elements stored
@@ -0,0 +1,83 @@
+
+/* Choosers that can test a whole run of elements in one call implement this
+ * interface. ArrayGL and LinkedGL hand them whole runs of elements, at most
+ * BATCH_SIZE at a time when they have to copy the elements out first, so
+ * the call to chooseElement happens inside the chooser's own loop,
+ * where the JIT knows exactly which chooseElement it is and can inline it,
+ * instead of at one call site in the list shared by every chooser we have.
+ * Each chooseBatch just hands itself to chooseEach, which is small enough to
+ * be inlined into every one of them, so each class still ends up with a loop
+ * of its own. A default method would be shared and never inlined that way,
+ * which is why chooseBatch isn't one. */
+public interface BatchChooser<E> extends MyChooser<E> {
+
+	//The most elements our lists copy out of their storage for one call
+	int BATCH_SIZE = 1024;
+
+	/** chooseBatch tests src[from] up to src[to - 1], setting bit (i - from)
+	 * of outBits, counting from the low bit of outBits[0], if src[i] is
+	 * chosen and clearing it if not. Every word of outBits that covers part
+	 * of the run gets written. src is an Object[] rather than an E[] because
+	 * that's what our lists really store underneath.
+	 *
+	 * @param src, the elements to test
+	 * @param from, the first index to test
+	 * @param to, one past the last index to test
+	 * @param outBits, where to write one bit per tested element
+	 * **/
+	void chooseBatch(Object[] src, int from, int to, long[] outBits);
+
+	/** chooseEach is the loop behind every chooseBatch, calling mc once per
+	 * element and filling in outBits one 64 bit word at a time
+	 *
+	 * @param mc, the chooser to test each element with
+	 * @param src, the elements to test
+	 * @param from, the first index to test
+	 * @param to, one past the last index to test
+	 * @param outBits, where to write one bit per tested element
+	 * **/
+	@SuppressWarnings("unchecked")
+	static <E> void chooseEach(MyChooser<E> mc, Object[] src, int from,
+							   int to, long[] outBits) {
+		for(int start = from; start < to; start += 64){
+			int end = Math.min(to, start + 64);
+			long word = 0;
+			for(int i = start; i < end; i += 1){
+				if(mc.chooseElement((E) src[i])){
+					word |= 1L << (i - start);
+				}
+			}
+			outBits[(start - from) >>> 6] = word;
+		}
+	}
+
+	/* Hands back mc itself if it can already test batches, otherwise wraps it
+	 * so it can */
+	@SuppressWarnings("unchecked")
+	static <E> BatchChooser<E> adapt(MyChooser<E> mc) {
+		if(mc instanceof BatchChooser){
+			return (BatchChooser<E>) mc;
+		}
+		return new Adapter<E>(mc);
+	}
+
+	/* Tests a batch by calling a plain MyChooser once per element */
+	final class Adapter<E> implements BatchChooser<E> {
+		final MyChooser<E> chooser;
+
+		Adapter(MyChooser<E> chooser) {
+			this.chooser = chooser;
+		}
+
+		@Override
+		public boolean chooseElement(E e) {
+			return this.chooser.chooseElement(e);
+		}
+
+		@Override
+		public void chooseBatch(Object[] src, int from, int to,
+								long[] outBits) {
+			BatchChooser.chooseEach(this.chooser, src, from, to, outBits);
+		}
+	}
+}
@@ -0,0 +1,64 @@
+
+/* Transformers that can change a whole run of elements in one call implement
+ * this interface, for the same reason as BatchChooser: ArrayGL and LinkedGL
+ * hand them whole runs of elements, so the call to transformElement happens
+ * inside the transformer's own loop where the JIT can inline it. Every class
+ * hands itself to transformEach, which gets inlined into its transformBatch,
+ * so each one still ends up with a loop of its own. */
+public interface BatchTransformer<E> extends MyTransformer<E> {
+
+	/** transformBatch replaces src[from] up to src[to - 1] with their
+	 * transformed versions. src is an Object[] rather than an E[] because
+	 * that's what our lists really store underneath.
+	 *
+	 * @param src, the elements to transform
+	 * @param from, the first index to transform
+	 * @param to, one past the last index to transform
+	 * **/
+	void transformBatch(Object[] src, int from, int to);
+
+	/** transformEach is the loop behind every transformBatch, replacing each
+	 * element with what mt gives back for it
+	 *
+	 * @param mt, the transformer to change each element with
+	 * @param src, the elements to transform
+	 * @param from, the first index to transform
+	 * @param to, one past the last index to transform
+	 * **/
+	@SuppressWarnings("unchecked")
+	static <E> void transformEach(MyTransformer<E> mt, Object[] src, int from,
+								  int to) {
+		for(int i = from; i < to; i += 1){
+			src[i] = mt.transformElement((E) src[i]);
+		}
+	}
+
+	/* Hands back mt itself if it can already transform batches, otherwise
+	 * wraps it so it can */
+	@SuppressWarnings("unchecked")
+	static <E> BatchTransformer<E> adapt(MyTransformer<E> mt) {
+		if(mt instanceof BatchTransformer){
+			return (BatchTransformer<E>) mt;
+		}
+		return new Adapter<E>(mt);
+	}
+
+	/* Transforms a batch by calling a plain MyTransformer once per element */
+	final class Adapter<E> implements BatchTransformer<E> {
+		final MyTransformer<E> transformer;
+
+		Adapter(MyTransformer<E> transformer) {
+			this.transformer = transformer;
+		}
+
+		@Override
+		public E transformElement(E e) {
+			return this.transformer.transformElement(e);
+		}
+
+		@Override
+		public void transformBatch(Object[] src, int from, int to) {
+			BatchTransformer.transformEach(this.transformer, src, from, to);
+		}
+	}
+}
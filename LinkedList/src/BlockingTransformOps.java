@@ -0,0 +1,166 @@
+/**
+ * This file holds the version of transformAll for transformers that spend
+ * most of their time waiting, like ones that look each element up in a
+ * store. Instead of waiting for one element at a time, we wait for many at
+ * once, each on its own thread.
+ * **/
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/* This class only has static helpers, ArrayGL and LinkedGL call into it when
+ * blocking mode is on. The work is cut into chunks of chunkSize elements,
+ * and at most maxConcurrency workers each take the next chunk not yet
+ * started until there are none left. Every chunk is transformed in place in
+ * the array, so the results end up in the original order no matter which
+ * chunk finishes first.
+ *
+ * The workers run on virtual threads when the JVM has them (Java 21 on), so
+ * a blocked transformer doesn't hold up a platform thread. We look the
+ * virtual thread executor up by name, since we're compiled for an older
+ * Java, and fall back to a shared pool of daemon platform threads, which
+ * works the same way as long as maxConcurrency stays reasonable. Either way
+ * the transformer gets called from several threads at once, so it must not
+ * keep any per-call state of its own. */
+final class BlockingTransformOps {
+
+    //Used by setBlocking when no concurrency or chunk size is given
+    static final int DEFAULT_CONCURRENCY = 64;
+    static final int DEFAULT_CHUNK_SIZE = 1;
+
+    //Where the workers run, see usesVirtualThreads
+    static final ExecutorService EXECUTOR = newExecutor();
+    static final boolean VIRTUAL = !(EXECUTOR instanceof
+            java.util.concurrent.ThreadPoolExecutor);
+
+    private BlockingTransformOps() {
+    }
+
+    /* Makes a virtual thread per task executor if this JVM has one, otherwise
+     * a pool of daemon threads that grows as needed */
+    private static ExecutorService newExecutor() {
+        try {
+            Method virtual = Executors.class.getMethod(
+                    "newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) virtual.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Executors.newCachedThreadPool(task -> {
+                Thread t = new Thread(task, "MyList-blocking");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    /** usesVirtualThreads tells us whether the workers run on virtual threads
+     * or on the fallback pool of platform threads
+     *
+     * @return true if this JVM has virtual threads
+     * **/
+    static boolean usesVirtualThreads() {
+        return VIRTUAL;
+    }
+
+    /** transformAll changes every one of the first size elements to its
+     * transformed version, with up to maxConcurrency chunks in flight at
+     * once. If the transformer throws, no new chunks are started, we wait
+     * for the ones already running, and then the first exception thrown is
+     * thrown again here. Elements of chunks that never ran keep their old
+     * values.
+     *
+     * @param elements, the array to transform in place
+     * @param size, how many elements of the array are in use
+     * @param mt, the transformer to apply
+     * @param maxConcurrency, the most chunks to transform at the same time
+     * @param chunkSize, how many elements each worker takes at once
+     * @throws IllegalArgumentException if maxConcurrency or chunkSize isn't
+     * positive
+     * **/
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static void transformAll(Object[] elements, int size, MyTransformer mt,
+                             int maxConcurrency, int chunkSize) {
+        checkSettings(maxConcurrency, chunkSize);
+        BatchTransformer<?> batch = BatchTransformer.adapt(mt);
+        int chunks = (int) (((long) size + chunkSize - 1) / chunkSize);
+        int workers = Math.min(maxConcurrency, chunks);
+        if(workers <= 1){
+            //Nothing to overlap, so don't pay for handing the work off
+            batch.transformBatch(elements, 0, size);
+            return;
+        }
+        AtomicInteger nextChunk = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Runnable worker = () -> {
+            //Keep taking chunks until they run out or someone fails
+            int chunk;
+            while(failure.get() == null
+                    && (chunk = nextChunk.getAndIncrement()) < chunks){
+                long from = (long) chunk * chunkSize;
+                int to = (int) Math.min(size, from + chunkSize);
+                try {
+                    batch.transformBatch(elements, (int) from, to);
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+            }
+        };
+        Future<?>[] running = new Future<?>[workers];
+        for(int i = 0; i < workers; i += 1){
+            running[i] = EXECUTOR.submit(worker);
+        }
+        //Workers catch everything themselves, so this only waits. If we're
+        //interrupted we still wait, so no worker writes to the array after
+        //we return, then pass the interrupt on
+        boolean interrupted = false;
+        for(Future<?> f : running){
+            while(true){
+                try {
+                    f.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    failure.compareAndSet(null, e);
+                } catch (ExecutionException e) {
+                    failure.compareAndSet(null, e.getCause());
+                    break;
+                }
+            }
+        }
+        if(interrupted){
+            Thread.currentThread().interrupt();
+        }
+        rethrow(failure.get());
+    }
+
+    /* Checks the settings for blocking mode make sense */
+    static void checkSettings(int maxConcurrency, int chunkSize) {
+        if(maxConcurrency < 1 || chunkSize < 1){
+            throw new IllegalArgumentException("Blocking mode needs a positive"
+                    + " concurrency and chunk size, got " + maxConcurrency
+                    + " and " + chunkSize);
+        }
+    }
+
+    /* Throws the first failure as it is, wrapping it only if it's checked */
+    private static void rethrow(Throwable t) {
+        if(t == null){
+            return;
+        }
+        if(t instanceof RuntimeException){
+            throw (RuntimeException) t;
+        }
+        if(t instanceof Error){
+            throw (Error) t;
+        }
+        if(t instanceof InterruptedException){
+            throw new IllegalStateException("transformAll was interrupted",
+                    t);
+        }
+        throw new IllegalStateException(t);
+    }
+}
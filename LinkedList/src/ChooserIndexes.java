@@ -0,0 +1,180 @@
+/**
+ * This file holds the indexed choosers of an ArrayGL, each with a bitmap of
+ * which positions of the list it picks, and the bitmap helpers ArrayGL uses
+ * to build them and keep them up to date.
+ * **/
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/* Bit i of a bitmap, counting from the low bit of word 0, is set if the
+ * chooser picks position i of the list. Choosers are told apart by which
+ * object they are, so the same chooser object has to be used to index and
+ * to query. A bitmap is null while it's out of date, and is built again the
+ * next time it's needed.
+ *
+ * When chooseAll removes elements, every bitmap is squeezed down to the
+ * positions left, without calling any chooser. When transformAll changes a
+ * few elements, each chooser is only called again on those. If it changes
+ * more than 1 in CHANGED_FRACTION of them, the bitmaps are thrown out
+ * instead, since calling every chooser on that many elements could cost
+ * more than building them again only if they're used. */
+final class ChooserIndexes {
+
+    static final int CHANGED_FRACTION = 4;
+
+    final IdentityHashMap<MyChooser<?>, long[]> bitmaps =
+            new IdentityHashMap<MyChooser<?>, long[]>();
+    //How many bitmaps we've built from scratch, for tests and tuning
+    int builds;
+
+    /** words tells us how many longs a bitmap of size positions takes
+     *
+     * @param size, how many positions
+     * @return the number of words
+     * **/
+    static int words(int size) {
+        return (size + 63) >>> 6;
+    }
+
+    /** bitmapOf calls a chooser on every value, a batch at a time
+     *
+     * @param mc, the chooser to call
+     * @param values, the values, in list order
+     * @param size, how many of values are in the list
+     * @return the bitmap of the positions mc picks
+     * **/
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static long[] bitmapOf(MyChooser mc, Object[] values, int size) {
+        BatchChooser<Object> batch = BatchChooser.adapt(mc);
+        long[] bits = new long[words(size)];
+        long[] batchBits = new long[BatchChooser.BATCH_SIZE / 64];
+        for(int start = 0; start < size; start += BatchChooser.BATCH_SIZE){
+            int end = Math.min(size, start + BatchChooser.BATCH_SIZE);
+            batch.chooseBatch(values, start, end, batchBits);
+            System.arraycopy(batchBits, 0, bits, start >>> 6,
+                    words(end - start));
+        }
+        //A partly used last word may have bits set past our last element
+        if((size & 63) != 0){
+            bits[bits.length - 1] &= (1L << (size & 63)) - 1;
+        }
+        return bits;
+    }
+
+    /** count tells us how many positions a bitmap picks
+     *
+     * @param bits, the bitmap
+     * @return the number of set bits
+     * **/
+    static int count(long[] bits) {
+        int count = 0;
+        for(long word : bits){
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /** squeeze keeps only the bits of bits at positions kept picks, moved
+     * down so they're numbered among the kept positions only
+     *
+     * @param bits, the bitmap to squeeze
+     * @param kept, the bitmap of positions that are left
+     * @param newSize, how many positions kept picks
+     * @return the new bitmap
+     * **/
+    static long[] squeeze(long[] bits, long[] kept, int newSize) {
+        long[] squeezed = new long[words(newSize)];
+        int at = 0;
+        for(int w = 0; w < kept.length; w += 1){
+            long keep = kept[w];
+            long word = bits[w];
+            //Go through the kept positions in this word, lowest first
+            while(keep != 0){
+                long lowest = keep & -keep;
+                if((word & lowest) != 0){
+                    squeezed[at >>> 6] |= 1L << at;
+                }
+                at += 1;
+                keep ^= lowest;
+            }
+        }
+        return squeezed;
+    }
+
+    /* True if mc has an index, up to date or not */
+    boolean contains(MyChooser<?> mc) {
+        return this.bitmaps.containsKey(mc);
+    }
+
+    /* mc's bitmap, or null if it has no index or it's out of date */
+    long[] get(MyChooser<?> mc) {
+        return this.bitmaps.get(mc);
+    }
+
+    /* Builds mc's bitmap and keeps it, if mc has an index */
+    long[] build(MyChooser<?> mc, Object[] values, int size) {
+        long[] bits = bitmapOf(mc, values, size);
+        this.builds += 1;
+        if(this.bitmaps.containsKey(mc)){
+            this.bitmaps.put(mc, bits);
+        }
+        return bits;
+    }
+
+    /** removed squeezes every up to date bitmap down to the positions left
+     * after a chooseAll
+     *
+     * @param kept, the bitmap of positions that are left
+     * @param newSize, how many there are
+     * **/
+    void removed(long[] kept, int newSize) {
+        for(Map.Entry<MyChooser<?>, long[]> e : this.bitmaps.entrySet()){
+            if(e.getValue() != null){
+                e.setValue(squeeze(e.getValue(), kept, newSize));
+            }
+        }
+    }
+
+    /** changed brings every up to date bitmap up to date after a
+     * transformAll, calling each chooser only on the values that changed
+     *
+     * @param delta, what the transformAll changed
+     * @param size, how many elements the list has
+     * **/
+    @SuppressWarnings("unchecked")
+    void changed(ListDelta delta, int size) {
+        if(delta.changedCount() == 0){
+            return;
+        }
+        boolean rebuild = delta.changedCount() > size / CHANGED_FRACTION;
+        int[] positions = rebuild ? null : delta.changedPositions();
+        Object[] values = rebuild ? null : delta.newValues;
+        for(Map.Entry<MyChooser<?>, long[]> e : this.bitmaps.entrySet()){
+            long[] bits = e.getValue();
+            if(bits == null){
+                continue;
+            }
+            if(rebuild){
+                e.setValue(null);
+                continue;
+            }
+            MyChooser<Object> mc = (MyChooser<Object>) e.getKey();
+            for(int i = 0; i < positions.length; i += 1){
+                int p = positions[i];
+                if(mc.chooseElement(values[i])){
+                    bits[p >>> 6] |= 1L << p;
+                } else {
+                    bits[p >>> 6] &= ~(1L << p);
+                }
+            }
+        }
+    }
+
+    /* Marks every bitmap out of date */
+    void invalidate() {
+        for(Map.Entry<MyChooser<?>, long[]> e : this.bitmaps.entrySet()){
+            e.setValue(null);
+        }
+    }
+}
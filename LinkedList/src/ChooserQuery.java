@@ -0,0 +1,149 @@
+/**
+ * This file holds a query made of choosers joined with and, or and not, that
+ * an ArrayGL answers from the bitmaps of its indexed choosers.
+ * **/
+
+import java.util.function.Function;
+
+/* This class is made with ChooserQuery.where, for example
+ * ChooserQuery.where(a).and(b).or(ChooserQuery.where(c).not()). A query
+ * never calls its choosers itself, the list it's run on hands it a bitmap of
+ * which positions each chooser picks, from its indexes if it has one, and
+ * the query joins those bitmaps a word at a time. Every method hands back a
+ * new query, so one query can be reused and built on. */
+public final class ChooserQuery {
+
+    //What kind of query this is
+    private static final int WHERE = 0;
+    private static final int AND = 1;
+    private static final int OR = 2;
+    private static final int NOT = 3;
+
+    private final int kind;
+    //Only for WHERE
+    private final MyChooser<?> chooser;
+    //Only for AND, OR and NOT, which only uses left
+    private final ChooserQuery left;
+    private final ChooserQuery right;
+
+    private ChooserQuery(int kind, MyChooser<?> chooser, ChooserQuery left,
+                         ChooserQuery right) {
+        this.kind = kind;
+        this.chooser = chooser;
+        this.left = left;
+        this.right = right;
+    }
+
+    /** where starts a query picking the elements one chooser picks
+     *
+     * @param mc, the chooser
+     * @return the query
+     * **/
+    public static ChooserQuery where(MyChooser<?> mc) {
+        //Check null case
+        if(mc == null){
+            throw new NullPointerException();
+        }
+        return new ChooserQuery(WHERE, mc, null, null);
+    }
+
+    /** and picks the elements both this query and mc pick
+     *
+     * @param mc, the other chooser
+     * @return the new query
+     * **/
+    public ChooserQuery and(MyChooser<?> mc) {
+        return and(where(mc));
+    }
+
+    /** and picks the elements both this query and other pick
+     *
+     * @param other, the other query
+     * @return the new query
+     * **/
+    public ChooserQuery and(ChooserQuery other) {
+        return join(AND, other);
+    }
+
+    /** or picks the elements either this query or mc picks
+     *
+     * @param mc, the other chooser
+     * @return the new query
+     * **/
+    public ChooserQuery or(MyChooser<?> mc) {
+        return or(where(mc));
+    }
+
+    /** or picks the elements either this query or other picks
+     *
+     * @param other, the other query
+     * @return the new query
+     * **/
+    public ChooserQuery or(ChooserQuery other) {
+        return join(OR, other);
+    }
+
+    /** not picks the elements this query doesn't
+     *
+     * @return the new query
+     * **/
+    public ChooserQuery not() {
+        return new ChooserQuery(NOT, null, this, null);
+    }
+
+    private ChooserQuery join(int kind, ChooserQuery other) {
+        //Check null case
+        if(other == null){
+            throw new NullPointerException();
+        }
+        return new ChooserQuery(kind, null, this, other);
+    }
+
+    /** evaluate works out which positions of a list this query picks
+     *
+     * @param bitmapOf, gives the bitmap of the positions a chooser picks,
+     *                 which is only read, never changed
+     * @param size, how many elements the list has
+     * @return a new bitmap of the positions this query picks, with every
+     * bit past size clear
+     * **/
+    long[] evaluate(Function<MyChooser<?>, long[]> bitmapOf, int size) {
+        switch (this.kind) {
+        case WHERE:
+            return bitmapOf.apply(this.chooser).clone();
+        case NOT: {
+            long[] bits = this.left.evaluate(bitmapOf, size);
+            for(int w = 0; w < bits.length; w += 1){
+                bits[w] = ~bits[w];
+            }
+            //Clear the bits past our last element again
+            if((size & 63) != 0){
+                bits[bits.length - 1] &= (1L << (size & 63)) - 1;
+            }
+            return bits;
+        }
+        default: {
+            long[] bits = this.left.evaluate(bitmapOf, size);
+            long[] other = this.right.evaluate(bitmapOf, size);
+            for(int w = 0; w < bits.length; w += 1){
+                bits[w] = this.kind == AND ? bits[w] & other[w]
+                        : bits[w] | other[w];
+            }
+            return bits;
+        }
+        }
+    }
+
+    @Override
+    public String toString() {
+        switch (this.kind) {
+        case WHERE:
+            return this.chooser.getClass().getSimpleName();
+        case NOT:
+            return "not(" + this.left + ")";
+        default:
+            return "(" + this.left + (this.kind == AND ? " and " : " or ")
+                    + this.right + ")";
+        }
+    }
+}
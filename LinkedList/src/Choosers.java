@@ -10,9 +10,14 @@
  * pass the tests implemented in these chooser classes.
  * **/
 
+import java.io.Serializable;
+
 /* This class overrides chooseElement from the implemented interface, to be
 * called from our list classes. */
-class LongWordChooser implements MyChooser<String> {
+class LongWordChooser implements BatchChooser<String>, ArenaChooser,
+		Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	/**This method returns true if the input String has length at least 6,
 	 * false return otherwise.
@@ -26,12 +31,36 @@ class LongWordChooser implements MyChooser<String> {
 		return s.length() > 5;
 	}
 
+	/** chooseElement tests a string straight from its UTF-8 bytes in a
+	 * StringArenaGL's arena
+	 *
+	 * @param arena, the bytes
+	 * @param start, the first byte of the string
+	 * @param end, one past the last byte of the string
+	 * @return true if the string has length greater than 5
+	 * **/
+	@Override
+	public boolean chooseElement(byte[] arena, int start, int end) {
+		//Every char takes at least one byte, so 5 bytes or fewer can never
+		//be more than 5 chars
+		return end - start > 5 && StringArenaGL.utf16Length(arena, start, end)
+				> 5;
+	}
+
+	/** {@inheritDoc} **/
+	@Override
+	public void chooseBatch(Object[] src, int from, int to, long[] outBits){
+		BatchChooser.chooseEach(this, src, from, to, outBits);
+	}
 }
 
 /* This class overrides chooseElement from the implemented interface, this can
  * be used on our Lists of type String to filter the list according to the method
  * defined within this class. */
-class CapitalizedWordChooser implements MyChooser<String>{
+class CapitalizedWordChooser implements BatchChooser<String>,
+		ArenaChooser, Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	/**This method returns true if the input String has a capital letter at
 	 * String index 0 (the first char of the string), returns false if the
@@ -52,12 +81,36 @@ class CapitalizedWordChooser implements MyChooser<String>{
 		//Return true if string has a capital first character, false if not
 		return Character.isUpperCase(s.charAt(0));
 	}
+
+	/** chooseElement tests a string straight from its UTF-8 bytes in a
+	 * StringArenaGL's arena
+	 *
+	 * @param arena, the bytes
+	 * @param start, the first byte of the string
+	 * @param end, one past the last byte of the string
+	 * @return true if the string has a capital first char
+	 * **/
+	@Override
+	public boolean chooseElement(byte[] arena, int start, int end) {
+		//Only the first char matters, and we only decode that one
+		int first = StringArenaGL.firstChar(arena, start, end);
+		return first >= 0 && Character.isUpperCase((char) first);
+	}
+
+	/** {@inheritDoc} **/
+	@Override
+	public void chooseBatch(Object[] src, int from, int to, long[] outBits){
+		BatchChooser.chooseEach(this, src, from, to, outBits);
+	}
 }
 
 /* This class overrides chooseElement from the implemented interface, this can
  * be used on our Lists of type Integer to filter the list according to the method
  * defined within this class. */
-class MultipleOfTwelveChooser implements MyChooser<Integer>{
+class MultipleOfTwelveChooser implements BatchChooser<Integer>,
+		Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	/**This method returns true if the input Integer is divisible by 12
 	 *
@@ -74,12 +127,20 @@ class MultipleOfTwelveChooser implements MyChooser<Integer>{
 		//returns true if int is divisible by 0, false otherwise
 		return i % 12 == 0;
 	}
+
+	/** {@inheritDoc} **/
+	@Override
+	public void chooseBatch(Object[] src, int from, int to, long[] outBits){
+		BatchChooser.chooseEach(this, src, from, to, outBits);
+	}
 }
 
 /* This class overrides chooseElement from the implemented interface, this can
 * be used on our Lists of type Double to filter the list according to the method
 * defined within this class. */
-class HasAThreeChooser implements MyChooser<Double>{
+class HasAThreeChooser implements BatchChooser<Double>, Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	/**This method returns true if the input double contains a 3 at some point
 	 * within the double, returns false otherwise
@@ -94,8 +155,99 @@ class HasAThreeChooser implements MyChooser<Double>{
 		if(d == null){
 			return false;
 		}
-		//Convert the double to a string, we are able to now look for specific
-		//numbers in this string, if we find a 3, return false, if not return true
-		return !(d.toString().contains("3"));
+		//Look for a 3 in the characters Double.toString would give us, if we
+		//find one, return false, if not return true
+		return hasNoThree(d);
+	}
+
+	//StringBuilder.append(double) writes the same characters Double.toString
+	//would give us, but we can reuse the builder instead of making a new
+	//String for every element. Each thread gets its own builder, so choosers
+	//can still be shared between threads
+	private static final ThreadLocal<StringBuilder> DIGITS =
+			ThreadLocal.withInitial(() -> new StringBuilder(32));
+
+	/**This method returns true if Double.toString(d) has no 3 in it, without
+	 * building that String
+	 *
+	 * @param d the double to check
+	 *
+	 * @return true if d doesn't contain a "3", false if it does
+	 * **/
+	static boolean hasNoThree(double d){
+		StringBuilder digits = DIGITS.get();
+		digits.setLength(0);
+		digits.append(d);
+		for(int i = 0; i < digits.length(); i += 1){
+			if(digits.charAt(i) == '3'){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/** {@inheritDoc} **/
+	@Override
+	public void chooseBatch(Object[] src, int from, int to, long[] outBits){
+		BatchChooser.chooseEach(this, src, from, to, outBits);
+	}
+}
+
+/* This class is the int version of MultipleOfTwelveChooser, to be used with
+ * IntGL so that no element ever gets boxed. */
+class IntMultipleOfTwelveChooser implements IntChooser {
+
+	/**This method returns true if the input int is divisible by 12
+	 *
+	 * @param i the int to check
+	 *
+	 * @return true if i is divisible by 12, false otherwise
+	 * **/
+	@Override
+	public boolean chooseElement(int i){
+		return i % 12 == 0;
+	}
+}
+
+/* This class keeps the ints at or above a threshold. It's used with IntGL,
+ * which runs it as a whole-array kernel. */
+class IntAtLeastChooser implements IntChooser {
+
+	final int threshold;
+
+	/** This constructor sets the smallest int we keep
+	 *
+	 * @param threshold, the smallest int to keep
+	 * **/
+	IntAtLeastChooser(int threshold) {
+		this.threshold = threshold;
 	}
-}
\ No newline at end of file
+
+	/**This method returns true if the input int is at least our threshold
+	 *
+	 * @param i the int to check
+	 *
+	 * @return true if i is at least the threshold, false otherwise
+	 * **/
+	@Override
+	public boolean chooseElement(int i){
+		return i >= this.threshold;
+	}
+}
+
+/* This class is the double version of HasAThreeChooser, to be used with
+ * DoubleGL so that no element ever gets boxed. */
+class DoubleHasAThreeChooser implements DoubleChooser {
+
+	/**This method returns true if the input double doesn't contain a 3 at some
+	 * point within the double, same as HasAThreeChooser
+	 *
+	 * @param d the double to check
+	 *
+	 * @return true if d doesn't contain a "3", false if it does
+	 * **/
+	@Override
+	public boolean chooseElement(double d){
+		return HasAThreeChooser.hasNoThree(d);
+	}
+}
@@ -0,0 +1,182 @@
+/**
+ * This file lets us run our choosers and transformers over input that never
+ * has to be held in memory all at once, like a big file or a pipe. Elements
+ * are pulled in chunks of a fixed size, each chunk goes through every step,
+ * and only what survives is passed on, so memory use depends on the chunk
+ * size rather than on how big the input is.
+ * **/
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/* This class is built from an Iterator, a Spliterator or a reader, given steps
+ * with choose and transform the same way as LazyList, and then run once by
+ * one of forEach, writeTo, toArrayGL or toLinkedGL. Each chunk is loaded into
+ * an ArrayGL we reuse, and the steps run over it as a LazyList pipeline. */
+public class ChunkedStream<E> {
+
+    static final int DEFAULT_CHUNK_SIZE = 1 << 12;
+
+    Iterator<? extends E> source;
+    E[] buffer;
+    //The ArrayGL we load each chunk into, and the steps to run over it
+    ArrayGL<E> chunk;
+    LazyList<E> steps;
+
+    /** This constructor sets up a stream pulling chunkSize elements at a time
+     * from the given iterator
+     *
+     * @param source, where our elements come from
+     * @param chunkSize, how many elements to hold in memory at once
+     * **/
+    @SuppressWarnings("unchecked")
+    public ChunkedStream(Iterator<? extends E> source, int chunkSize) {
+        //Check null case
+        if(source == null){
+            throw new NullPointerException();
+        }
+        if(chunkSize < 1){
+            throw new IllegalArgumentException("Chunk size must be positive: "
+                    + chunkSize);
+        }
+        this.source = source;
+        this.buffer = (E[]) (new Object[chunkSize]);
+        this.chunk = new ArrayGL<E>(this.buffer);
+        this.steps = this.chunk.lazy();
+    }
+
+    /** This constructor sets up a stream pulling DEFAULT_CHUNK_SIZE elements
+     * at a time from the given iterator
+     *
+     * @param source, where our elements come from
+     * **/
+    public ChunkedStream(Iterator<? extends E> source) {
+        this(source, DEFAULT_CHUNK_SIZE);
+    }
+
+    /** of sets up a stream over a Spliterator, for example one from a Java
+     * Stream or Collection
+     *
+     * @param source, where our elements come from
+     * @param chunkSize, how many elements to hold in memory at once
+     * @return the new stream
+     * **/
+    public static <E> ChunkedStream<E> of(Spliterator<? extends E> source,
+                                          int chunkSize) {
+        return new ChunkedStream<E>(Spliterators.iterator(source), chunkSize);
+    }
+
+    /** lines sets up a stream over every line of a reader. An IOException
+     * while reading comes out as an UncheckedIOException.
+     *
+     * @param reader, where our lines come from
+     * @param chunkSize, how many lines to hold in memory at once
+     * @return the new stream
+     * **/
+    public static ChunkedStream<String> lines(BufferedReader reader,
+                                              int chunkSize) {
+        return new ChunkedStream<String>(reader.lines().iterator(), chunkSize);
+    }
+
+    /** choose adds a chooseAll step to the end of the stream
+     *
+     * @param mc, the chooser to filter with
+     * @return this stream, so more steps can be added
+     * **/
+    @SuppressWarnings("rawtypes")
+    public ChunkedStream<E> choose(MyChooser mc) {
+        this.steps.choose(mc);
+        return this;
+    }
+
+    /** transform adds a transformAll step to the end of the stream
+     *
+     * @param mt, the transformer to change elements with
+     * @return this stream, so more steps can be added
+     * **/
+    @SuppressWarnings("rawtypes")
+    public ChunkedStream<E> transform(MyTransformer mt) {
+        this.steps.transform(mt);
+        return this;
+    }
+
+    /** forEach pulls every chunk from our source, runs the steps over it and
+     * hands each surviving element to sink, in order
+     *
+     * @param sink, what to do with each surviving element
+     * */
+    public void forEach(Consumer<? super E> sink) {
+        while(this.source.hasNext()){
+            int filled = 0;
+            while(filled < this.buffer.length && this.source.hasNext()){
+                this.buffer[filled] = this.source.next();
+                filled += 1;
+            }
+            //Point our ArrayGL back at the full buffer, pipelineAll slides the
+            //survivors to the front and clears the rest out for us
+            this.chunk.elements = this.buffer;
+            this.chunk.size = filled;
+            this.steps.applyAll();
+            for(int i = 0; i < this.chunk.size; i += 1){
+                sink.accept(this.buffer[i]);
+                this.buffer[i] = null;
+            }
+        }
+    }
+
+    /** writeTo writes every surviving element to out, one per line. A
+     * failure reading a lines stream also comes out as an IOException here.
+     *
+     * @param out, where to write the survivors
+     * @throws IOException if out can't be written to
+     * */
+    public void writeTo(Writer out) throws IOException {
+        //Consumer can't throw an IOException, so we carry it out unchecked
+        //and unwrap it here, which also stops pulling from our source
+        try {
+            forEach(e -> {
+                try {
+                    out.write(String.valueOf(e));
+                    out.write(System.lineSeparator());
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        out.flush();
+    }
+
+    /** toArrayGL collects every surviving element into a new ArrayGL
+     *
+     * @return an ArrayGL of the survivors, in order
+     * */
+    @SuppressWarnings("unchecked")
+    public ArrayGL<E> toArrayGL() {
+        return new ArrayGL<E>((E[]) collect().toArray());
+    }
+
+    /** toLinkedGL collects every surviving element into a new LinkedGL
+     *
+     * @return a LinkedGL of the survivors, in order
+     * */
+    @SuppressWarnings("unchecked")
+    public LinkedGL<E> toLinkedGL() {
+        return new LinkedGL<E>((E[]) collect().toArray());
+    }
+
+    /* Gathers up every survivor, only the survivors are ever held at once */
+    private ArrayList<E> collect() {
+        ArrayList<E> survivors = new ArrayList<E>();
+        forEach(survivors::add);
+        return survivors;
+    }
+}
@@ -0,0 +1,151 @@
+/**
+ * This file implements a thread safe version of ArrayGL for lists that are
+ * read far more often than they're changed. Readers never take a lock unless
+ * a writer is busy with the exact part of the array they're reading, so any
+ * number of them can call toArray and isEmpty at once.
+ * **/
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+
+/* This class implements MyList like ArrayGL does.
+ *
+ * The array is split into STRIPES stripes, each with its own StampedLock.
+ * toArray copies a stripe under an optimistic read, which costs nothing but a
+ * check afterwards, and only falls back to a real read lock if transformAll
+ * changed that stripe while it was being copied. transformAll write-locks one
+ * stripe at a time, so readers are only ever held up on the stripe being
+ * transformed. chooseAll builds a whole new array and swaps it in with one
+ * volatile write, so readers see either the old list or the new one.
+ *
+ * Each stripe of a toArray result is copied all at once, so it's either all
+ * from before or all from after any one transformAll. transformAll and
+ * chooseAll take turns through one writer lock, they never overlap. */
+public class ConcurrentArrayGL<E> implements MyList<E> {
+
+    static final int STRIPES = 64;
+
+    //Swapped for a new array by chooseAll, never changed in length
+    volatile Object[] elements;
+    final StampedLock[] stripes;
+    final ReentrantLock writer;
+
+    /** This constructor copies the input array, so that nobody else can
+     * change it behind our locks
+     *
+     * @param initialElements, the array to build our list from
+     * **/
+    public ConcurrentArrayGL(E[] initialElements) {
+        this.elements = initialElements.clone();
+        this.stripes = new StampedLock[STRIPES];
+        for(int i = 0; i < STRIPES; i += 1){
+            this.stripes[i] = new StampedLock();
+        }
+        this.writer = new ReentrantLock();
+    }
+
+    /* How many elements each stripe covers for an array of this length */
+    private static int stripeLength(int length) {
+        return Math.max(1, (length + STRIPES - 1) / STRIPES);
+    }
+
+    /** This method copies our list into a new array, one stripe at a time
+     *
+     * @return the array representation of this list.*/
+    @Override
+    @SuppressWarnings("unchecked")
+    public E[] toArray() {
+        //Read the array once, if chooseAll swaps in a new one while we copy
+        //we still finish copying the old one, which nobody changes any more
+        Object[] current = this.elements;
+        Object[] toRet = new Object[current.length];
+        int stripeLength = stripeLength(current.length);
+        for(int s = 0; s * stripeLength < current.length; s += 1){
+            int start = s * stripeLength;
+            int count = Math.min(stripeLength, current.length - start);
+            StampedLock lock = this.stripes[s];
+            long stamp = lock.tryOptimisticRead();
+            System.arraycopy(current, start, toRet, start, count);
+            if(!lock.validate(stamp)){
+                //transformAll got to this stripe while we copied, so copy it
+                //again while holding it still
+                stamp = lock.readLock();
+                try {
+                    System.arraycopy(current, start, toRet, start, count);
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+        }
+        return (E[]) toRet;
+    }
+
+    /** transformAll changes every element of our list, locking one stripe at
+     * a time so readers can keep reading every other stripe
+     *
+     * @param mt, the class which extends from MyTransformer to draw our
+     *            transform method from
+     * */
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void transformAll(MyTransformer mt) {
+        this.writer.lock();
+        try {
+            Object[] current = this.elements;
+            int stripeLength = stripeLength(current.length);
+            for(int s = 0; s * stripeLength < current.length; s += 1){
+                int start = s * stripeLength;
+                int end = Math.min(start + stripeLength, current.length);
+                long stamp = this.stripes[s].writeLock();
+                try {
+                    for(int i = start; i < end; i += 1){
+                        current[i] = mt.transformElement(current[i]);
+                    }
+                } finally {
+                    this.stripes[s].unlockWrite(stamp);
+                }
+            }
+        } finally {
+            this.writer.unlock();
+        }
+    }
+
+    /** chooseAll builds a new array of only the elements our chooser accepts
+     * and swaps it in for the old one all at once
+     *
+     * @param mc, the class which extends from MyChooser to draw our
+     *            chooser method from
+     * */
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void chooseAll(MyChooser mc) {
+        this.writer.lock();
+        try {
+            //Holding the writer lock, nothing else can change our array, so
+            //we can read it without touching the stripe locks
+            Object[] current = this.elements;
+            Object[] chosen = new Object[current.length];
+            int newSize = 0;
+            for(int i = 0; i < current.length; i += 1){
+                if(mc.chooseElement(current[i])){
+                    chosen[newSize] = current[i];
+                    newSize += 1;
+                }
+            }
+            Object[] toReplace = new Object[newSize];
+            System.arraycopy(chosen, 0, toReplace, 0, newSize);
+            this.elements = toReplace;
+        } finally {
+            this.writer.unlock();
+        }
+    }
+
+    /** isEmpty returns true if our list has 0 elements stored
+     *
+     * @return true if our list is empty, false otherwise
+     * */
+    @Override
+    public boolean isEmpty() {
+        return this.elements.length == 0;
+    }
+}
@@ -0,0 +1,197 @@
+/**
+ * This file implements a generic linked list that many threads can use at the
+ * same time without any locks. Every change to a Node is made with a single
+ * compare-and-set, so threads never block each other and no update can be
+ * lost, even while one thread appends, another filters and a third reads.
+ * **/
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/* This class implements MyList like LinkedGL does, with a dummy front node,
+ * plus an append method.
+ *
+ * New nodes are only ever linked in after the last node (Michael-Scott style,
+ * with a tail pointer any thread can help move along). chooseAll removes a
+ * node in two steps (Harris style): first it marks the node deleted, which is
+ * the moment it leaves the list, then it tries to unlink it from the node
+ * before it. We never unlink the last node, so appending never races with an
+ * unlink, and a next pointer never goes back to null once it's set. An unlink
+ * only ever skips over a deleted node, so a live node can't be lost; at worst
+ * a deleted node stays linked a little longer until a later pass unlinks it.
+ *
+ * toArray, isEmpty and size are weakly consistent: they see every change that
+ * finished before they started, and may or may not see ones made while they
+ * run. */
+public class ConcurrentLinkedGL<E> implements MyList<E> {
+
+    /* This class defines one element of our list. value, next and deleted
+     * are only ever changed through the field updaters below. */
+    static final class Node<E> {
+        volatile E value;
+        volatile Node<E> next;
+        //0 while the node is in the list, 1 once chooseAll has removed it
+        volatile int deleted;
+
+        Node(E value) {
+            this.value = value;
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    static final AtomicReferenceFieldUpdater<Node, Node> NEXT =
+            AtomicReferenceFieldUpdater.newUpdater(Node.class, Node.class,
+                    "next");
+    @SuppressWarnings("rawtypes")
+    static final AtomicReferenceFieldUpdater<Node, Object> VALUE =
+            AtomicReferenceFieldUpdater.newUpdater(Node.class, Object.class,
+                    "value");
+    @SuppressWarnings("rawtypes")
+    static final AtomicIntegerFieldUpdater<Node> DELETED =
+            AtomicIntegerFieldUpdater.newUpdater(Node.class, "deleted");
+
+    final Node<E> front;
+    //Always the last node or somewhere before it, appenders move it along
+    final AtomicReference<Node<E>> tail;
+    final AtomicInteger size;
+
+    /** This constructor throws an exception if the input array is null,
+     * otherwise it appends each element of the array, in order
+     *
+     * @param contents, the array to build our list from
+     * **/
+    public ConcurrentLinkedGL(E[] contents) {
+        //Check null case
+        if(contents == null){
+            throw new NullPointerException();
+        }
+        this.front = new Node<E>(null);
+        this.tail = new AtomicReference<Node<E>>(this.front);
+        this.size = new AtomicInteger();
+        for(int i = 0; i < contents.length; i += 1){
+            append(contents[i]);
+        }
+    }
+
+    /** append adds a new element to the end of our list. Any number of
+     * threads can append at once.
+     *
+     * @param value, the element to add
+     * */
+    @SuppressWarnings("unchecked")
+    public void append(E value) {
+        Node<E> node = new Node<E>(value);
+        while(true){
+            Node<E> last = this.tail.get();
+            Node<E> next = last.next;
+            if(next != null){
+                //Someone else linked a node in but hasn't moved tail yet, so we
+                //help them along and try again
+                this.tail.compareAndSet(last, next);
+            } else if(NEXT.compareAndSet(last, null, node)){
+                this.tail.compareAndSet(last, node);
+                this.size.incrementAndGet();
+                return;
+            }
+        }
+    }
+
+    /** size returns how many elements are in our list
+     *
+     * @return the number of elements appended and not yet removed
+     * */
+    public int size() {
+        return this.size.get();
+    }
+
+    /** This method turns our list into an array of every element still in it
+     *
+     * @return the array representation of this list.*/
+    @Override
+    @SuppressWarnings("unchecked")
+    public E[] toArray() {
+        //Our size can change while we walk, so we gather into an ArrayList
+        ArrayList<Object> toRet = new ArrayList<Object>(this.size.get());
+        for(Node<E> currNode = this.front.next; currNode != null;
+                currNode = currNode.next){
+            if(currNode.deleted == 0){
+                toRet.add(currNode.value);
+            }
+        }
+        return (E[]) toRet.toArray();
+    }
+
+    /** transformAll changes every element in our list using one of the
+     * classes that extend MyTransformer. Each value is swapped in with a
+     * compare-and-set, retrying if another thread changed it first, so two
+     * transformAll calls at once both get applied to every element.
+     *
+     * @param mt, the class which extends from MyTransformer to draw our
+     *            transform method from
+     * */
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void transformAll(MyTransformer mt) {
+        for(Node<E> currNode = this.front.next; currNode != null;
+                currNode = currNode.next){
+            if(currNode.deleted != 0){
+                continue;
+            }
+            while(true){
+                Object old = currNode.value;
+                Object transformed = mt.transformElement(old);
+                if(VALUE.compareAndSet(currNode, old, transformed)){
+                    break;
+                }
+            }
+        }
+    }
+
+    /** chooseAll removes every element our chooser doesn't accept. Each
+     * rejected node is marked deleted first, then unlinked from the node
+     * before it if nothing else has changed that link in the meantime.
+     *
+     * @param mc, the class which extends from MyChooser to draw our
+     *            chooser method from
+     * */
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void chooseAll(MyChooser mc) {
+        Node<E> pred = this.front;
+        Node<E> currNode = pred.next;
+        while(currNode != null){
+            if(currNode.deleted == 0 && !mc.chooseElement(currNode.value)
+                    && DELETED.compareAndSet(currNode, 0, 1)){
+                this.size.decrementAndGet();
+            }
+            Node<E> next = currNode.next;
+            //Unlink deleted nodes we come across, ours or anyone else's, as
+            //long as they aren't the last node
+            if(currNode.deleted != 0 && next != null
+                    && NEXT.compareAndSet(pred, currNode, next)){
+                currNode = next;
+                continue;
+            }
+            pred = currNode;
+            currNode = next;
+        }
+    }
+
+    /** isEmpty returns true if there's no element left in our list
+     *
+     * @return true if our list is empty, false otherwise
+     * */
+    @Override
+    public boolean isEmpty() {
+        for(Node<E> currNode = this.front.next; currNode != null;
+                currNode = currNode.next){
+            if(currNode.deleted == 0){
+                return false;
+            }
+        }
+        return true;
+    }
+}
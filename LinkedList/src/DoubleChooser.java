@@ -0,0 +1,4 @@
+
+public interface DoubleChooser {
+  boolean chooseElement(double e);
+}
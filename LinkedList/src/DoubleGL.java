@@ -0,0 +1,134 @@
+/**
+ * This file implements a list of doubles backed by a plain double array. It
+ * supports the same operations as ArrayGL, but with DoubleChooser and
+ * DoubleTransformer it never boxes an element, so filtering and mapping
+ * allocates nothing per element.
+ * **/
+
+import java.util.Arrays;
+
+/* This class implements MyList<Double>, so any existing chooser or transformer
+ * still works on it, boxing each element on the way through. chooseAllDouble
+ * and transformAllDouble, which take a DoubleChooser and DoubleTransformer, are
+ * the fast path, working straight on the double array, and
+ * DoubleSquareAreaTransformer runs as a whole-array kernel from NumericKernels.
+ * They have their own names since a lambda would fit both a DoubleChooser and
+ * a MyChooser. */
+public class DoubleGL implements MyList<Double> {
+
+    double[] elements;
+    int size;
+
+    /** This constructor simply assigns the input array to our elements field,
+     * then gives our size field the size of the input array. Just like ArrayGL,
+     * the array is not copied, so transformAll and chooseAll will change it
+     *
+     * @param initialElements, the array to build our DoubleGL from
+     * **/
+    public DoubleGL(double[] initialElements) {
+        this.elements = initialElements;
+        this.size = initialElements.length;
+    }
+
+    /** This method turns our DoubleGL back into an array of boxed Doubles
+     *
+     * @return the Double array representation of this DoubleGL.*/
+    @Override
+    public Double[] toArray() {
+        Double[] toRet = new Double[this.size];
+        for(int i = 0; i < this.size; i += 1){
+            toRet[i] = this.elements[i];
+        }
+        return toRet;
+    }
+
+    /** This method turns our DoubleGL back into a double array, without boxing
+     *
+     * @return the double array representation of this DoubleGL.*/
+    public double[] toDoubleArray() {
+        return Arrays.copyOf(this.elements, this.size);
+    }
+
+    /** transformAllDouble changes every value within our DoubleGL to the
+     * transformed version, without boxing anything
+     *
+     * @param dt, the DoubleTransformer to draw our transform method from
+     * */
+    @SuppressWarnings("auxiliaryclass")
+    public void transformAllDouble(DoubleTransformer dt) {
+        //Our own square area transformer has a branch free version that the
+        //JIT can turn into SIMD instructions. We check the exact class, since
+        //a subclass could transform differently
+        if(dt.getClass() == DoubleSquareAreaTransformer.class){
+            NumericKernels.squareAreas(this.elements, this.size);
+            return;
+        }
+        for(int i = 0; i < this.size; i += 1){
+            this.elements[i] = dt.transformElement(this.elements[i]);
+        }
+    }
+
+    /** transformAll changes every value within our DoubleGL using a normal
+     * MyTransformer, boxing each element on the way in and out
+     *
+     * @param mt, the class which extends from MyTransformer to draw our
+     *            transform method from
+     * */
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void transformAll(MyTransformer mt) {
+        for(int i = 0; i < this.size; i += 1){
+            //Unboxing throws a NullPointerException if mt hands back null,
+            //since a double list has no way to store it
+            this.elements[i] = (Double) mt.transformElement(this.elements[i]);
+        }
+    }
+
+    /** chooseAllDouble filters out values from our DoubleGL which aren't
+     * accepted by the DoubleChooser called, without boxing anything
+     *
+     * @param dc, the DoubleChooser to draw our chooser method from
+     * */
+    public void chooseAllDouble(DoubleChooser dc) {
+        //We only ever write at or behind the index we're reading, so we can
+        //slide the chosen elements down in place in a single pass
+        int newSize = 0;
+        for(int i = 0; i < this.size; i += 1){
+            double e = this.elements[i];
+            if(dc.chooseElement(e)){
+                this.elements[newSize] = e;
+                newSize += 1;
+            }
+        }
+        this.size = newSize;
+    }
+
+    /** chooseAll filters out values from our DoubleGL which aren't accepted by
+     * a normal MyChooser, boxing each element to test it
+     *
+     * @param mc, the class which extends from MyChooser to draw our
+     *            chooser method from
+     * */
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void chooseAll(MyChooser mc) {
+        int newSize = 0;
+        for(int i = 0; i < this.size; i += 1){
+            double e = this.elements[i];
+            if(mc.chooseElement(e)){
+                this.elements[newSize] = e;
+                newSize += 1;
+            }
+        }
+        this.size = newSize;
+    }
+
+    /** isEmpty returns true if our DoubleGL has 0 elements stored
+     *
+     * @return true if our list is empty, false otherwise
+     * */
+    @Override
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+}
@@ -0,0 +1,4 @@
+
+public interface DoubleTransformer {
+	double transformElement(double e);
+}
@@ -0,0 +1,4 @@
+
+public interface IntChooser {
+  boolean chooseElement(int e);
+}
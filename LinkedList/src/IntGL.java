@@ -0,0 +1,140 @@
+/**
+ * This file implements a list of ints backed by a plain int array. It supports
+ * the same operations as ArrayGL, but with IntChooser and IntTransformer it
+ * never boxes an element, so filtering and mapping allocates nothing per
+ * element.
+ * **/
+
+import java.util.Arrays;
+
+/* This class implements MyList<Integer>, so any existing chooser or transformer
+ * still works on it, boxing each element on the way through. chooseAllInt and
+ * transformAllInt, which take an IntChooser and IntTransformer, are the fast
+ * path, working straight on the int array, and IntMultipleOfTwelveChooser and
+ * IntAtLeastChooser run as whole-array kernels from NumericKernels. They have
+ * their own names since a lambda would fit both an IntChooser and a
+ * MyChooser. */
+public class IntGL implements MyList<Integer> {
+
+    int[] elements;
+    int size;
+
+    /** This constructor simply assigns the input array to our elements field,
+     * then gives our size field the size of the input array. Just like ArrayGL,
+     * the array is not copied, so transformAll and chooseAll will change it
+     *
+     * @param initialElements, the array to build our IntGL from
+     * **/
+    public IntGL(int[] initialElements) {
+        this.elements = initialElements;
+        this.size = initialElements.length;
+    }
+
+    /** This method turns our IntGL back into an array of boxed Integers
+     *
+     * @return the Integer array representation of this IntGL.*/
+    @Override
+    public Integer[] toArray() {
+        Integer[] toRet = new Integer[this.size];
+        for(int i = 0; i < this.size; i += 1){
+            toRet[i] = this.elements[i];
+        }
+        return toRet;
+    }
+
+    /** This method turns our IntGL back into an int array, without boxing
+     *
+     * @return the int array representation of this IntGL.*/
+    public int[] toIntArray() {
+        return Arrays.copyOf(this.elements, this.size);
+    }
+
+    /** transformAllInt changes every value within our IntGL to the
+     * transformed version, without boxing anything
+     *
+     * @param it, the IntTransformer to draw our transform method from
+     * */
+    public void transformAllInt(IntTransformer it) {
+        for(int i = 0; i < this.size; i += 1){
+            this.elements[i] = it.transformElement(this.elements[i]);
+        }
+    }
+
+    /** transformAll changes every value within our IntGL using a normal
+     * MyTransformer, boxing each element on the way in and out
+     *
+     * @param mt, the class which extends from MyTransformer to draw our
+     *            transform method from
+     * */
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void transformAll(MyTransformer mt) {
+        for(int i = 0; i < this.size; i += 1){
+            //Unboxing throws a NullPointerException if mt hands back null,
+            //since an int list has no way to store it
+            this.elements[i] = (Integer) mt.transformElement(this.elements[i]);
+        }
+    }
+
+    /** chooseAllInt filters out values from our IntGL which aren't accepted
+     * by the IntChooser called, without boxing anything
+     *
+     * @param ic, the IntChooser to draw our chooser method from
+     * */
+    @SuppressWarnings("auxiliaryclass")
+    public void chooseAllInt(IntChooser ic) {
+        //Our own multiple of twelve and threshold choosers have branch free
+        //versions that work on the whole array at once. We check the exact
+        //class, since a subclass could choose differently
+        if(ic.getClass() == IntMultipleOfTwelveChooser.class){
+            this.size = NumericKernels.keepMultiplesOfTwelve(this.elements,
+                    this.size);
+            return;
+        }
+        if(ic.getClass() == IntAtLeastChooser.class){
+            this.size = NumericKernels.keepAtLeast(this.elements, this.size,
+                    ((IntAtLeastChooser) ic).threshold);
+            return;
+        }
+        //We only ever write at or behind the index we're reading, so we can
+        //slide the chosen elements down in place in a single pass
+        int newSize = 0;
+        for(int i = 0; i < this.size; i += 1){
+            int e = this.elements[i];
+            if(ic.chooseElement(e)){
+                this.elements[newSize] = e;
+                newSize += 1;
+            }
+        }
+        this.size = newSize;
+    }
+
+    /** chooseAll filters out values from our IntGL which aren't accepted by
+     * a normal MyChooser, boxing each element to test it
+     *
+     * @param mc, the class which extends from MyChooser to draw our
+     *            chooser method from
+     * */
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void chooseAll(MyChooser mc) {
+        int newSize = 0;
+        for(int i = 0; i < this.size; i += 1){
+            int e = this.elements[i];
+            if(mc.chooseElement(e)){
+                this.elements[newSize] = e;
+                newSize += 1;
+            }
+        }
+        this.size = newSize;
+    }
+
+    /** isEmpty returns true if our IntGL has 0 elements stored
+     *
+     * @return true if our list is empty, false otherwise
+     * */
+    @Override
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+}
@@ -0,0 +1,4 @@
+
+public interface IntTransformer {
+	int transformElement(int e);
+}
@@ -0,0 +1,134 @@
+/**
+ * This file implements a lazy pipeline of chooseAll and transformAll steps on
+ * top of one of our lists. Steps are only written down when choose or
+ * transform is called, and all of them run together in a single pass over the
+ * list once toArray or applyAll is called, so no array is ever built between
+ * one step and the next.
+ * **/
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/* This class is made with MyList.lazy(), for example
+ * list.lazy().choose(a).transform(b).choose(c).toArray(). Each element goes
+ * through every step in order before we look at the next element, and an
+ * element dropped by a chooser never reaches the steps after it. */
+public class LazyList<E> {
+
+    //Handed back by apply for an element one of our choosers dropped. No
+    //chooser or transformer can ever return this object, so it can't be
+    //confused with a real element (or with null, which is a real element)
+    static final Object DROPPED = new Object();
+
+    MyList<E> source;
+    //Each step is either a MyChooser or a MyTransformer, in the order given
+    ArrayList<Object> steps;
+
+    /** This constructor starts an empty pipeline over the given list
+     *
+     * @param source, the list our steps will run over
+     * **/
+    public LazyList(MyList<E> source) {
+        //Check null case
+        if(source == null){
+            throw new NullPointerException();
+        }
+        this.source = source;
+        this.steps = new ArrayList<Object>();
+    }
+
+    /** choose adds a chooseAll step to the end of the pipeline
+     *
+     * @param mc, the chooser to filter with
+     * @return this pipeline, so more steps can be added
+     * **/
+    @SuppressWarnings("rawtypes")
+    public LazyList<E> choose(MyChooser mc) {
+        if(mc == null){
+            throw new NullPointerException();
+        }
+        this.steps.add(mc);
+        return this;
+    }
+
+    /** transform adds a transformAll step to the end of the pipeline
+     *
+     * @param mt, the transformer to change elements with
+     * @return this pipeline, so more steps can be added
+     * **/
+    @SuppressWarnings("rawtypes")
+    public LazyList<E> transform(MyTransformer mt) {
+        if(mt == null){
+            throw new NullPointerException();
+        }
+        this.steps.add(mt);
+        return this;
+    }
+
+    /** apply runs a single element through every step of the pipeline
+     *
+     * @param e, the element to run
+     * @return the element after every transformer, or DROPPED if one of
+     * the choosers didn't choose it
+     * **/
+    @SuppressWarnings("unchecked")
+    Object apply(Object e) {
+        for(int i = 0; i < this.steps.size(); i += 1){
+            Object step = this.steps.get(i);
+            if(step instanceof MyChooser){
+                if(!((MyChooser) step).chooseElement(e)){
+                    return DROPPED;
+                }
+            } else {
+                e = ((MyTransformer) step).transformElement(e);
+            }
+        }
+        return e;
+    }
+
+    /** toArray runs the whole pipeline in one pass and returns what's left as
+     * a new array. The list we started from is left unchanged.
+     *
+     * @return the elements that made it through every step, in order
+     * **/
+    @SuppressWarnings("unchecked")
+    public E[] toArray() {
+        if(this.source instanceof LazySource){
+            return ((LazySource<E>) this.source).pipelineToArray(this);
+        }
+        //For any other list, toArray already hands us a copy of our own, so
+        //we run the pipeline in place inside that copy
+        E[] result = this.source.toArray();
+        int newSize = 0;
+        for(int i = 0; i < result.length; i += 1){
+            Object out = apply(result[i]);
+            if(out != DROPPED){
+                result[newSize] = (E) out;
+                newSize += 1;
+            }
+        }
+        return newSize == result.length ? result
+                : Arrays.copyOf(result, newSize);
+    }
+
+    /** applyAll runs the whole pipeline in one pass and changes the list we
+     * started from, just like calling chooseAll and transformAll on it once
+     * for each step.
+     * */
+    @SuppressWarnings("unchecked")
+    public void applyAll() {
+        if(this.source instanceof LazySource){
+            ((LazySource<E>) this.source).pipelineAll(this);
+            return;
+        }
+        //A list we don't know how to walk ourselves still gets the right
+        //answer, one step at a time
+        for(Object step : this.steps){
+            if(step instanceof MyChooser){
+                this.source.chooseAll((MyChooser) step);
+            } else {
+                this.source.transformAll((MyTransformer) step);
+            }
+        }
+    }
+}
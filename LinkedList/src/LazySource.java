@@ -0,0 +1,7 @@
+
+/* Lists that know how to run a whole LazyList pipeline in a single pass over
+ * their own storage implement this interface, see LazyList. */
+interface LazySource<E> {
+	E[] pipelineToArray(LazyList<E> pipeline);
+	void pipelineAll(LazyList<E> pipeline);
+}
@@ -7,31 +7,51 @@
  * class mainly exists to allow us to store arrays in a different way.
  * **/
 
+import java.util.Arrays;
+import java.util.function.Consumer;
+
 /* This class implements MyList, so it has to override the 4 methods introduced
 * there. This is a generic class, and can be applied to any object. This class
 * will allow us to convert normal arrays to linked lists, and back. We will also
 * be able to call chooser and transformer methods from here, altering the linked
-* list from within the class in specific ways. */
-public class LinkedGL<E> implements MyList<E> {
+* list from within the class in specific ways. It also implements LazySource,
+* so lazy pipelines run in one walk down our nodes. toArray, transformAll and
+* chooseAll all report to ListMetrics, and transformAll and chooseAll hand
+* choosers and transformers our values in batches, see BatchChooser. A pooled
+* LinkedGL takes its nodes from LinkedNodePool and gives the ones chooseAll
+* drops back to it, see setPooled and release. With a change listener, every
+* call that changes our list also hands it a ListDelta of what changed. */
+public class LinkedGL<E> implements MyList<E>, LazySource<E> {
 
     /* This class defines the structure of our linked list. Each element of our
     * linked list will be made up of a Node, which will store the value we want
     * to store in the node, and the reference to the next Node in the sequence.
     *
     * This class only has a defined constructor and instance variables to store
-    * the above values. */
-    class Node {
+    * the above values. It's static so a Node doesn't hold on to the list that
+    * made it, which matters once Nodes are handed between lists by
+    * LinkedNodePool. */
+    static class Node<E> {
         E value;
-        Node next;
+        Node<E> next;
 
-        public Node(E value, Node next) {
+        public Node(E value, Node<E> next) {
             this.value = value;
             this.next = next;
         }
     }
 
-    Node front;
+    Node<E> front;
     int size;
+    //When above 0, transformAll runs this many chunks at once on their own
+    //threads, see setBlocking and BlockingTransformOps
+    int blockingConcurrency;
+    int blockingChunkSize;
+    //When true, our nodes come from and go back to LinkedNodePool
+    boolean pooled;
+    //When not null, told what every transformAll, chooseAll and pipelineAll
+    //changed, see setChangeListener
+    Consumer<? super ListDelta> changeListener;
 
     /** This constructor throws an exception if the input array is null, otherwise
      * it creates a dummy front node, then appends more nodes to that node and
@@ -43,6 +63,17 @@ public class LinkedGL<E> implements MyList<E> {
      * @param contents, the array to build our linked list from
      * **/
     public LinkedGL(E[] contents) {
+        this(contents, false);
+    }
+
+    /** This constructor builds our linked list the same way, but if pooled is
+     * true, the nodes are taken from this thread's LinkedNodePool where it
+     * has spares, and the list stays pooled, see setPooled.
+     *
+     * @param contents, the array to build our linked list from
+     * @param pooled, true to reuse spare nodes and give dropped ones back
+     * **/
+    public LinkedGL(E[] contents, boolean pooled) {
         //Check null case
         if(contents == null){
             throw new NullPointerException();
@@ -51,10 +82,12 @@ public class LinkedGL<E> implements MyList<E> {
         //We do this because now, even if our linked list is empty, we will
         //always be able to call this.front.next, allowing us to eliminate
         //extra tests in other steps when we need to iterate through our list
-        this.front = new Node(null,null);
+        this.front = new Node<E>(null,null);
         this.size = 0;
+        this.pooled = pooled;
+        LinkedNodePool pool = pooled ? LinkedNodePool.current() : null;
         if(contents.length != 0){
-            Node currNode = this.front;
+            Node<E> currNode = this.front;
             //For each element in the array, we want to copy its value into the
             //next node, so we use currNode to keep track of the Node we're
             //looking at, then update the node.next field as we continue to
@@ -62,7 +95,8 @@ public class LinkedGL<E> implements MyList<E> {
             //node has a null next value, ending the linked list
             //We also increase size for each appended node
             for(int i = 0; i < contents.length; i += 1){
-                currNode.next = new Node(contents[i],null);
+                currNode.next = pool != null ? pool.take(contents[i], null)
+                        : new Node<E>(contents[i],null);
                 currNode = currNode.next;
                 this.size += 1;
             }
@@ -79,20 +113,91 @@ public class LinkedGL<E> implements MyList<E> {
         //We have to typecast to an Element array because we cannot directly
         //create a new Element array, forcing us to suppress the unchecked
         //warning.
+        ListMetrics.Span span = ListMetrics.begin();
         E[] toRet = (E[])(new Object[this.size]);
         //If we have an empty list, this.front.next will exist, but be null,
         //thanks to our dummy front node! currNode keeps track of what node
         //we're on
-        Node currNode = this.front.next;
+        Node<E> currNode = this.front.next;
         //Take back values in the order we inserted them into the linked list,
         //and append those values to the next value of toRet
         for(int i = 0; i < this.size; i += 1){
             toRet[i] = currNode.value;
             currNode = currNode.next;
         }
+        ListMetrics.end(span, this, ListMetrics.TO_ARRAY, null, this.size,
+                this.size);
         return toRet;
     }
 
+    /** setPooled turns pooled mode on or off for this list. In pooled mode,
+     * every node chooseAll drops has its value cleared and is given back to
+     * the calling thread's LinkedNodePool, for the next pooled list built on
+     * that thread to reuse.
+     *
+     * @param pooled, true to give dropped nodes back to the pool
+     * */
+    public void setPooled(boolean pooled) {
+        this.pooled = pooled;
+    }
+
+    /** release empties our list, giving every node back to the calling
+     * thread's LinkedNodePool, whether or not we're pooled. Call it once a
+     * list is no longer needed, the list is still usable afterwards, it's
+     * just empty.
+     * */
+    public void release() {
+        Node<E> first = this.front.next;
+        this.front.next = null;
+        this.size = 0;
+        LinkedNodePool.current().giveAll(first);
+    }
+
+    /** setChangeListener turns change tracking on or off for this list. With
+     * a listener, every later transformAll, chooseAll and lazy pipeline run
+     * on this list hands it a ListDelta once the call is done, saying which
+     * positions were removed or changed. We write those down as we walk
+     * the list, so it costs no extra walk. A call that throws doesn't hand
+     * over anything.
+     *
+     * @param listener, what to tell about each change, or null to stop
+     *                 tracking
+     * */
+    public void setChangeListener(Consumer<? super ListDelta> listener) {
+        this.changeListener = listener;
+    }
+
+    /** setBlocking turns blocking mode on or off for every later call to
+     * transformAll on this list, using the default concurrency and chunk
+     * size. Blocking mode is for transformers that spend their time waiting
+     * rather than computing, see BlockingTransformOps.
+     *
+     * @param blocking, true to transform many values at once on their own
+     *                 threads
+     * */
+    public void setBlocking(boolean blocking) {
+        if(blocking){
+            setBlocking(BlockingTransformOps.DEFAULT_CONCURRENCY,
+                    BlockingTransformOps.DEFAULT_CHUNK_SIZE);
+        } else {
+            this.blockingConcurrency = 0;
+        }
+    }
+
+    /** setBlocking turns blocking mode on for every later call to
+     * transformAll on this list
+     *
+     * @param maxConcurrency, the most chunks to transform at the same time
+     * @param chunkSize, how many values each thread transforms at once, 1 to
+     *                  give every value its own turn
+     * @throws IllegalArgumentException if either isn't positive
+     * */
+    public void setBlocking(int maxConcurrency, int chunkSize) {
+        BlockingTransformOps.checkSettings(maxConcurrency, chunkSize);
+        this.blockingConcurrency = maxConcurrency;
+        this.blockingChunkSize = chunkSize;
+    }
+
     /** transformAll attempts to change every value of each Node in our linked
      * list by using one of the classes that extend MyTransformer
      *
@@ -102,16 +207,81 @@ public class LinkedGL<E> implements MyList<E> {
     @Override
     @SuppressWarnings("unchecked")
     public void transformAll(MyTransformer mt) {
-        Node currNode = this.front;
-        //For each node in our list, we transform its value
-        while(currNode.next != null){
+        if(this.blockingConcurrency > 0){
+            transformAllBlocking(mt, this.blockingConcurrency,
+                    this.blockingChunkSize);
+            return;
+        }
+        ListMetrics.Span span = ListMetrics.begin();
+        BatchTransformer<E> batch = BatchTransformer.adapt(mt);
+        Object[] values = new Object[batchLength()];
+        ListDelta.Recorder recorder = recorder();
+        int position = 0;
+        Node<E> batchStart = this.front.next;
+        //For each batch of nodes in our list, we copy their values out,
+        //transform them all in one call, then put them back
+        while(batchStart != null){
+            int count = gather(batchStart, values);
+            batch.transformBatch(values, 0, count);
+            for(int j = 0; j < count; j += 1){
+                //We need to typecast here to ensure that value is assigned
+                //the right kind of value. We know that if we choose the right
+                //mt class, we won't have a problem typecasting, but the
+                //compiler doesn't, so we have to suppress warnings
+                if(recorder != null){
+                    recorder.transformed(position, batchStart.value,
+                            values[j]);
+                    position += 1;
+                }
+                batchStart.value = (E) values[j];
+                batchStart = batchStart.next;
+            }
+        }
+        if(recorder != null){
+            this.changeListener.accept(recorder.finish(this.size, this.size));
+        }
+        ListMetrics.end(span, this, ListMetrics.TRANSFORM_ALL, mt, this.size,
+                this.size);
+    }
+
+    /** transformAllBlocking changes every value of each Node in our linked
+     * list, with up to maxConcurrency chunks of values being transformed at
+     * once on their own threads. The values stay in order, and if the
+     * transformer throws, the first exception thrown is thrown again from
+     * here once every running chunk has finished, leaving the list as it was.
+     *
+     * @param mt, the class which extends from MyTransformer to draw our
+     *            transform method from
+     * @param maxConcurrency, the most chunks to transform at the same time
+     * @param chunkSize, how many values each thread transforms at once
+     * @throws IllegalArgumentException if maxConcurrency or chunkSize isn't
+     * positive
+     * */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void transformAllBlocking(MyTransformer mt, int maxConcurrency,
+                                     int chunkSize) {
+        ListMetrics.Span span = ListMetrics.begin();
+        //The workers need to get at any value directly, so we copy all of
+        //them out into one array, and only put them back once every one of
+        //them has been transformed
+        Object[] values = new Object[this.size];
+        gather(this.front.next, values);
+        BlockingTransformOps.transformAll(values, this.size, mt,
+                maxConcurrency, chunkSize);
+        ListDelta.Recorder recorder = recorder();
+        Node<E> currNode = this.front.next;
+        for(int i = 0; i < this.size; i += 1){
+            if(recorder != null){
+                recorder.transformed(i, currNode.value, values[i]);
+            }
+            currNode.value = (E) values[i];
             currNode = currNode.next;
-            //We need to typecast here to ensure that currNode.value is assigned
-            //the right kind of value. We know that if we choose the right mt
-            //class, we won't have a problem typecasting, but the compiler doesn't,
-            //so we have to suppress warnings so the typecasting can be done
-            currNode.value = (E) mt.transformElement(currNode.value);
         }
+        if(recorder != null){
+            this.changeListener.accept(recorder.finish(this.size, this.size));
+        }
+        ListMetrics.end(span, this, ListMetrics.TRANSFORM_ALL, mt, this.size,
+                this.size);
     }
 
     /** chooseAll will filter out nodes from our linked list which contain
@@ -121,29 +291,181 @@ public class LinkedGL<E> implements MyList<E> {
      *            chooser method from
      * */
     @Override
+    @SuppressWarnings("unchecked")
     public void chooseAll(MyChooser mc) {
-        //Keeps track of the current node we're checking
-        Node currNode = this.front;
+        ListMetrics.Span span = ListMetrics.begin();
+        BatchChooser<E> batch = BatchChooser.adapt(mc);
+        Object[] values = new Object[batchLength()];
+        long[] bits = new long[BatchChooser.BATCH_SIZE / 64];
+        //Keeps track of the first node of the batch we're checking
+        Node<E> currNode = this.front.next;
         //Keeps track of the last node that was allowed by our chooser
-        Node lastValidNode = this.front;
+        Node<E> lastValidNode = this.front;
+        //The nodes we drop, linked together in order, if we're pooled
+        Node<E> dropped = null;
+        Node<E> lastDropped = null;
+        ListDelta.Recorder recorder = recorder();
+        int position = 0;
         int newSize = 0;
-        while(currNode.next != null){
-            //Update the node we're checking each iteration
-            currNode = currNode.next;
-            //If our chooser method we input returns true on the value of the
-            //Node we input, then that value shouldn't be filtered out, so we
-            //connect that node to our last valid node and update our last
-            //valid node to the current node, and update our size.
-            if(mc.chooseElement(currNode.value)){
-                lastValidNode.next = currNode;
-                lastValidNode = currNode;
-                newSize += 1;
+        while(currNode != null){
+            //Test the values of the next batch of nodes all in one call
+            int count = gather(currNode, values);
+            batch.chooseBatch(values, 0, count, bits);
+            for(int j = 0; j < count; j += 1){
+                //If our chooser accepted the value of this Node, then it
+                //shouldn't be filtered out, so we connect that node to our
+                //last valid node and update our last valid node to the
+                //current node, and update our size. Only nodes behind us
+                //get relinked, so currNode.next is still the next node
+                Node<E> next = currNode.next;
+                boolean kept = (bits[j >>> 6] & (1L << j)) != 0;
+                if(recorder != null && !kept){
+                    recorder.removed(position, currNode.value);
+                }
+                position += 1;
+                if(kept){
+                    lastValidNode.next = currNode;
+                    lastValidNode = currNode;
+                    newSize += 1;
+                } else if(this.pooled){
+                    //We've already read the next node, so we can relink
+                    //this one onto the chain of dropped nodes
+                    if(lastDropped == null){
+                        dropped = currNode;
+                    } else {
+                        lastDropped.next = currNode;
+                    }
+                    lastDropped = currNode;
+                }
+                currNode = next;
             }
+            //Link what we've kept to the nodes still to check, so if the
+            //chooser throws on a later batch we never point at a node we've
+            //given back to the pool
+            lastValidNode.next = currNode;
         }
         //Make sure the last node in our sequence points to null instead of
         //artifacts from the unchanged list
         lastValidNode.next = null;
+        if(lastDropped != null){
+            lastDropped.next = null;
+            LinkedNodePool.current().giveAll(dropped);
+        }
+        ListMetrics.end(span, this, ListMetrics.CHOOSE_ALL, mc, this.size,
+                newSize);
+        int oldSize = this.size;
         this.size = newSize;
+        if(recorder != null){
+            this.changeListener.accept(recorder.finish(oldSize, newSize));
+        }
+    }
+
+    /* Something to write down what a call changes, if we have a change
+     * listener to tell, otherwise null */
+    private ListDelta.Recorder recorder() {
+        return this.changeListener == null ? null : new ListDelta.Recorder();
+    }
+
+    /* How many values to hand a chooser or transformer at once, never more
+     * than BATCH_SIZE or than we have */
+    private int batchLength() {
+        return Math.max(1, Math.min(this.size, BatchChooser.BATCH_SIZE));
+    }
+
+    /** gather copies the values of the nodes starting at first into values,
+     * stopping when values is full or the list runs out
+     *
+     * @param first, the first node to copy from
+     * @param values, where to copy the values to
+     * @return how many values were copied
+     * */
+    private int gather(Node<E> first, Object[] values) {
+        int count = 0;
+        for(Node<E> currNode = first;
+                currNode != null && count < values.length;
+                currNode = currNode.next){
+            values[count] = currNode.value;
+            count += 1;
+        }
+        return count;
+    }
+
+    /** pipelineToArray runs every step of a lazy pipeline on each node's
+     * value in one walk down the list, putting what's left into a new array
+     * and leaving this list unchanged
+     *
+     * @param pipeline, the lazy pipeline to run
+     * @return the values that made it through every step, in order
+     * */
+    @Override
+    @SuppressWarnings("unchecked")
+    public E[] pipelineToArray(LazyList<E> pipeline) {
+        E[] toRet = (E[])(new Object[this.size]);
+        int newSize = 0;
+        for(Node<E> currNode = this.front.next; currNode != null;
+                currNode = currNode.next){
+            Object out = pipeline.apply(currNode.value);
+            if(out != LazyList.DROPPED){
+                toRet[newSize] = (E) out;
+                newSize += 1;
+            }
+        }
+        return newSize == this.size ? toRet : Arrays.copyOf(toRet, newSize);
+    }
+
+    /** pipelineAll runs every step of a lazy pipeline on each node's value in
+     * one walk down the list, unlinking the nodes that get dropped the same
+     * way chooseAll does, and giving them back to the pool if we're pooled.
+     * If we have a change listener, we write down what changed as we go.
+     * If a step throws, the nodes already run keep their changes and the
+     * rest are left as they were, the way transformAll leaves them.
+     *
+     * @param pipeline, the lazy pipeline to run
+     * */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void pipelineAll(LazyList<E> pipeline) {
+        Node<E> currNode = this.front.next;
+        Node<E> lastValidNode = this.front;
+        LinkedNodePool pool = this.pooled ? LinkedNodePool.current() : null;
+        ListDelta.Recorder recorder = recorder();
+        int oldSize = this.size;
+        int position = 0;
+        int newSize = 0;
+        try {
+            while(currNode != null){
+                Node<E> next = currNode.next;
+                Object out = pipeline.apply(currNode.value);
+                if(recorder != null){
+                    if(out == LazyList.DROPPED){
+                        recorder.removed(position, currNode.value);
+                    } else {
+                        recorder.transformed(position, currNode.value, out);
+                    }
+                }
+                position += 1;
+                if(out != LazyList.DROPPED){
+                    currNode.value = (E) out;
+                    lastValidNode.next = currNode;
+                    lastValidNode = currNode;
+                    newSize += 1;
+                } else if(pool != null){
+                    //Skip this node before giving it back, so it's never
+                    //reachable from our list once the pool has it
+                    lastValidNode.next = next;
+                    pool.give(currNode);
+                }
+                currNode = next;
+            }
+        } finally {
+            //If a step threw, the nodes it never got to are linked back on
+            //behind the ones it kept, and counted again
+            lastValidNode.next = currNode;
+            this.size = newSize + oldSize - position;
+        }
+        if(recorder != null){
+            this.changeListener.accept(recorder.finish(oldSize, newSize));
+        }
     }
 
     /** isEmpty returns true if our linked list only has the dummy node
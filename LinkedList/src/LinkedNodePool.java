@@ -0,0 +1,131 @@
+/**
+ * This file holds the pool of spare LinkedGL Nodes a pooled LinkedGL builds
+ * itself from, so a list that's built, filtered and thrown away over and over
+ * reuses the same Nodes instead of making new ones for the garbage collector
+ * to clean up.
+ * **/
+
+/* Every thread has its own pool, so taking and giving back a Node never
+ * needs a lock. The spare Nodes are linked together through their own next
+ * fields, so the pool itself costs nothing but a count, and it never holds
+ * more than capacity Nodes, any more are left for the garbage collector. A
+ * Node in the pool has had its value cleared, so the pool never keeps a
+ * list's elements alive.
+ *
+ * A Node given back on one thread and taken on another is fine, it just
+ * moves from one thread's pool to another's. */
+final class LinkedNodePool {
+
+    //How many spare Nodes each thread keeps by default, around 100KB. A
+    //bigger pool spreads the Nodes it hands out across more memory than
+    //the cache holds, and walking them costs more than making new ones
+    static final int DEFAULT_CAPACITY = 1 << 12;
+
+    private static final ThreadLocal<LinkedNodePool> POOLS =
+            ThreadLocal.withInitial(LinkedNodePool::new);
+    //The most spare Nodes any thread's pool keeps
+    private static volatile int capacity = DEFAULT_CAPACITY;
+
+    private LinkedGL.Node<Object> spare;
+    private int count;
+
+    private LinkedNodePool() {
+    }
+
+    /** current gives us this thread's pool
+     *
+     * @return the pool for the calling thread
+     * **/
+    static LinkedNodePool current() {
+        return POOLS.get();
+    }
+
+    /** setCapacity changes how many spare Nodes each thread's pool keeps.
+     * Pools already holding more shrink as they hand Nodes out.
+     *
+     * @param nodes, the most spare Nodes a pool keeps, 0 to keep none
+     * @throws IllegalArgumentException if nodes is negative
+     * **/
+    static void setCapacity(int nodes) {
+        if(nodes < 0){
+            throw new IllegalArgumentException("Capacity can't be negative: "
+                    + nodes);
+        }
+        capacity = nodes;
+    }
+
+    /** size tells us how many spare Nodes this pool is holding
+     *
+     * @return the number of spare Nodes
+     * **/
+    int size() {
+        return this.count;
+    }
+
+    /** take hands out a spare Node holding value, or makes a new one if the
+     * pool is empty
+     *
+     * @param value, the value the Node should hold
+     * @param next, the Node it should point to
+     * @return the Node
+     * **/
+    @SuppressWarnings("unchecked")
+    <E> LinkedGL.Node<E> take(E value, LinkedGL.Node<E> next) {
+        LinkedGL.Node<E> node = (LinkedGL.Node<E>) (Object) this.spare;
+        if(node == null){
+            return new LinkedGL.Node<E>(value, next);
+        }
+        this.spare = this.spare.next;
+        this.count -= 1;
+        node.value = value;
+        node.next = next;
+        return node;
+    }
+
+    /** give takes back one Node nothing uses anymore, clearing it first
+     *
+     * @param node, the Node to take back
+     * **/
+    @SuppressWarnings("unchecked")
+    void give(LinkedGL.Node<?> node) {
+        node.value = null;
+        if(this.count >= capacity){
+            //Full, so the Node is left for the garbage collector, but we
+            //still cut it loose from whatever it pointed to
+            node.next = null;
+            return;
+        }
+        LinkedGL.Node<Object> spareNode = (LinkedGL.Node<Object>) node;
+        spareNode.next = this.spare;
+        this.spare = spareNode;
+        this.count += 1;
+    }
+
+    /** giveAll takes back every Node of a chain nothing uses anymore,
+     * starting at first and following next until it runs out. The chain
+     * keeps its order in the pool, so the next list built takes its Nodes
+     * in the same order, which keeps a walk down it close to how it was.
+     *
+     * @param first, the first Node of the chain, or null for none
+     * **/
+    @SuppressWarnings("unchecked")
+    void giveAll(LinkedGL.Node<?> first) {
+        int room = capacity - this.count;
+        //Nothing points at the chain anymore, so whatever doesn't fit is
+        //simply left for the garbage collector
+        if(first == null || room <= 0){
+            return;
+        }
+        LinkedGL.Node<?> last = first;
+        first.value = null;
+        int taken = 1;
+        while(taken < room && last.next != null){
+            last = last.next;
+            last.value = null;
+            taken += 1;
+        }
+        ((LinkedGL.Node<Object>) last).next = this.spare;
+        this.spare = (LinkedGL.Node<Object>) first;
+        this.count += taken;
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ * This file collects every element a java.util.concurrent.Flow publisher
+ * sends into one of our lists, for the end of a pipeline of ListProcessors.
+ * **/
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/* This class is subscribed to a publisher, and once the publisher completes,
+ * elements(), toArrayGL() and toLinkedGL() hand back everything it sent, in
+ * order. If the publisher fails instead, they complete exceptionally with
+ * the publisher's exception.
+ *
+ * Elements go into an array we grow as needed. Given an expected size up
+ * front, the array starts at that size, so a publisher sending about that
+ * many elements never makes us copy them, and if it sends exactly that many
+ * the ArrayGL is built on the array itself. We ask for elements in batches
+ * of batchSize, asking for the next batch once the current one has arrived. */
+public class ListCollector<E> implements Flow.Subscriber<E> {
+
+    static final int DEFAULT_BATCH_SIZE = 256;
+    static final int DEFAULT_EXPECTED_SIZE = 16;
+
+    final int batchSize;
+    Flow.Subscription subscription;
+    E[] elements;
+    int size;
+    //How many elements of the current batch are still on their way
+    int outstanding;
+    final CompletableFuture<E[]> result = new CompletableFuture<E[]>();
+
+    /** This constructor makes a collector that starts with room for
+     * expectedSize elements and asks for batchSize elements at a time
+     *
+     * @param expectedSize, how many elements we think we'll get
+     * @param batchSize, how many elements to ask our publisher for at once
+     * **/
+    @SuppressWarnings("unchecked")
+    public ListCollector(int expectedSize, int batchSize) {
+        if(expectedSize < 0 || batchSize < 1){
+            throw new IllegalArgumentException("Expected size can't be"
+                    + " negative and batch size must be positive, got "
+                    + expectedSize + " and " + batchSize);
+        }
+        this.batchSize = batchSize;
+        this.elements = (E[]) (new Object[expectedSize]);
+    }
+
+    /** This constructor makes a collector that starts with room for
+     * expectedSize elements
+     *
+     * @param expectedSize, how many elements we think we'll get
+     * **/
+    public ListCollector(int expectedSize) {
+        this(expectedSize, DEFAULT_BATCH_SIZE);
+    }
+
+    /** This constructor makes a collector for when we have no idea how many
+     * elements are coming
+     * **/
+    public ListCollector() {
+        this(DEFAULT_EXPECTED_SIZE, DEFAULT_BATCH_SIZE);
+    }
+
+    /** onSubscribe asks our publisher for the first batch. We can only have
+     * one publisher, so any later subscription is cancelled straight away.
+     *
+     * @param subscription, the subscription to our publisher
+     * **/
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if(subscription == null){
+            throw new NullPointerException();
+        }
+        if(this.subscription != null){
+            subscription.cancel();
+            return;
+        }
+        this.subscription = subscription;
+        this.outstanding = this.batchSize;
+        subscription.request(this.batchSize);
+    }
+
+    /** onNext adds an element to the end of our array, growing it by half if
+     * it's full, and asks for the next batch once this one has all arrived
+     *
+     * @param item, the element from our publisher
+     * **/
+    @Override
+    public void onNext(E item) {
+        if(item == null){
+            throw new NullPointerException();
+        }
+        if(this.size == this.elements.length){
+            int grown = this.elements.length + (this.elements.length >> 1);
+            this.elements = Arrays.copyOf(this.elements, Math.max(grown,
+                    DEFAULT_EXPECTED_SIZE));
+        }
+        this.elements[this.size] = item;
+        this.size += 1;
+        this.outstanding -= 1;
+        if(this.outstanding == 0){
+            this.outstanding = this.batchSize;
+            this.subscription.request(this.batchSize);
+        }
+    }
+
+    /** onError hands our publisher's failure on to whoever is waiting for
+     * our elements
+     *
+     * @param throwable, what went wrong
+     * **/
+    @Override
+    public void onError(Throwable throwable) {
+        this.elements = null;
+        this.result.completeExceptionally(throwable);
+    }
+
+    /** onComplete hands back every element we got, trimming our array down
+     * to size if it has room left over
+     * **/
+    @Override
+    public void onComplete() {
+        E[] collected = this.size == this.elements.length ? this.elements
+                : Arrays.copyOf(this.elements, this.size);
+        this.elements = null;
+        this.result.complete(collected);
+    }
+
+    /** elements gives us every element our publisher sent, once it has
+     * finished
+     *
+     * @return a future of the elements, in the order they were sent
+     * **/
+    public CompletableFuture<E[]> elements() {
+        return this.result;
+    }
+
+    /** toArrayGL gives us every element our publisher sent as an ArrayGL,
+     * built straight on our array without copying it again
+     *
+     * @return a future of the ArrayGL
+     * **/
+    public CompletableFuture<ArrayGL<E>> toArrayGL() {
+        return this.result.thenApply(collected -> new ArrayGL<E>(collected));
+    }
+
+    /** toLinkedGL gives us every element our publisher sent as a LinkedGL
+     *
+     * @return a future of the LinkedGL
+     * **/
+    public CompletableFuture<LinkedGL<E>> toLinkedGL() {
+        return this.result.thenApply(collected -> new LinkedGL<E>(collected));
+    }
+}
@@ -0,0 +1,307 @@
+/**
+ * This file holds what one chooseAll, transformAll or lazy pipeline changed
+ * about a list, so whatever is kept up to date from the list only has to
+ * look at what changed instead of the whole list again.
+ * **/
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/* A ListDelta has two parts, both given as positions in the list as it was
+ * before the call:
+ *
+ *   removed  the positions that are gone, and the values they held
+ *   changed  the positions that are still there but hold a different value,
+ *            with the value from before and the value now
+ *
+ * A position is never in both. Each set of positions is stored run length
+ * encoded, as pairs of a first position and how many positions follow it,
+ * so a chooser that drops a long stretch, or a transformer that changes
+ * everything, costs two ints rather than one per position. The values sit in
+ * plain arrays in position order. A value counts as changed when it isn't
+ * equal to the one before, by equals, so a transformer handing back an
+ * equal copy doesn't show up.
+ *
+ * ArrayGL and LinkedGL make these when they have a change listener, see
+ * their setChangeListener. */
+public final class ListDelta {
+
+    final int oldSize;
+    final int newSize;
+    final int[] removedRuns;
+    final Object[] removedValues;
+    final int[] changedRuns;
+    final Object[] oldValues;
+    final Object[] newValues;
+
+    private ListDelta(int oldSize, int newSize, int[] removedRuns,
+                      Object[] removedValues, int[] changedRuns,
+                      Object[] oldValues, Object[] newValues) {
+        this.oldSize = oldSize;
+        this.newSize = newSize;
+        this.removedRuns = removedRuns;
+        this.removedValues = removedValues;
+        this.changedRuns = changedRuns;
+        this.oldValues = oldValues;
+        this.newValues = newValues;
+    }
+
+    /** @return how many elements the list had before the call */
+    public int oldSize() {
+        return this.oldSize;
+    }
+
+    /** @return how many elements the list has after the call */
+    public int newSize() {
+        return this.newSize;
+    }
+
+    /** @return true if the call didn't remove or change anything */
+    public boolean isEmpty() {
+        return this.removedValues.length == 0 && this.oldValues.length == 0;
+    }
+
+    /** @return how many positions were removed */
+    public int removedCount() {
+        return this.removedValues.length;
+    }
+
+    /** removedRuns gives us the removed positions, run length encoded
+     *
+     * @return pairs of the first position of a run and the run's length, in
+     * order
+     * **/
+    public int[] removedRuns() {
+        return this.removedRuns.clone();
+    }
+
+    /** @return every removed position, in order */
+    public int[] removedPositions() {
+        return expand(this.removedRuns, this.removedValues.length);
+    }
+
+    /** @return the values that were removed, in the same order as their
+     * positions */
+    public Object[] removedValues() {
+        return this.removedValues.clone();
+    }
+
+    /** @return how many positions hold a different value */
+    public int changedCount() {
+        return this.oldValues.length;
+    }
+
+    /** changedRuns gives us the changed positions, run length encoded
+     *
+     * @return pairs of the first position of a run and the run's length, in
+     * order
+     * **/
+    public int[] changedRuns() {
+        return this.changedRuns.clone();
+    }
+
+    /** @return every changed position, in order */
+    public int[] changedPositions() {
+        return expand(this.changedRuns, this.oldValues.length);
+    }
+
+    /** @return the values the changed positions held before, in the same
+     * order as their positions */
+    public Object[] oldValues() {
+        return this.oldValues.clone();
+    }
+
+    /** @return the values the changed positions hold now, in the same order
+     * as their positions */
+    public Object[] newValues() {
+        return this.newValues.clone();
+    }
+
+    /** applyTo works out the list after the call from the list before it,
+     * the way a copy kept somewhere else would be brought up to date
+     *
+     * @param before, the list's elements before the call
+     * @return the list's elements after the call
+     * @throws IllegalArgumentException if before isn't the size the list was
+     * **/
+    public Object[] applyTo(Object[] before) {
+        if(before.length != this.oldSize){
+            throw new IllegalArgumentException("Delta is for a list of "
+                    + this.oldSize + " elements, not " + before.length);
+        }
+        Object[] after = before.clone();
+        int value = 0;
+        for(int r = 0; r < this.changedRuns.length; r += 2){
+            int start = this.changedRuns[r];
+            int length = this.changedRuns[r + 1];
+            System.arraycopy(this.newValues, value, after, start, length);
+            value += length;
+        }
+        //Slide each stretch between removed runs down over the gaps
+        int write = 0;
+        int read = 0;
+        for(int r = 0; r < this.removedRuns.length; r += 2){
+            int start = this.removedRuns[r];
+            System.arraycopy(after, read, after, write, start - read);
+            write += start - read;
+            read = start + this.removedRuns[r + 1];
+        }
+        System.arraycopy(after, read, after, write, this.oldSize - read);
+        return Arrays.copyOf(after, this.newSize);
+    }
+
+    @Override
+    public String toString() {
+        return "ListDelta[" + this.oldSize + " -> " + this.newSize
+                + ", removed " + removedCount() + " in "
+                + this.removedRuns.length / 2 + " runs, changed "
+                + changedCount() + " in " + this.changedRuns.length / 2
+                + " runs]";
+    }
+
+    /** transformed works out the delta of a call that changed values in
+     * place, from the values before and after
+     *
+     * @param before, the values before the call
+     * @param after, the values after the call
+     * @param size, how many values the list has
+     * @return the delta
+     * **/
+    static ListDelta transformed(Object[] before, Object[] after, int size) {
+        Recorder recorder = new Recorder();
+        for(int i = 0; i < size; i += 1){
+            recorder.transformed(i, before[i], after[i]);
+        }
+        return recorder.finish(size, size);
+    }
+
+    /** chosen works out the delta of a call that only removed values, from
+     * the values before and the ones left after. What's left has to be the
+     * same objects in the same order, so we match them up front to back.
+     * Choosers give the same answer for the same object, so where one object
+     * sits at more than one position, matching the first one is right.
+     *
+     * @param before, the values before the call
+     * @param oldSize, how many values there were
+     * @param after, the values left after the call
+     * @param newSize, how many values are left
+     * @return the delta
+     * **/
+    static ListDelta chosen(Object[] before, int oldSize, Object[] after,
+                            int newSize) {
+        Recorder recorder = new Recorder();
+        int kept = 0;
+        for(int i = 0; i < oldSize; i += 1){
+            if(kept < newSize && before[i] == after[kept]){
+                kept += 1;
+            } else {
+                recorder.removed(i, before[i]);
+            }
+        }
+        return recorder.finish(oldSize, newSize);
+    }
+
+    /* Turns runs back into one position per entry */
+    private static int[] expand(int[] runs, int count) {
+        int[] positions = new int[count];
+        int at = 0;
+        for(int r = 0; r < runs.length; r += 2){
+            for(int p = runs[r]; p < runs[r] + runs[r + 1]; p += 1){
+                positions[at] = p;
+                at += 1;
+            }
+        }
+        return positions;
+    }
+
+    /* A growing list of runs, as pairs of a first position and a length */
+    static final class Runs {
+        private int[] runs = new int[8];
+        private int used;
+
+        /* Adds position, which has to come after every position added so
+         * far, carrying on the last run if it's right after it */
+        void add(int position) {
+            if(this.used > 0
+                    && this.runs[this.used - 2] + this.runs[this.used - 1]
+                    == position){
+                this.runs[this.used - 1] += 1;
+                return;
+            }
+            if(this.used == this.runs.length){
+                this.runs = Arrays.copyOf(this.runs, this.used * 2);
+            }
+            this.runs[this.used] = position;
+            this.runs[this.used + 1] = 1;
+            this.used += 2;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(this.runs, this.used);
+        }
+    }
+
+    /* This class builds a ListDelta one position at a time, as a list walks
+     * through its elements. Positions have to be handed to it in order. */
+    static final class Recorder {
+        private final Runs removedRuns = new Runs();
+        private Object[] removed = new Object[8];
+        private int removedCount;
+        private final Runs changedRuns = new Runs();
+        private Object[] oldValues = new Object[8];
+        private Object[] newValues = new Object[8];
+        private int changedCount;
+
+        /** removed writes down that position is gone
+         *
+         * @param position, the position before the call
+         * @param value, the value it held
+         * **/
+        void removed(int position, Object value) {
+            this.removedRuns.add(position);
+            if(this.removedCount == this.removed.length){
+                this.removed = Arrays.copyOf(this.removed,
+                        this.removedCount * 2);
+            }
+            this.removed[this.removedCount] = value;
+            this.removedCount += 1;
+        }
+
+        /** transformed writes down that position now holds after, if after
+         * isn't equal to what it held before
+         *
+         * @param position, the position before the call
+         * @param before, the value it held before
+         * @param after, the value it holds now
+         * **/
+        void transformed(int position, Object before, Object after) {
+            if(before == after || Objects.equals(before, after)){
+                return;
+            }
+            this.changedRuns.add(position);
+            if(this.changedCount == this.oldValues.length){
+                this.oldValues = Arrays.copyOf(this.oldValues,
+                        this.changedCount * 2);
+                this.newValues = Arrays.copyOf(this.newValues,
+                        this.changedCount * 2);
+            }
+            this.oldValues[this.changedCount] = before;
+            this.newValues[this.changedCount] = after;
+            this.changedCount += 1;
+        }
+
+        /** finish hands back everything written down
+         *
+         * @param oldSize, how many elements the list had before the call
+         * @param newSize, how many it has now
+         * @return the delta
+         * **/
+        ListDelta finish(int oldSize, int newSize) {
+            return new ListDelta(oldSize, newSize, this.removedRuns.toArray(),
+                    Arrays.copyOf(this.removed, this.removedCount),
+                    this.changedRuns.toArray(),
+                    Arrays.copyOf(this.oldValues, this.changedCount),
+                    Arrays.copyOf(this.newValues, this.changedCount));
+        }
+    }
+}
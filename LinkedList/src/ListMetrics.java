@@ -0,0 +1,302 @@
+/**
+ * This file keeps track of how our lists are used: how long each toArray,
+ * transformAll and chooseAll takes, how many elements go in and come out,
+ * how selective each chooser is and how much time each chooser and
+ * transformer class costs. The same numbers also go out as a JDK Flight
+ * Recorder event, ListOperationEvent.
+ * **/
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/* Lists call begin before an operation and end after it. When the registry is
+ * turned off and no recording wants ListOperationEvent, begin returns null and
+ * end returns straight away, so all we pay is one check per operation, never
+ * per element. The event is only built when a recording wants it, and begin
+ * starts its clock, so it sits where the operation actually ran on the
+ * recording's timeline.
+ *
+ * The time for a transformAll or chooseAll is counted against the chooser or
+ * transformer it was called with. Almost all of that time is spent inside
+ * the chooser or transformer, and timing every single call would cost more
+ * than most of them do. */
+public final class ListMetrics {
+
+    static final String TO_ARRAY = "toArray";
+    static final String TRANSFORM_ALL = "transformAll";
+    static final String CHOOSE_ALL = "chooseAll";
+
+    //Latencies go into power of two buckets of nanoseconds, bucket i holds
+    //everything from 2^i up to 2^(i+1) - 1
+    static final int BUCKETS = 64;
+
+    static volatile boolean enabled;
+    //Only ever asked isEnabled, which looks at whether any recording wants
+    //the event, never committed
+    static final ListOperationEvent PROBE = new ListOperationEvent();
+
+    static final ConcurrentHashMap<String, OperationStats> OPERATIONS =
+            new ConcurrentHashMap<String, OperationStats>();
+    static final ConcurrentHashMap<String, KernelStats> KERNELS =
+            new ConcurrentHashMap<String, KernelStats>();
+
+    private ListMetrics() {
+    }
+
+    /* The numbers for one operation on one kind of list */
+    public static final class OperationStats {
+        final LongAdder calls = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final LongAdder elementsIn = new LongAdder();
+        final LongAdder elementsOut = new LongAdder();
+        final LongAdder[] histogram = new LongAdder[BUCKETS];
+
+        OperationStats() {
+            for(int i = 0; i < BUCKETS; i += 1){
+                this.histogram[i] = new LongAdder();
+            }
+        }
+
+        public long calls() {
+            return this.calls.sum();
+        }
+
+        public long totalNanos() {
+            return this.nanos.sum();
+        }
+
+        public long elementsIn() {
+            return this.elementsIn.sum();
+        }
+
+        public long elementsOut() {
+            return this.elementsOut.sum();
+        }
+
+        /** histogram returns how many calls took between 2^i and 2^(i+1) - 1
+         * nanoseconds, for every i
+         *
+         * @return the count of calls in each bucket
+         * */
+        public long[] histogram() {
+            long[] counts = new long[BUCKETS];
+            for(int i = 0; i < BUCKETS; i += 1){
+                counts[i] = this.histogram[i].sum();
+            }
+            return counts;
+        }
+
+        /** percentileNanos estimates a latency percentile from the histogram,
+         * rounding up to the top of the bucket it falls in
+         *
+         * @param p, the percentile to find, between 0 and 100
+         * @return roughly how many nanoseconds p percent of calls took at most
+         * */
+        public long percentileNanos(double p) {
+            long[] counts = histogram();
+            long total = 0;
+            for(long c : counts){
+                total += c;
+            }
+            long target = (long) Math.ceil(total * p / 100.0);
+            long seen = 0;
+            for(int i = 0; i < BUCKETS; i += 1){
+                seen += counts[i];
+                if(seen >= target && seen > 0){
+                    return i == BUCKETS - 1 ? Long.MAX_VALUE : (2L << i) - 1;
+                }
+            }
+            return 0;
+        }
+    }
+
+    /* The numbers for one chooser or transformer class */
+    public static final class KernelStats {
+        final LongAdder calls = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final LongAdder elementsIn = new LongAdder();
+        final LongAdder elementsOut = new LongAdder();
+
+        public long calls() {
+            return this.calls.sum();
+        }
+
+        public long totalNanos() {
+            return this.nanos.sum();
+        }
+
+        public long elements() {
+            return this.elementsIn.sum();
+        }
+
+        /** selectivity returns the fraction of elements a chooser kept, over
+         * every call so far, or 1 for a transformer
+         *
+         * @return kept elements divided by tested elements
+         * */
+        public double selectivity() {
+            long in = this.elementsIn.sum();
+            return in == 0 ? 1.0 : (double) this.elementsOut.sum() / in;
+        }
+
+        /** nanosPerElement returns the average time spent per element
+         *
+         * @return total nanoseconds divided by elements handled
+         * */
+        public double nanosPerElement() {
+            long in = this.elementsIn.sum();
+            return in == 0 ? 0.0 : (double) this.nanos.sum() / in;
+        }
+    }
+
+    /** setEnabled turns the in-process registry on or off. The Flight
+     * Recorder event is turned on and off by JFR itself.
+     *
+     * @param on, true to start recording into the registry
+     * */
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    /** isEnabled tells us whether the in-process registry is recording
+     *
+     * @return true if the registry is on
+     * */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /* What begin hands a list to pass back to end: when the operation
+     * started, and its event if a recording wants one */
+    static final class Span {
+        final long start;
+        final ListOperationEvent event;
+
+        Span(long start, ListOperationEvent event) {
+            this.start = start;
+            this.event = event;
+        }
+    }
+
+    /** begin is called by a list before an operation
+     *
+     * @return the operation's span, or null if nothing is listening
+     * */
+    static Span begin() {
+        boolean recording = PROBE.isEnabled();
+        if(!enabled && !recording){
+            return null;
+        }
+        ListOperationEvent event = null;
+        if(recording){
+            event = new ListOperationEvent();
+            event.begin();
+        }
+        return new Span(System.nanoTime(), event);
+    }
+
+    /** end is called by a list after an operation, with whatever begin gave
+     * it
+     *
+     * @param span, what begin returned
+     * @param list, the list the operation ran on
+     * @param operation, one of TO_ARRAY, TRANSFORM_ALL or CHOOSE_ALL
+     * @param kernel, the chooser or transformer used, or null for toArray
+     * @param in, how many elements the list had before
+     * @param out, how many elements the list had after, or were returned
+     * */
+    static void end(Span span, Object list, String operation, Object kernel,
+                    long in, long out) {
+        if(span == null){
+            return;
+        }
+        long nanos = System.nanoTime() - span.start;
+        ListOperationEvent event = span.event;
+        if(event != null){
+            event.end();
+        }
+        String listName = list.getClass().getSimpleName();
+        String kernelName = kernel == null ? null
+                : kernel.getClass().getName();
+        if(enabled){
+            OperationStats op = OPERATIONS.computeIfAbsent(
+                    listName + "." + operation, k -> new OperationStats());
+            op.calls.increment();
+            op.nanos.add(nanos);
+            op.elementsIn.add(in);
+            op.elementsOut.add(out);
+            op.histogram[63 - Long.numberOfLeadingZeros(Math.max(1, nanos))]
+                    .increment();
+            if(kernelName != null){
+                KernelStats k = KERNELS.computeIfAbsent(kernelName,
+                        name -> new KernelStats());
+                k.calls.increment();
+                k.nanos.add(nanos);
+                k.elementsIn.add(in);
+                k.elementsOut.add(out);
+            }
+        }
+        if(event != null && event.shouldCommit()){
+            event.list = listName;
+            event.operation = operation;
+            event.kernel = kernelName;
+            event.elementsIn = in;
+            event.elementsOut = out;
+            event.selectivity = in == 0 ? 1.0 : (double) out / in;
+            event.commit();
+        }
+    }
+
+    /** operations returns the numbers for every operation seen so far, keyed
+     * by list class and operation name, like "ArrayGL.chooseAll"
+     *
+     * @return a sorted copy of the operation registry
+     * */
+    public static Map<String, OperationStats> operations() {
+        return new TreeMap<String, OperationStats>(OPERATIONS);
+    }
+
+    /** kernels returns the numbers for every chooser and transformer class
+     * seen so far, keyed by class name
+     *
+     * @return a sorted copy of the kernel registry
+     * */
+    public static Map<String, KernelStats> kernels() {
+        return new TreeMap<String, KernelStats>(KERNELS);
+    }
+
+    /** reset forgets everything recorded so far */
+    public static void reset() {
+        OPERATIONS.clear();
+        KERNELS.clear();
+    }
+
+    /** report writes everything recorded so far as a readable table
+     *
+     * @return one line per operation, then one line per kernel
+     * */
+    public static String report() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%-32s %10s %14s %10s %10s %14s %14s%n",
+                "Operation", "calls", "total ms", "p50 us", "p99 us",
+                "elements in", "elements out"));
+        for(Map.Entry<String, OperationStats> e : operations().entrySet()){
+            OperationStats s = e.getValue();
+            out.append(String.format("%-32s %10d %14.3f %10.1f %10.1f %14d %14d%n",
+                    e.getKey(), s.calls(), s.totalNanos() / 1e6,
+                    s.percentileNanos(50) / 1e3, s.percentileNanos(99) / 1e3,
+                    s.elementsIn(), s.elementsOut()));
+        }
+        out.append(String.format("%n%-48s %10s %14s %12s %12s%n", "Kernel",
+                "calls", "elements", "ns/element", "selectivity"));
+        for(Map.Entry<String, KernelStats> e : kernels().entrySet()){
+            KernelStats s = e.getValue();
+            out.append(String.format("%-48s %10d %14d %12.2f %12.4f%n",
+                    e.getKey(), s.calls(), s.elements(), s.nanosPerElement(),
+                    s.selectivity()));
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ * This file defines the JDK Flight Recorder event written for every toArray,
+ * transformAll and chooseAll on an instrumented list, see ListMetrics.
+ * **/
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/* This event is off unless a recording turns it on, for example with
+ * -XX:StartFlightRecording:settings=profile plus
+ * "ListOperation#enabled=true", or jfr configure. While it's off ListMetrics
+ * never even builds one. Its start time and duration are the operation's own,
+ * ListMetrics begins the event just before the operation and ends it just
+ * after. */
+@Name("ListOperation")
+@Label("List Operation")
+@Category("MyList")
+@Description("One toArray, transformAll or chooseAll call on a list")
+@StackTrace(false)
+class ListOperationEvent extends Event {
+
+    @Label("List")
+    String list;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Chooser or Transformer")
+    String kernel;
+
+    @Label("Elements In")
+    long elementsIn;
+
+    @Label("Elements Out")
+    long elementsOut;
+
+    @Label("Selectivity")
+    @Description("Fraction of elements a chooser kept, 1 for other operations")
+    double selectivity;
+}
@@ -0,0 +1,406 @@
+/**
+ * This file lets us run our choosers and transformers as a stage of a
+ * java.util.concurrent.Flow pipeline. Elements come in from a publisher, go
+ * through every step, and the survivors go out to one subscriber, without
+ * ever being collected into a list first.
+ * **/
+
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/* This class is given steps with choose and transform the same way as
+ * LazyList, then subscribed to a publisher and subscribed to by one
+ * subscriber, for example
+ *
+ *   publisher.subscribe(processor);
+ *   processor.subscribe(new ListCollector<E>());
+ *
+ * It never asks its publisher for more elements than it has room to hold.
+ * It asks for prefetch elements up front, then asks for more in batches,
+ * each time a quarter of that room frees up, rather than once per element.
+ * Elements only go on to our subscriber as fast as it asks for them, but an
+ * element a chooser drops never counts against what it asked for.
+ *
+ * Our publisher hands us elements on its thread and our subscriber asks for
+ * them on its own, so the elements wait in a ring buffer in between, with
+ * one thread adding to it and one thread taking from it. Only one thread at
+ * a time ever runs drain, which is where the steps run and where our
+ * subscriber gets every signal, so the steps and our subscriber never get
+ * called from two threads at once. A step that throws cancels our publisher
+ * and sends the exception on to our subscriber with onError. */
+public class ListProcessor<E> implements Flow.Processor<E, E> {
+
+    static final int DEFAULT_PREFETCH = 256;
+
+    //The steps to run, we only ever use the pipeline's apply
+    final LazyList<E> steps;
+    final int prefetch;
+    //How many elements to take before asking our publisher for more
+    final int limit;
+
+    //Elements waiting between our publisher and our subscriber. Only onNext
+    //moves producerIndex, and only drain moves consumerIndex
+    final Object[] ring;
+    final int mask;
+    volatile long producerIndex;
+    volatile long consumerIndex;
+
+    volatile Flow.Subscription upstream;
+    volatile Flow.Subscriber<? super E> downstream;
+    //How many more elements our subscriber has asked for
+    final AtomicLong requested = new AtomicLong();
+    //How many calls to drain are waiting, only the one that finds it at 0
+    //actually runs the loop
+    final AtomicInteger wip = new AtomicInteger();
+    volatile boolean done;
+    volatile Throwable error;
+    volatile boolean cancelled;
+    //Only touched inside drain, how many elements we took since we last
+    //asked our publisher for more
+    int taken;
+
+    /** This constructor makes a processor with no steps yet, which holds at
+     * most prefetch elements between its publisher and its subscriber
+     *
+     * @param prefetch, how many elements to ask our publisher for at once
+     * **/
+    @SuppressWarnings("unchecked")
+    public ListProcessor(int prefetch) {
+        if(prefetch < 1){
+            throw new IllegalArgumentException("Prefetch must be positive: "
+                    + prefetch);
+        }
+        this.steps = new ArrayGL<E>((E[]) (new Object[0])).lazy();
+        this.prefetch = prefetch;
+        this.limit = prefetch - (prefetch >> 2);
+        //Round the ring up to a power of two so we can wrap with a mask
+        int capacity = Integer.highestOneBit(prefetch);
+        if(capacity < prefetch){
+            capacity <<= 1;
+        }
+        this.ring = new Object[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /** This constructor makes a processor with no steps yet, which asks for
+     * DEFAULT_PREFETCH elements at once
+     * **/
+    public ListProcessor() {
+        this(DEFAULT_PREFETCH);
+    }
+
+    /** choosing makes a processor that only passes on the elements a chooser
+     * chooses
+     *
+     * @param mc, the chooser to filter with
+     * @return the new processor
+     * **/
+    @SuppressWarnings("rawtypes")
+    public static <E> ListProcessor<E> choosing(MyChooser mc) {
+        return new ListProcessor<E>().choose(mc);
+    }
+
+    /** transforming makes a processor that passes on every element's
+     * transformed version
+     *
+     * @param mt, the transformer to change elements with
+     * @return the new processor
+     * **/
+    @SuppressWarnings("rawtypes")
+    public static <E> ListProcessor<E> transforming(MyTransformer mt) {
+        return new ListProcessor<E>().transform(mt);
+    }
+
+    /** choose adds a chooseAll step to the end of this processor, which has
+     * to happen before it's subscribed to a publisher
+     *
+     * @param mc, the chooser to filter with
+     * @return this processor, so more steps can be added
+     * **/
+    @SuppressWarnings("rawtypes")
+    public ListProcessor<E> choose(MyChooser mc) {
+        this.steps.choose(mc);
+        return this;
+    }
+
+    /** transform adds a transformAll step to the end of this processor, which
+     * has to happen before it's subscribed to a publisher
+     *
+     * @param mt, the transformer to change elements with
+     * @return this processor, so more steps can be added
+     * **/
+    @SuppressWarnings("rawtypes")
+    public ListProcessor<E> transform(MyTransformer mt) {
+        this.steps.transform(mt);
+        return this;
+    }
+
+    /** onSubscribe keeps hold of our publisher's subscription and asks it
+     * for our first prefetch elements. We can only have one publisher, so
+     * any later subscription is cancelled straight away.
+     *
+     * @param subscription, the subscription to our publisher
+     * **/
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if(subscription == null){
+            throw new NullPointerException();
+        }
+        if(this.upstream != null){
+            subscription.cancel();
+            return;
+        }
+        this.upstream = subscription;
+        if(this.cancelled){
+            subscription.cancel();
+            return;
+        }
+        subscription.request(this.prefetch);
+    }
+
+    /** onNext adds an element from our publisher to the ring buffer, then
+     * passes on whatever our subscriber has room for
+     *
+     * @param item, the element from our publisher
+     * **/
+    @Override
+    public void onNext(E item) {
+        if(item == null){
+            throw new NullPointerException();
+        }
+        if(this.done){
+            //We've cancelled our publisher, this one was already on its way
+            return;
+        }
+        long p = this.producerIndex;
+        if(p - this.consumerIndex == this.ring.length){
+            //Our publisher sent more than we asked for
+            this.upstream.cancel();
+            onError(new IllegalStateException("Publisher sent more elements"
+                    + " than were requested"));
+            return;
+        }
+        this.ring[(int) p & this.mask] = item;
+        this.producerIndex = p + 1;
+        drain();
+    }
+
+    /** onError passes a failure from our publisher on to our subscriber,
+     * dropping any elements still waiting
+     *
+     * @param throwable, what went wrong
+     * **/
+    @Override
+    public void onError(Throwable throwable) {
+        if(throwable == null){
+            throw new NullPointerException();
+        }
+        if(this.done){
+            return;
+        }
+        this.error = throwable;
+        this.done = true;
+        drain();
+    }
+
+    /** onComplete tells our subscriber we're finished, once every element
+     * still waiting has been passed on
+     * **/
+    @Override
+    public void onComplete() {
+        if(this.done){
+            return;
+        }
+        this.done = true;
+        drain();
+    }
+
+    /** subscribe connects our one subscriber. Any later subscriber is told
+     * it can't have our elements with onError.
+     *
+     * @param subscriber, who the surviving elements go to
+     * **/
+    @Override
+    public void subscribe(Flow.Subscriber<? super E> subscriber) {
+        if(subscriber == null){
+            throw new NullPointerException();
+        }
+        synchronized (this) {
+            if(this.downstream == null){
+                this.downstream = subscriber;
+                subscriber.onSubscribe(new Downstream());
+                drain();
+                return;
+            }
+        }
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        subscriber.onError(new IllegalStateException("ListProcessor only"
+                + " supports one subscriber"));
+    }
+
+    /* The subscription we hand our subscriber */
+    final class Downstream implements Flow.Subscription {
+
+        @Override
+        public void request(long n) {
+            if(n <= 0){
+                //This ends the subscription, but the error goes out through
+                //drain so it can't overlap an onNext
+                Flow.Subscription up = ListProcessor.this.upstream;
+                if(up != null){
+                    up.cancel();
+                }
+                ListProcessor.this.error = new IllegalArgumentException(
+                        "Must request a positive number of elements: " + n);
+                ListProcessor.this.done = true;
+                drain();
+                return;
+            }
+            long current;
+            long next;
+            do {
+                current = ListProcessor.this.requested.get();
+                next = current + n < 0 ? Long.MAX_VALUE : current + n;
+            } while(!ListProcessor.this.requested.compareAndSet(current,
+                    next));
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            ListProcessor.this.cancelled = true;
+            Flow.Subscription up = ListProcessor.this.upstream;
+            if(up != null){
+                up.cancel();
+            }
+            drain();
+        }
+    }
+
+    /* Takes the next waiting element out of the ring buffer, or returns null
+     * if there isn't one. Only called from drain */
+    private Object poll() {
+        long c = this.consumerIndex;
+        if(c == this.producerIndex){
+            return null;
+        }
+        int slot = (int) c & this.mask;
+        Object item = this.ring[slot];
+        this.ring[slot] = null;
+        this.consumerIndex = c + 1;
+        return item;
+    }
+
+    /* Asks our publisher for another batch once we've taken limit elements
+     * since we last asked */
+    private void replenish() {
+        this.taken += 1;
+        if(this.taken == this.limit){
+            this.taken = 0;
+            this.upstream.request(this.limit);
+        }
+    }
+
+    /* Stops everything after a step throws */
+    private void fail(Throwable t) {
+        this.upstream.cancel();
+        this.error = t;
+        this.done = true;
+    }
+
+    /* Runs elements through our steps and on to our subscriber, for as long
+     * as it wants them and we have them, then finishes our subscriber off if
+     * our publisher is done. Whichever thread gets here first does the work,
+     * any thread arriving meanwhile just makes it go around again. */
+    @SuppressWarnings("unchecked")
+    private void drain() {
+        if(this.wip.getAndIncrement() != 0){
+            return;
+        }
+        int missed = 1;
+        while(true){
+            Flow.Subscriber<? super E> d = this.downstream;
+            if(d != null){
+                if(this.cancelled){
+                    while(poll() != null){
+                        //Drop everything still waiting
+                    }
+                    return;
+                }
+                long wanted = this.requested.get();
+                long emitted = 0;
+                while(emitted != wanted){
+                    boolean finished = this.done;
+                    if(finished && this.error != null){
+                        terminate(d);
+                        return;
+                    }
+                    Object item = poll();
+                    if(item == null){
+                        if(finished){
+                            terminate(d);
+                            return;
+                        }
+                        break;
+                    }
+                    replenish();
+                    Object out;
+                    try {
+                        out = this.steps.apply(item);
+                        if(out == null){
+                            throw new NullPointerException("A transformer"
+                                    + " returned null, which Flow can't pass"
+                                    + " on");
+                        }
+                    } catch (Throwable t) {
+                        fail(t);
+                        continue;
+                    }
+                    if(out != LazyList.DROPPED){
+                        d.onNext((E) out);
+                        emitted += 1;
+                    }
+                    if(this.cancelled){
+                        break;
+                    }
+                }
+                if(this.done && (this.error != null
+                        || this.consumerIndex == this.producerIndex)){
+                    terminate(d);
+                    return;
+                }
+                if(emitted != 0 && wanted != Long.MAX_VALUE){
+                    this.requested.addAndGet(-emitted);
+                }
+            }
+            missed = this.wip.addAndGet(-missed);
+            if(missed == 0){
+                return;
+            }
+        }
+    }
+
+    /* Sends our subscriber its final signal, making sure it never gets
+     * another. Leaves wip above 0 for good, so drain never runs again */
+    private void terminate(Flow.Subscriber<? super E> d) {
+        this.cancelled = true;
+        while(poll() != null){
+            //Drop everything still waiting
+        }
+        Throwable t = this.error;
+        if(t != null){
+            d.onError(t);
+        } else {
+            d.onComplete();
+        }
+    }
+}
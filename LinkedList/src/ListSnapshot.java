@@ -0,0 +1,586 @@
+/**
+ * This file saves the contents of a list to a compact binary file and loads
+ * it back, which is much faster than writing the elements out as text and
+ * parsing them again. Lists of Integers and Doubles are stored as raw
+ * little endian numbers, lists of Strings as length prefixed UTF-8, and the
+ * file can end with a checksum so a damaged file is caught on load.
+ * **/
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/* Every snapshot starts with a 16 byte header:
+ *
+ *   bytes 0-3    MAGIC, so we never mistake some other file for a snapshot
+ *   bytes 4-5    the format VERSION
+ *   byte  6      the element type, INTS, DOUBLES or STRINGS
+ *   byte  7      flags, CHECKSUM and HAS_NULLS
+ *   bytes 8-15   how many elements follow
+ *
+ * For INTS and DOUBLES, if HAS_NULLS is set a bitmap with one bit per element
+ * comes next, set where the element is null, and then every element as a 4
+ * or 8 byte number, with 0 standing in for the nulls. For STRINGS, each
+ * element is its length in UTF-8 bytes (-1 for null) followed by the bytes.
+ * With CHECKSUM set, the file ends with the CRC32C of everything before it.
+ * Every number is little endian.
+ *
+ * Files are written and read through a FileChannel and one direct buffer
+ * that gets reused, so the numbers go straight between the buffer and our
+ * arrays in bulk. */
+public final class ListSnapshot {
+
+    static final int MAGIC = 0x4E534C4D;
+    static final short VERSION = 1;
+    static final int HEADER_BYTES = 16;
+
+    static final byte INTS = 0;
+    static final byte DOUBLES = 1;
+    static final byte STRINGS = 2;
+
+    static final byte CHECKSUM = 1;
+    static final byte HAS_NULLS = 2;
+
+    static final int BUFFER_BYTES = 1 << 20;
+
+    private ListSnapshot() {
+    }
+
+    /* Writes to a file through one direct buffer, keeping a running checksum
+     * of everything written if asked to */
+    static final class Output implements AutoCloseable {
+        final FileChannel channel;
+        final ByteBuffer buffer;
+        final CRC32C crc;
+
+        Output(Path file, boolean checksum) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.buffer = ByteBuffer.allocateDirect(BUFFER_BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            this.crc = checksum ? new CRC32C() : null;
+        }
+
+        /* Makes sure at least bytes more can be put into the buffer */
+        ByteBuffer room(int bytes) throws IOException {
+            if(this.buffer.remaining() < bytes){
+                flush();
+            }
+            return this.buffer;
+        }
+
+        void flush() throws IOException {
+            this.buffer.flip();
+            if(this.crc != null){
+                this.crc.update(this.buffer.duplicate());
+            }
+            while(this.buffer.hasRemaining()){
+                this.channel.write(this.buffer);
+            }
+            this.buffer.clear();
+        }
+
+        void putBytes(byte[] bytes) throws IOException {
+            int done = 0;
+            while(done < bytes.length){
+                if(!this.buffer.hasRemaining()){
+                    flush();
+                }
+                int n = Math.min(this.buffer.remaining(), bytes.length - done);
+                this.buffer.put(bytes, done, n);
+                done += n;
+            }
+        }
+
+        /* Flushes what's left, adds the checksum if we keep one, and closes */
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+                if(this.crc != null){
+                    this.buffer.putInt((int) this.crc.getValue());
+                    this.buffer.flip();
+                    while(this.buffer.hasRemaining()){
+                        this.channel.write(this.buffer);
+                    }
+                }
+            } finally {
+                this.channel.close();
+            }
+        }
+    }
+
+    /* Reads from a file through one direct buffer, checking the checksum at
+     * the end if the file has one */
+    static final class Input implements AutoCloseable {
+        final Path file;
+        final FileChannel channel;
+        final ByteBuffer buffer;
+        //How many bytes of the file the checksum covers, and how many of
+        //those we've pulled into the buffer so far
+        long checked;
+        long pulled;
+        CRC32C crc;
+
+        Input(Path file) throws IOException {
+            this.file = file;
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            this.buffer = ByteBuffer.allocateDirect(BUFFER_BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            this.buffer.flip();
+            this.checked = this.channel.size();
+        }
+
+        /* Turns on checksum checking, once the header says there is one */
+        void expectChecksum() throws IOException {
+            this.checked = this.channel.size() - 4;
+            this.crc = new CRC32C();
+            //The header is already in the buffer, so count it now
+            ByteBuffer header = this.buffer.duplicate();
+            header.position(0);
+            header.limit((int) Math.min(this.pulled, this.checked));
+            this.crc.update(header);
+        }
+
+        /* Makes sure at least bytes more are waiting in the buffer */
+        ByteBuffer need(int bytes) throws IOException {
+            while(this.buffer.remaining() < bytes){
+                this.buffer.compact();
+                int start = this.buffer.position();
+                int n = this.channel.read(this.buffer);
+                if(n < 0){
+                    throw new EOFException(this.file
+                            + " ends in the middle of a snapshot");
+                }
+                if(this.crc != null && this.pulled < this.checked){
+                    ByteBuffer fresh = this.buffer.duplicate();
+                    fresh.position(start);
+                    fresh.limit(start + (int) Math.min(n,
+                            this.checked - this.pulled));
+                    this.crc.update(fresh);
+                }
+                this.pulled += n;
+                this.buffer.flip();
+            }
+            return this.buffer;
+        }
+
+        void getBytes(byte[] bytes, int length) throws IOException {
+            int done = 0;
+            while(done < length){
+                int n = Math.min(length - done, BUFFER_BYTES);
+                need(n).get(bytes, done, n);
+                done += n;
+            }
+        }
+
+        /* Checks the checksum, if there is one, once everything is read */
+        void finish() throws IOException {
+            if(this.crc != null){
+                int expected = need(4).getInt();
+                if(expected != (int) this.crc.getValue()){
+                    throw new IOException(this.file
+                            + " failed its checksum, the snapshot is damaged");
+                }
+            }
+            if(this.buffer.hasRemaining()
+                    || this.pulled < this.channel.size()){
+                throw new IOException(this.file
+                        + " has extra bytes after the snapshot");
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.channel.close();
+        }
+    }
+
+    /* What we learn from a snapshot's header */
+    static final class Header {
+        byte type;
+        byte flags;
+        int count;
+    }
+
+    /** write saves the contents of any of our lists. Every element has to be
+     * an Integer, every element a Double or every element a String, with
+     * nulls allowed anywhere.
+     *
+     * @param list, the list to save
+     * @param file, the file to create or replace
+     * @param checksum, true to end the file with a CRC32C checksum
+     * @throws IOException if the file can't be written
+     * @throws IllegalArgumentException if the elements aren't all Integers,
+     * all Doubles or all Strings
+     * **/
+    public static void write(MyList<?> list, Path file, boolean checksum)
+            throws IOException {
+        write(list.toArray(), file, checksum);
+    }
+
+    /** write saves an IntGL without boxing any of its elements
+     *
+     * @param list, the list to save
+     * @param file, the file to create or replace
+     * @param checksum, true to end the file with a CRC32C checksum
+     * @throws IOException if the file can't be written
+     * **/
+    public static void write(IntGL list, Path file, boolean checksum)
+            throws IOException {
+        try(Output out = new Output(file, checksum)){
+            putHeader(out, INTS, checksum, false, list.size);
+            putInts(out, list.elements, list.size);
+        }
+    }
+
+    /** write saves a DoubleGL without boxing any of its elements
+     *
+     * @param list, the list to save
+     * @param file, the file to create or replace
+     * @param checksum, true to end the file with a CRC32C checksum
+     * @throws IOException if the file can't be written
+     * **/
+    public static void write(DoubleGL list, Path file, boolean checksum)
+            throws IOException {
+        try(Output out = new Output(file, checksum)){
+            putHeader(out, DOUBLES, checksum, false, list.size);
+            putDoubles(out, list.elements, list.size);
+        }
+    }
+
+    /** write saves an array of elements, the same way as for a list
+     *
+     * @param elements, the elements to save
+     * @param file, the file to create or replace
+     * @param checksum, true to end the file with a CRC32C checksum
+     * @throws IOException if the file can't be written
+     * @throws IllegalArgumentException if the elements aren't all Integers,
+     * all Doubles or all Strings
+     * **/
+    public static void write(Object[] elements, Path file, boolean checksum)
+            throws IOException {
+        byte type = typeOf(elements);
+        boolean hasNulls = false;
+        for(Object e : elements){
+            hasNulls |= e == null;
+        }
+        try(Output out = new Output(file, checksum)){
+            putHeader(out, type, checksum, hasNulls, elements.length);
+            if(type == STRINGS){
+                for(Object e : elements){
+                    if(e == null){
+                        out.room(4).putInt(-1);
+                    } else {
+                        byte[] bytes = ((String) e).getBytes(
+                                StandardCharsets.UTF_8);
+                        out.room(4).putInt(bytes.length);
+                        out.putBytes(bytes);
+                    }
+                }
+                return;
+            }
+            if(hasNulls){
+                putNullBitmap(out, elements);
+            }
+            //Unbox into a small array we reuse, then write that in bulk
+            int chunk = BUFFER_BYTES / 8;
+            if(type == INTS){
+                int[] values = new int[Math.min(chunk, elements.length)];
+                for(int start = 0; start < elements.length; start += chunk){
+                    int n = Math.min(chunk, elements.length - start);
+                    for(int i = 0; i < n; i += 1){
+                        Object e = elements[start + i];
+                        values[i] = e == null ? 0 : (Integer) e;
+                    }
+                    putInts(out, values, n);
+                }
+            } else {
+                double[] values = new double[Math.min(chunk, elements.length)];
+                for(int start = 0; start < elements.length; start += chunk){
+                    int n = Math.min(chunk, elements.length - start);
+                    for(int i = 0; i < n; i += 1){
+                        Object e = elements[start + i];
+                        values[i] = e == null ? 0.0 : (Double) e;
+                    }
+                    putDoubles(out, values, n);
+                }
+            }
+        }
+    }
+
+    /* Works out which of our element types every element is */
+    private static byte typeOf(Object[] elements) {
+        Class<?> kind = null;
+        for(Object e : elements){
+            if(e == null){
+                continue;
+            }
+            if(kind == null){
+                kind = e.getClass();
+            } else if(e.getClass() != kind){
+                throw new IllegalArgumentException("Snapshots hold one type of"
+                        + " element, found both " + kind.getName() + " and "
+                        + e.getClass().getName());
+            }
+        }
+        if(kind == null || kind == Integer.class){
+            return INTS;
+        }
+        if(kind == Double.class){
+            return DOUBLES;
+        }
+        if(kind == String.class){
+            return STRINGS;
+        }
+        throw new IllegalArgumentException("Snapshots can't hold "
+                + kind.getName());
+    }
+
+    private static void putHeader(Output out, byte type, boolean checksum,
+                                  boolean hasNulls, long count)
+            throws IOException {
+        ByteBuffer b = out.room(HEADER_BYTES);
+        b.putInt(MAGIC);
+        b.putShort(VERSION);
+        b.put(type);
+        b.put((byte) ((checksum ? CHECKSUM : 0) | (hasNulls ? HAS_NULLS : 0)));
+        b.putLong(count);
+    }
+
+    private static void putNullBitmap(Output out, Object[] elements)
+            throws IOException {
+        for(int start = 0; start < elements.length; start += 8){
+            int bits = 0;
+            for(int i = start; i < Math.min(start + 8, elements.length);
+                    i += 1){
+                if(elements[i] == null){
+                    bits |= 1 << (i - start);
+                }
+            }
+            out.room(1).put((byte) bits);
+        }
+    }
+
+    private static void putInts(Output out, int[] values, int count)
+            throws IOException {
+        int done = 0;
+        while(done < count){
+            ByteBuffer b = out.room(4);
+            int n = Math.min(b.remaining() / 4, count - done);
+            b.asIntBuffer().put(values, done, n);
+            b.position(b.position() + n * 4);
+            done += n;
+        }
+    }
+
+    private static void putDoubles(Output out, double[] values, int count)
+            throws IOException {
+        int done = 0;
+        while(done < count){
+            ByteBuffer b = out.room(8);
+            int n = Math.min(b.remaining() / 8, count - done);
+            b.asDoubleBuffer().put(values, done, n);
+            b.position(b.position() + n * 8);
+            done += n;
+        }
+    }
+
+    /* Reads and checks the header, setting up checksum checking if the
+     * snapshot has one */
+    private static Header getHeader(Input in) throws IOException {
+        ByteBuffer b = in.need(HEADER_BYTES);
+        if(b.getInt() != MAGIC){
+            throw new IOException(in.file + " is not a list snapshot");
+        }
+        short version = b.getShort();
+        if(version != VERSION){
+            throw new IOException(in.file + " is snapshot version " + version
+                    + ", we can only read version " + VERSION);
+        }
+        Header header = new Header();
+        header.type = b.get();
+        header.flags = b.get();
+        long count = b.getLong();
+        if(header.type < INTS || header.type > STRINGS || count < 0
+                || count > Integer.MAX_VALUE - 8){
+            throw new IOException(in.file + " has a damaged header");
+        }
+        header.count = (int) count;
+        if((header.flags & CHECKSUM) != 0){
+            in.expectChecksum();
+        }
+        return header;
+    }
+
+    private static void getInts(Input in, int[] values, int count)
+            throws IOException {
+        int done = 0;
+        while(done < count){
+            int n = Math.min(BUFFER_BYTES / 4, count - done);
+            ByteBuffer b = in.need(n * 4);
+            b.asIntBuffer().get(values, done, n);
+            b.position(b.position() + n * 4);
+            done += n;
+        }
+    }
+
+    private static void getDoubles(Input in, double[] values, int count)
+            throws IOException {
+        int done = 0;
+        while(done < count){
+            int n = Math.min(BUFFER_BYTES / 8, count - done);
+            ByteBuffer b = in.need(n * 8);
+            b.asDoubleBuffer().get(values, done, n);
+            b.position(b.position() + n * 8);
+            done += n;
+        }
+    }
+
+    /* Reads the null bitmap if the snapshot has one, or returns null */
+    private static byte[] getNullBitmap(Input in, Header header)
+            throws IOException {
+        if((header.flags & HAS_NULLS) == 0){
+            return null;
+        }
+        byte[] nulls = new byte[(header.count + 7) / 8];
+        in.getBytes(nulls, nulls.length);
+        return nulls;
+    }
+
+    private static boolean isNull(byte[] nulls, int i) {
+        return nulls != null && (nulls[i >>> 3] & (1 << (i & 7))) != 0;
+    }
+
+    /** read loads a snapshot back into an array, an Integer[], Double[] or
+     * String[] depending on what was saved
+     *
+     * @param file, the snapshot to load
+     * @return the saved elements, in order
+     * @throws IOException if the file can't be read, isn't a snapshot, or
+     * fails its checksum
+     * **/
+    public static Object[] read(Path file) throws IOException {
+        try(Input in = new Input(file)){
+            Header header = getHeader(in);
+            Object[] toRet;
+            if(header.type == STRINGS){
+                String[] strings = new String[header.count];
+                byte[] scratch = new byte[256];
+                for(int i = 0; i < header.count; i += 1){
+                    int length = in.need(4).getInt();
+                    if(length < -1){
+                        throw new IOException(file + " has a damaged string");
+                    }
+                    if(length == -1){
+                        continue;
+                    }
+                    if(length > scratch.length){
+                        scratch = new byte[Math.max(length,
+                                scratch.length * 2)];
+                    }
+                    in.getBytes(scratch, length);
+                    strings[i] = new String(scratch, 0, length,
+                            StandardCharsets.UTF_8);
+                }
+                toRet = strings;
+            } else if(header.type == INTS){
+                byte[] nulls = getNullBitmap(in, header);
+                int[] values = new int[header.count];
+                getInts(in, values, header.count);
+                Integer[] boxed = new Integer[header.count];
+                for(int i = 0; i < header.count; i += 1){
+                    boxed[i] = isNull(nulls, i) ? null : values[i];
+                }
+                toRet = boxed;
+            } else {
+                byte[] nulls = getNullBitmap(in, header);
+                double[] values = new double[header.count];
+                getDoubles(in, values, header.count);
+                Double[] boxed = new Double[header.count];
+                for(int i = 0; i < header.count; i += 1){
+                    boxed[i] = isNull(nulls, i) ? null : values[i];
+                }
+                toRet = boxed;
+            }
+            in.finish();
+            return toRet;
+        }
+    }
+
+    /** readArrayGL loads a snapshot into a new ArrayGL
+     *
+     * @param file, the snapshot to load
+     * @return an ArrayGL of the saved elements
+     * @throws IOException if the file can't be read, isn't a snapshot, or
+     * fails its checksum
+     * **/
+    @SuppressWarnings("unchecked")
+    public static <E> ArrayGL<E> readArrayGL(Path file) throws IOException {
+        return new ArrayGL<E>((E[]) read(file));
+    }
+
+    /** readLinkedGL loads a snapshot into a new LinkedGL
+     *
+     * @param file, the snapshot to load
+     * @return a LinkedGL of the saved elements
+     * @throws IOException if the file can't be read, isn't a snapshot, or
+     * fails its checksum
+     * **/
+    @SuppressWarnings("unchecked")
+    public static <E> LinkedGL<E> readLinkedGL(Path file) throws IOException {
+        return new LinkedGL<E>((E[]) read(file));
+    }
+
+    /** readIntGL loads a snapshot of Integers into a new IntGL, straight from
+     * the file into an int array without boxing anything. This is the
+     * fastest way to load a snapshot.
+     *
+     * @param file, the snapshot to load
+     * @return an IntGL of the saved elements
+     * @throws IOException if the file can't be read, isn't a snapshot of
+     * Integers without nulls, or fails its checksum
+     * **/
+    public static IntGL readIntGL(Path file) throws IOException {
+        try(Input in = new Input(file)){
+            Header header = getHeader(in);
+            if(header.type != INTS || (header.flags & HAS_NULLS) != 0){
+                throw new IOException(file + " is not a snapshot of ints"
+                        + " without nulls");
+            }
+            int[] values = new int[header.count];
+            getInts(in, values, header.count);
+            in.finish();
+            return new IntGL(values);
+        }
+    }
+
+    /** readDoubleGL loads a snapshot of Doubles into a new DoubleGL, straight
+     * from the file into a double array without boxing anything
+     *
+     * @param file, the snapshot to load
+     * @return a DoubleGL of the saved elements
+     * @throws IOException if the file can't be read, isn't a snapshot of
+     * Doubles without nulls, or fails its checksum
+     * **/
+    public static DoubleGL readDoubleGL(Path file) throws IOException {
+        try(Input in = new Input(file)){
+            Header header = getHeader(in);
+            if(header.type != DOUBLES || (header.flags & HAS_NULLS) != 0){
+                throw new IOException(file + " is not a snapshot of doubles"
+                        + " without nulls");
+            }
+            double[] values = new double[header.count];
+            getDoubles(in, values, header.count);
+            in.finish();
+            return new DoubleGL(values);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ * This file implements a list of doubles that lives in a memory mapped file
+ * instead of on the heap. transformAll and chooseAll work straight on the
+ * mapped file, so a list can be far bigger than the heap, and only toArray
+ * ever builds anything on the heap.
+ * **/
+
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.nio.file.Path;
+
+/* This class implements MyList<Double> the same way DoubleGL does, with
+ * chooseAllDouble and transformAllDouble that never box. Every change goes
+ * straight into the file, and close cuts the file down to the elements that
+ * are left, so the file always ends up holding exactly this list. The file
+ * itself, and how many of its elements are still in the list, are kept by
+ * MappedRegions. */
+public class MappedDoubleGL implements MyList<Double>, AutoCloseable {
+
+    static final int WIDTH = Double.BYTES;
+
+    MappedRegions file;
+    //One double view per mapped region, to read doubles straight out of it
+    DoubleBuffer[] views;
+
+    /** This constructor maps a file of little endian doubles, every double in
+     * the file becomes one element of our list
+     *
+     * @param path, the file to map
+     * @throws IOException if the file can't be opened or mapped
+     * **/
+    public MappedDoubleGL(Path path) throws IOException {
+        this.file = new MappedRegions(path, WIDTH);
+        this.views = new DoubleBuffer[this.file.regions.length];
+        for(int r = 0; r < this.views.length; r += 1){
+            this.views[r] = this.file.regions[r].asDoubleBuffer();
+        }
+    }
+
+    /** write creates (or replaces) a file holding the given doubles, in the
+     * format this class maps
+     *
+     * @param path, the file to write
+     * @param contents, the doubles to write
+     * @throws IOException if the file can't be written
+     * **/
+    public static void write(Path path, double[] contents) throws IOException {
+        MappedRegions.write(path, contents.length, WIDTH,
+                (buffer, i) -> buffer.putDouble(contents[i]));
+    }
+
+    /* Reads the element at position i of the file */
+    private double get(long i) {
+        return this.views[this.file.region(i)].get(this.file.offset(i));
+    }
+
+    /* Writes the element at position i of the file */
+    private void put(long i, double value) {
+        this.views[this.file.region(i)].put(this.file.offset(i), value);
+    }
+
+    /** size returns how many elements our list has, which can be more than
+     * fits in an int
+     *
+     * @return the number of elements in our list
+     * */
+    public long size() {
+        return this.file.size;
+    }
+
+    /** This method copies our list onto the heap as an array of boxed Doubles
+     *
+     * @return the Double array representation of this list
+     * @throws IllegalStateException if the list is too big for one array
+     * */
+    @Override
+    public Double[] toArray() {
+        Double[] toRet = new Double[this.file.arraySize()];
+        for(int i = 0; i < toRet.length; i += 1){
+            toRet[i] = get(i);
+        }
+        return toRet;
+    }
+
+    /** This method copies our list onto the heap as a double array
+     *
+     * @return the double array representation of this list
+     * @throws IllegalStateException if the list is too big for one array
+     * */
+    public double[] toDoubleArray() {
+        double[] toRet = new double[this.file.arraySize()];
+        for(int i = 0; i < toRet.length; i += 1){
+            toRet[i] = get(i);
+        }
+        return toRet;
+    }
+
+    /** transformAllDouble changes every value in the file to the transformed
+     * version, without boxing anything
+     *
+     * @param dt, the DoubleTransformer to draw our transform method from
+     * */
+    public void transformAllDouble(DoubleTransformer dt) {
+        for(long i = 0; i < this.file.size; i += 1){
+            put(i, dt.transformElement(get(i)));
+        }
+    }
+
+    /** transformAll changes every value in the file using a normal
+     * MyTransformer, boxing each element on the way in and out
+     *
+     * @param mt, the class which extends from MyTransformer to draw our
+     *            transform method from
+     * */
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void transformAll(MyTransformer mt) {
+        for(long i = 0; i < this.file.size; i += 1){
+            put(i, (Double) mt.transformElement(get(i)));
+        }
+    }
+
+    /** chooseAllDouble filters out values which aren't accepted by the
+     * DoubleChooser called, sliding the kept values towards the front of the
+     * file
+     *
+     * @param dc, the DoubleChooser to draw our chooser method from
+     * */
+    public void chooseAllDouble(DoubleChooser dc) {
+        long newSize = 0;
+        for(long i = 0; i < this.file.size; i += 1){
+            double e = get(i);
+            if(dc.chooseElement(e)){
+                put(newSize, e);
+                newSize += 1;
+            }
+        }
+        this.file.size = newSize;
+    }
+
+    /** chooseAll filters out values which aren't accepted by a normal
+     * MyChooser, boxing each element to test it
+     *
+     * @param mc, the class which extends from MyChooser to draw our
+     *            chooser method from
+     * */
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void chooseAll(MyChooser mc) {
+        long newSize = 0;
+        for(long i = 0; i < this.file.size; i += 1){
+            double e = get(i);
+            if(mc.chooseElement(e)){
+                put(newSize, e);
+                newSize += 1;
+            }
+        }
+        this.file.size = newSize;
+    }
+
+    /** isEmpty returns true if our list has 0 elements stored
+     *
+     * @return true if our list is empty, false otherwise
+     * */
+    @Override
+    public boolean isEmpty() {
+        return this.file.size == 0;
+    }
+
+    /** close writes our list back to the file, leaving exactly our elements
+     * in it, and unmaps it. The list can't be used after this.
+     *
+     * @throws IOException if the file can't be written or closed
+     * */
+    @Override
+    public void close() throws IOException {
+        this.views = null;
+        this.file.close();
+    }
+}
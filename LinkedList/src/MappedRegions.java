@@ -0,0 +1,160 @@
+/**
+ * This file maps a file of fixed width numbers into memory for MappedIntGL and
+ * MappedDoubleGL. A single MappedByteBuffer can't be bigger than 2GB, so the
+ * file is mapped as a row of 1GB regions.
+ * **/
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.ObjIntConsumer;
+
+/* This class owns the file channel and the mapped regions, and keeps track of
+ * how many elements at the front of the file are still in the list. Element i
+ * of the file lives in region(i), at offset(i) of that region, since every
+ * region holds the same power of two number of elements. Numbers are stored
+ * little endian. The lists only add a typed view of each region on top. */
+final class MappedRegions {
+
+    //1GB per region, which keeps every region well under the 2GB limit and is
+    //a whole number of elements for any power of two width
+    static final int REGION_SHIFT = 30;
+
+    final FileChannel channel;
+    //Dropped by close, so nothing can touch a region once the file is cut
+    MappedByteBuffer[] regions;
+    final int width;
+    final int shift;
+    final long mask;
+    //How many elements at the front of the file are in the list
+    long size;
+
+    /** This constructor opens the file for reading and writing and maps the
+     * whole thing, one region at a time
+     *
+     * @param file, the file of numbers to map
+     * @param width, how many bytes each number takes, a power of two
+     * @throws IOException if the file can't be opened or mapped, or if its
+     * size isn't a whole number of elements
+     * **/
+    MappedRegions(Path file, int width) throws IOException {
+        this.width = width;
+        this.shift = REGION_SHIFT - Integer.numberOfTrailingZeros(width);
+        this.mask = (1L << this.shift) - 1;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        //Whatever goes wrong from here on, the channel has to be closed again
+        try {
+            long bytes = this.channel.size();
+            if(bytes % width != 0){
+                throw new IOException(file + " is not a whole number of "
+                        + width + " byte elements");
+            }
+            this.size = bytes / width;
+            int count = (int) ((bytes + (1L << REGION_SHIFT) - 1)
+                    >> REGION_SHIFT);
+            this.regions = new MappedByteBuffer[count];
+            for(int r = 0; r < count; r += 1){
+                long start = (long) r << REGION_SHIFT;
+                long regionBytes = Math.min(1L << REGION_SHIFT, bytes - start);
+                this.regions[r] = this.channel.map(
+                        FileChannel.MapMode.READ_WRITE, start, regionBytes);
+                this.regions[r].order(ByteOrder.LITTLE_ENDIAN);
+            }
+        } catch (Throwable t) {
+            try {
+                this.channel.close();
+            } catch (IOException e) {
+                t.addSuppressed(e);
+            }
+            throw t;
+        }
+    }
+
+    /** write creates (or replaces) a file of count numbers, in the format
+     * this class maps
+     *
+     * @param path, the file to write
+     * @param count, how many numbers to write
+     * @param width, how many bytes each number takes
+     * @param put, puts number i into the buffer it's given
+     * @throws IOException if the file can't be written
+     * **/
+    static void write(Path path, int count, int width,
+                      ObjIntConsumer<ByteBuffer> put) throws IOException {
+        try(FileChannel out = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)){
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            for(int i = 0; i < count; i += 1){
+                if(buffer.remaining() < width){
+                    drain(buffer, out);
+                }
+                put.accept(buffer, i);
+            }
+            drain(buffer, out);
+        }
+    }
+
+    /* Writes out everything put into buffer, leaving it empty */
+    private static void drain(ByteBuffer buffer, FileChannel out)
+            throws IOException {
+        buffer.flip();
+        while(buffer.hasRemaining()){
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /* Which region element i of the file is in */
+    int region(long i) {
+        return (int) (i >> this.shift);
+    }
+
+    /* Where element i of the file is within its region */
+    int offset(long i) {
+        return (int) (i & this.mask);
+    }
+
+    /** arraySize gives our size as an int, if an array can actually hold that
+     * many elements
+     *
+     * @return our size
+     * @throws IllegalStateException if the list is too big for one array
+     * **/
+    int arraySize() {
+        if(this.size > Integer.MAX_VALUE - 8){
+            throw new IllegalStateException("List of " + this.size
+                    + " elements is too big for an array");
+        }
+        return (int) this.size;
+    }
+
+    /** close writes any changes back to the file, cuts the file down to the
+     * elements still in the list, and closes it. The lists drop their views
+     * of the regions first, since touching a mapped page past the end of the
+     * cut file crashes the JVM instead of throwing.
+     *
+     * @throws IOException if the file can't be written or closed
+     * **/
+    void close() throws IOException {
+        if(this.regions == null){
+            return;
+        }
+        try {
+            MappedByteBuffer[] mapped = this.regions;
+            this.regions = null;
+            for(MappedByteBuffer region : mapped){
+                region.force();
+            }
+            this.channel.truncate(this.size * this.width);
+        } finally {
+            this.channel.close();
+        }
+    }
+}
@@ -0,0 +1,299 @@
+/**
+ * This file implements the bounded cache behind MemoizingTransformer and
+ * MemoizingChooser. It remembers the answer for up to a fixed number of
+ * inputs, throws old ones out by the eviction policy it was built with, can
+ * be used from many threads at once and counts its hits, misses and
+ * evictions.
+ * **/
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/* The cache is split into segments by hash, each a LinkedHashMap in access
+ * order behind its own lock, so threads working on different inputs rarely
+ * wait for each other. Answers are worked out outside the lock, so two
+ * threads missing on the same input at once may both work it out; that's
+ * harmless for the pure transformers and choosers this cache is meant for.
+ *
+ * With Policy.LRU, a full segment throws out whatever was used longest ago.
+ * With Policy.FREQUENCY, each segment also keeps a rough count of how often
+ * it's been asked for each input (a count-min sketch, halved now and then so
+ * old popularity fades). A new input only gets in if it's been asked for more
+ * often than the one it would push out, so a run of values seen once can't
+ * flush the values that keep coming back. */
+public class MemoCache<K, V> {
+
+    /* How a full cache decides what to throw out */
+    public enum Policy {
+        //Throw out whatever was used longest ago
+        LRU,
+        //Like LRU, but only let a new input in if it's more popular than
+        //whatever it would push out
+        FREQUENCY
+    }
+
+    static final int MAX_SEGMENTS = 16;
+    //Below this many entries per segment, splitting up costs more hit rate
+    //than it saves in waiting
+    static final int MIN_SEGMENT_CAPACITY = 64;
+
+    //Stands in for a null input or a null answer, which the maps can't tell
+    //apart from a missing entry
+    static final Object NULL = new Object();
+
+    final int capacity;
+    final Policy policy;
+    final Segment[] segments;
+    final LongAdder hits = new LongAdder();
+    final LongAdder misses = new LongAdder();
+    final LongAdder evictions = new LongAdder();
+    final LongAdder rejections = new LongAdder();
+
+    /* One share of the cache, with its own lock, map and frequency sketch */
+    static final class Segment {
+        final MemoCache<?, ?> cache;
+        final int capacity;
+        final LinkedHashMap<Object, Object> map;
+        final FrequencySketch sketch;
+
+        Segment(MemoCache<?, ?> cache, int capacity) {
+            this.cache = cache;
+            this.capacity = capacity;
+            //Access order, so the first entry is always the least recently
+            //used one
+            this.map = new LinkedHashMap<Object, Object>(16, 0.75f, true);
+            this.sketch = cache.policy == Policy.FREQUENCY
+                    ? new FrequencySketch(capacity) : null;
+        }
+
+        /* Looks up key, returning null if we don't have it */
+        synchronized Object get(Object key, int hash) {
+            if(this.sketch != null){
+                this.sketch.increment(hash);
+            }
+            return this.map.get(key);
+        }
+
+        /* Stores key and value, throwing something out if we're full */
+        synchronized void put(Object key, int hash, Object value) {
+            if(this.map.containsKey(key)){
+                this.map.put(key, value);
+                return;
+            }
+            if(this.map.size() >= this.capacity){
+                Iterator<Map.Entry<Object, Object>> eldest =
+                        this.map.entrySet().iterator();
+                Object victim = eldest.next().getKey();
+                //Only push the victim out if our new key has been asked for
+                //more often
+                if(this.sketch != null && this.sketch.frequency(hash)
+                        <= this.sketch.frequency(spread(victim.hashCode()))){
+                    this.cache.rejections.increment();
+                    return;
+                }
+                eldest.remove();
+                this.cache.evictions.increment();
+            }
+            this.map.put(key, value);
+        }
+
+        synchronized int size() {
+            return this.map.size();
+        }
+
+        synchronized void clear() {
+            this.map.clear();
+        }
+    }
+
+    /* A count-min sketch: 4 rows of small counters, each input bumps one
+     * counter per row and its count is the smallest of the 4, which is
+     * never less than the real count and rarely much more. Every time we've
+     * counted 10 times our capacity, every counter is halved. */
+    static final class FrequencySketch {
+        static final int ROWS = 4;
+        static final int MAX_COUNT = 15;
+        static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35,
+                0x27D4EB2F};
+
+        final byte[][] counts;
+        final int mask;
+        final int resetAt;
+        int added;
+
+        FrequencySketch(int capacity) {
+            //At least 4 counters per row for each entry we can hold, rounded
+            //up to a power of two so we can mask instead of mod
+            int width = Integer.highestOneBit(Math.max(16, capacity * 4 - 1))
+                    << 1;
+            this.counts = new byte[ROWS][width];
+            this.mask = width - 1;
+            this.resetAt = Math.max(100, capacity * 10);
+        }
+
+        int index(int hash, int row) {
+            int h = hash * SEEDS[row];
+            return (h ^ (h >>> 16)) & this.mask;
+        }
+
+        void increment(int hash) {
+            for(int row = 0; row < ROWS; row += 1){
+                int i = index(hash, row);
+                if(this.counts[row][i] < MAX_COUNT){
+                    this.counts[row][i] += 1;
+                }
+            }
+            this.added += 1;
+            if(this.added >= this.resetAt){
+                //Halve everything, so what was popular a long time ago
+                //doesn't stay popular forever
+                for(int row = 0; row < ROWS; row += 1){
+                    for(int i = 0; i < this.counts[row].length; i += 1){
+                        this.counts[row][i] >>= 1;
+                    }
+                }
+                this.added /= 2;
+            }
+        }
+
+        int frequency(int hash) {
+            int min = MAX_COUNT;
+            for(int row = 0; row < ROWS; row += 1){
+                min = Math.min(min, this.counts[row][index(hash, row)]);
+            }
+            return min;
+        }
+    }
+
+    /** This constructor makes an empty cache holding at most capacity
+     * answers
+     *
+     * @param capacity, how many answers to remember at most
+     * @param policy, how to decide what to throw out once we're full
+     * **/
+    public MemoCache(int capacity, Policy policy) {
+        //Check null case
+        if(policy == null){
+            throw new NullPointerException();
+        }
+        if(capacity < 1){
+            throw new IllegalArgumentException("Capacity must be positive: "
+                    + capacity);
+        }
+        this.capacity = capacity;
+        this.policy = policy;
+        int count = Integer.highestOneBit(Math.max(1, Math.min(MAX_SEGMENTS,
+                capacity / MIN_SEGMENT_CAPACITY)));
+        this.segments = new Segment[count];
+        //Share the capacity out so the segments add up to exactly capacity
+        for(int i = 0; i < count; i += 1){
+            this.segments[i] = new Segment(this, capacity / count
+                    + (i < capacity % count ? 1 : 0));
+        }
+    }
+
+    /* Mixes the bits of a hash code so nearby codes land in different
+     * segments and sketch counters */
+    static int spread(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /** get returns the remembered answer for key, or works it out with
+     * compute and remembers it
+     *
+     * @param key, the input to look up, which may be null
+     * @param compute, how to work out the answer if we don't have it
+     * @return the answer for key
+     * */
+    @SuppressWarnings("unchecked")
+    public V get(K key, Function<? super K, ? extends V> compute) {
+        Object k = key == null ? NULL : key;
+        int hash = spread(k.hashCode());
+        Segment segment = this.segments[hash & (this.segments.length - 1)];
+        Object found = segment.get(k, hash);
+        if(found != null){
+            this.hits.increment();
+            return found == NULL ? null : (V) found;
+        }
+        this.misses.increment();
+        V value = compute.apply(key);
+        segment.put(k, hash, value == null ? NULL : value);
+        return value;
+    }
+
+    public int capacity() {
+        return this.capacity;
+    }
+
+    public Policy policy() {
+        return this.policy;
+    }
+
+    public long hits() {
+        return this.hits.sum();
+    }
+
+    public long misses() {
+        return this.misses.sum();
+    }
+
+    /** evictions returns how many remembered answers were thrown out to make
+     * room for new ones
+     *
+     * @return the number of evictions so far
+     * */
+    public long evictions() {
+        return this.evictions.sum();
+    }
+
+    /** rejections returns how many new answers weren't remembered because
+     * they were less popular than what they would have pushed out. This is
+     * always 0 for Policy.LRU.
+     *
+     * @return the number of rejections so far
+     * */
+    public long rejections() {
+        return this.rejections.sum();
+    }
+
+    /** hitRate returns the fraction of lookups we already had an answer for
+     *
+     * @return hits divided by lookups, or 0 before any lookup
+     * */
+    public double hitRate() {
+        long h = hits();
+        long total = h + misses();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    /** size returns how many answers we're remembering right now
+     *
+     * @return the number of cached answers
+     * */
+    public int size() {
+        int total = 0;
+        for(Segment segment : this.segments){
+            total += segment.size();
+        }
+        return total;
+    }
+
+    /** clear forgets every remembered answer, but keeps the statistics */
+    public void clear() {
+        for(Segment segment : this.segments){
+            segment.clear();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s cache: %d/%d entries, %d hits, %d misses, "
+                + "%.1f%% hit rate, %d evictions, %d rejections", this.policy,
+                size(), this.capacity, hits(), misses(), hitRate() * 100,
+                evictions(), rejections());
+    }
+}
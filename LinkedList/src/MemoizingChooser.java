@@ -0,0 +1,69 @@
+/**
+ * This file implements a MyChooser that wraps any other MyChooser and
+ * remembers its answers, so a list full of repeated values only pays for
+ * testing each distinct value once.
+ * **/
+
+import java.util.function.Function;
+
+/* This class can be handed to chooseAll on any of our lists in place of the
+ * chooser it wraps. It's only correct for choosers that always give the same
+ * answer for equal inputs, which is every chooser in Choosers.java. It can be
+ * shared between lists and threads, see MemoCache. */
+public class MemoizingChooser<E> implements MyChooser<E> {
+
+    static final int DEFAULT_CAPACITY = 1 << 12;
+
+    final MyChooser<E> chooser;
+    final MemoCache<E, Boolean> cache;
+    //Made once here, so a miss doesn't build a new lambda every time
+    final Function<E, Boolean> compute;
+
+    /** This constructor wraps chooser with a cache of the given size and
+     * eviction policy
+     *
+     * @param chooser, the chooser whose answers we remember
+     * @param capacity, how many answers to remember at most
+     * @param policy, how to decide what to throw out once we're full
+     * **/
+    public MemoizingChooser(MyChooser<E> chooser, int capacity,
+                            MemoCache.Policy policy) {
+        //Check null case
+        if(chooser == null){
+            throw new NullPointerException();
+        }
+        this.chooser = chooser;
+        this.cache = new MemoCache<E, Boolean>(capacity, policy);
+        //Boolean.valueOf only ever gives back TRUE or FALSE, so remembering
+        //an answer never allocates
+        this.compute = e -> Boolean.valueOf(chooser.chooseElement(e));
+    }
+
+    /** This constructor wraps chooser with a DEFAULT_CAPACITY cache that
+     * throws out whatever was used longest ago
+     *
+     * @param chooser, the chooser whose answers we remember
+     * **/
+    public MemoizingChooser(MyChooser<E> chooser) {
+        this(chooser, DEFAULT_CAPACITY, MemoCache.Policy.LRU);
+    }
+
+    /** chooseElement returns the remembered answer for e, or asks our chooser
+     * and remembers what it says
+     *
+     * @param e, the element to test
+     * @return whatever our chooser returns for e
+     * */
+    @Override
+    public boolean chooseElement(E e) {
+        return this.cache.get(e, this.compute);
+    }
+
+    /** cache returns our cache, for its hit, miss and eviction counts
+     *
+     * @return the cache behind this chooser
+     * */
+    public MemoCache<E, Boolean> cache() {
+        return this.cache;
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * This file implements a MyTransformer that wraps any other MyTransformer and
+ * remembers its answers, so a list full of repeated values only pays for
+ * transforming each distinct value once.
+ * **/
+
+import java.util.function.Function;
+
+/* This class can be handed to transformAll on any of our lists in place of
+ * the transformer it wraps. It's only correct for transformers that always
+ * give the same answer for equal inputs and don't change their input, which
+ * is every transformer in Transformers.java. It can be shared between lists
+ * and threads, see MemoCache. */
+public class MemoizingTransformer<E> implements MyTransformer<E> {
+
+    static final int DEFAULT_CAPACITY = 1 << 12;
+
+    final MyTransformer<E> transformer;
+    final MemoCache<E, E> cache;
+    //Made once here, so a miss doesn't build a new lambda every time
+    final Function<E, E> compute;
+
+    /** This constructor wraps transformer with a cache of the given size and
+     * eviction policy
+     *
+     * @param transformer, the transformer whose answers we remember
+     * @param capacity, how many answers to remember at most
+     * @param policy, how to decide what to throw out once we're full
+     * **/
+    public MemoizingTransformer(MyTransformer<E> transformer, int capacity,
+                                MemoCache.Policy policy) {
+        //Check null case
+        if(transformer == null){
+            throw new NullPointerException();
+        }
+        this.transformer = transformer;
+        this.cache = new MemoCache<E, E>(capacity, policy);
+        this.compute = transformer::transformElement;
+    }
+
+    /** This constructor wraps transformer with a DEFAULT_CAPACITY cache that
+     * throws out whatever was used longest ago
+     *
+     * @param transformer, the transformer whose answers we remember
+     * **/
+    public MemoizingTransformer(MyTransformer<E> transformer) {
+        this(transformer, DEFAULT_CAPACITY, MemoCache.Policy.LRU);
+    }
+
+    /** transformElement returns the remembered answer for e, or asks our
+     * transformer and remembers what it says
+     *
+     * @param e, the element to transform
+     * @return whatever our transformer returns for e
+     * */
+    @Override
+    public E transformElement(E e) {
+        return this.cache.get(e, this.compute);
+    }
+
+    /** cache returns our cache, for its hit, miss and eviction counts
+     *
+     * @return the cache behind this transformer
+     * */
+    public MemoCache<E, E> cache() {
+        return this.cache;
+    }
+}
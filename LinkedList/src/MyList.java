@@ -4,4 +4,10 @@ public interface MyList<E> {
 	  void transformAll(MyTransformer mt);
 	  void chooseAll(MyChooser mc);
 	  boolean isEmpty();
+
+	  /* Starts a lazy pipeline of chooseAll and transformAll steps on this list,
+	   * see LazyList */
+	  default LazyList<E> lazy() {
+		  return new LazyList<E>(this);
+	  }
 }
\ No newline at end of file
@@ -0,0 +1,96 @@
+/**
+ * This file holds whole-array versions of our numeric choosers and
+ * transformers, for IntGL and DoubleGL to run instead of calling the chooser
+ * or transformer once per element.
+ * **/
+
+/* Every loop here is written without branches on the element values: plain
+ * arithmetic, min and max, and comparisons turned straight into 0 or 1. That
+ * way the JIT can turn the transform loops into SIMD instructions (SSE, AVX2
+ * or AVX-512, whatever the machine has), and the filter loops never stall on
+ * a mispredicted branch, which is what a chooser keeping about half its
+ * elements costs per element otherwise.
+ *
+ * Each kernel gives exactly the same answers as the chooser or transformer it
+ * stands in for, see TestPrimitiveLists. */
+final class NumericKernels {
+
+    //For the divisible by 3 test below: 3 * INVERSE_OF_THREE is 1 in int
+    //arithmetic, and THIRD is the largest int divided by 3
+    static final int INVERSE_OF_THREE = 0xAAAAAAAB;
+    static final int THIRD = 0x2AAAAAAA;
+
+    private NumericKernels() {
+    }
+
+    /** isMultipleOfTwelve tests i % 12 == 0 without dividing. i is a multiple
+     * of 12 when its low two bits are 0 and it's a multiple of 3. For the
+     * multiple of 3 part, multiplying by the inverse of 3 maps the multiples
+     * of 3 one to one onto a band of ints around 0, so one unsigned compare
+     * (a signed one with the top bits flipped) tells us whether we landed in
+     * the band.
+     *
+     * @param i, the int to test
+     * @return true if i is divisible by 12
+     * */
+    static boolean isMultipleOfTwelve(int i) {
+        int band = i * INVERSE_OF_THREE + THIRD;
+        return (i & 3) == 0 & (band ^ Integer.MIN_VALUE)
+                <= ((2 * THIRD) ^ Integer.MIN_VALUE);
+    }
+
+    /** keepMultiplesOfTwelve does IntMultipleOfTwelveChooser's chooseAll on
+     * the first size elements of a, sliding the kept ones down in place. Each
+     * element is always written to the next free slot, and the slot only
+     * moves on if it was kept, so there's no branch to mispredict.
+     *
+     * @param a, the array to filter
+     * @param size, how many elements of a are in the list
+     * @return how many elements were kept
+     * */
+    static int keepMultiplesOfTwelve(int[] a, int size) {
+        int newSize = 0;
+        for(int i = 0; i < size; i += 1){
+            int e = a[i];
+            a[newSize] = e;
+            newSize += isMultipleOfTwelve(e) ? 1 : 0;
+        }
+        return newSize;
+    }
+
+    /** keepAtLeast does IntAtLeastChooser's chooseAll on the first size
+     * elements of a, sliding the kept ones down in place the same branch
+     * free way keepMultiplesOfTwelve does, with a plain compare as the test
+     *
+     * @param a, the array to filter
+     * @param size, how many elements of a are in the list
+     * @param threshold, the smallest element to keep
+     * @return how many elements were kept
+     * */
+    static int keepAtLeast(int[] a, int size, int threshold) {
+        int newSize = 0;
+        for(int i = 0; i < size; i += 1){
+            int e = a[i];
+            a[newSize] = e;
+            newSize += e >= threshold ? 1 : 0;
+        }
+        return newSize;
+    }
+
+    /** squareAreas does DoubleSquareAreaTransformer's transformAll on the
+     * first size elements of a. A side length d becomes d * d, except that
+     * negative side lengths are left alone. Writing that as
+     * max(d, 0)^2 + min(d, 0) gives the same answer for every double, -0.0
+     * and NaN included, with no branch, so the loop vectorizes.
+     *
+     * @param a, the array to transform
+     * @param size, how many elements of a are in the list
+     * */
+    static void squareAreas(double[] a, int size) {
+        for(int i = 0; i < size; i += 1){
+            double d = a[i];
+            double side = Math.max(d, 0.0);
+            a[i] = side * side + Math.min(d, 0.0);
+        }
+    }
+}
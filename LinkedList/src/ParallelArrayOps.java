@@ -0,0 +1,132 @@
+/**
+ * This file holds the fork-join versions of ArrayGL's transformAll and
+ * chooseAll. The array is cut into ranges of PARALLEL_THRESHOLD elements and
+ * each range is handled by its own task on a ForkJoinPool.
+ * **/
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/* This class only has static helpers, ArrayGL calls into it when parallel mode
+ * is on and the list is big enough to be worth splitting up. The choosers and
+ * transformers used here get called from several threads at once, so they
+ * must not keep any per-call state of their own. */
+final class ParallelArrayOps {
+
+    //Lists smaller than this stay sequential, and it's also the size of each
+    //range we hand out, so no task ever does less work than this
+    static final int PARALLEL_THRESHOLD = 1 << 13;
+
+    private ParallelArrayOps() {
+    }
+
+    /* This task splits a run of range numbers in half until it's down to a
+     * single range, then does the work for that range. */
+    static final class RangeTask extends RecursiveAction {
+        //ForkJoinTask is Serializable, though we never serialize a RangeTask
+        private static final long serialVersionUID = 1L;
+
+        final int lo;
+        final int hi;
+        final IntConsumer work;
+
+        RangeTask(int lo, int hi, IntConsumer work) {
+            this.lo = lo;
+            this.hi = hi;
+            this.work = work;
+        }
+
+        @Override
+        protected void compute() {
+            if(this.hi - this.lo == 1){
+                this.work.accept(this.lo);
+                return;
+            }
+            int mid = (this.lo + this.hi) >>> 1;
+            invokeAll(new RangeTask(this.lo, mid, this.work),
+                    new RangeTask(mid, this.hi, this.work));
+        }
+    }
+
+    /** forEachRange runs work once for every range of the first size elements
+     * of an array, in parallel, and returns once all of them are done
+     *
+     * @param size, how many elements are being split up
+     * @param work, what to do for each range number
+     * @return the number of ranges
+     * **/
+    static int forEachRange(int size, IntConsumer work) {
+        int ranges = (size + PARALLEL_THRESHOLD - 1) / PARALLEL_THRESHOLD;
+        if(ranges > 0){
+            ForkJoinPool.commonPool().invoke(new RangeTask(0, ranges, work));
+        }
+        return ranges;
+    }
+
+    /** transformAll changes every one of the first size elements to its
+     * transformed version, one range per task
+     *
+     * @param elements, the array to transform in place
+     * @param size, how many elements of the array are in use
+     * @param mt, the transformer to apply
+     * **/
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static void transformAll(Object[] elements, int size, MyTransformer mt) {
+        BatchTransformer<?> batch = BatchTransformer.adapt(mt);
+        forEachRange(size, range -> {
+            int end = Math.min(size, (range + 1) * PARALLEL_THRESHOLD);
+            batch.transformBatch(elements, range * PARALLEL_THRESHOLD, end);
+        });
+    }
+
+    /** chooseAll returns a new array holding only the chosen elements, in the
+     * same order as they were. Each range first tests and counts its own
+     * elements, a prefix sum over those counts tells every range where its
+     * kept elements start, and then each range copies its own elements over.
+     *
+     * @param elements, the array to filter
+     * @param size, how many elements of the array are in use
+     * @param mc, the chooser to apply
+     * @return a new array holding exactly the chosen elements
+     * **/
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Object[] chooseAll(Object[] elements, int size, MyChooser mc) {
+        //Remember each answer as one bit, so the chooser is only called once
+        //per element. PARALLEL_THRESHOLD is a multiple of 64, so each range
+        //fills in whole words of its own
+        BatchChooser<?> batch = BatchChooser.adapt(mc);
+        long[] chosen = new long[(size + 63) / 64];
+        int ranges = (size + PARALLEL_THRESHOLD - 1) / PARALLEL_THRESHOLD;
+        int[] offsets = new int[ranges + 1];
+        forEachRange(size, range -> {
+            int from = range * PARALLEL_THRESHOLD;
+            int end = Math.min(size, from + PARALLEL_THRESHOLD);
+            long[] bits = new long[PARALLEL_THRESHOLD / 64];
+            batch.chooseBatch(elements, from, end, bits);
+            int count = 0;
+            int words = (end - from + 63) / 64;
+            for(int w = 0; w < words; w += 1){
+                chosen[from / 64 + w] = bits[w];
+                count += Long.bitCount(bits[w]);
+            }
+            offsets[range + 1] = count;
+        });
+        //Turn the counts into starting positions for each range
+        for(int range = 0; range < ranges; range += 1){
+            offsets[range + 1] += offsets[range];
+        }
+        Object[] toReplace = new Object[offsets[ranges]];
+        forEachRange(size, range -> {
+            int end = Math.min(size, (range + 1) * PARALLEL_THRESHOLD);
+            int next = offsets[range];
+            for(int i = range * PARALLEL_THRESHOLD; i < end; i += 1){
+                if((chosen[i >>> 6] & (1L << i)) != 0){
+                    toReplace[next] = elements[i];
+                    next += 1;
+                }
+            }
+        });
+        return toReplace;
+    }
+}
@@ -0,0 +1,401 @@
+/**
+ * This file implements a persistent list, where taking a snapshot of the
+ * list is free and transformAll and chooseAll never change anything a
+ * snapshot can see. Versions of the list share every part they have in
+ * common, so keeping many of them around costs little more than keeping one.
+ * **/
+
+import java.util.Arrays;
+
+/* Our elements live in the leaves of a wide tree. Every Node holds up to
+ * WIDTH elements, if it's a leaf, or up to WIDTH child Nodes, and a branch
+ * also keeps a running count of the elements under its children, so we can
+ * find element i without every leaf having to be full. This is the relaxed
+ * version of the persistent vector Clojure and Scala use.
+ *
+ * A Node is never changed once another list or snapshot could be holding
+ * it. transformAll copies only the leaves where the transformer handed back
+ * a different object than it was given, plus the branches above them, and
+ * shares the rest. chooseAll copies only the leaves it removes something
+ * from, and packs neighbouring copies together so the tree doesn't fill up
+ * with tiny leaves.
+ *
+ * Every Node remembers which edit made it. During one call, the Nodes that
+ * call has made are still private to it, so it changes them in place. Batch
+ * mode, see setBatchMode, stretches that across calls, so a run of
+ * transformAll and chooseAll calls copies each Node at most once. */
+public class PersistentGL<E> implements MyList<E> {
+
+    //How many elements a leaf holds, and how many children a branch holds
+    static final int WIDTH = 32;
+
+    /* This class defines one Node of our tree. A leaf has null sizes and
+     * holds elements in items, a branch holds child Nodes in items and
+     * sizes[i] is how many elements are under children 0 through i. */
+    static final class Node {
+        //The edit allowed to change this Node in place
+        Object edit;
+        Object[] items;
+        int count;
+        int[] sizes;
+
+        Node(Object edit, Object[] items, int count, int[] sizes) {
+            this.edit = edit;
+            this.items = items;
+            this.count = count;
+            this.sizes = sizes;
+        }
+
+        /* How many elements are under this Node */
+        int size() {
+            if(this.sizes == null){
+                return this.count;
+            }
+            return this.count == 0 ? 0 : this.sizes[this.count - 1];
+        }
+    }
+
+    //Every empty list shares this leaf, no edit owns it
+    static final Node EMPTY = new Node(null, new Object[0], 0, null);
+
+    Node root;
+    int size;
+    //While batch mode is on, the edit every call shares, otherwise null
+    Object batch;
+
+    /** This constructor copies the input array into our tree. Unlike ArrayGL,
+     * the input array is never changed or kept.
+     *
+     * @param initialElements, the array to build our list from
+     * **/
+    public PersistentGL(E[] initialElements) {
+        //Check null case
+        if(initialElements == null){
+            throw new NullPointerException();
+        }
+        this.root = build(initialElements, new Object());
+        this.size = initialElements.length;
+    }
+
+    /* Makes a list sharing the given tree */
+    private PersistentGL(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /** snapshot gives us a list holding exactly what this list holds right
+     * now, without copying anything. Later changes to either list never
+     * show up in the other.
+     *
+     * @return the snapshot, a PersistentGL of its own
+     * **/
+    public PersistentGL<E> snapshot() {
+        //Our Nodes are shared from now on, so a batch in progress can't
+        //change them in place anymore
+        if(this.batch != null){
+            this.batch = new Object();
+        }
+        return new PersistentGL<E>(this.root, this.size);
+    }
+
+    /** setBatchMode turns batch mode on or off for this list. In batch mode,
+     * a Node copied by one transformAll or chooseAll is changed in place by
+     * the ones after it, instead of being copied again, until the batch ends
+     * or a snapshot is taken. Like ArrayGL, a transformer or chooser that
+     * throws during a batch can leave the list partly changed, outside a
+     * batch the list is left as it was.
+     *
+     * @param batchMode, true to let calls change each other's copies
+     * */
+    public void setBatchMode(boolean batchMode) {
+        if(!batchMode){
+            this.batch = null;
+        } else if(this.batch == null){
+            this.batch = new Object();
+        }
+    }
+
+    /** get gives us the element at a position in our list
+     *
+     * @param index, the position to look up
+     * @return the element at index
+     * @throws IndexOutOfBoundsException if index isn't in our list
+     * **/
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        if(index < 0 || index >= this.size){
+            throw new IndexOutOfBoundsException("Index " + index
+                    + " out of bounds for size " + this.size);
+        }
+        Node currNode = this.root;
+        while(currNode.sizes != null){
+            //Find the first child whose running count passes index
+            int child = 0;
+            while(currNode.sizes[child] <= index){
+                child += 1;
+            }
+            if(child > 0){
+                index -= currNode.sizes[child - 1];
+            }
+            currNode = (Node) currNode.items[child];
+        }
+        return (E) currNode.items[index];
+    }
+
+    /** This method turns our list back into an array, copying a whole leaf
+     * at a time
+     *
+     * @return the array representation of this list.*/
+    @Override
+    @SuppressWarnings("unchecked")
+    public E[] toArray() {
+        E[] toRet = (E[])(new Object[this.size]);
+        fill(this.root, toRet, 0);
+        return toRet;
+    }
+
+    /** transformAll changes every value within our list to the transformed
+     * version. Leaves where every element comes back as the same object are
+     * shared with earlier versions of the list rather than copied.
+     *
+     * @param mt, the class which extends from MyTransformer to draw our
+     *            transform method from
+     * */
+    @Override
+    @SuppressWarnings("rawtypes")
+    public void transformAll(MyTransformer mt) {
+        this.root = transform(this.root, mt, edit());
+    }
+
+    /** chooseAll filters out values from our list which aren't accepted by
+     * the chooser called. Leaves that keep every element are shared with
+     * earlier versions of the list rather than copied.
+     *
+     * @param mc, the class which extends from MyChooser to draw our
+     *            chooser method from
+     * */
+    @Override
+    @SuppressWarnings("rawtypes")
+    public void chooseAll(MyChooser mc) {
+        Node kept = filter(this.root, mc, edit());
+        if(kept == null){
+            this.root = EMPTY;
+            this.size = 0;
+            return;
+        }
+        //A branch left with a single child isn't needed anymore
+        while(kept.sizes != null && kept.count == 1){
+            kept = (Node) kept.items[0];
+        }
+        this.root = kept;
+        this.size = kept.size();
+    }
+
+    /** isEmpty returns true if our list has 0 elements stored
+     *
+     * @return true if our list is empty, false otherwise
+     * */
+    @Override
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /* The edit for one call, the batch's if there is one, otherwise a new
+     * one no Node has yet */
+    private Object edit() {
+        return this.batch != null ? this.batch : new Object();
+    }
+
+    /* Builds a tree of full leaves holding contents */
+    private static Node build(Object[] contents, Object edit) {
+        if(contents.length == 0){
+            return EMPTY;
+        }
+        Node[] level = new Node[(contents.length + WIDTH - 1) / WIDTH];
+        for(int i = 0; i < level.length; i += 1){
+            int start = i * WIDTH;
+            int count = Math.min(WIDTH, contents.length - start);
+            level[i] = new Node(edit, Arrays.copyOfRange(contents, start,
+                    start + count, Object[].class), count, null);
+        }
+        //Put each level under branches, WIDTH at a time, until one is left
+        int count = level.length;
+        while(count > 1){
+            int parents = (count + WIDTH - 1) / WIDTH;
+            for(int i = 0; i < parents; i += 1){
+                int start = i * WIDTH;
+                Object[] children = new Object[Math.min(WIDTH,
+                        count - start)];
+                System.arraycopy(level, start, children, 0, children.length);
+                level[i] = branch(edit, children, children.length);
+            }
+            count = parents;
+        }
+        return level[0];
+    }
+
+    /* Makes a branch over the first count children, working out its running
+     * counts */
+    private static Node branch(Object edit, Object[] children, int count) {
+        Node made = new Node(edit, children, count, new int[count]);
+        recount(made);
+        return made;
+    }
+
+    private static void recount(Node branch) {
+        int total = 0;
+        for(int i = 0; i < branch.count; i += 1){
+            total += ((Node) branch.items[i]).size();
+            branch.sizes[i] = total;
+        }
+    }
+
+    /* Gives us a Node we're allowed to change in place, node itself if edit
+     * made it, otherwise a copy of it made by edit */
+    private static Node editable(Node node, Object edit) {
+        if(node.edit == edit){
+            return node;
+        }
+        return new Node(edit, Arrays.copyOf(node.items, node.count),
+                node.count, node.sizes == null ? null
+                : Arrays.copyOf(node.sizes, node.count));
+    }
+
+    /* Copies every element under node into array starting at index at, and
+     * returns where the next element goes */
+    private static int fill(Node node, Object[] array, int at) {
+        if(node.sizes == null){
+            System.arraycopy(node.items, 0, array, at, node.count);
+            return at + node.count;
+        }
+        for(int i = 0; i < node.count; i += 1){
+            at = fill((Node) node.items[i], array, at);
+        }
+        return at;
+    }
+
+    /* Transforms every element under node, returning node itself if nothing
+     * under it needed copying */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Node transform(Node node, MyTransformer mt, Object edit) {
+        Node out = node;
+        for(int i = 0; i < node.count; i += 1){
+            Object before = node.items[i];
+            Object after = node.sizes == null ? mt.transformElement(before)
+                    : transform((Node) before, mt, edit);
+            //Only copy our Node once something under it is really different
+            if(after != before){
+                out = editable(out, edit);
+                out.items[i] = after;
+            }
+        }
+        return out;
+    }
+
+    /* Filters every element under node, returning node itself if it kept
+     * everything, or null if it kept nothing */
+    @SuppressWarnings("rawtypes")
+    private static Node filter(Node node, MyChooser mc, Object edit) {
+        if(node.sizes == null){
+            return filterLeaf(node, mc, edit);
+        }
+        Node[] kept = new Node[node.count];
+        int keptCount = 0;
+        boolean changed = false;
+        int before = 0;
+        for(int i = 0; i < node.count; i += 1){
+            Node child = (Node) node.items[i];
+            Node filtered = filter(child, mc, edit);
+            //A child edit owns can shrink in place, so we check its size too
+            changed |= filtered != child
+                    || child.size() != node.sizes[i] - before;
+            before = node.sizes[i];
+            if(filtered != null){
+                kept[keptCount] = filtered;
+                keptCount += 1;
+            }
+        }
+        if(!changed){
+            return node;
+        }
+        keptCount = pack(kept, keptCount, edit);
+        if(keptCount == 0){
+            return null;
+        }
+        Object[] children = new Object[keptCount];
+        System.arraycopy(kept, 0, children, 0, keptCount);
+        if(node.edit == edit){
+            node.items = children;
+            node.count = keptCount;
+            recount(node);
+            return node;
+        }
+        return branch(edit, children, keptCount);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Node filterLeaf(Node leaf, MyChooser mc, Object edit) {
+        //Skip ahead to the first element we lose
+        int first = 0;
+        while(first < leaf.count && mc.chooseElement(leaf.items[first])){
+            first += 1;
+        }
+        if(first == leaf.count){
+            return leaf;
+        }
+        Node out = leaf.edit == edit ? leaf
+                : new Node(edit, Arrays.copyOf(leaf.items, leaf.count),
+                first, null);
+        int write = first;
+        for(int i = first + 1; i < leaf.count; i += 1){
+            if(mc.chooseElement(leaf.items[i])){
+                out.items[write] = leaf.items[i];
+                write += 1;
+            }
+        }
+        //Let go of the elements past the end
+        Arrays.fill(out.items, write, leaf.count, null);
+        out.count = write;
+        return write == 0 ? null : out;
+    }
+
+    /* Merges neighbouring Nodes while they fit in one, so filtering doesn't
+     * leave lots of nearly empty Nodes. Nodes shared with other versions are
+     * only copied in when the two together are at most half full, so
+     * sharing is only given up where it saves little. Returns how many Nodes
+     * are left. */
+    private static int pack(Node[] nodes, int count, Object edit) {
+        if(count < 2){
+            return count;
+        }
+        int write = 0;
+        for(int i = 1; i < count; i += 1){
+            Node left = nodes[write];
+            Node right = nodes[i];
+            int together = left.count + right.count;
+            if(together <= WIDTH / 2 || (together <= WIDTH
+                    && left.edit == edit && right.edit == edit)){
+                nodes[write] = merge(editable(left, edit), right);
+            } else {
+                write += 1;
+                nodes[write] = right;
+            }
+        }
+        return write + 1;
+    }
+
+    /* Adds right's items onto the end of left, which edit owns */
+    private static Node merge(Node left, Node right) {
+        int count = left.count + right.count;
+        if(left.items.length < count){
+            left.items = Arrays.copyOf(left.items, count);
+        }
+        System.arraycopy(right.items, 0, left.items, left.count, right.count);
+        left.count = count;
+        if(left.sizes != null){
+            left.sizes = new int[count];
+            recount(left);
+        }
+        return left;
+    }
+}
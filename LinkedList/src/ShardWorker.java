@@ -0,0 +1,240 @@
+/**
+ * This file is the program each worker JVM of a ShardedGL runs. It holds one
+ * shard of the list in an ArrayGL and runs whatever chooseAll, transformAll
+ * or toArray the ShardedGL sends it over a loopback socket.
+ * **/
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/* A worker is started with the port its ShardedGL listens on, a token it
+ * sends back so the ShardedGL knows it's one of its own, and which shard it
+ * is. It then answers calls one at a time until the socket closes, which it
+ * takes as its cue to exit, so workers never outlive their ShardedGL.
+ *
+ * Every call is a command and a spec, which is a serialized object or null:
+ *
+ *   LOAD        spec is the path of a shard file, which becomes our shard
+ *   CHOOSE      spec is a MyChooser, run with chooseAll
+ *   TRANSFORM   spec is a MyTransformer, run with transformAll
+ *   TO_ARRAY    hands back our shard's elements
+ *   CHECKPOINT  writes our shard over the file we loaded it from
+ *
+ * Every answer starts with whether the call worked. If it did, our shard's
+ * size, the nanoseconds the call took and the call's result come next,
+ * otherwise the serialized exception it threw. Shard files are an Object[]
+ * written with an ObjectOutputStream. */
+final class ShardWorker {
+
+    static final int LOAD = 0;
+    static final int CHOOSE = 1;
+    static final int TRANSFORM = 2;
+    static final int TO_ARRAY = 3;
+    static final int CHECKPOINT = 4;
+
+    private ArrayGL<Object> shard = new ArrayGL<Object>(new Object[0]);
+    //The file our shard was loaded from, which CHECKPOINT writes over
+    private Path file;
+
+    private ShardWorker() {
+    }
+
+    /** main connects to the ShardedGL that started us and answers its calls
+     * until it closes the socket
+     *
+     * @param args, the port to connect to, our token and our shard's index
+     * @throws IOException if the socket fails for any other reason
+     * **/
+    public static void main(String[] args) throws IOException {
+        int port = Integer.parseInt(args[0]);
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(),
+                port)) {
+            socket.setTcpNoDelay(true);
+            //Each side has to send its stream header before reading the
+            //other's, or both would wait forever
+            ObjectOutputStream out = output(socket.getOutputStream());
+            out.writeUTF(args[1]);
+            out.writeInt(Integer.parseInt(args[2]));
+            out.flush();
+            ObjectInputStream in = input(socket.getInputStream());
+            new ShardWorker().serve(in, out);
+        } catch (EOFException e) {
+            //Our ShardedGL closed the socket, so we're done
+        }
+    }
+
+    /* Answers calls until the socket closes */
+    private void serve(ObjectInputStream in, ObjectOutputStream out)
+            throws IOException {
+        while(true){
+            int command = in.readInt();
+            byte[] spec = (byte[]) readObject(in);
+            long start = System.nanoTime();
+            Object result = null;
+            Throwable failure = null;
+            try {
+                result = run(command, spec);
+            } catch (Throwable t) {
+                failure = t;
+            }
+            long nanos = System.nanoTime() - start;
+            out.writeBoolean(failure == null);
+            if(failure == null){
+                out.writeInt(this.shard.size);
+                out.writeLong(nanos);
+                out.writeObject(result);
+            } else {
+                out.writeObject(serializeFailure(failure));
+            }
+            //Forget the objects we just wrote, or the stream keeps every one
+            //of them alive to write back references to
+            out.reset();
+            out.flush();
+        }
+    }
+
+    /** run carries out one call on our shard
+     *
+     * @param command, which call it is
+     * @param spec, what the call needs, serialized
+     * @return what to hand back, or null for nothing
+     * @throws Exception whatever the call throws
+     * **/
+    @SuppressWarnings("unchecked")
+    private Object run(int command, byte[] spec) throws Exception {
+        switch (command) {
+        case LOAD:
+            this.file = Paths.get((String) deserialize(spec));
+            this.shard = new ArrayGL<Object>(readShard(this.file));
+            return null;
+        case CHOOSE:
+            this.shard.chooseAll((MyChooser<Object>) deserialize(spec));
+            return null;
+        case TRANSFORM:
+            this.shard.transformAll((MyTransformer<Object>) deserialize(
+                    spec));
+            return null;
+        case TO_ARRAY:
+            return this.shard.toArray();
+        case CHECKPOINT: {
+            //Write next to the file and move over it, so a worker killed
+            //halfway through leaves the old file whole
+            Path temp = this.file.resolveSibling(this.file.getFileName()
+                    + ".tmp");
+            writeShard(temp, this.shard.toArray());
+            Files.move(temp, this.file, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            return null;
+        }
+        default:
+            throw new IllegalArgumentException("Unknown command " + command);
+        }
+    }
+
+    /** serialize turns an object into bytes with an ObjectOutputStream
+     *
+     * @param o, the object, which may be null
+     * @return its bytes, or null if o is null
+     * @throws IOException if o, or something it holds, isn't Serializable
+     * **/
+    static byte[] serialize(Object o) throws IOException {
+        if(o == null){
+            return null;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(o);
+        }
+        return bytes.toByteArray();
+    }
+
+    /** deserialize turns bytes from serialize back into an object
+     *
+     * @param bytes, the bytes, or null
+     * @return the object, or null if bytes is null
+     * @throws IOException if bytes isn't a serialized object we can load
+     * **/
+    static Object deserialize(byte[] bytes) throws IOException {
+        if(bytes == null){
+            return null;
+        }
+        try (ObjectInputStream in = new ObjectInputStream(
+                new ByteArrayInputStream(bytes))) {
+            return readObject(in);
+        }
+    }
+
+    /** serializeFailure serializes an exception, falling back on one with
+     * the same message if it holds something that isn't Serializable
+     *
+     * @param failure, the exception
+     * @return its bytes
+     * @throws IOException if even the fallback can't be serialized
+     * **/
+    static byte[] serializeFailure(Throwable failure) throws IOException {
+        try {
+            return serialize(failure);
+        } catch (IOException e) {
+            RuntimeException copy = new RuntimeException(failure.toString());
+            copy.setStackTrace(failure.getStackTrace());
+            return serialize(copy);
+        }
+    }
+
+    /** readShard reads a shard file
+     *
+     * @param file, the shard file
+     * @return its elements
+     * @throws IOException if it can't be read
+     * **/
+    static Object[] readShard(Path file) throws IOException {
+        try (ObjectInputStream in = input(Files.newInputStream(file))) {
+            return (Object[]) readObject(in);
+        }
+    }
+
+    /** writeShard writes a shard file
+     *
+     * @param file, where to write it
+     * @param elements, the shard's elements, each Serializable or null
+     * @throws IOException if it can't be written
+     * **/
+    static void writeShard(Path file, Object[] elements) throws IOException {
+        try (ObjectOutputStream out = output(Files.newOutputStream(file))) {
+            out.writeObject(elements);
+        }
+    }
+
+    /* An ObjectOutputStream over a buffered out */
+    static ObjectOutputStream output(OutputStream out) throws IOException {
+        return new ObjectOutputStream(new BufferedOutputStream(out));
+    }
+
+    /* An ObjectInputStream over a buffered in */
+    static ObjectInputStream input(InputStream in) throws IOException {
+        return new ObjectInputStream(new BufferedInputStream(in));
+    }
+
+    /* Reads an object, with a class we can't find counted as bad input */
+    static Object readObject(ObjectInputStream in) throws IOException {
+        try {
+            return in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+}
@@ -0,0 +1,566 @@
+/**
+ * This file implements a generic list split into shards, each held by its own
+ * worker JVM on this machine, so one list can hold and work through more
+ * elements than one JVM's heap, and every shard is filtered and transformed
+ * at the same time.
+ * **/
+
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/* This class implements MyList by splitting its elements into shards, in
+ * order, and starting one ShardWorker JVM per shard with the same classpath
+ * as ours. Workers talk to us over loopback sockets, so nothing outside this
+ * machine is needed. chooseAll and transformAll send the chooser or
+ * transformer to every worker at once and wait for them all, and toArray
+ * gathers every shard back up in order. That means elements, choosers and
+ * transformers all have to be Serializable, for example the classes in
+ * Choosers.java and Transformers.java, or a lambda cast to
+ * (MyChooser<String> & Serializable).
+ *
+ * Each shard is written to a file when we're built, and we keep a log of
+ * every chooser and transformer each shard has run since. If a worker dies,
+ * the next call on its shard starts a new one, loads the file and runs the
+ * log again before carrying on, so choosers and transformers have to give
+ * the same answers every time. checkpoint has every worker write its shard
+ * over its file, and empties each shard's log once its worker has.
+ *
+ * If a chooser or transformer throws on a shard, that shard's worker is
+ * started again the same way, leaving the shard as it was before the call,
+ * and the first exception is thrown from here once every shard has
+ * answered. The shards that didn't throw keep their changes. If a worker
+ * can't be started again, we still read every other worker's answer, leave
+ * that shard without a worker for the next call to start again, and then
+ * throw an UncheckedIOException. A ShardedGL has to be closed once it's no
+ * longer needed, which stops the workers and deletes the shard files. */
+public class ShardedGL<E> implements MyList<E>, AutoCloseable {
+
+    //How long we wait for a new worker to start up and connect
+    static final int CONNECT_TIMEOUT_MILLIS = 60000;
+
+    /* One shard, and the worker holding it */
+    static final class Shard {
+        final int index;
+        //Where the shard was written, for a new worker to load
+        final Path file;
+        Process process;
+        Socket socket;
+        ObjectInputStream in;
+        ObjectOutputStream out;
+        //Every CHOOSE and TRANSFORM run since file was written, with its
+        //serialized spec
+        final ArrayList<Integer> logCommands = new ArrayList<Integer>();
+        final ArrayList<byte[]> logSpecs = new ArrayList<byte[]>();
+        int size;
+        //What the last call returned, and how long it took
+        Object result;
+        long nanos;
+        long sentAt;
+        long roundTripNanos;
+
+        Shard(int index, Path file) {
+            this.index = index;
+            this.file = file;
+        }
+    }
+
+    private final Shard[] shards;
+    private final Path directory;
+    private final ServerSocket server;
+    private final String token;
+    private final List<String> jvmOptions;
+    private int restarts;
+    private boolean closed;
+
+    /** This constructor splits contents into shards as evenly as it can,
+     * writes each one to a file and starts a worker JVM for each
+     *
+     * @param contents, the elements, each Serializable or null
+     * @param shardCount, how many shards and workers to use
+     * @param jvmOptions, options for each worker's java command, like
+     *                   "-Xmx4g"
+     * @throws IOException if the shards can't be written or a worker can't
+     * be started
+     * **/
+    public ShardedGL(E[] contents, int shardCount, String... jvmOptions)
+            throws IOException {
+        //Check null case
+        if(contents == null || jvmOptions == null){
+            throw new NullPointerException();
+        }
+        if(shardCount < 1){
+            throw new IllegalArgumentException("Need at least one shard: "
+                    + shardCount);
+        }
+        this.jvmOptions = Collections.unmodifiableList(
+                new ArrayList<String>(Arrays.asList(jvmOptions)));
+        this.token = Long.toHexString(new SecureRandom().nextLong());
+        this.directory = Files.createTempDirectory("sharded-gl");
+        this.server = new ServerSocket(0, shardCount,
+                InetAddress.getLoopbackAddress());
+        this.server.setSoTimeout(CONNECT_TIMEOUT_MILLIS);
+        this.shards = new Shard[shardCount];
+        try {
+            for(int i = 0; i < shardCount; i += 1){
+                int from = (int) ((long) contents.length * i / shardCount);
+                int to = (int) ((long) contents.length * (i + 1)
+                        / shardCount);
+                this.shards[i] = new Shard(i, this.directory.resolve(
+                        "shard-" + i + ".bin"));
+                ShardWorker.writeShard(this.shards[i].file,
+                        Arrays.copyOfRange(contents, from, to, Object[].class));
+            }
+            //Start every JVM before waiting on any, so they start up together
+            for(Shard shard : this.shards){
+                launch(shard);
+            }
+            connect(this.shards.length);
+            run(ShardWorker.LOAD, null);
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /** toArray gathers every shard back up, in order
+     *
+     * @return the elements of every shard, one after another
+     * **/
+    @Override
+    @SuppressWarnings("unchecked")
+    public E[] toArray() {
+        ListMetrics.Span span = ListMetrics.begin();
+        run(ShardWorker.TO_ARRAY, null);
+        E[] toRet = (E[]) (new Object[size()]);
+        int at = 0;
+        for(Shard shard : this.shards){
+            Object[] part = (Object[]) shard.result;
+            System.arraycopy(part, 0, toRet, at, part.length);
+            at += part.length;
+            shard.result = null;
+        }
+        ListMetrics.end(span, this, ListMetrics.TO_ARRAY, null, toRet.length,
+                toRet.length);
+        return toRet;
+    }
+
+    /** transformAll has every worker transform its shard at the same time
+     *
+     * @param mt, the transformer, which has to be Serializable
+     * @throws IllegalArgumentException if mt can't be serialized
+     * @throws UncheckedIOException if a worker died and couldn't be started
+     * again
+     * */
+    @Override
+    @SuppressWarnings("rawtypes")
+    public void transformAll(MyTransformer mt) {
+        ListMetrics.Span span = ListMetrics.begin();
+        run(ShardWorker.TRANSFORM, spec(mt));
+        ListMetrics.end(span, this, ListMetrics.TRANSFORM_ALL, mt, size(),
+                size());
+    }
+
+    /** chooseAll has every worker filter its shard at the same time
+     *
+     * @param mc, the chooser, which has to be Serializable
+     * @throws IllegalArgumentException if mc can't be serialized
+     * @throws UncheckedIOException if a worker died and couldn't be started
+     * again
+     * */
+    @Override
+    @SuppressWarnings("rawtypes")
+    public void chooseAll(MyChooser mc) {
+        ListMetrics.Span span = ListMetrics.begin();
+        int oldSize = size();
+        run(ShardWorker.CHOOSE, spec(mc));
+        ListMetrics.end(span, this, ListMetrics.CHOOSE_ALL, mc, oldSize,
+                size());
+    }
+
+    /** checkpoint has every worker write its shard over its file, so a
+     * worker started after this doesn't need to run anything again. Each
+     * shard's log is emptied as soon as its worker has written its file,
+     * even if another worker couldn't.
+     *
+     * @throws UncheckedIOException if a worker died and couldn't be started
+     * again, or couldn't write its file
+     * */
+    public void checkpoint() {
+        run(ShardWorker.CHECKPOINT, null);
+    }
+
+    /** isEmpty returns true if every shard is empty
+     *
+     * @return true if our list is empty, false otherwise
+     * */
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /** size tells us how many elements every shard holds together
+     *
+     * @return the number of elements
+     * */
+    public int size() {
+        int size = 0;
+        for(Shard shard : this.shards){
+            size += shard.size;
+        }
+        return size;
+    }
+
+    /** shardSizes tells us how many elements each shard holds
+     *
+     * @return the size of each shard, in order
+     * */
+    public int[] shardSizes() {
+        int[] sizes = new int[this.shards.length];
+        for(int i = 0; i < sizes.length; i += 1){
+            sizes[i] = this.shards[i].size;
+        }
+        return sizes;
+    }
+
+    /** shardNanos tells us how long each worker spent on the last call, not
+     * counting the time to send it the call and its answer back
+     *
+     * @return nanoseconds for each shard, in order
+     * */
+    public long[] shardNanos() {
+        long[] nanos = new long[this.shards.length];
+        for(int i = 0; i < nanos.length; i += 1){
+            nanos[i] = this.shards[i].nanos;
+        }
+        return nanos;
+    }
+
+    /** shardRoundTripNanos tells us how long after sending the last call to
+     * each worker we had its answer. That's at least as long as the slowest
+     * shard before it, since answers are read in order.
+     *
+     * @return nanoseconds for each shard, in order
+     * */
+    public long[] shardRoundTripNanos() {
+        long[] nanos = new long[this.shards.length];
+        for(int i = 0; i < nanos.length; i += 1){
+            nanos[i] = this.shards[i].roundTripNanos;
+        }
+        return nanos;
+    }
+
+    /** restarts tells us how many times a worker has had to be started again
+     *
+     * @return the number of restarts
+     * */
+    public int restarts() {
+        return this.restarts;
+    }
+
+    /** close stops every worker and deletes the shard files. Any call after
+     * this throws an IllegalStateException.
+     *
+     * @throws IOException if the shard files can't be deleted
+     * */
+    @Override
+    public void close() throws IOException {
+        if(this.closed){
+            return;
+        }
+        this.closed = true;
+        for(Shard shard : this.shards){
+            if(shard != null){
+                stop(shard);
+            }
+        }
+        this.server.close();
+        for(Shard shard : this.shards){
+            if(shard != null){
+                Files.deleteIfExists(shard.file.resolveSibling(
+                        shard.file.getFileName() + ".tmp"));
+                Files.deleteIfExists(shard.file);
+            }
+        }
+        Files.deleteIfExists(this.directory);
+    }
+
+    /** killWorker kills the worker holding one shard, the way a crash would,
+     * and waits for it to be gone
+     *
+     * @param index, which shard's worker to kill
+     * @throws InterruptedException if we're interrupted while waiting
+     * */
+    void killWorker(int index) throws InterruptedException {
+        this.shards[index].process.destroyForcibly().waitFor();
+    }
+
+    /** shardFile tells us where one shard was written, for a new worker to
+     * load
+     *
+     * @param index, which shard
+     * @return the shard's file
+     * */
+    Path shardFile(int index) {
+        return this.shards[index].file;
+    }
+
+    /** run sends one call to every worker, then reads every answer. A worker
+     * that can't be reached is started again and sent the call again. Every
+     * answer is read before anything is thrown, so none are left behind for
+     * the next call to read by mistake.
+     *
+     * @param command, which call, see ShardWorker
+     * @param spec, what the call needs, serialized, or null
+     * */
+    private void run(int command, byte[] spec) {
+        if(this.closed){
+            throw new IllegalStateException("ShardedGL is closed");
+        }
+        boolean[] failed = new boolean[this.shards.length];
+        for(int i = 0; i < this.shards.length; i += 1){
+            try {
+                send(this.shards[i], command, spec);
+            } catch (IOException e) {
+                failed[i] = true;
+            }
+        }
+        Throwable thrown = null;
+        UncheckedIOException lost = null;
+        for(int i = 0; i < this.shards.length; i += 1){
+            Shard shard = this.shards[i];
+            Throwable failure = null;
+            if(!failed[i]){
+                try {
+                    failure = receive(shard);
+                } catch (IOException e) {
+                    failed[i] = true;
+                }
+            }
+            try {
+                if(failed[i]){
+                    //Only a second failure straight after a restart gives up
+                    restart(shard);
+                    send(shard, command, spec);
+                    failure = receive(shard);
+                }
+                if(failure != null){
+                    //The shard may be partly changed, so we bring it back to
+                    //where it was before the call with a new worker
+                    restart(shard);
+                }
+            } catch (IOException e) {
+                //The call never happened on this shard as far as its log
+                //knows, so the next call starts it again from its file
+                stop(shard);
+                if(lost == null){
+                    lost = new UncheckedIOException("Shard " + i
+                            + (failed[i] ? " failed again after a restart"
+                            : " couldn't be brought back"), e);
+                }
+                continue;
+            }
+            if(failure == null){
+                logged(shard, command, spec);
+            } else if(thrown == null){
+                thrown = failure;
+            }
+        }
+        if(lost != null){
+            if(thrown != null){
+                lost.addSuppressed(thrown);
+            }
+            throw lost;
+        }
+        if(thrown instanceof RuntimeException){
+            throw (RuntimeException) thrown;
+        } else if(thrown instanceof Error){
+            throw (Error) thrown;
+        } else if(thrown != null){
+            throw new IllegalStateException(thrown);
+        }
+    }
+
+    /* Keeps a shard's log up to date with a call it answered */
+    private static void logged(Shard shard, int command, byte[] spec) {
+        if(command == ShardWorker.CHOOSE || command == ShardWorker.TRANSFORM){
+            shard.logCommands.add(command);
+            shard.logSpecs.add(spec);
+        } else if(command == ShardWorker.CHECKPOINT){
+            //Its file holds everything now, so there's nothing to run again
+            shard.logCommands.clear();
+            shard.logSpecs.clear();
+        }
+    }
+
+    /* Sends one call to a worker. LOAD always loads the shard's own file. */
+    private void send(Shard shard, int command, byte[] spec)
+            throws IOException {
+        if(shard.out == null){
+            throw new IOException("Shard " + shard.index + " has no worker");
+        }
+        if(command == ShardWorker.LOAD){
+            spec = ShardWorker.serialize(shard.file.toString());
+        }
+        shard.sentAt = System.nanoTime();
+        shard.out.writeInt(command);
+        shard.out.writeObject(spec);
+        shard.out.reset();
+        shard.out.flush();
+    }
+
+    /** receive reads a worker's answer to the last call sent to it
+     *
+     * @param shard, the worker's shard
+     * @return what the call threw in the worker, or null if it worked
+     * @throws IOException if the worker can't be reached
+     * **/
+    private Throwable receive(Shard shard) throws IOException {
+        boolean worked = shard.in.readBoolean();
+        if(!worked){
+            return (Throwable) ShardWorker.deserialize(
+                    (byte[]) ShardWorker.readObject(shard.in));
+        }
+        shard.size = shard.in.readInt();
+        shard.nanos = shard.in.readLong();
+        shard.result = ShardWorker.readObject(shard.in);
+        shard.roundTripNanos = System.nanoTime() - shard.sentAt;
+        return null;
+    }
+
+    /** restart stops a shard's worker, starts a new one, and brings it back
+     * to where the old one was by loading the shard's file and running its
+     * log again
+     *
+     * @param shard, the shard to restart
+     * @throws IOException if the new worker can't be started or reached
+     * **/
+    private void restart(Shard shard) throws IOException {
+        this.restarts += 1;
+        stop(shard);
+        launch(shard);
+        connect(1);
+        send(shard, ShardWorker.LOAD, null);
+        Throwable failure = receive(shard);
+        for(int i = 0; failure == null && i < shard.logSpecs.size(); i += 1){
+            send(shard, shard.logCommands.get(i), shard.logSpecs.get(i));
+            failure = receive(shard);
+        }
+        if(failure != null){
+            throw new IOException("Shard " + shard.index
+                    + " couldn't be brought back", failure);
+        }
+    }
+
+    /* Starts a worker JVM for a shard, with our classpath */
+    private void launch(Shard shard) throws IOException {
+        List<String> command = new ArrayList<String>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java")
+                .toString());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.addAll(this.jvmOptions);
+        command.add(ShardWorker.class.getName());
+        command.add(Integer.toString(this.server.getLocalPort()));
+        command.add(this.token);
+        command.add(Integer.toString(shard.index));
+        shard.process = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+    }
+
+    /** connect accepts new workers until count of them have connected, and
+     * hooks each up to its shard
+     *
+     * @param count, how many workers to wait for
+     * @throws IOException if one doesn't connect in time. Connections
+     * that aren't from one of our workers are turned away.
+     * **/
+    private void connect(int count) throws IOException {
+        while(count > 0){
+            Socket socket = this.server.accept();
+            try {
+                socket.setTcpNoDelay(true);
+                //Don't let something that isn't a worker hold us up
+                socket.setSoTimeout(CONNECT_TIMEOUT_MILLIS);
+                ObjectInputStream in = ShardWorker.input(
+                        socket.getInputStream());
+                int index = -1;
+                if(this.token.equals(in.readUTF())){
+                    index = in.readInt();
+                }
+                //Anything else connecting to our port is turned away
+                if(index < 0 || index >= this.shards.length
+                        || this.shards[index].socket != null){
+                    socket.close();
+                    continue;
+                }
+                socket.setSoTimeout(0);
+                ObjectOutputStream out = ShardWorker.output(
+                        socket.getOutputStream());
+                out.flush();
+                Shard shard = this.shards[index];
+                shard.socket = socket;
+                shard.in = in;
+                shard.out = out;
+                count -= 1;
+            } catch (IOException e) {
+                socket.close();
+            }
+        }
+    }
+
+    /* Stops a shard's worker, if it has one, and closes its socket, which
+     * is also what tells a worker to exit */
+    private void stop(Shard shard) {
+        try {
+            if(shard.socket != null){
+                shard.socket.close();
+            }
+        } catch (IOException e) {
+            //It's being thrown away either way
+        }
+        shard.socket = null;
+        shard.in = null;
+        shard.out = null;
+        if(shard.process != null){
+            shard.process.destroyForcibly();
+            try {
+                shard.process.waitFor();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            shard.process = null;
+        }
+    }
+
+    /* Serializes a chooser or transformer to send to the workers */
+    private static byte[] spec(Object kernel) {
+        //Check null case
+        if(kernel == null){
+            throw new NullPointerException();
+        }
+        try {
+            return ShardWorker.serialize(kernel);
+        } catch (NotSerializableException e) {
+            throw new IllegalArgumentException(kernel.getClass().getName()
+                    + " can't be sent to a worker: " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,289 @@
+/**
+ * This file implements a list of Strings that keeps every string's text in
+ * one big byte array instead of as separate String objects. It supports the
+ * same operations as ArrayGL, and choosers and transformers that know how to
+ * work on the bytes directly never make a String at all.
+ * **/
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/* Every string is stored as its UTF-8 bytes, one after the other in our
+ * arena, and string i is arena[offsets[i]] up to arena[offsets[i + 1] - 1].
+ * A short word held as a String costs a String object and its own byte
+ * array, around 50 bytes for a 6 letter word, plus the reference to it. Here
+ * it costs its 6 bytes plus a 4 byte offset, all in two arrays the garbage
+ * collector never has to look inside.
+ *
+ * Choosers that implement ArenaChooser and transformers that implement
+ * ArenaTransformer work on the bytes directly, any other chooser or
+ * transformer still works, getting a new String for every element. Strings
+ * are only made for good in toArray. Like IntGL can't hold a null, neither
+ * can we, and a string with a lone surrogate char comes back with a '?'
+ * there, since UTF-8 has no way to store it. */
+public class StringArenaGL implements MyList<String> {
+
+    byte[] arena;
+    int[] offsets;
+    int size;
+
+    /** This constructor copies the text of every input string into our
+     * arena. Unlike ArrayGL, the input array isn't kept.
+     *
+     * @param initialElements, the array of strings to build our list from
+     * **/
+    public StringArenaGL(String[] initialElements) {
+        this(initialElements.length, textLength(initialElements));
+        for(String s : initialElements){
+            append(s);
+        }
+    }
+
+    /* Makes an empty list with room for count strings and bytes bytes */
+    private StringArenaGL(int count, int bytes) {
+        this.arena = new byte[bytes];
+        this.offsets = new int[count + 1];
+    }
+
+    /* Adds up how many chars the strings have, which is how many bytes they
+     * take if they're plain ASCII */
+    private static int textLength(String[] strings) {
+        long total = 0;
+        for(String s : strings){
+            //Check null case
+            if(s == null){
+                throw new NullPointerException();
+            }
+            total += s.length();
+        }
+        return (int) Math.min(total, Integer.MAX_VALUE - 8);
+    }
+
+    /** This method turns our list back into an array, making every String
+     *
+     * @return the array representation of this list.*/
+    @Override
+    public String[] toArray() {
+        String[] toRet = new String[this.size];
+        for(int i = 0; i < this.size; i += 1){
+            toRet[i] = string(i);
+        }
+        return toRet;
+    }
+
+    /** transformAll changes every string in our list. An ArenaTransformer
+     * changes the bytes in place where it can, any other transformer gets
+     * each string as a String and we store what it gives back. If the
+     * transformer throws or hands back null, our list is left as it was.
+     *
+     * @param mt, the class which extends from MyTransformer to draw our
+     *            transform method from
+     * */
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void transformAll(MyTransformer mt) {
+        boolean[] inPlace = new boolean[this.size];
+        int missed = this.size;
+        //The in place changes go into a copy of our arena, which only
+        //replaces it once every string has been transformed, so if the
+        //transformer throws or hands back null our list is still whole
+        byte[] changed = this.arena;
+        if(mt instanceof ArenaTransformer){
+            ArenaTransformer at = (ArenaTransformer) mt;
+            changed = Arrays.copyOf(this.arena, this.offsets[this.size]);
+            for(int i = 0; i < this.size; i += 1){
+                inPlace[i] = at.transformInPlace(changed, this.offsets[i],
+                        this.offsets[i + 1]);
+                missed -= inPlace[i] ? 1 : 0;
+            }
+        }
+        if(missed == 0){
+            this.arena = changed;
+            return;
+        }
+        //Some strings change length, so we lay the arena out again, on the
+        //side for the same reason
+        StringArenaGL next = new StringArenaGL(this.size,
+                this.offsets[this.size]);
+        for(int i = 0; i < this.size; i += 1){
+            if(inPlace[i]){
+                next.appendBytes(changed, this.offsets[i],
+                        this.offsets[i + 1]);
+            } else {
+                next.append((String) mt.transformElement(string(i)));
+            }
+        }
+        this.arena = next.arena;
+        this.offsets = next.offsets;
+    }
+
+    /** chooseAll filters out strings from our list which aren't accepted by
+     * the chooser called, sliding the bytes of the ones we keep down in
+     * place. An ArenaChooser tests the bytes directly, any other chooser gets
+     * each string as a String.
+     *
+     * @param mc, the class which extends from MyChooser to draw our
+     *            chooser method from
+     * */
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void chooseAll(MyChooser mc) {
+        ArenaChooser ac = mc instanceof ArenaChooser ? (ArenaChooser) mc
+                : null;
+        int newSize = 0;
+        int write = 0;
+        int start = 0;
+        //We only ever write at or behind where we're reading, in both arrays,
+        //and we've always read offsets[i + 1] before it could be written
+        for(int i = 0; i < this.size; i += 1){
+            int end = this.offsets[i + 1];
+            boolean keep = ac != null
+                    ? ac.chooseElement(this.arena, start, end)
+                    : mc.chooseElement(string(i));
+            if(keep){
+                if(write != start){
+                    System.arraycopy(this.arena, start, this.arena, write,
+                            end - start);
+                }
+                this.offsets[newSize] = write;
+                write += end - start;
+                newSize += 1;
+            }
+            start = end;
+        }
+        this.offsets[newSize] = write;
+        this.size = newSize;
+    }
+
+    /** isEmpty returns true if our list has 0 strings stored
+     *
+     * @return true if our list is empty, false otherwise
+     * */
+    @Override
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /** arenaBytes tells us how many bytes of text our strings take up
+     *
+     * @return the total UTF-8 length of every string in our list
+     * */
+    public int arenaBytes() {
+        return this.offsets[this.size];
+    }
+
+    /* Makes a String of string i */
+    private String string(int i) {
+        int start = this.offsets[i];
+        return new String(this.arena, start, this.offsets[i + 1] - start,
+                StandardCharsets.UTF_8);
+    }
+
+    /* Adds s to the end of our list */
+    private void append(String s) {
+        //Check null case
+        if(s == null){
+            throw new NullPointerException("StringArenaGL can't hold null");
+        }
+        int at = this.offsets[this.size];
+        int length = s.length();
+        ensureCapacity((long) at + length);
+        //Plain ASCII chars are one byte each in UTF-8, so we copy those
+        //ourselves and only hand the rest of the string to the JDK's encoder
+        //once we meet a char that isn't
+        for(int i = 0; i < length; i += 1){
+            char c = s.charAt(i);
+            if(c >= 128){
+                byte[] rest = s.substring(i).getBytes(StandardCharsets.UTF_8);
+                ensureCapacity((long) at + i + rest.length);
+                System.arraycopy(rest, 0, this.arena, at + i, rest.length);
+                finishAppend(at + i + rest.length);
+                return;
+            }
+            this.arena[at + i] = (byte) c;
+        }
+        finishAppend(at + length);
+    }
+
+    /* Adds the string whose bytes are bytes[start] up to bytes[end - 1] */
+    private void appendBytes(byte[] bytes, int start, int end) {
+        int at = this.offsets[this.size];
+        ensureCapacity((long) at + end - start);
+        System.arraycopy(bytes, start, this.arena, at, end - start);
+        finishAppend(at + end - start);
+    }
+
+    private void finishAppend(int end) {
+        if(this.size + 1 == this.offsets.length){
+            this.offsets = Arrays.copyOf(this.offsets,
+                    this.offsets.length + (this.offsets.length >> 1) + 1);
+        }
+        this.size += 1;
+        this.offsets[this.size] = end;
+    }
+
+    /* Grows our arena by half, or more if needed, to fit bytes bytes */
+    private void ensureCapacity(long bytes) {
+        if(bytes <= this.arena.length){
+            return;
+        }
+        if(bytes > Integer.MAX_VALUE - 8){
+            throw new OutOfMemoryError("StringArenaGL can hold at most 2GB"
+                    + " of text");
+        }
+        long grown = Math.max(bytes, this.arena.length
+                + (this.arena.length >> 1));
+        this.arena = Arrays.copyOf(this.arena,
+                (int) Math.min(grown, Integer.MAX_VALUE - 8));
+    }
+
+    /** utf16Length gives the length String.length() would give for the
+     * string whose UTF-8 bytes are arena[start] up to arena[end - 1]. Every
+     * byte but a continuation byte starts a char, and the chars that take
+     * four bytes are two chars in a String.
+     *
+     * @param arena, the bytes
+     * @param start, the first byte of the string
+     * @param end, one past the last byte of the string
+     * @return the number of chars in the string
+     * */
+    static int utf16Length(byte[] arena, int start, int end) {
+        int length = 0;
+        for(int i = start; i < end; i += 1){
+            int b = arena[i];
+            length += ((b & 0xC0) != 0x80 ? 1 : 0) + ((b & 0xF8) == 0xF0 ? 1
+                    : 0);
+        }
+        return length;
+    }
+
+    /** firstChar gives the char String.charAt(0) would give for the string
+     * whose UTF-8 bytes are arena[start] up to arena[end - 1]
+     *
+     * @param arena, the bytes
+     * @param start, the first byte of the string
+     * @param end, one past the last byte of the string
+     * @return the first char, or -1 if the string is empty
+     * */
+    static int firstChar(byte[] arena, int start, int end) {
+        if(start == end){
+            return -1;
+        }
+        int b = arena[start];
+        if(b >= 0){
+            return b;
+        }
+        if((b & 0xE0) == 0xC0){
+            return (b & 0x1F) << 6 | (arena[start + 1] & 0x3F);
+        }
+        if((b & 0xF0) == 0xE0){
+            return (b & 0x0F) << 12 | (arena[start + 1] & 0x3F) << 6
+                    | (arena[start + 2] & 0x3F);
+        }
+        //Four bytes is a code point past the chars, which a String holds as
+        //two surrogate chars, so its first char is the high surrogate
+        int codePoint = (b & 0x07) << 18 | (arena[start + 1] & 0x3F) << 12
+                | (arena[start + 2] & 0x3F) << 6 | (arena[start + 3] & 0x3F);
+        return Character.highSurrogate(codePoint);
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * This file is a test file, checking that AdaptiveGL moves between an
+ * ArrayGL and a LinkedGL when its workload changes, and only then.
+ * **/
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.*;
+
+public class TestAdaptiveGL {
+
+	/* Checks a phase of chooseAll calls keeping nearly everything moves us
+	 * to a LinkedGL, and a phase of toArray calls moves us back */
+	@Test
+	public void testPhases() {
+		AdaptiveGL<Object> list = new AdaptiveGL<Object>(
+				TestLists.count(100000));
+		assertEquals(AdaptivePolicy.ARRAY, list.representation());
+		list.chooseAll(i -> (Integer) i % 100 != 0);
+		for(int i = 0; i < 10; i += 1){
+			list.chooseAll(e -> true);
+		}
+		assertEquals(AdaptivePolicy.LINKED, list.representation());
+		for(int i = 0; i < 20; i += 1){
+			assertEquals(99000, list.toArray().length);
+		}
+		assertEquals(AdaptivePolicy.ARRAY, list.representation());
+
+		List<AdaptiveGL.Decision> decisions = list.decisions();
+		assertEquals(2, decisions.size());
+		AdaptiveGL.Decision first = decisions.get(0);
+		assertEquals(AdaptivePolicy.ARRAY, first.from());
+		assertEquals(AdaptivePolicy.LINKED, first.to());
+		assertTrue(first.selectivity() > 0.9);
+		assertTrue(first.savings() > first.conversionCost());
+		AdaptiveGL.Decision second = decisions.get(1);
+		assertEquals(AdaptivePolicy.ARRAY, second.to());
+		assertTrue(second.mix()[AdaptivePolicy.TO_ARRAY] > 0.5);
+		//The cooldown keeps the second conversion from coming too soon
+		assertTrue(second.operation() - first.operation() >= 8);
+		Object[] result = list.toArray();
+		for(int i = 0; i < result.length; i += 1){
+			assertEquals(i + i / 99 + 1, result[i]);
+		}
+	}
+
+	/* Checks lazy pipelines count towards the mix like the calls they stand
+	 * in for */
+	@Test
+	public void testPipelines() {
+		AdaptiveGL<Object> list = new AdaptiveGL<Object>(
+				TestLists.count(100000));
+		list.lazy().choose(i -> (Integer) i % 100 != 0).applyAll();
+		for(int i = 0; i < 10; i += 1){
+			list.lazy().transform(e -> e).choose(e -> true).applyAll();
+		}
+		assertEquals(AdaptivePolicy.LINKED, list.representation());
+		assertTrue(list.decisions().get(0).selectivity() > 0.9);
+		for(int i = 0; i < 20; i += 1){
+			assertEquals(99000, list.lazy().transform(e -> e).toArray().length);
+		}
+		assertEquals(AdaptivePolicy.ARRAY, list.representation());
+		assertEquals(2, list.decisions().size());
+	}
+
+	/* Checks a steady mix that already suits us never converts, and small
+	 * lists never convert at all */
+	@Test
+	public void testStaysPut() {
+		AdaptiveGL<Object> list = new AdaptiveGL<Object>(
+				TestLists.count(100000));
+		for(int i = 0; i < 50; i += 1){
+			list.transformAll(e -> (Integer) e + 1);
+			list.toArray();
+			list.chooseAll(e -> (Integer) e % 2 == 0);
+			list.transformAll(e -> (Integer) e + 1);
+		}
+		assertEquals(AdaptivePolicy.ARRAY, list.representation());
+		assertTrue(list.decisions().isEmpty());
+
+		AdaptiveGL<Object> small = new AdaptiveGL<Object>(TestLists.count(100));
+		for(int i = 0; i < 50; i += 1){
+			small.chooseAll(e -> true);
+		}
+		assertEquals(AdaptivePolicy.ARRAY, small.representation());
+	}
+
+	/* Checks tuning the policy changes its decisions */
+	@Test
+	public void testTuning() {
+		AdaptivePolicy policy = new AdaptivePolicy()
+				.setCost(AdaptivePolicy.LINKED, AdaptivePolicy.TRANSFORM, 0.1);
+		AdaptiveGL<Object> list = new AdaptiveGL<Object>(TestLists.count(10000),
+				policy);
+		for(int i = 0; i < 5; i += 1){
+			list.transformAll(e -> (Integer) e * 2);
+		}
+		assertEquals(AdaptivePolicy.LINKED, list.representation());
+		assertSame(policy, list.policy());
+		assertEquals(0, list.toArray()[0]);
+		assertEquals(9999 * 32, list.toArray()[9999]);
+		try {
+			policy.setMargin(0.5);
+			fail("margin below 1 accepted");
+		} catch (IllegalArgumentException e) {
+			//Expected
+		}
+	}
+}
@@ -0,0 +1,142 @@
+/**
+ * This file is a test file, checking that HasAThreeChooser,
+ * UpperCaseTransformer and RemovePluralsTransformer give the same answers as
+ * the straightforward versions and don't allocate anything per element,
+ * except for the new String RemovePluralsTransformer has to make for each
+ * plural.
+ * **/
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import org.junit.*;
+
+/* Allocation is measured with the per-thread allocation counter of the
+ * HotSpot ThreadMXBean. Each check runs the loop a few times first, so class
+ * loading and the first fill of the thread local caches don't count, then
+ * measures a whole pass over the input and allows a little under a byte per
+ * element for the counter's own bookkeeping. */
+@SuppressWarnings("auxiliaryclass")
+public class TestAllocationFree {
+
+	static final int ELEMENTS = 20000;
+	static final double MAX_BYTES_PER_ELEMENT = 0.5;
+
+	com.sun.management.ThreadMXBean threads;
+
+	@Before
+	public void setUp() {
+		java.lang.management.ThreadMXBean bean =
+				ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		this.threads = (com.sun.management.ThreadMXBean) bean;
+		Assume.assumeTrue(this.threads.isThreadAllocatedMemorySupported());
+		this.threads.setThreadAllocatedMemoryEnabled(true);
+	}
+
+	/* Runs pass a few times to warm it up, then returns how many bytes one
+	 * more pass allocated for each element */
+	double bytesPerElement(Runnable pass) {
+		for(int i = 0; i < 5; i += 1){
+			pass.run();
+		}
+		long id = Thread.currentThread().getId();
+		long before = this.threads.getThreadAllocatedBytes(id);
+		pass.run();
+		long after = this.threads.getThreadAllocatedBytes(id);
+		return (double) (after - before) / ELEMENTS;
+	}
+
+	/* Checks HasAThreeChooser matches Double.toString and allocates nothing */
+	@Test
+	public void testHasAThreeChooser() {
+		Random rand = new Random(12);
+		Double[] input = new Double[ELEMENTS];
+		for(int i = 0; i < ELEMENTS; i += 1){
+			input[i] = rand.nextInt(100000) / 64.0;
+		}
+		input[0] = Double.NaN;
+		input[1] = 3e-300;
+		input[2] = Double.NEGATIVE_INFINITY;
+		input[3] = 1.0E33;
+		HasAThreeChooser chooser = new HasAThreeChooser();
+		DoubleHasAThreeChooser primitive = new DoubleHasAThreeChooser();
+		for(Double d : input){
+			boolean expected = !d.toString().contains("3");
+			assertEquals(expected, chooser.chooseElement(d));
+			assertEquals(expected, primitive.chooseElement(d));
+		}
+		boolean[] sink = new boolean[1];
+		double bytes = bytesPerElement(() -> {
+			for(Double d : input){
+				sink[0] ^= chooser.chooseElement(d);
+			}
+		});
+		assertTrue("HasAThreeChooser allocated " + bytes + " B/element",
+				bytes < MAX_BYTES_PER_ELEMENT);
+	}
+
+	/* Checks UpperCaseTransformer hands back upper case strings themselves */
+	@Test
+	public void testUpperCaseTransformer() {
+		UpperCaseTransformer transformer = new UpperCaseTransformer();
+		String[] upper = new String[ELEMENTS];
+		for(int i = 0; i < ELEMENTS; i += 1){
+			upper[i] = "WORD" + i + "-_ !";
+		}
+		for(String s : upper){
+			assertSame(s, transformer.transformElement(s));
+		}
+		String[] mixed = {"cars", "Houses", "stra\u00dfe",
+				"\u00c9COLE", "\u00e9cole", "MiXeD", ""};
+		for(String s : mixed){
+			assertEquals(s.toUpperCase(), transformer.transformElement(s));
+		}
+		String[] sink = new String[1];
+		double bytes = bytesPerElement(() -> {
+			for(String s : upper){
+				sink[0] = transformer.transformElement(s);
+			}
+		});
+		assertTrue("UpperCaseTransformer allocated " + bytes + " B/element",
+				bytes < MAX_BYTES_PER_ELEMENT);
+	}
+
+	/* Checks RemovePluralsTransformer gives the same singulars as substring,
+	 * and hands back every word it leaves alone, short, ending in "ss",
+	 * possessive or not ending in "s", as itself. A plural's singular is a
+	 * new String, since a String can't share another's characters, so only
+	 * the words left alone are measured */
+	@Test
+	public void testRemovePluralsTransformer() {
+		RemovePluralsTransformer transformer = new RemovePluralsTransformer();
+		String[] words = new String[100];
+		for(int i = 0; i < words.length; i += 1){
+			words[i] = "word" + i + (i % 3 == 0 ? "s" : i % 3 == 1 ? "ss" : "");
+		}
+		for(String s : words){
+			String expected = s.endsWith("s") && !s.endsWith("ss")
+					? s.substring(0, s.length() - 1) : s;
+			assertEquals(expected, transformer.transformElement(s));
+		}
+		assertNull(transformer.transformElement(null));
+		String[] kept = new String[ELEMENTS];
+		for(int i = 0; i < ELEMENTS; i += 1){
+			kept[i] = i % 4 == 0 ? "mass" + i + "ss" : i % 4 == 1 ? "Bill" + i
+					+ "'s" : i % 4 == 2 ? "tree" + i : "as";
+		}
+		for(String s : kept){
+			assertSame(s, transformer.transformElement(s));
+		}
+		String[] sink = new String[1];
+		double bytes = bytesPerElement(() -> {
+			for(String s : kept){
+				sink[0] = transformer.transformElement(s);
+			}
+		});
+		assertTrue("RemovePluralsTransformer allocated " + bytes
+				+ " B/element", bytes < MAX_BYTES_PER_ELEMENT);
+	}
+}
@@ -0,0 +1,157 @@
+/**
+ * This file is a test file, checking that every chooser and transformer's
+ * batch method agrees with its single element method, and that ArrayGL and
+ * LinkedGL go through the batch methods.
+ * **/
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.*;
+
+@SuppressWarnings("auxiliaryclass")
+public class TestBatch {
+
+	/* A chooser that only works in batches, to check lists never fall back to
+	 * calling it one element at a time */
+	static class BatchOnlyChooser implements BatchChooser<Integer> {
+		int batches;
+
+		@Override
+		public boolean chooseElement(Integer i) {
+			throw new AssertionError("chooseElement called directly");
+		}
+
+		@Override
+		public void chooseBatch(Object[] src, int from, int to,
+								long[] outBits) {
+			this.batches += 1;
+			for(int start = from; start < to; start += 64){
+				long word = 0;
+				for(int i = start; i < Math.min(to, start + 64); i += 1){
+					if((Integer) src[i] % 2 == 0){
+						word |= 1L << (i - start);
+					}
+				}
+				outBits[(start - from) >>> 6] = word;
+			}
+		}
+	}
+
+	/* A transformer that only works in batches */
+	static class BatchOnlyTransformer implements BatchTransformer<Integer> {
+		int batches;
+
+		@Override
+		public Integer transformElement(Integer i) {
+			throw new AssertionError("transformElement called directly");
+		}
+
+		@Override
+		public void transformBatch(Object[] src, int from, int to) {
+			this.batches += 1;
+			for(int i = from; i < to; i += 1){
+				src[i] = (Integer) src[i] + 1;
+			}
+		}
+	}
+
+	/* Checks chooseBatch against chooseElement for a run that doesn't start
+	 * at 0 or end on a whole word */
+	static <E> void checkChooser(MyChooser<E> chooser, E[] input) {
+		BatchChooser<E> batch = BatchChooser.adapt(chooser);
+		int from = 3;
+		int to = input.length - 5;
+		long[] bits = new long[(to - from + 63) / 64];
+		//Fill with junk, so we know every bit really gets written
+		Arrays.fill(bits, -1L);
+		batch.chooseBatch(input, from, to, bits);
+		for(int i = from; i < to; i += 1){
+			int bit = i - from;
+			assertEquals(chooser.chooseElement(input[i]),
+					(bits[bit >>> 6] & (1L << bit)) != 0);
+		}
+	}
+
+	/* Checks transformBatch against transformElement, leaving everything
+	 * outside the run alone */
+	static <E> void checkTransformer(MyTransformer<E> transformer,
+									 E[] input) {
+		Object[] batched = input.clone();
+		BatchTransformer.adapt(transformer).transformBatch(batched, 3,
+				input.length - 5);
+		for(int i = 0; i < input.length; i += 1){
+			Object expected = (i < 3 || i >= input.length - 5) ? input[i]
+					: transformer.transformElement(input[i]);
+			assertEquals(expected, batched[i]);
+		}
+	}
+
+	/* Checks every chooser and transformer we have, plus the adapters */
+	@Test
+	public void testBatchMatchesSingle() {
+		Random rand = new Random(12);
+		String[] words = new String[300];
+		Integer[] ints = new Integer[300];
+		Double[] doubles = new Double[300];
+		for(int i = 0; i < 300; i += 1){
+			StringBuilder w = new StringBuilder();
+			for(int c = rand.nextInt(10); c >= 0; c -= 1){
+				char letter = (char) ('a' + rand.nextInt(26));
+				w.append(rand.nextInt(4) == 0
+						? Character.toUpperCase(letter) : letter);
+			}
+			words[i] = w.toString();
+			ints[i] = rand.nextInt(100) - 20;
+			doubles[i] = rand.nextInt(10000) / 64.0 - 20;
+		}
+		ints[10] = null;
+		doubles[10] = null;
+		assertTrue(new LongWordChooser() instanceof BatchChooser);
+		checkChooser(new LongWordChooser(), words);
+		checkChooser(new CapitalizedWordChooser(), words);
+		checkChooser(new MultipleOfTwelveChooser(), ints);
+		checkChooser(new HasAThreeChooser(), doubles);
+		checkChooser(i -> i != null && i > 40, ints);
+		checkTransformer(new UpperCaseTransformer(), words);
+		checkTransformer(new RemovePluralsTransformer(), words);
+		checkTransformer(new IntegerToFibonacciCounterpartTransformer(), ints);
+		checkTransformer(new DoubleToSquareAreaTransformer(), doubles);
+		checkTransformer(s -> s + "!", words);
+	}
+
+	/* Checks both lists, in every ArrayGL mode, only use the batch methods */
+	@Test
+	public void testListsUseBatches() {
+		Integer[] input = new Integer[10000];
+		for(int i = 0; i < input.length; i += 1){
+			input[i] = i;
+		}
+		ArrayGL<Object> selection = new ArrayGL<Object>(input.clone());
+		selection.setSelectionMode(true);
+		ArrayGL<Object> parallel = new ArrayGL<Object>(input.clone());
+		parallel.setParallel(true);
+		List<MyList<Object>> lists = Arrays.asList(
+				new ArrayGL<Object>(input.clone()), selection, parallel,
+				new LinkedGL<Object>(input.clone()));
+		for(MyList<Object> list : lists){
+			BatchOnlyChooser chooser = new BatchOnlyChooser();
+			BatchOnlyTransformer transformer = new BatchOnlyTransformer();
+			list.transformAll(transformer);
+			list.chooseAll(chooser);
+			list.chooseAll(chooser);
+			list.transformAll(transformer);
+			assertTrue(chooser.batches > 0);
+			assertTrue(transformer.batches > 0);
+			Object[] result = list.toArray();
+			//Only the odd inputs are even after adding 1, then we add 1 again
+			assertEquals(input.length / 2, result.length);
+			for(int i = 0; i < result.length; i += 1){
+				assertEquals(2 * i + 3, result[i]);
+			}
+		}
+	}
+}
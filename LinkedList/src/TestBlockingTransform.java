@@ -0,0 +1,128 @@
+/**
+ * This file is a test file, checking that blocking mode on ArrayGL and
+ * LinkedGL keeps results in order, never runs more chunks at once than it's
+ * allowed, and hands back the first exception a transformer throws.
+ * **/
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.junit.*;
+
+public class TestBlockingTransform {
+
+	/* A transformer that waits a little for every element, like a lookup,
+	 * and keeps track of how many calls are running at once */
+	static class SlowTransformer implements MyTransformer<Integer> {
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger mostRunning = new AtomicInteger();
+		final AtomicInteger calls = new AtomicInteger();
+		final int failOn;
+
+		SlowTransformer(int failOn) {
+			this.failOn = failOn;
+		}
+
+		@Override
+		public Integer transformElement(Integer i) {
+			int now = this.running.incrementAndGet();
+			this.mostRunning.accumulateAndGet(now, Math::max);
+			this.calls.incrementAndGet();
+			try {
+				Thread.sleep(2);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				this.running.decrementAndGet();
+			}
+			if(i == this.failOn){
+				throw new IllegalStateException("lookup failed for " + i);
+			}
+			return i * 2;
+		}
+	}
+
+	/* Checks both lists give the same answers as sequential transformAll,
+	 * for single elements and for chunks */
+	@Test
+	public void testOrderAndConcurrency() {
+		for(int chunkSize : new int[] {1, 7}){
+			ArrayGL<Integer> array = new ArrayGL<Integer>(TestLists.count(500));
+			LinkedGL<Integer> linked = new LinkedGL<Integer>(
+					TestLists.count(500));
+			array.setBlocking(16, chunkSize);
+			linked.setBlocking(16, chunkSize);
+			List<MyList<Integer>> lists = Arrays.asList(array, linked);
+			for(MyList<Integer> list : lists){
+				SlowTransformer slow = new SlowTransformer(-1);
+				list.transformAll(slow);
+				Object[] result = list.toArray();
+				assertEquals(500, result.length);
+				for(int i = 0; i < result.length; i += 1){
+					assertEquals(2 * i, result[i]);
+				}
+				assertEquals(500, slow.calls.get());
+				assertTrue(slow.mostRunning.get() > 1);
+				assertTrue(slow.mostRunning.get() <= 16);
+			}
+		}
+	}
+
+	/* Checks blocking mode works after chooseAll, in selection mode too, and
+	 * turns back off */
+	@Test
+	public void testWithChooseAll() {
+		ArrayGL<Integer> array = new ArrayGL<Integer>(TestLists.count(300));
+		array.setSelectionMode(true);
+		array.chooseAll(i -> (Integer) i % 3 == 0);
+		array.setBlocking(true);
+		array.transformAll(new SlowTransformer(-1));
+		array.setBlocking(false);
+		array.transformAll(i -> (Integer) i + 1);
+		Object[] result = array.toArray();
+		assertEquals(100, result.length);
+		for(int i = 0; i < result.length; i += 1){
+			assertEquals(6 * i + 1, result[i]);
+		}
+		LinkedGL<Integer> empty = new LinkedGL<Integer>(new Integer[0]);
+		empty.setBlocking(true);
+		empty.transformAll(new SlowTransformer(-1));
+		assertTrue(empty.isEmpty());
+	}
+
+	/* Runs a transformer that fails partway through, checking its own
+	 * exception comes back out and no new chunks start after it */
+	static void checkFailure(Consumer<MyTransformer<Integer>> run) {
+		SlowTransformer slow = new SlowTransformer(37);
+		try {
+			run.accept(slow);
+			fail("exception swallowed");
+		} catch (IllegalStateException e) {
+			assertEquals("lookup failed for 37", e.getMessage());
+		}
+		assertTrue(slow.calls.get() < 400);
+		assertEquals(0, slow.running.get());
+	}
+
+	/* Checks the transformer's own exception comes back out, and both lists
+	 * are left as they were */
+	@Test
+	public void testFirstExceptionPropagates() {
+		ArrayGL<Integer> array = new ArrayGL<Integer>(TestLists.count(400));
+		LinkedGL<Integer> linked = new LinkedGL<Integer>(TestLists.count(400));
+		checkFailure(slow -> array.transformAllBlocking(slow, 8, 1));
+		checkFailure(slow -> linked.transformAllBlocking(slow, 8, 1));
+		assertArrayEquals(TestLists.count(400), array.toArray());
+		assertArrayEquals(TestLists.count(400), linked.toArray());
+	}
+
+	/* Checks settings that make no sense are refused */
+	@Test(expected = IllegalArgumentException.class)
+	public void testBadSettings() {
+		new ArrayGL<Integer>(TestLists.count(3)).setBlocking(0, 1);
+	}
+}
@@ -0,0 +1,183 @@
+/**
+ * This file is a test file, checking that ArrayGL's indexed choosers answer
+ * chooseAll, query and count the same way calling the choosers would, without
+ * calling them again, and stay right as the list is filtered and transformed.
+ * **/
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.*;
+
+public class TestChooserIndex {
+
+	/* A chooser counting how many times it's been called */
+	static class CountingChooser implements MyChooser<Object> {
+		final int modulus;
+		int calls;
+
+		CountingChooser(int modulus) {
+			this.modulus = modulus;
+		}
+
+		@Override
+		public boolean chooseElement(Object o) {
+			this.calls += 1;
+			return (Integer) o % this.modulus == 0;
+		}
+	}
+
+	/* What query should give, worked out by calling the choosers by hand */
+	static ArrayList<Object> expected(Object[] values, CountingChooser a,
+										CountingChooser b, CountingChooser c) {
+		ArrayList<Object> kept = new ArrayList<Object>();
+		for(Object o : values){
+			int i = (Integer) o;
+			if(i % a.modulus == 0 && i % b.modulus == 0
+					|| i % c.modulus != 0){
+				kept.add(o);
+			}
+		}
+		return kept;
+	}
+
+	@Test
+	public void testQueryDoesNotCallChoosers() {
+		CountingChooser two = new CountingChooser(2);
+		CountingChooser three = new CountingChooser(3);
+		CountingChooser five = new CountingChooser(5);
+		ArrayGL<Object> list = new ArrayGL<Object>(TestLists.count(5000));
+		list.addIndex(two);
+		list.addIndex(three);
+		list.addIndex(five);
+		assertEquals(5000, two.calls);
+
+		ChooserQuery q = ChooserQuery.where(two).and(three)
+				.or(ChooserQuery.where(five).not());
+		Object[] picked = list.query(q);
+		assertArrayEquals(expected(TestLists.count(5000), two, three,
+				five).toArray(), picked);
+		assertEquals(picked.length, list.count(q));
+		assertEquals(834, list.count(ChooserQuery.where(two).and(three)));
+		assertEquals(5000, list.count(ChooserQuery.where(five)
+				.or(ChooserQuery.where(five).not())));
+		assertEquals(5000, list.toArray().length);
+
+		//Filtering squeezes every bitmap down without calling anything
+		list.chooseAll(two);
+		assertEquals(2500, list.toArray().length);
+		assertEquals(834, list.count(ChooserQuery.where(three)));
+		list.chooseAll(ChooserQuery.where(three).not());
+		assertEquals(1666, list.toArray().length);
+		assertEquals(0, list.count(ChooserQuery.where(three)));
+		assertEquals(5000, two.calls);
+		assertEquals(5000, three.calls);
+		assertEquals(5000, five.calls);
+	}
+
+	@Test
+	public void testTransformUpdatesIndexes() {
+		CountingChooser two = new CountingChooser(2);
+		CountingChooser seven = new CountingChooser(7);
+		ArrayGL<Object> list = new ArrayGL<Object>(TestLists.count(10000));
+		list.addIndex(two);
+		list.addIndex(seven);
+
+		//A few changed elements only get their own chooser calls
+		list.transformAll(i -> (Integer) i % 1000 == 1 ? 14 : i);
+		assertEquals(10010, two.calls);
+		assertEquals(10010, seven.calls);
+		assertArrayEquals(expected(list.toArray(), two, seven,
+				new CountingChooser(1)).toArray(),
+				list.query(ChooserQuery.where(two).and(seven)));
+
+		//Most changed elements means building the bitmaps again when used
+		list.transformAll(i -> (Integer) i + 1);
+		assertEquals(10010, two.calls);
+		assertArrayEquals(expected(list.toArray(), two, seven,
+				new CountingChooser(1)).toArray(),
+				list.query(ChooserQuery.where(two).and(seven)));
+		assertEquals(20010, two.calls);
+
+		//Pipelines throw the bitmaps out
+		list.lazy().choose(i -> (Integer) i < 5000).applyAll();
+		int evens = expected(list.toArray(), two, new CountingChooser(1),
+				new CountingChooser(1)).size();
+		assertEquals(evens, list.count(ChooserQuery.where(two)));
+		list.removeIndex(two);
+		list.chooseAll(two);
+		assertEquals(evens, list.toArray().length);
+	}
+
+	/* Checks random filters and transforms against an ArrayGL with no
+	 * indexes, in every mode */
+	@Test
+	public void testMatchesUnindexed() {
+		for(int mode = 0; mode < 3; mode += 1){
+			Random rand = new Random(mode);
+			int size = ParallelArrayOps.PARALLEL_THRESHOLD * 2;
+			ArrayGL<Object> plain = new ArrayGL<Object>(TestLists.count(size));
+			ArrayGL<Object> indexed = new ArrayGL<Object>(
+					TestLists.count(size));
+			indexed.setSelectionMode(mode == 1);
+			indexed.setParallel(mode == 2);
+			CountingChooser[] choosers = new CountingChooser[4];
+			for(int c = 0; c < choosers.length; c += 1){
+				choosers[c] = new CountingChooser(c + 2);
+				indexed.addIndex(choosers[c]);
+			}
+			ArrayList<ListDelta> deltas = new ArrayList<ListDelta>();
+			indexed.setChangeListener(deltas::add);
+			Object[] copy = indexed.toArray();
+			for(int round = 0; round < 12; round += 1){
+				CountingChooser chooser = choosers[rand.nextInt(4)];
+				int offset = rand.nextInt(50);
+				if(rand.nextBoolean()){
+					plain.chooseAll(i -> (Integer) i % chooser.modulus != 0);
+					indexed.chooseAll(ChooserQuery.where(chooser).not());
+				} else {
+					MyTransformer<Object> mt = i -> (Integer) i % 97 == offset
+							? (Integer) i + offset : i;
+					plain.transformAll(mt);
+					indexed.transformAll(mt);
+				}
+				assertArrayEquals(plain.toArray(), indexed.toArray());
+				copy = deltas.get(round).applyTo(copy);
+				assertArrayEquals(plain.toArray(), copy);
+				for(CountingChooser c : choosers){
+					int expected = 0;
+					for(Object o : plain.toArray()){
+						expected += (Integer) o % c.modulus == 0 ? 1 : 0;
+					}
+					assertEquals(expected,
+							indexed.count(ChooserQuery.where(c)));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testNulls() {
+		ArrayGL<Object> list = new ArrayGL<Object>(TestLists.count(10));
+		try {
+			list.addIndex(null);
+			fail("null chooser indexed");
+		} catch (NullPointerException e) {
+			//Expected
+		}
+		try {
+			ChooserQuery.where(new CountingChooser(2)).and(
+					(ChooserQuery) null);
+			fail("null query joined");
+		} catch (NullPointerException e) {
+			//Expected
+		}
+		//A query over choosers without an index still works, it just calls
+		//them
+		CountingChooser two = new CountingChooser(2);
+		assertEquals(5, list.count(ChooserQuery.where(two)));
+		assertEquals(10, two.calls);
+	}
+}
@@ -0,0 +1,75 @@
+/**
+ * This file is a test file, checking that ChunkedStream gives the same
+ * results as building a whole list and calling chooseAll and transformAll.
+ * **/
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.*;
+
+/* The chunk sizes here are kept tiny, so every test crosses several chunk
+ * boundaries. */
+@SuppressWarnings("auxiliaryclass")
+public class TestChunkedStream {
+
+	/* Checks a stream over an iterator against the same steps on an ArrayGL */
+	@Test
+	public void testIteratorMatchesList() {
+		Integer[] input = new Integer[1000];
+		for(int i = 0; i < input.length; i += 1){
+			input[i] = (i % 50 == 0) ? null : i % 40;
+		}
+		ArrayGL<Integer> expected = new ArrayGL<Integer>(input.clone());
+		expected.transformAll(new IntegerToFibonacciCounterpartTransformer());
+		expected.chooseAll(new MultipleOfTwelveChooser());
+
+		ArrayList<Integer> survivors = new ArrayList<Integer>();
+		new ChunkedStream<Integer>(Arrays.asList(input).iterator(), 7)
+				.transform(new IntegerToFibonacciCounterpartTransformer())
+				.choose(new MultipleOfTwelveChooser())
+				.forEach(survivors::add);
+		assertArrayEquals(expected.toArray(), survivors.toArray());
+
+		LinkedGL<Integer> collected = ChunkedStream.of(
+				Arrays.asList(input).spliterator(), 64)
+				.transform(new IntegerToFibonacciCounterpartTransformer())
+				.choose(new MultipleOfTwelveChooser())
+				.toLinkedGL();
+		assertArrayEquals(expected.toArray(), collected.toArray());
+	}
+
+	/* Checks reading lines from a reader and writing the survivors out */
+	@Test
+	public void testLinesToWriter() throws IOException {
+		String text = "Cars\nbus\nHouses\n\nTrees\nlongwords\nMattress\n";
+		StringWriter out = new StringWriter();
+		ChunkedStream.lines(new BufferedReader(new StringReader(text)), 2)
+				.choose(new CapitalizedWordChooser())
+				.transform(new RemovePluralsTransformer())
+				.transform(new UpperCaseTransformer())
+				.writeTo(out);
+		String nl = System.lineSeparator();
+		assertEquals("CAR" + nl + "HOUSE" + nl + "TREE" + nl + "MATTRESS" + nl,
+				out.toString());
+	}
+
+	/* Checks that an empty source and a stream that drops everything work */
+	@Test
+	public void testEmpty() {
+		ArrayGL<String> none = new ChunkedStream<String>(
+				new ArrayList<String>().iterator()).toArrayGL();
+		assertTrue(none.isEmpty());
+
+		ArrayGL<String> dropped = new ChunkedStream<String>(
+				Arrays.asList("a", "b", "c").iterator(), 2)
+				.choose(new LongWordChooser()).toArrayGL();
+		assertTrue(dropped.isEmpty());
+	}
+}
@@ -0,0 +1,85 @@
+/**
+ * This file is a stress test for ConcurrentArrayGL, with several threads
+ * reading while one thread transforms and filters.
+ * **/
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.*;
+
+/* The writer adds one to every element over and over. Each stripe is
+ * transformed all at once, so inside any one stripe of a toArray result
+ * every element has to have the same value. */
+@SuppressWarnings("auxiliaryclass")
+public class TestConcurrentArrayGL {
+
+	static final int SIZE = ConcurrentArrayGL.STRIPES * 100;
+	static final int ROUNDS = 200;
+
+	/* Adds one to every element */
+	static class IncrementTransformer implements MyTransformer<Integer> {
+		@Override
+		public Integer transformElement(Integer i) {
+			return i + 1;
+		}
+	}
+
+	@Test
+	public void testReadersSeeWholeStripes() throws InterruptedException {
+		Integer[] input = new Integer[SIZE];
+		for(int i = 0; i < SIZE; i += 1){
+			input[i] = 0;
+		}
+		ConcurrentArrayGL<Integer> list = new ConcurrentArrayGL<Integer>(input);
+		AtomicBoolean writing = new AtomicBoolean(true);
+		ArrayList<String> failures = new ArrayList<String>();
+		ArrayList<Thread> readers = new ArrayList<Thread>();
+		for(int r = 0; r < 3; r += 1){
+			readers.add(new Thread(() -> {
+				while(writing.get()){
+					Object[] seen = list.toArray();
+					int stripeLength = seen.length / ConcurrentArrayGL.STRIPES;
+					for(int i = 0; i < seen.length; i += 1){
+						if(!seen[i].equals(seen[i - i % stripeLength])){
+							synchronized (failures) {
+								failures.add("torn stripe at " + i);
+							}
+							return;
+						}
+					}
+				}
+			}));
+		}
+		for(Thread t : readers){
+			t.start();
+		}
+		for(int round = 0; round < ROUNDS; round += 1){
+			list.transformAll(new IncrementTransformer());
+		}
+		writing.set(false);
+		for(Thread t : readers){
+			t.join();
+		}
+		assertTrue(failures.toString(), failures.isEmpty());
+		Object[] result = list.toArray();
+		for(Object o : result){
+			assertEquals(ROUNDS, o);
+		}
+
+		//chooseAll swaps in a whole new array, keeping only multiples of 12
+		list.chooseAll(new MultipleOfTwelveChooser());
+		assertEquals(ROUNDS % 12 == 0, !list.isEmpty());
+	}
+
+	/* Checks that changing the array we were built from doesn't reach in */
+	@Test
+	public void testInputIsCopied() {
+		Integer[] input = {1, 2, 3};
+		ConcurrentArrayGL<Integer> list = new ConcurrentArrayGL<Integer>(input);
+		input[0] = 100;
+		assertArrayEquals(new Integer[] {1, 2, 3}, list.toArray());
+	}
+}
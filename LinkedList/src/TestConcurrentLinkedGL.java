@@ -0,0 +1,142 @@
+/**
+ * This file is a stress test for ConcurrentLinkedGL, running appends,
+ * chooseAll, transformAll and toArray from several threads at once and
+ * checking that nothing was lost or counted twice.
+ * **/
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.*;
+
+/* The producers append every number they own exactly once, the filter thread
+ * keeps removing the odd ones, and the other threads transform and read
+ * while that goes on. At the end the list has to hold exactly the even
+ * numbers, each one once. */
+public class TestConcurrentLinkedGL {
+
+	static final int PRODUCERS = 4;
+	static final int PER_PRODUCER = 20000;
+
+	/* Keeps only even numbers */
+	static class EvenChooser implements MyChooser<Integer> {
+		@Override
+		public boolean chooseElement(Integer i) {
+			return i % 2 == 0;
+		}
+	}
+
+	/* Leaves every number alone, but still swaps in a new Integer object */
+	static class CopyTransformer implements MyTransformer<Integer> {
+		@Override
+		@SuppressWarnings("removal")
+		public Integer transformElement(Integer i) {
+			return new Integer(i.intValue());
+		}
+	}
+
+	@Test
+	public void testConcurrentAppendChooseTransformRead()
+			throws InterruptedException {
+		ConcurrentLinkedGL<Integer> list =
+				new ConcurrentLinkedGL<Integer>(new Integer[] {});
+		AtomicBoolean producing = new AtomicBoolean(true);
+		CountDownLatch start = new CountDownLatch(1);
+		ArrayList<Throwable> failures = new ArrayList<Throwable>();
+		ArrayList<Thread> producers = new ArrayList<Thread>();
+		ArrayList<Thread> others = new ArrayList<Thread>();
+
+		for(int p = 0; p < PRODUCERS; p += 1){
+			int first = p * PER_PRODUCER;
+			producers.add(new Thread(() -> {
+				await(start);
+				for(int i = first; i < first + PER_PRODUCER; i += 1){
+					list.append(i);
+				}
+			}));
+		}
+		others.add(new Thread(() -> {
+			await(start);
+			while(producing.get()){
+				list.chooseAll(new EvenChooser());
+			}
+		}));
+		others.add(new Thread(() -> {
+			await(start);
+			while(producing.get()){
+				list.transformAll(new CopyTransformer());
+			}
+		}));
+		others.add(new Thread(() -> {
+			await(start);
+			while(producing.get()){
+				String problem = checkSnapshot(list.toArray());
+				if(problem != null){
+					synchronized (failures) {
+						failures.add(new AssertionError(problem));
+					}
+				}
+			}
+		}));
+
+		for(Thread t : producers){
+			t.start();
+		}
+		for(Thread t : others){
+			t.start();
+		}
+		start.countDown();
+		for(Thread t : producers){
+			t.join();
+		}
+		producing.set(false);
+		for(Thread t : others){
+			t.join();
+		}
+		assertTrue(failures.toString(), failures.isEmpty());
+
+		//One last pass for anything appended after the filter's last pass
+		list.chooseAll(new EvenChooser());
+		Object[] result = list.toArray();
+		assertNull(checkSnapshot(result));
+		for(Object o : result){
+			assertEquals(0, (Integer) o % 2);
+		}
+		assertEquals(PRODUCERS * PER_PRODUCER / 2, result.length);
+		assertEquals(result.length, list.size());
+	}
+
+	/* A reader should never see a null or a repeated element, and each
+	 * producer's numbers should come out in the order it appended them, since
+	 * nothing ever moves a node. Each producer's numbers only ever go up, so
+	 * checking that covers repeats too. Gives back what's wrong, or null. */
+	static String checkSnapshot(Object[] seen) {
+		int[] last = new int[PRODUCERS];
+		Arrays.fill(last, -1);
+		for(Object o : seen){
+			if(o == null){
+				return "saw null";
+			}
+			int i = (Integer) o;
+			int producer = i / PER_PRODUCER;
+			if(i <= last[producer]){
+				return "saw " + i + " after " + last[producer];
+			}
+			last[producer] = i;
+		}
+		return null;
+	}
+
+	/* Waits for the starting gun so every thread starts together */
+	private static void await(CountDownLatch start) {
+		try {
+			start.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
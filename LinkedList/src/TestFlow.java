@@ -0,0 +1,239 @@
+/**
+ * This file is a test file, checking that ListProcessor and ListCollector
+ * give the same answers as our lists, never take more elements than they
+ * asked for, and pass failures and cancellation along.
+ * **/
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.*;
+
+@SuppressWarnings("auxiliaryclass")
+public class TestFlow {
+
+	/* A publisher that sends 0 up to count - 1 on whichever thread asks,
+	 * keeping track of how its subscriber asks */
+	static class CountingPublisher implements Flow.Publisher<Integer> {
+		final int count;
+		final AtomicLong outstanding = new AtomicLong();
+		long mostOutstanding;
+		int requests;
+		volatile boolean cancelled;
+		int sent;
+		final AtomicInteger wip = new AtomicInteger();
+		Flow.Subscriber<? super Integer> subscriber;
+
+		CountingPublisher(int count) {
+			this.count = count;
+		}
+
+		@Override
+		public void subscribe(Flow.Subscriber<? super Integer> s) {
+			this.subscriber = s;
+			s.onSubscribe(new Flow.Subscription() {
+				@Override
+				public void request(long n) {
+					CountingPublisher.this.requests += 1;
+					long now = CountingPublisher.this.outstanding.addAndGet(n);
+					CountingPublisher.this.mostOutstanding = Math.max(now,
+							CountingPublisher.this.mostOutstanding);
+					emit();
+				}
+
+				@Override
+				public void cancel() {
+					CountingPublisher.this.cancelled = true;
+				}
+			});
+		}
+
+		/* Sends as much as was asked for, without recursing when the
+		 * subscriber asks for more from inside onNext */
+		void emit() {
+			if(this.wip.getAndIncrement() != 0){
+				return;
+			}
+			do {
+				while(!this.cancelled && this.outstanding.get() > 0
+						&& this.sent < this.count){
+					this.outstanding.decrementAndGet();
+					this.sent += 1;
+					this.subscriber.onNext(this.sent - 1);
+				}
+				if(!this.cancelled && this.sent == this.count){
+					this.cancelled = true;
+					this.subscriber.onComplete();
+				}
+			} while(this.wip.decrementAndGet() != 0);
+		}
+	}
+
+	/* A subscriber that asks for one element at a time by hand */
+	static class ManualSubscriber implements Flow.Subscriber<Object> {
+		Flow.Subscription subscription;
+		final ArrayList<Object> received = new ArrayList<Object>();
+		Throwable error;
+		boolean completed;
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			this.subscription = subscription;
+		}
+
+		@Override
+		public void onNext(Object item) {
+			this.received.add(item);
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			this.error = throwable;
+		}
+
+		@Override
+		public void onComplete() {
+			this.completed = true;
+		}
+	}
+
+	/* Checks a chooser and a transformer stage give the same answer as
+	 * chooseAll and transformAll, across threads */
+	@Test
+	public void testMatchesLists() throws Exception {
+		Integer[] input = new Integer[20000];
+		for(int i = 0; i < input.length; i += 1){
+			input[i] = i * 7;
+		}
+		ArrayGL<Integer> expected = new ArrayGL<Integer>(input.clone());
+		expected.chooseAll(new MultipleOfTwelveChooser());
+		expected.transformAll(new IntegerToFibonacciCounterpartTransformer());
+
+		SubmissionPublisher<Integer> publisher =
+				new SubmissionPublisher<Integer>();
+		ListProcessor<Integer> choose =
+				ListProcessor.choosing(new MultipleOfTwelveChooser());
+		ListProcessor<Integer> transform = ListProcessor.transforming(
+				new IntegerToFibonacciCounterpartTransformer());
+		ListCollector<Integer> collector = new ListCollector<Integer>(100);
+		publisher.subscribe(choose);
+		choose.subscribe(transform);
+		transform.subscribe(collector);
+		for(Integer i : input){
+			publisher.submit(i);
+		}
+		publisher.close();
+		assertArrayEquals(expected.toArray(),
+				collector.toArrayGL().get(10, TimeUnit.SECONDS).toArray());
+	}
+
+	/* Checks we never hold more than prefetch elements, ask our publisher
+	 * in batches, and only pass on what was asked for */
+	@Test
+	public void testBackpressure() {
+		CountingPublisher publisher = new CountingPublisher(1000);
+		ListProcessor<Integer> processor = new ListProcessor<Integer>(64)
+				.choose(i -> (Integer) i % 2 == 0);
+		ManualSubscriber subscriber = new ManualSubscriber();
+		publisher.subscribe(processor);
+		processor.subscribe(subscriber);
+		assertEquals(64, publisher.sent);
+		assertEquals(0, subscriber.received.size());
+		subscriber.subscription.request(5);
+		assertEquals(5, subscriber.received.size());
+		assertEquals(8, subscriber.received.get(4));
+		for(int i = 0; i < 600; i += 1){
+			subscriber.subscription.request(1);
+		}
+		assertEquals(500, subscriber.received.size());
+		assertTrue(subscriber.completed);
+		assertTrue(publisher.mostOutstanding <= 64);
+		//One request per 48 elements, not one per element
+		assertTrue(publisher.requests <= 1000 / 48 + 2);
+		for(int i = 0; i < 500; i += 1){
+			assertEquals(2 * i, subscriber.received.get(i));
+		}
+	}
+
+	/* Checks an exception in a step cancels our publisher and reaches our
+	 * subscriber exactly once */
+	@Test
+	public void testStepFailure() {
+		CountingPublisher publisher = new CountingPublisher(1000);
+		ListProcessor<Integer> processor = ListProcessor.transforming(
+				i -> 100 / ((Integer) i - 10));
+		ManualSubscriber subscriber = new ManualSubscriber();
+		publisher.subscribe(processor);
+		processor.subscribe(subscriber);
+		subscriber.subscription.request(Long.MAX_VALUE);
+		assertEquals(10, subscriber.received.size());
+		assertTrue(subscriber.error instanceof ArithmeticException);
+		assertTrue(publisher.cancelled);
+		assertFalse(subscriber.completed);
+	}
+
+	/* Checks cancelling stops our publisher, and a bad request is an error */
+	@Test
+	public void testCancelAndBadRequest() {
+		CountingPublisher publisher = new CountingPublisher(1000);
+		ListProcessor<Integer> processor = new ListProcessor<Integer>();
+		ManualSubscriber subscriber = new ManualSubscriber();
+		publisher.subscribe(processor);
+		processor.subscribe(subscriber);
+		subscriber.subscription.request(3);
+		subscriber.subscription.cancel();
+		subscriber.subscription.request(3);
+		assertEquals(3, subscriber.received.size());
+		assertTrue(publisher.cancelled);
+		assertNull(subscriber.error);
+
+		CountingPublisher second = new CountingPublisher(10);
+		ListProcessor<Integer> bad = new ListProcessor<Integer>();
+		ManualSubscriber rude = new ManualSubscriber();
+		second.subscribe(bad);
+		bad.subscribe(rude);
+		rude.subscription.request(0);
+		assertTrue(rude.error instanceof IllegalArgumentException);
+		ManualSubscriber extra = new ManualSubscriber();
+		bad.subscribe(extra);
+		assertTrue(extra.error instanceof IllegalStateException);
+	}
+
+	/* Checks the collector grows past its expected size, builds a LinkedGL,
+	 * and reports a failed publisher */
+	@Test
+	public void testCollector() throws Exception {
+		CountingPublisher publisher = new CountingPublisher(1000);
+		ListCollector<Integer> collector = new ListCollector<Integer>(1, 7);
+		publisher.subscribe(collector);
+		Object[] collected = collector.toLinkedGL().get().toArray();
+		assertEquals(1000, collected.length);
+		assertEquals(999, collected[999]);
+		assertTrue(publisher.mostOutstanding <= 7);
+
+		ListCollector<Integer> failed = new ListCollector<Integer>();
+		failed.onSubscribe(new Flow.Subscription() {
+			@Override
+			public void request(long n) {
+			}
+
+			@Override
+			public void cancel() {
+			}
+		});
+		failed.onError(new IllegalStateException("upstream broke"));
+		try {
+			failed.toArrayGL().join();
+			fail("failure swallowed");
+		} catch (CompletionException e) {
+			assertEquals("upstream broke", e.getCause().getMessage());
+		}
+	}
+}
@@ -0,0 +1,132 @@
+/**
+ * This file is a test file, checking that the ListDeltas ArrayGL and
+ * LinkedGL hand their change listeners bring a copy of the list up to date,
+ * in every mode those lists have, and are run length encoded.
+ * **/
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.*;
+
+public class TestListDelta {
+
+	/* Runs random choosers, transformers and lazy pipelines over list,
+	 * checking every delta turns the list before into the list after */
+	static void checkDeltas(MyList<Object> list, ArrayList<ListDelta> deltas,
+							long seed) {
+		Random rand = new Random(seed);
+		Object[] copy = list.toArray();
+		for(int round = 0; round < 20; round += 1){
+			int modulus = 2 + rand.nextInt(9);
+			int kind = rand.nextInt(3);
+			if(kind == 0){
+				list.chooseAll(i -> (Integer) i % modulus != 0);
+			} else if(kind == 1){
+				list.transformAll(i -> (Integer) i % modulus == 0
+						? (Integer) i / modulus : i);
+			} else {
+				list.lazy().transform(i -> (Integer) i + modulus)
+						.choose(i -> (Integer) i % modulus != 1).applyAll();
+			}
+			assertEquals(round + 1, deltas.size());
+			ListDelta delta = deltas.get(round);
+			copy = delta.applyTo(copy);
+			assertArrayEquals(list.toArray(), copy);
+		}
+	}
+
+	@Test
+	public void testArrayGL() {
+		ArrayList<ListDelta> deltas = new ArrayList<ListDelta>();
+		ArrayGL<Object> list = new ArrayGL<Object>(TestLists.count(10000));
+		list.setChangeListener(deltas::add);
+		checkDeltas(list, deltas, 1);
+
+		deltas.clear();
+		ArrayGL<Object> selection = new ArrayGL<Object>(TestLists.count(10000));
+		selection.setSelectionMode(true);
+		selection.setChangeListener(deltas::add);
+		checkDeltas(selection, deltas, 2);
+
+		deltas.clear();
+		ArrayGL<Object> parallel = new ArrayGL<Object>(TestLists.count(
+				ParallelArrayOps.PARALLEL_THRESHOLD * 4));
+		parallel.setParallel(true);
+		parallel.setChangeListener(deltas::add);
+		checkDeltas(parallel, deltas, 3);
+	}
+
+	@Test
+	public void testLinkedGL() {
+		ArrayList<ListDelta> deltas = new ArrayList<ListDelta>();
+		LinkedGL<Object> list = new LinkedGL<Object>(TestLists.count(10000));
+		list.setChangeListener(deltas::add);
+		checkDeltas(list, deltas, 4);
+
+		deltas.clear();
+		LinkedGL<Object> pooled = new LinkedGL<Object>(
+				TestLists.count(10000), true);
+		pooled.setChangeListener(deltas::add);
+		checkDeltas(pooled, deltas, 5);
+
+		deltas.clear();
+		LinkedGL<Object> blocking = new LinkedGL<Object>(TestLists.count(3000));
+		blocking.setBlocking(8, 64);
+		blocking.setChangeListener(deltas::add);
+		checkDeltas(blocking, deltas, 6);
+	}
+
+	/* Checks positions come back run length encoded, with their values */
+	@Test
+	public void testRuns() {
+		ArrayList<ListDelta> deltas = new ArrayList<ListDelta>();
+		ArrayGL<Object> list = new ArrayGL<Object>(TestLists.count(1000));
+		list.setChangeListener(deltas::add);
+		list.chooseAll(i -> (Integer) i < 200 || (Integer) i >= 700);
+		ListDelta removed = deltas.get(0);
+		assertArrayEquals(new int[] {200, 500}, removed.removedRuns());
+		assertEquals(500, removed.removedCount());
+		assertEquals(200, removed.removedPositions()[0]);
+		assertEquals(699, removed.removedValues()[499]);
+		assertEquals(0, removed.changedCount());
+		assertEquals(1000, removed.oldSize());
+		assertEquals(500, removed.newSize());
+
+		//Values 100 to 199 are still at their own positions, 750 to 799
+		//have slid down to 250 to 299
+		list.transformAll(i -> (Integer) i >= 100 && (Integer) i < 200
+				|| (Integer) i >= 750 && (Integer) i < 800 ? -(Integer) i : i);
+		ListDelta changed = deltas.get(1);
+		assertArrayEquals(new int[] {100, 100, 250, 50},
+				changed.changedRuns());
+		assertEquals(150, changed.changedCount());
+		assertEquals(100, changed.oldValues()[0]);
+		assertEquals(-100, changed.newValues()[0]);
+		assertEquals(750, changed.oldValues()[100]);
+		assertEquals(0, changed.removedCount());
+	}
+
+	/* Checks a transformer handing back an equal copy changes nothing, and
+	 * a listener can be taken away */
+	@Test
+	public void testEqualValuesAndRemovingListener() {
+		ArrayList<ListDelta> deltas = new ArrayList<ListDelta>();
+		LinkedGL<Object> list = new LinkedGL<Object>(new String[] {"cars",
+				"house", "tree"});
+		list.setChangeListener(deltas::add);
+		list.transformAll(s -> new String((String) s));
+		assertTrue(deltas.get(0).isEmpty());
+		list.setChangeListener(null);
+		list.chooseAll(s -> false);
+		assertEquals(1, deltas.size());
+		try {
+			deltas.get(0).applyTo(new Object[2]);
+			fail("wrong size accepted");
+		} catch (IllegalArgumentException e) {
+			//Expected
+		}
+	}
+}
@@ -0,0 +1,115 @@
+/**
+ * This file is a test file, checking that ListMetrics and ListOperationEvent
+ * record what our lists do, and record nothing while turned off.
+ * **/
+
+import static org.junit.Assert.*;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+@SuppressWarnings("auxiliaryclass")
+public class TestListMetrics {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Before
+	public void setUp() {
+		ListMetrics.reset();
+	}
+
+	@After
+	public void tearDown() {
+		ListMetrics.setEnabled(false);
+		ListMetrics.reset();
+	}
+
+	/* Checks nothing is recorded while the registry is off */
+	@Test
+	public void testDisabledRecordsNothing() {
+		ArrayGL<Integer> list = new ArrayGL<Integer>(
+				new Integer[]{1, 12, 24, 5});
+		list.chooseAll(new MultipleOfTwelveChooser());
+		list.toArray();
+		assertTrue(ListMetrics.operations().isEmpty());
+		assertTrue(ListMetrics.kernels().isEmpty());
+	}
+
+	/* Checks element counts, selectivity and latencies for both lists */
+	@Test
+	public void testRegistryCounts() {
+		ListMetrics.setEnabled(true);
+		Integer[] input = new Integer[]{1, 12, 24, 5, 36, 7, 8, 9};
+		ArrayGL<Integer> array = new ArrayGL<Integer>(input.clone());
+		LinkedGL<Integer> linked = new LinkedGL<Integer>(input.clone());
+		array.chooseAll(new MultipleOfTwelveChooser());
+		linked.chooseAll(new MultipleOfTwelveChooser());
+		linked.transformAll(new IntegerToFibonacciCounterpartTransformer());
+		array.toArray();
+
+		ListMetrics.OperationStats choose =
+				ListMetrics.operations().get("ArrayGL.chooseAll");
+		assertEquals(1, choose.calls());
+		assertEquals(8, choose.elementsIn());
+		assertEquals(3, choose.elementsOut());
+		long bucketed = 0;
+		for(long count : choose.histogram()){
+			bucketed += count;
+		}
+		assertEquals(1, bucketed);
+		assertTrue(choose.percentileNanos(99) >= 1);
+
+		ListMetrics.OperationStats transform =
+				ListMetrics.operations().get("LinkedGL.transformAll");
+		assertEquals(3, transform.elementsIn());
+		assertEquals(3, transform.elementsOut());
+		assertEquals(1, ListMetrics.operations().get("ArrayGL.toArray")
+				.calls());
+
+		ListMetrics.KernelStats chooser = ListMetrics.kernels().get(
+				MultipleOfTwelveChooser.class.getName());
+		assertEquals(2, chooser.calls());
+		assertEquals(16, chooser.elements());
+		assertEquals(3.0 / 8, chooser.selectivity(), 1e-9);
+		assertEquals(1.0, ListMetrics.kernels().get(
+				IntegerToFibonacciCounterpartTransformer.class.getName())
+				.selectivity(), 1e-9);
+		assertTrue(ListMetrics.report().contains("LinkedGL.chooseAll"));
+	}
+
+	/* Checks a JFR recording gets one event per operation, even with the
+	 * registry off */
+	@Test
+	public void testFlightRecorderEvents() throws Exception {
+		Path file = folder.newFile("list.jfr").toPath();
+		try(Recording recording = new Recording()){
+			recording.enable("ListOperation");
+			recording.start();
+			ArrayGL<Integer> list = new ArrayGL<Integer>(
+					new Integer[]{1, 12, 24, 5});
+			list.chooseAll(new MultipleOfTwelveChooser());
+			recording.stop();
+			recording.dump(file);
+		}
+		List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+		assertEquals(1, events.size());
+		RecordedEvent event = events.get(0);
+		assertEquals("ArrayGL", event.getString("list"));
+		assertEquals("chooseAll", event.getString("operation"));
+		assertEquals(4, event.getLong("elementsIn"));
+		assertEquals(2, event.getLong("elementsOut"));
+		assertEquals(0.5, event.getDouble("selectivity"), 1e-9);
+		//The event is begun before the call and ended after it, instead of
+		//only being stamped once it's over
+		assertTrue(event.getDuration().toNanos() > 0);
+		assertTrue(ListMetrics.operations().isEmpty());
+	}
+}
@@ -0,0 +1,157 @@
+/**
+ * This file is a test file, checking that ListSnapshot saves and loads every
+ * kind of list exactly, and notices when a snapshot file is damaged.
+ * **/
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.*;
+
+public class TestListSnapshot {
+
+	Path dir;
+
+	@Before
+	public void setUp() throws IOException {
+		this.dir = Files.createTempDirectory("snapshots");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		try(DirectoryStream<Path> files = Files.newDirectoryStream(this.dir)){
+			for(Path p : files){
+				Files.delete(p);
+			}
+		}
+		Files.delete(this.dir);
+	}
+
+	/* Saves an array with and without a checksum, checking both load back */
+	void checkRoundTrip(Object[] input) throws IOException {
+		for(boolean checksum : new boolean[] {true, false}){
+			Path file = this.dir.resolve("list" + checksum);
+			ListSnapshot.write(new ArrayGL<Object>(input.clone()), file,
+					checksum);
+			assertArrayEquals(input, ListSnapshot.read(file));
+			assertArrayEquals(input, ListSnapshot.readArrayGL(file).toArray());
+			assertArrayEquals(input,
+					ListSnapshot.readLinkedGL(file).toArray());
+		}
+	}
+
+	/* Checks Integers, Doubles and Strings, nulls included */
+	@Test
+	public void testRoundTrip() throws IOException {
+		Random rand = new Random(12);
+		Integer[] ints = new Integer[300000];
+		Double[] doubles = new Double[1000];
+		String[] strings = new String[1000];
+		for(int i = 0; i < ints.length; i += 1){
+			ints[i] = rand.nextInt();
+		}
+		for(int i = 0; i < doubles.length; i += 1){
+			doubles[i] = rand.nextGaussian();
+			strings[i] = "word" + i + (i % 7 == 0 ? "\u00e9\u4e16" : "");
+		}
+		ints[5] = null;
+		ints[ints.length - 1] = null;
+		doubles[7] = null;
+		doubles[8] = Double.NaN;
+		doubles[9] = -0.0;
+		strings[0] = null;
+		strings[1] = "";
+		checkRoundTrip(ints);
+		checkRoundTrip(doubles);
+		checkRoundTrip(strings);
+		assertTrue(ListSnapshot.read(this.dir.resolve("listtrue"))
+				instanceof String[]);
+		checkRoundTrip(new Integer[] {1, 2, 3});
+		checkRoundTrip(new Integer[0]);
+		checkRoundTrip(new String[] {null, null});
+	}
+
+	/* Checks strings bigger than the read and write buffer */
+	@Test
+	public void testLongStrings() throws IOException {
+		StringBuilder s = new StringBuilder();
+		for(int i = 0; s.length() < 3 * ListSnapshot.BUFFER_BYTES; i += 1){
+			s.append((char) ('a' + i % 26));
+		}
+		checkRoundTrip(new String[] {"short", s.toString(), "after",
+				s.substring(1)});
+	}
+
+	/* Checks the primitive lists load without boxing and keep every bit */
+	@Test
+	public void testPrimitiveLists() throws IOException {
+		int[] ints = new int[500000];
+		double[] doubles = new double[500000];
+		for(int i = 0; i < ints.length; i += 1){
+			ints[i] = i * 31;
+			doubles[i] = i / 3.0;
+		}
+		doubles[1] = Double.NaN;
+		doubles[2] = -0.0;
+		Path file = this.dir.resolve("ints");
+		ListSnapshot.write(new IntGL(ints.clone()), file, true);
+		assertArrayEquals(ints, ListSnapshot.readIntGL(file).toIntArray());
+		ListSnapshot.write(new DoubleGL(doubles.clone()), file, true);
+		double[] loaded = ListSnapshot.readDoubleGL(file).toDoubleArray();
+		for(int i = 0; i < doubles.length; i += 1){
+			assertEquals(Double.doubleToRawLongBits(doubles[i]),
+					Double.doubleToRawLongBits(loaded[i]));
+		}
+		//A boxed list saved normally loads into a primitive list too
+		ListSnapshot.write(new LinkedGL<Integer>(new Integer[] {4, 5}), file,
+				false);
+		assertArrayEquals(new int[] {4, 5},
+				ListSnapshot.readIntGL(file).toIntArray());
+	}
+
+	/* Checks a flipped byte fails the checksum, and other files are refused */
+	@Test
+	public void testDamagedFiles() throws IOException {
+		Integer[] input = new Integer[1000];
+		for(int i = 0; i < input.length; i += 1){
+			input[i] = i;
+		}
+		Path file = this.dir.resolve("damaged");
+		ListSnapshot.write(new ArrayGL<Integer>(input), file, true);
+		byte[] bytes = Files.readAllBytes(file);
+		bytes[ListSnapshot.HEADER_BYTES + 100] ^= 1;
+		Files.write(file, bytes);
+		try {
+			ListSnapshot.read(file);
+			fail("damaged snapshot loaded");
+		} catch(IOException e) {
+			assertTrue(e.getMessage().contains("checksum"));
+		}
+		Files.write(file, "1 2 3 4 5 6 7 8 9 10 11 12".getBytes());
+		try {
+			ListSnapshot.readArrayGL(file);
+			fail("text file loaded");
+		} catch(IOException e) {
+			assertTrue(e.getMessage().contains("not a list snapshot"));
+		}
+		ListSnapshot.write(new String[] {"a"}, file, false);
+		try {
+			ListSnapshot.readIntGL(file);
+			fail("strings loaded as ints");
+		} catch(IOException e) {
+			assertTrue(e.getMessage().contains("not a snapshot of ints"));
+		}
+	}
+
+	/* Checks lists mixing element types are refused */
+	@Test(expected = IllegalArgumentException.class)
+	public void testMixedTypes() throws IOException {
+		ListSnapshot.write(new Object[] {1, "two"}, this.dir.resolve("mixed"),
+				false);
+	}
+}
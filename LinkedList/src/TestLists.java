@@ -49,6 +49,22 @@ public class TestLists {
   // Don't change code above this line, it ensures the autograder works as
   // expected
 
+	/* The list the tests below run on. TestOtherLists overrides this to run
+	 * them over our other lists too */
+	<E> MyList<E> newList(E[] contents) {
+		return makeList(contents);
+	}
+
+	/* Builds the Integer array 0, 1, ..., size - 1, which the other test files
+	 * build most of their lists from */
+	static Integer[] count(int size) {
+		Integer[] input = new Integer[size];
+		for(int i = 0; i < size; i += 1){
+			input[i] = i;
+		}
+		return input;
+	}
+
 
   // This is a sample test; you can keep it, change it, or remove it as you like.
   // Note that it uses the method `assertArrayEquals`, which you should use to
@@ -57,12 +73,12 @@ public class TestLists {
 	public void testSimpleToArray() {
 		// Using the generic list to create an Integer list
 		Integer[] int_input = {1, 2, 3};
-		MyList<Integer> int_s = makeList(int_input);
+		MyList<Integer> int_s = newList(int_input);
 		assertArrayEquals(int_input, int_s.toArray());
 		
 		// Using the generic list to create a String list
 		String[] string_input = {"a", "b", "c"};
-		MyList<String> string_s = makeList(string_input);
+		MyList<String> string_s = newList(string_input);
 		assertArrayEquals(string_input, string_s.toArray());
 	}
 
@@ -72,21 +88,21 @@ public class TestLists {
 		// Testing the multiple of 12 chooser
 		Integer[] int_input = {1, 2, 3, 12, 0, null, 24, 48};
 		Integer[] intExpected = {12,0,24,48};
-		MyList<Integer> int_s = makeList(int_input);
+		MyList<Integer> int_s = newList(int_input);
 		int_s.chooseAll(new MultipleOfTwelveChooser());
 		assertArrayEquals(intExpected, int_s.toArray());
 
 		// Testing the capitalized word chooser
 		String[] string_input = {"", "b", "C", "car", "Door", "bUN", null, "RUDE"};
 		String[] strExpected = {"C","Door","RUDE"};
-		MyList<String> string_s = makeList(string_input);
+		MyList<String> string_s = newList(string_input);
 		string_s.chooseAll(new CapitalizedWordChooser());
 		assertArrayEquals(strExpected, string_s.toArray());
 
 		//Testing the has a 3 chooser
 		Double[] double_input = {0.0, 1.23, 3.0, null, -4.20, 1.1111113, -1.2463};
 		Double[] dblExpected = {0.0,-4.20};
-		MyList<Double> double_s = makeList(double_input);
+		MyList<Double> double_s = newList(double_input);
 		double_s.chooseAll(new HasAThreeChooser());
 		assertArrayEquals(dblExpected, double_s.toArray());
 	}
@@ -97,14 +113,14 @@ public class TestLists {
 		// Testing the toFibonacciCounterpart transformer
 		Integer[] int_input = {1, 2, 3, 12, 0, null, 44, 48};
 		Integer[] intExpected = {1, 1, 2, 144, 0, null, 701408733, 48};
-		MyList<Integer> int_s = makeList(int_input);
+		MyList<Integer> int_s = newList(int_input);
 		int_s.transformAll(new IntegerToFibonacciCounterpartTransformer());
 		assertArrayEquals(intExpected, int_s.toArray());
 
 		// Testing the plural word remover transformer
 		String[] string_input = {"Is", "B", "", "cars", "Bill's", "mass", null, "miles"};
 		String[] strExpected = {"Is", "B", "", "car", "Bill's", "mass", null, "mile"};
-		MyList<String> string_s = makeList(string_input);
+		MyList<String> string_s = newList(string_input);
 		string_s.transformAll(new RemovePluralsTransformer());
 		assertArrayEquals(strExpected, string_s.toArray());
 
@@ -112,7 +128,7 @@ public class TestLists {
 		Double[] double_input = {0.0, 1.23, 3.0, null, -4.20, 1.1111113, -1.2463};
 		Double[] dblExpected = {0.0, 1.23*1.23, 9.0, null, -4.20,
 				1.1111113*1.1111113, -1.2463};
-		MyList<Double> double_s = makeList(double_input);
+		MyList<Double> double_s = newList(double_input);
 		double_s.transformAll(new DoubleToSquareAreaTransformer());
 		assertArrayEquals(dblExpected, double_s.toArray());
 	}
@@ -122,19 +138,19 @@ public class TestLists {
 	public void testEmptyArrayInput(){
 		Integer[] int_input = {};
 		Integer[] intExpected = {};
-		MyList<Integer> int_s = makeList(int_input);
+		MyList<Integer> int_s = newList(int_input);
 		assertArrayEquals(intExpected, int_s.toArray());
 
 		// Testing the plural word remover transformer
 		String[] string_input = {};
 		String[] strExpected = {};
-		MyList<String> string_s = makeList(string_input);
+		MyList<String> string_s = newList(string_input);
 		assertArrayEquals(strExpected, string_s.toArray());
 
 		//Testing the toSquareArea transformer
 		Double[] double_input = {};
 		Double[] dblExpected = {};
-		MyList<Double> double_s = makeList(double_input);
+		MyList<Double> double_s = newList(double_input);
 		assertArrayEquals(dblExpected, double_s.toArray());
 	}
 
@@ -144,13 +160,13 @@ public class TestLists {
 		//Testing with a 1 element null array input
 		Integer[] int_input = {null};
 		Integer[] intExpected = {null};
-		MyList<Integer> int_s = makeList(int_input);
+		MyList<Integer> int_s = newList(int_input);
 		assertArrayEquals(intExpected, int_s.toArray());
 
 		// With a 2 element null array
 		String[] string_input = {null, null};
 		String[] strExpected = {null, null};
-		MyList<String> string_s = makeList(string_input);
+		MyList<String> string_s = newList(string_input);
 		assertArrayEquals(strExpected, string_s.toArray());
 
 		//Testing the null imput for a huge null array
@@ -160,7 +176,7 @@ public class TestLists {
 			double_input[i] = null;
 			dblExpected[i] = null;
 		}
-		MyList<Double> double_s = makeList(double_input);
+		MyList<Double> double_s = newList(double_input);
 		assertArrayEquals(dblExpected, double_s.toArray());
 	}
 
@@ -170,21 +186,21 @@ public class TestLists {
 	public void testEmptyArrayTransform(){
 		Integer[] int_input = {};
 		Integer[] intExpected = {};
-		MyList<Integer> int_s = makeList(int_input);
+		MyList<Integer> int_s = newList(int_input);
 		int_s.transformAll(new IntegerToFibonacciCounterpartTransformer());
 		assertArrayEquals(intExpected, int_s.toArray());
 
 		// Testing the plural word remover transformer
 		String[] string_input = {};
 		String[] strExpected = {};
-		MyList<String> string_s = makeList(string_input);
+		MyList<String> string_s = newList(string_input);
 		string_s.transformAll(new RemovePluralsTransformer());
 		assertArrayEquals(strExpected, string_s.toArray());
 
 		//Testing the toSquareArea transformer
 		Double[] double_input = {};
 		Double[] dblExpected = {};
-		MyList<Double> double_s = makeList(double_input);
+		MyList<Double> double_s = newList(double_input);
 		double_s.transformAll(new DoubleToSquareAreaTransformer());
 		assertArrayEquals(dblExpected, double_s.toArray());
 	}
@@ -195,21 +211,21 @@ public class TestLists {
 	public void testEmptyArrayChoose(){
 		Integer[] int_input = {};
 		Integer[] intExpected = {};
-		MyList<Integer> int_s = makeList(int_input);
+		MyList<Integer> int_s = newList(int_input);
 		int_s.chooseAll(new MultipleOfTwelveChooser());
 		assertArrayEquals(intExpected, int_s.toArray());
 
 		// Testing the plural word remover transformer
 		String[] string_input = {};
 		String[] strExpected = {};
-		MyList<String> string_s = makeList(string_input);
+		MyList<String> string_s = newList(string_input);
 		string_s.chooseAll(new CapitalizedWordChooser());
 		assertArrayEquals(strExpected, string_s.toArray());
 
 		//Testing the toSquareArea transformer
 		Double[] double_input = {};
 		Double[] dblExpected = {};
-		MyList<Double> double_s = makeList(double_input);
+		MyList<Double> double_s = newList(double_input);
 		double_s.chooseAll(new HasAThreeChooser());
 		assertArrayEquals(dblExpected, double_s.toArray());
 	}
@@ -220,17 +236,17 @@ public class TestLists {
 	public void testEmptyReturnsFalse(){
 		//Testing for nonEmpty return on integer list
 		Integer[] int_input = {1,3,6,null,0,132412};
-		MyList<Integer> int_s = makeList(int_input);
+		MyList<Integer> int_s = newList(int_input);
 		assertEquals(false, int_s.isEmpty());
 
 		//Testing for nonEmpty return on string list
 		String[] string_input = {"",null,"input","stuff"};
-		MyList<String> string_s = makeList(string_input);
+		MyList<String> string_s = newList(string_input);
 		assertEquals(false, string_s.isEmpty());
 
 		//Testing for nonEmpty return on double list
 		Double[] double_input = {null};
-		MyList<Double> double_s = makeList(double_input);
+		MyList<Double> double_s = newList(double_input);
 		assertEquals(false, double_s.isEmpty());
 	}
 
@@ -239,8 +255,132 @@ public class TestLists {
 	public void testEmptyReturnsTrue(){
 		//Same behaviour should be exhibited for any type with this
 		Integer[] int_input = {};
-		MyList<Integer> int_s = makeList(int_input);
+		MyList<Integer> int_s = newList(int_input);
 		assertEquals(true, int_s.isEmpty());
 	}
 
-}
\ No newline at end of file
+	/* This test checks chooseAll and transformAll on a list long enough to
+	 * span many chunks of an UnrolledLinkedGL, keeping a pattern of elements
+	 * that crosses chunk boundaries */
+	@Test
+	@SuppressWarnings("auxiliaryclass")
+	public void testLongListChooseAndTransform(){
+		Integer[] int_input = new Integer[1000];
+		Integer[] intExpected = new Integer[84];
+		int kept = 0;
+		for(int i = 0; i < 1000; i += 1){
+			int_input[i] = i;
+			if(i % 12 == 0){
+				intExpected[kept] = i;
+				kept += 1;
+			}
+		}
+		MyList<Integer> int_s = newList(int_input);
+		int_s.chooseAll(new MultipleOfTwelveChooser());
+		assertArrayEquals(intExpected, int_s.toArray());
+
+		//The fibonacci counterpart of a multiple of 12 is also a multiple of
+		//12, so filtering again after transforming should keep everything
+		intExpected[1] = 144;
+		intExpected[2] = 46368;
+		intExpected[3] = 14930352;
+		int_s.transformAll(new IntegerToFibonacciCounterpartTransformer());
+		int_s.chooseAll(new MultipleOfTwelveChooser());
+		assertArrayEquals(intExpected, int_s.toArray());
+		assertEquals(false, int_s.isEmpty());
+	}
+
+	/* This test checks that a lazy pipeline gives the same answer as calling
+	 * chooseAll and transformAll one after the other */
+	@Test
+	@SuppressWarnings("auxiliaryclass")
+	public void testLazyPipeline(){
+		String[] string_input = {"Cars", "b", null, "Houses", "dogs", "Bill's",
+				"Mattress", "TREES", ""};
+		String[] strExpected = {"CAR", "HOUSE", "BILL'S", "MATTRESS", "TREE"};
+		MyList<String> string_s = newList(string_input);
+		//Like toArray on the lists, this is really an Object[] underneath
+		Object[] lazyResult = string_s.lazy()
+				.choose(new CapitalizedWordChooser())
+				.transform(new RemovePluralsTransformer())
+				.transform(new UpperCaseTransformer())
+				.toArray();
+		assertArrayEquals(strExpected, lazyResult);
+		//toArray on a pipeline leaves the list itself alone
+		assertArrayEquals(string_input, string_s.toArray());
+
+		string_s.lazy()
+				.choose(new CapitalizedWordChooser())
+				.transform(new RemovePluralsTransformer())
+				.transform(new UpperCaseTransformer())
+				.choose(new LongWordChooser())
+				.applyAll();
+		assertArrayEquals(new String[] {"BILL'S", "MATTRESS"},
+				string_s.toArray());
+
+		//A pipeline dropping everything leaves an empty list
+		string_s.lazy().choose(new CapitalizedWordChooser())
+				.transform(new RemovePluralsTransformer())
+				.choose(new MyChooser<String>() {
+					public boolean chooseElement(String s) {
+						return false;
+					}
+				}).applyAll();
+		assertEquals(true, string_s.isEmpty());
+	}
+
+	/* This test checks that a pipeline step throwing partway through applyAll
+	 * leaves every element in the list exactly once, in order */
+	@Test
+	public void testLazyPipelineThrows(){
+		Integer[] int_input = {0, 1, 2, 3, 4, 5};
+		MyList<Integer> int_s = newList(int_input);
+		try {
+			int_s.lazy()
+					.choose(i -> (Integer) i != 1)
+					.transform(i -> {
+						if((Integer) i == 4){
+							throw new IllegalStateException("step failed");
+						}
+						return i;
+					})
+					.applyAll();
+			fail("exception swallowed");
+		} catch (IllegalStateException e) {
+			assertEquals("step failed", e.getMessage());
+		}
+		//Like toArray on the lists, this is really an Object[] underneath
+		Object[] result = int_s.toArray();
+		assertArrayEquals(new Integer[] {0, 2, 3, 4, 5}, result);
+		int_s.chooseAll(i -> (Integer) i % 2 == 1);
+		assertArrayEquals(new Integer[] {3, 5}, int_s.toArray());
+	}
+
+	/* This test checks that chooseAll only asks the chooser about each element
+	 * still in the list once, even when filtering back to back */
+	@Test
+	@SuppressWarnings("auxiliaryclass")
+	public void testChooserCalledOncePerElement(){
+		Integer[] int_input = new Integer[1200];
+		for(int i = 0; i < 1200; i += 1){
+			int_input[i] = i;
+		}
+		int[] calls = {0};
+		MyChooser<Integer> countingChooser = new MyChooser<Integer>() {
+			public boolean chooseElement(Integer i) {
+				calls[0] += 1;
+				return i % 2 == 0;
+			}
+		};
+		MyList<Integer> int_s = newList(int_input);
+		int_s.chooseAll(countingChooser);
+		assertEquals(1200, calls[0]);
+		int_s.chooseAll(new MultipleOfTwelveChooser());
+		int_s.chooseAll(countingChooser);
+		//Only the 100 multiples of 12 were left for the second call
+		assertEquals(1300, calls[0]);
+		Object[] result = int_s.toArray();
+		assertEquals(100, result.length);
+	}
+
+}
@@ -0,0 +1,91 @@
+/**
+ * This file is a test file, testing our memory mapped lists MappedIntGL and
+ * MappedDoubleGL against the heap lists they mirror.
+ * **/
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+/* Every test writes its numbers to a fresh file, maps it, and checks both the
+ * list and what's left in the file once the list is closed. */
+@SuppressWarnings("auxiliaryclass")
+public class TestMappedLists {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/* Checks choosing and transforming ints straight in the file */
+	@Test
+	public void testMappedInts() throws IOException {
+		Path path = folder.newFile("ints.bin").toPath();
+		int[] input = new int[5000];
+		for(int i = 0; i < input.length; i += 1){
+			input[i] = i - 10;
+		}
+		MappedIntGL.write(path, input);
+
+		IntGL expected = new IntGL(input.clone());
+		expected.chooseAllInt(new IntMultipleOfTwelveChooser());
+		expected.transformAllInt(new IntFibonacciCounterpartTransformer());
+
+		try(MappedIntGL list = new MappedIntGL(path)){
+			assertEquals(5000, list.size());
+			list.chooseAllInt(new IntMultipleOfTwelveChooser());
+			list.transformAll(new IntegerToFibonacciCounterpartTransformer());
+			assertArrayEquals(expected.toIntArray(), list.toIntArray());
+			assertArrayEquals(expected.toArray(), list.toArray());
+		}
+		//Closing cuts the file down to exactly what's left in the list
+		assertEquals(expected.toIntArray().length * 4L, Files.size(path));
+		try(MappedIntGL reopened = new MappedIntGL(path)){
+			assertArrayEquals(expected.toIntArray(), reopened.toIntArray());
+		}
+	}
+
+	/* Checks choosing and transforming doubles straight in the file */
+	@Test
+	public void testMappedDoubles() throws IOException {
+		Path path = folder.newFile("doubles.bin").toPath();
+		double[] input = {0.0, 1.23, 3.0, -4.20, 1.1111113, -1.2463, 1.8};
+		MappedDoubleGL.write(path, input);
+		try(MappedDoubleGL list = new MappedDoubleGL(path)){
+			list.chooseAllDouble(new DoubleHasAThreeChooser());
+			list.transformAllDouble(new DoubleSquareAreaTransformer());
+			assertArrayEquals(new double[] {0.0, -4.20, 1.8*1.8},
+					list.toDoubleArray(), 0.0);
+			list.chooseAll(new HasAThreeChooser());
+			assertArrayEquals(new Double[] {0.0, -4.20}, list.toArray());
+		}
+	}
+
+	/* Checks an empty file, and a file that gets emptied */
+	@Test
+	public void testEmpty() throws IOException {
+		Path path = folder.newFile("empty.bin").toPath();
+		try(MappedIntGL list = new MappedIntGL(path)){
+			assertTrue(list.isEmpty());
+			assertArrayEquals(new Integer[] {}, list.toArray());
+		}
+		MappedIntGL.write(path, new int[] {1, 5, 7});
+		try(MappedIntGL list = new MappedIntGL(path)){
+			assertFalse(list.isEmpty());
+			list.chooseAllInt(new IntMultipleOfTwelveChooser());
+			assertTrue(list.isEmpty());
+		}
+		assertEquals(0L, Files.size(path));
+	}
+
+	/* Checks that a file that isn't a whole number of elements is refused */
+	@Test(expected = IOException.class)
+	public void testPartialElement() throws IOException {
+		Path path = folder.newFile("partial.bin").toPath();
+		Files.write(path, new byte[] {1, 2, 3, 4, 5, 6});
+		new MappedIntGL(path);
+	}
+}
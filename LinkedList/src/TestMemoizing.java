@@ -0,0 +1,151 @@
+/**
+ * This file is a test file, checking that MemoizingTransformer and
+ * MemoizingChooser give the same answers as what they wrap, and that
+ * MemoCache stays within its size and evicts by its policy.
+ * **/
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.*;
+
+@SuppressWarnings("auxiliaryclass")
+public class TestMemoizing {
+
+	/* A transformer that counts how many times it was really called */
+	static class CountingUpperCase implements MyTransformer<String> {
+		final AtomicInteger calls = new AtomicInteger();
+
+		@Override
+		public String transformElement(String s) {
+			this.calls.incrementAndGet();
+			return s == null ? null : s.toUpperCase();
+		}
+	}
+
+	/* Checks both lists get the same answers, with one call per distinct
+	 * value */
+	@Test
+	public void testTransformerOnBothLists() {
+		String[] input = new String[]{"cars", "bus", "cars", null, "bus",
+				"Houses", "cars", null};
+		CountingUpperCase counting = new CountingUpperCase();
+		MemoizingTransformer<String> memo =
+				new MemoizingTransformer<String>(counting);
+		ArrayGL<String> array = new ArrayGL<String>(input.clone());
+		LinkedGL<String> linked = new LinkedGL<String>(input.clone());
+		array.transformAll(memo);
+		linked.transformAll(memo);
+		Object[] expected = new Object[]{"CARS", "BUS", "CARS", null, "BUS",
+				"HOUSES", "CARS", null};
+		assertArrayEquals(expected, array.toArray());
+		assertArrayEquals(expected, linked.toArray());
+		assertEquals(4, counting.calls.get());
+		assertEquals(4, memo.cache().misses());
+		assertEquals(12, memo.cache().hits());
+		assertEquals(0.75, memo.cache().hitRate(), 1e-9);
+	}
+
+	/* Checks the chooser wrapper keeps the same elements */
+	@Test
+	public void testChooser() {
+		Integer[] input = new Integer[]{12, 5, 24, 12, 5, 7, 24};
+		MemoizingChooser<Integer> memo = new MemoizingChooser<Integer>(
+				new MultipleOfTwelveChooser(), 2, MemoCache.Policy.LRU);
+		LinkedGL<Integer> list = new LinkedGL<Integer>(input);
+		list.chooseAll(memo);
+		assertArrayEquals(new Object[]{12, 24, 12, 24}, list.toArray());
+		assertTrue(memo.cache().size() <= 2);
+	}
+
+	/* Checks LRU throws out whatever was used longest ago */
+	@Test
+	public void testLruEviction() {
+		MemoCache<Integer, Integer> cache =
+				new MemoCache<Integer, Integer>(3, MemoCache.Policy.LRU);
+		for(int i = 0; i < 3; i += 1){
+			cache.get(i, x -> x * 10);
+		}
+		//Use 0 again, so 1 is now the oldest
+		cache.get(0, x -> -1);
+		cache.get(3, x -> x * 10);
+		assertEquals(1, cache.evictions());
+		assertEquals(3, cache.size());
+		assertEquals(Integer.valueOf(0), cache.get(0, x -> -1));
+		assertEquals(Integer.valueOf(-1), cache.get(1, x -> -1));
+		assertEquals(0, cache.rejections());
+	}
+
+	/* Checks a scan of values seen once can't flush out the popular ones
+	 * under the frequency policy, when it does under LRU */
+	@Test
+	public void testFrequencyResistsScan() {
+		MemoCache<Integer, Integer> lru =
+				new MemoCache<Integer, Integer>(8, MemoCache.Policy.LRU);
+		MemoCache<Integer, Integer> lfu =
+				new MemoCache<Integer, Integer>(8, MemoCache.Policy.FREQUENCY);
+		for(MemoCache<Integer, Integer> cache : Arrays.asList(lru, lfu)){
+			for(int round = 0; round < 5; round += 1){
+				for(int hot = 0; hot < 8; hot += 1){
+					cache.get(hot, x -> x);
+				}
+			}
+			for(int cold = 1000; cold < 1100; cold += 1){
+				cache.get(cold, x -> x);
+			}
+		}
+		long lruHitsBefore = lru.hits();
+		long lfuHitsBefore = lfu.hits();
+		for(int hot = 0; hot < 8; hot += 1){
+			lru.get(hot, x -> x);
+			lfu.get(hot, x -> x);
+		}
+		assertEquals(0, lru.hits() - lruHitsBefore);
+		assertEquals(8, lfu.hits() - lfuHitsBefore);
+		assertTrue(lfu.rejections() > 0);
+		assertTrue(lfu.size() <= 8);
+	}
+
+	/* Checks many threads sharing one transformer all get right answers and
+	 * the cache never grows past its capacity */
+	@Test
+	public void testConcurrentUse() throws InterruptedException {
+		MemoizingTransformer<Integer> memo = new MemoizingTransformer<Integer>(
+				new IntegerToFibonacciCounterpartTransformer(), 256,
+				MemoCache.Policy.FREQUENCY);
+		Integer[] input = new Integer[20000];
+		Integer[] expected = new Integer[input.length];
+		IntegerToFibonacciCounterpartTransformer plain =
+				new IntegerToFibonacciCounterpartTransformer();
+		for(int i = 0; i < input.length; i += 1){
+			input[i] = (i * 31) % 600;
+			expected[i] = plain.transformElement(input[i]);
+		}
+		ArrayList<Thread> threads = new ArrayList<Thread>();
+		//Each thread only writes its own slot, and join makes it visible
+		Object[][] results = new Object[4][];
+		for(int t = 0; t < results.length; t += 1){
+			int index = t;
+			threads.add(new Thread(() -> {
+				ArrayGL<Integer> list = new ArrayGL<Integer>(input.clone());
+				list.transformAll(memo);
+				results[index] = list.toArray();
+			}));
+		}
+		for(Thread thread : threads){
+			thread.start();
+		}
+		for(Thread thread : threads){
+			thread.join();
+		}
+		for(Object[] result : results){
+			assertArrayEquals(expected, result);
+		}
+		assertEquals(4L * input.length,
+				memo.cache().hits() + memo.cache().misses());
+		assertTrue(memo.cache().size() <= 256);
+	}
+}
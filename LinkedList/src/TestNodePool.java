@@ -0,0 +1,138 @@
+/**
+ * This file is a test file, checking that a pooled LinkedGL gives the same
+ * answers as an unpooled one, reuses the nodes it drops and releases, and
+ * never lets the pool hold on to its values or grow past its capacity.
+ * **/
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+
+import org.junit.*;
+
+public class TestNodePool {
+
+	/* Empties this thread's pool, so every test starts from nothing */
+	@Before
+	public void drain() {
+		LinkedNodePool pool = LinkedNodePool.current();
+		while(pool.size() > 0){
+			pool.take(null, null);
+		}
+	}
+
+	@After
+	public void resetCapacity() {
+		LinkedNodePool.setCapacity(LinkedNodePool.DEFAULT_CAPACITY);
+	}
+
+	/* Checks a pooled list built from recycled nodes matches an unpooled
+	 * one, through chooseAll, transformAll and a lazy pipeline */
+	@Test
+	public void testMatchesUnpooled() {
+		LinkedNodePool pool = LinkedNodePool.current();
+		for(int round = 0; round < 5; round += 1){
+			LinkedGL<Object> plain = new LinkedGL<Object>(
+					TestLists.count(2000));
+			LinkedGL<Object> pooled = new LinkedGL<Object>(
+					TestLists.count(2000), true);
+			MyChooser<Integer> odd = i -> i % 2 == 1;
+			MyTransformer<Integer> triple = i -> i * 3;
+			MyChooser<Integer> notSeven = i -> i % 7 != 0;
+			plain.chooseAll(odd);
+			pooled.chooseAll(odd);
+			plain.transformAll(triple);
+			pooled.transformAll(triple);
+			plain.lazy().choose(notSeven).applyAll();
+			pooled.lazy().choose(notSeven).applyAll();
+			assertArrayEquals(plain.toArray(), pooled.toArray());
+			pooled.release();
+			assertTrue(pooled.isEmpty());
+			assertEquals(0, pooled.toArray().length);
+		}
+		//Every node ever dropped or released is waiting in the pool
+		assertEquals(2000, pool.size());
+	}
+
+	/* Checks the nodes chooseAll drops are cleared, given back and then
+	 * handed out again to the next pooled list */
+	@Test
+	public void testDroppedNodesReused() {
+		LinkedNodePool pool = LinkedNodePool.current();
+		LinkedGL<Object> list = new LinkedGL<Object>(
+				TestLists.count(100), true);
+		ArrayList<LinkedGL.Node<Object>> nodes =
+				new ArrayList<LinkedGL.Node<Object>>();
+		for(LinkedGL.Node<Object> n = list.front.next; n != null; n = n.next){
+			nodes.add(n);
+		}
+		list.chooseAll(i -> (Integer) i < 40);
+		assertEquals(60, pool.size());
+		for(int i = 40; i < 100; i += 1){
+			assertNull(nodes.get(i).value);
+		}
+		LinkedGL<Object> next = new LinkedGL<Object>(TestLists.count(70), true);
+		assertEquals(0, pool.size());
+		//The first 60 nodes of the new list are the ones we dropped
+		int reused = 0;
+		for(LinkedGL.Node<Object> n = next.front.next; n != null;
+				n = n.next){
+			reused += nodes.contains(n) ? 1 : 0;
+		}
+		assertEquals(60, reused);
+		assertArrayEquals(TestLists.count(70), next.toArray());
+		assertArrayEquals(TestLists.count(40), list.toArray());
+	}
+
+	/* Checks the pool never grows past its capacity, and an unpooled list
+	 * leaves it alone until released */
+	@Test
+	public void testCapacity() {
+		LinkedNodePool pool = LinkedNodePool.current();
+		LinkedNodePool.setCapacity(10);
+		LinkedGL<Object> plain = new LinkedGL<Object>(TestLists.count(100));
+		plain.chooseAll(i -> false);
+		assertEquals(0, pool.size());
+		LinkedGL<Object> list = new LinkedGL<Object>(TestLists.count(100));
+		list.release();
+		assertEquals(10, pool.size());
+		new LinkedGL<Object>(TestLists.count(3), true).chooseAll(i -> false);
+		assertEquals(10, pool.size());
+		try {
+			LinkedNodePool.setCapacity(-1);
+			fail("negative capacity accepted");
+		} catch (IllegalArgumentException e) {
+			//Expected
+		}
+	}
+
+	/* Checks a chooser that throws partway through leaves a pooled list
+	 * linked only to nodes it still owns */
+	@Test
+	public void testChooserFailure() {
+		LinkedGL<Object> list = new LinkedGL<Object>(
+				TestLists.count(5000), true);
+		try {
+			//Drops the odd values, then divides by zero at 3000, in the
+			//third batch
+			list.chooseAll(i -> 1 / (3000 - (Integer) i) == 0
+					&& (Integer) i % 2 == 0);
+			fail("exception swallowed");
+		} catch (ArithmeticException e) {
+			//Expected
+		}
+		for(LinkedGL.Node<Object> n = list.front.next; n != null; n = n.next){
+			assertNotNull(n.value);
+		}
+		try {
+			list.lazy().choose(i -> (Integer) i % 2 == 0)
+					.transform(i -> 100 / (4000 - (Integer) i)).applyAll();
+			fail("exception swallowed");
+		} catch (ArithmeticException e) {
+			//Expected
+		}
+		for(LinkedGL.Node<Object> n = list.front.next; n != null; n = n.next){
+			assertNotNull(n.value);
+		}
+	}
+}
@@ -0,0 +1,56 @@
+/**
+ * This file is a test file, running every test in TestLists over the lists
+ * we've added since, so each of them is held to the same behavior as ArrayGL
+ * and LinkedGL.
+ * **/
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+/* This class inherits every test from TestLists and only swaps out which
+ * lists they're run on, with its own parameter list and its own newList. */
+@RunWith(Parameterized.class)
+public class TestOtherLists extends TestLists {
+
+	public static Collection<Object[]> LISTNUMS =
+			Arrays.asList(new Object[][] { {"Unrolled"}, {"Selection"},
+				{"Concurrent"}, {"ConcurrentArray"}, {"Adaptive"},
+				{"Persistent"} });
+	private String listType;
+
+	public TestOtherLists(String listType) {
+		super(listType);
+		this.listType = listType;
+	}
+
+	@Parameterized.Parameters(name = "{0}List")
+	public static Collection<Object[]> bags() {
+		return LISTNUMS;
+	}
+
+	@Override
+	<E> MyList<E> newList(E[] contents) {
+		switch (this.listType) {
+		case "Unrolled":
+			return new UnrolledLinkedGL<E>(contents);
+		case "Selection":
+			ArrayGL<E> selectionList = new ArrayGL<E>(contents);
+			selectionList.setSelectionMode(true);
+			return selectionList;
+		case "Concurrent":
+			return new ConcurrentLinkedGL<E>(contents);
+		case "ConcurrentArray":
+			return new ConcurrentArrayGL<E>(contents);
+		case "Adaptive":
+			//Eager enough to convert back and forth even on tiny lists
+			return new AdaptiveGL<E>(contents, new AdaptivePolicy()
+					.setMinSize(0).setCooldown(0).setHorizon(1000));
+		case "Persistent":
+			return new PersistentGL<E>(contents);
+		}
+		return null;
+	}
+}
@@ -0,0 +1,64 @@
+/**
+ * This file is a test file, checking that ArrayGL's parallel mode gives
+ * exactly the same results as the sequential one.
+ * **/
+
+import static org.junit.Assert.*;
+
+import org.junit.*;
+
+/* Every list here is well past the parallel threshold, so the fork-join path
+ * actually runs. */
+@SuppressWarnings("auxiliaryclass")
+public class TestParallelArrayGL {
+
+	/* Builds an Integer list input long enough to be split into many ranges,
+	 * with a few nulls mixed in */
+	private static Integer[] bigInput() {
+		Integer[] input = new Integer[ParallelArrayOps.PARALLEL_THRESHOLD * 10
+				+ 7];
+		for(int i = 0; i < input.length; i += 1){
+			input[i] = (i % 97 == 0) ? null : (i * 31) % 1000;
+		}
+		return input;
+	}
+
+	/* Checks parallel chooseAll keeps the same elements in the same order */
+	@Test
+	public void testParallelChooseAll() {
+		ArrayGL<Integer> sequential = new ArrayGL<Integer>(bigInput());
+		sequential.chooseAll(new MultipleOfTwelveChooser());
+
+		ArrayGL<Integer> parallel = new ArrayGL<Integer>(bigInput());
+		parallel.chooseAll(new MultipleOfTwelveChooser(), true);
+		assertArrayEquals(sequential.toArray(), parallel.toArray());
+	}
+
+	/* Checks parallel transformAll, set at the list level this time */
+	@Test
+	public void testParallelTransformAll() {
+		ArrayGL<Integer> sequential = new ArrayGL<Integer>(bigInput());
+		sequential.transformAll(new IntegerToFibonacciCounterpartTransformer());
+
+		ArrayGL<Integer> parallel = new ArrayGL<Integer>(bigInput());
+		parallel.setParallel(true);
+		parallel.transformAll(new IntegerToFibonacciCounterpartTransformer());
+		parallel.chooseAll(new MultipleOfTwelveChooser());
+		sequential.chooseAll(new MultipleOfTwelveChooser());
+		assertArrayEquals(sequential.toArray(), parallel.toArray());
+	}
+
+	/* Checks that parallel mode on a list that ends up empty still works */
+	@Test
+	public void testParallelChooseNothing() {
+		String[] input = new String[ParallelArrayOps.PARALLEL_THRESHOLD * 3];
+		for(int i = 0; i < input.length; i += 1){
+			input[i] = "short";
+		}
+		ArrayGL<String> list = new ArrayGL<String>(input);
+		list.setParallel(true);
+		list.chooseAll(new LongWordChooser());
+		assertTrue(list.isEmpty());
+		assertArrayEquals(new String[] {}, list.toArray());
+	}
+}
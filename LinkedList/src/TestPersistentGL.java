@@ -0,0 +1,163 @@
+/**
+ * This file is a test file, checking that PersistentGL gives the same
+ * answers as ArrayGL, that snapshots never see later changes, and that
+ * versions of a list share the parts they have in common.
+ * **/
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Random;
+
+import org.junit.*;
+
+public class TestPersistentGL {
+
+	/* Adds up the slots of every Node under the roots of lists, counting a
+	 * Node shared between lists once */
+	static long slots(ArrayList<PersistentGL<Object>> lists) {
+		IdentityHashMap<PersistentGL.Node, Boolean> seen =
+				new IdentityHashMap<PersistentGL.Node, Boolean>();
+		long total = 0;
+		ArrayList<PersistentGL.Node> toVisit =
+				new ArrayList<PersistentGL.Node>();
+		for(PersistentGL<Object> list : lists){
+			toVisit.add(list.root);
+		}
+		while(!toVisit.isEmpty()){
+			PersistentGL.Node node = toVisit.remove(toVisit.size() - 1);
+			if(seen.put(node, true) != null){
+				continue;
+			}
+			total += node.items.length;
+			if(node.sizes != null){
+				for(int i = 0; i < node.count; i += 1){
+					toVisit.add((PersistentGL.Node) node.items[i]);
+				}
+			}
+		}
+		return total;
+	}
+
+	/* Checks random rounds of choosing and transforming match ArrayGL, for
+	 * toArray and get, and never change an earlier snapshot */
+	@Test
+	public void testMatchesArrayGL() {
+		Random rand = new Random(21);
+		Integer[] input = TestLists.count(50000);
+		ArrayGL<Object> array = new ArrayGL<Object>(input.clone());
+		PersistentGL<Object> list = new PersistentGL<Object>(input);
+		ArrayList<PersistentGL<Object>> snapshots =
+				new ArrayList<PersistentGL<Object>>();
+		ArrayList<Object[]> expected = new ArrayList<Object[]>();
+		for(int round = 0; round < 30; round += 1){
+			snapshots.add(list.snapshot());
+			expected.add(array.toArray());
+			int modulus = 2 + rand.nextInt(40);
+			if(rand.nextBoolean()){
+				MyChooser<Integer> drop = i -> i % modulus != 0;
+				array.chooseAll(drop);
+				list.chooseAll(drop);
+			} else {
+				MyTransformer<Integer> bump = i -> i % modulus == 0 ? i + 1
+						: i;
+				array.transformAll(bump);
+				list.transformAll(bump);
+			}
+			Object[] now = array.toArray();
+			assertArrayEquals(now, list.toArray());
+			for(int i = 0; i < now.length; i += 97){
+				assertEquals(now[i], list.get(i));
+			}
+		}
+		for(int i = 0; i < snapshots.size(); i += 1){
+			assertArrayEquals(expected.get(i), snapshots.get(i).toArray());
+		}
+		//The input array is never changed
+		assertArrayEquals(TestLists.count(50000), input);
+		list.chooseAll(i -> false);
+		assertTrue(list.isEmpty());
+		assertEquals(0, list.toArray().length);
+	}
+
+	/* Checks 100 versions of a list, each changing a few elements, cost a
+	 * small fraction of 100 copies */
+	@Test
+	public void testVersionsShareNodes() {
+		int size = 100000;
+		PersistentGL<Object> list = new PersistentGL<Object>(
+				TestLists.count(size));
+		ArrayList<PersistentGL<Object>> versions =
+				new ArrayList<PersistentGL<Object>>();
+		versions.add(list.snapshot());
+		long one = slots(versions);
+		for(int v = 0; v < 100; v += 1){
+			int target = v * 997;
+			list.transformAll(i -> (Integer) i == target ? -target : i);
+			list.chooseAll(i -> (Integer) i != target + 1);
+			versions.add(list.snapshot());
+		}
+		assertEquals(size - 100, versions.get(100).toArray().length);
+		assertEquals(0, versions.get(0).get(0));
+		assertEquals(-997, versions.get(100).get(996));
+		//Each version copies a couple of leaves and the branches above them
+		assertTrue(slots(versions) < one * 13 / 10);
+	}
+
+	/* Checks batch mode changes its own copies in place, but never a
+	 * snapshot's */
+	@Test
+	public void testBatchMode() {
+		PersistentGL<Object> list = new PersistentGL<Object>(
+				TestLists.count(5000));
+		PersistentGL<Object> before = list.snapshot();
+		list.setBatchMode(true);
+		list.transformAll(i -> (Integer) i + 1);
+		PersistentGL.Node copied = list.root;
+		assertNotSame(before.root, copied);
+		list.transformAll(i -> (Integer) i * 2);
+		list.chooseAll(i -> (Integer) i % 3 != 0);
+		assertSame(copied, list.root);
+		PersistentGL<Object> middle = list.snapshot();
+		list.transformAll(i -> -(Integer) i);
+		assertNotSame(middle.root, list.root);
+		list.setBatchMode(false);
+
+		ArrayGL<Object> expected = new ArrayGL<Object>(TestLists.count(5000));
+		expected.transformAll(i -> (Integer) i + 1);
+		expected.transformAll(i -> (Integer) i * 2);
+		expected.chooseAll(i -> (Integer) i % 3 != 0);
+		assertArrayEquals(expected.toArray(), middle.toArray());
+		expected.transformAll(i -> -(Integer) i);
+		assertArrayEquals(expected.toArray(), list.toArray());
+		assertArrayEquals(TestLists.count(5000), before.toArray());
+	}
+
+	/* Checks a transformer or chooser that throws outside a batch leaves the
+	 * list as it was */
+	@Test
+	public void testFailureLeavesList() {
+		PersistentGL<Object> list = new PersistentGL<Object>(
+				TestLists.count(3000));
+		try {
+			list.transformAll(i -> 100 / (2000 - (Integer) i));
+			fail("exception swallowed");
+		} catch (ArithmeticException e) {
+			//Expected
+		}
+		try {
+			list.chooseAll(i -> 100 / (2500 - (Integer) i) >= 0);
+			fail("exception swallowed");
+		} catch (ArithmeticException e) {
+			//Expected
+		}
+		assertArrayEquals(TestLists.count(3000), list.toArray());
+		try {
+			list.get(3000);
+			fail("index past the end accepted");
+		} catch (IndexOutOfBoundsException e) {
+			//Expected
+		}
+	}
+}
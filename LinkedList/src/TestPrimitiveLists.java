@@ -0,0 +1,147 @@
+/**
+ * This file is a test file, testing our primitive lists IntGL and DoubleGL,
+ * along with the int and double versions of our choosers and transformers.
+ * **/
+
+import static org.junit.Assert.*;
+
+import org.junit.*;
+
+/* This class checks that the primitive lists and kernels give exactly the same
+ * results as the boxed ones they replace. */
+@SuppressWarnings("auxiliaryclass")
+public class TestPrimitiveLists {
+
+	/* Checks the int chooser against the boxed MultipleOfTwelveChooser */
+	@Test
+	public void testIntChooseAll() {
+		int[] input = {1, 2, 3, 12, 0, -24, 24, 48, 13};
+		IntGL list = new IntGL(input);
+		list.chooseAllInt(new IntMultipleOfTwelveChooser());
+		assertArrayEquals(new int[] {12, 0, -24, 24, 48}, list.toIntArray());
+
+		//The boxed chooser should still work on an IntGL
+		IntGL boxed = new IntGL(new int[] {1, 2, 3, 12, 0, -24, 24, 48, 13});
+		boxed.chooseAll(new MultipleOfTwelveChooser());
+		assertArrayEquals(new Integer[] {12, 0, -24, 24, 48}, boxed.toArray());
+	}
+
+	/* Checks the int transformer against the boxed fibonacci transformer */
+	@Test
+	public void testIntTransformAll() {
+		int[] input = new int[60];
+		Integer[] boxedInput = new Integer[60];
+		for(int i = 0; i < 60; i += 1){
+			input[i] = i - 5;
+			boxedInput[i] = i - 5;
+		}
+		IntGL list = new IntGL(input);
+		list.transformAllInt(new IntFibonacciCounterpartTransformer());
+		ArrayGL<Integer> expected = new ArrayGL<Integer>(boxedInput);
+		expected.transformAll(new IntegerToFibonacciCounterpartTransformer());
+		assertArrayEquals(expected.toArray(), list.toArray());
+	}
+
+	/* Checks the double chooser against the boxed HasAThreeChooser */
+	@Test
+	public void testDoubleChooseAll() {
+		double[] input = {0.0, 1.23, 3.0, -4.20, 1.1111113, -1.2463, 1e-300,
+				3e10, 1.0E-3, Double.NaN, Double.POSITIVE_INFINITY};
+		Double[] boxedInput = new Double[input.length];
+		for(int i = 0; i < input.length; i += 1){
+			boxedInput[i] = input[i];
+		}
+		DoubleGL list = new DoubleGL(input);
+		list.chooseAllDouble(new DoubleHasAThreeChooser());
+		ArrayGL<Double> expected = new ArrayGL<Double>(boxedInput);
+		expected.chooseAll(new HasAThreeChooser());
+		assertArrayEquals(expected.toArray(), list.toArray());
+	}
+
+	/* Checks the double transformer against the boxed square area one */
+	@Test
+	public void testDoubleTransformAll() {
+		double[] input = {0.0, 1.23, 3.0, -4.20, 1.1111113, -1.2463};
+		DoubleGL list = new DoubleGL(input);
+		list.transformAllDouble(new DoubleSquareAreaTransformer());
+		assertArrayEquals(new double[] {0.0, 1.23*1.23, 9.0, -4.20,
+				1.1111113*1.1111113, -1.2463}, list.toDoubleArray(), 0.0);
+
+		DoubleGL boxed = new DoubleGL(new double[] {2.0, -1.0});
+		boxed.transformAll(new DoubleToSquareAreaTransformer());
+		assertArrayEquals(new Double[] {4.0, -1.0}, boxed.toArray());
+	}
+
+	/* Checks the branch free kernels against the per-element choosers and
+	 * transformers, including the values most likely to trip them up */
+	@Test
+	public void testNumericKernels() {
+		java.util.Random rand = new java.util.Random(12);
+		int[] ints = new int[10000];
+		for(int i = 0; i < ints.length; i += 1){
+			ints[i] = rand.nextBoolean() ? rand.nextInt() : rand.nextInt(1000)
+					- 500;
+		}
+		int[] edges = {Integer.MIN_VALUE, Integer.MAX_VALUE, -12, 12, 0, -1,
+				2147483640, -2147483640, 2147483644, -2147483644};
+		System.arraycopy(edges, 0, ints, 0, edges.length);
+		IntChooser chooser = new IntMultipleOfTwelveChooser();
+		for(int i : ints){
+			assertEquals(chooser.chooseElement(i),
+					NumericKernels.isMultipleOfTwelve(i));
+		}
+		IntGL kernel = new IntGL(ints.clone());
+		//The lambda hides the chooser's class, so this one goes element by
+		//element
+		IntGL perElement = new IntGL(ints.clone());
+		kernel.chooseAllInt(chooser);
+		perElement.chooseAllInt(i -> chooser.chooseElement(i));
+		assertArrayEquals(perElement.toIntArray(), kernel.toIntArray());
+		for(int threshold : new int[] {Integer.MIN_VALUE, -1, 0, 250,
+				Integer.MAX_VALUE}){
+			IntChooser atLeast = new IntAtLeastChooser(threshold);
+			kernel = new IntGL(ints.clone());
+			perElement = new IntGL(ints.clone());
+			kernel.chooseAllInt(atLeast);
+			perElement.chooseAllInt(i -> atLeast.chooseElement(i));
+			assertArrayEquals(perElement.toIntArray(), kernel.toIntArray());
+		}
+
+		double[] doubles = new double[10000];
+		for(int i = 0; i < doubles.length; i += 1){
+			doubles[i] = rand.nextGaussian() * 100;
+		}
+		double[] special = {0.0, -0.0, Double.NaN, Double.POSITIVE_INFINITY,
+				Double.NEGATIVE_INFINITY, Double.MIN_VALUE, -Double.MIN_VALUE,
+				Double.MAX_VALUE, -Double.MAX_VALUE};
+		System.arraycopy(special, 0, doubles, 0, special.length);
+		DoubleTransformer transformer = new DoubleSquareAreaTransformer();
+		DoubleGL squared = new DoubleGL(doubles.clone());
+		DoubleGL squaredPerElement = new DoubleGL(doubles.clone());
+		squared.transformAllDouble(transformer);
+		squaredPerElement.transformAllDouble(
+				d -> transformer.transformElement(d));
+		double[] want = squaredPerElement.toDoubleArray();
+		double[] got = squared.toDoubleArray();
+		for(int i = 0; i < want.length; i += 1){
+			//Compare bits, so -0.0 and 0.0 count as different
+			assertEquals(Double.doubleToLongBits(want[i]),
+					Double.doubleToLongBits(got[i]));
+		}
+	}
+
+	/* Checks that empty primitive lists behave like the other lists */
+	@Test
+	public void testEmpty() {
+		IntGL ints = new IntGL(new int[] {});
+		assertTrue(ints.isEmpty());
+		ints.chooseAllInt(new IntMultipleOfTwelveChooser());
+		assertArrayEquals(new Integer[] {}, ints.toArray());
+
+		DoubleGL doubles = new DoubleGL(new double[] {1.0});
+		assertFalse(doubles.isEmpty());
+		doubles.chooseAllDouble(new DoubleHasAThreeChooser());
+		doubles.chooseAllDouble(new DoubleHasAThreeChooser());
+		assertFalse(doubles.isEmpty());
+	}
+}
@@ -0,0 +1,179 @@
+/**
+ * This file is a test file, checking that a ShardedGL gives the same results
+ * as an ArrayGL while its shards are held by worker JVMs, including after a
+ * worker is killed, and reports each shard's size and timings.
+ * **/
+
+import static org.junit.Assert.*;
+
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.*;
+
+@SuppressWarnings("auxiliaryclass")
+public class TestShardedGL {
+
+	/* Runs the same steps on both lists, checking they match after each */
+	static void checkSteps(MyList<Object> expected, ShardedGL<Object> sharded,
+						   int seed) {
+		for(int round = 0; round < 4; round += 1){
+			int modulus = 2 + (seed + round) % 5;
+			if(round % 2 == 0){
+				MyChooser<Object> mc = (MyChooser<Object> & Serializable)
+						i -> (Integer) i % modulus != 0;
+				expected.chooseAll(mc);
+				sharded.chooseAll(mc);
+			} else {
+				MyTransformer<Object> mt = (MyTransformer<Object>
+						& Serializable) i -> (Integer) i * modulus + 1;
+				expected.transformAll(mt);
+				sharded.transformAll(mt);
+			}
+			assertArrayEquals(expected.toArray(), sharded.toArray());
+			assertEquals(expected.toArray().length, sharded.size());
+		}
+	}
+
+	@Test
+	public void testMatchesArrayGL() throws Exception {
+		try (ShardedGL<Object> sharded = new ShardedGL<Object>(
+				TestLists.count(10001), 3)) {
+			assertArrayEquals(new int[] {3333, 3334, 3334},
+					sharded.shardSizes());
+			checkSteps(new ArrayGL<Object>(TestLists.count(10001)), sharded, 0);
+			assertEquals(3, sharded.shardNanos().length);
+			for(int i = 0; i < 3; i += 1){
+				assertTrue(sharded.shardNanos()[i] > 0);
+				assertTrue(sharded.shardRoundTripNanos()[i]
+						>= sharded.shardNanos()[i]);
+			}
+			assertEquals(0, sharded.restarts());
+		}
+
+		//The choosers and transformers from Choosers.java and
+		//Transformers.java can be sent as they are
+		String[] words = {"cars", "Housekeeping", "trees", "Strawberry",
+				"flowers", "a"};
+		try (ShardedGL<Object> sharded = new ShardedGL<Object>(words, 4)) {
+			sharded.chooseAll(new LongWordChooser());
+			sharded.transformAll(new UpperCaseTransformer());
+			assertArrayEquals(new Object[] {"HOUSEKEEPING", "STRAWBERRY",
+					"FLOWERS"}, sharded.toArray());
+			sharded.chooseAll(new CapitalizedWordChooser());
+			sharded.chooseAll(new LongWordChooser());
+			assertFalse(sharded.isEmpty());
+		}
+	}
+
+	@Test
+	public void testWorkerRestart() throws Exception {
+		ArrayGL<Object> expected = new ArrayGL<Object>(TestLists.count(5000));
+		try (ShardedGL<Object> sharded = new ShardedGL<Object>(
+				TestLists.count(5000), 2)) {
+			checkSteps(expected, sharded, 1);
+			//The new worker loads its file and runs all four steps again
+			sharded.killWorker(1);
+			checkSteps(expected, sharded, 2);
+			assertEquals(1, sharded.restarts());
+
+			//After a checkpoint, there's nothing to run again
+			sharded.checkpoint();
+			sharded.killWorker(0);
+			sharded.killWorker(1);
+			assertArrayEquals(expected.toArray(), sharded.toArray());
+			assertEquals(3, sharded.restarts());
+			checkSteps(expected, sharded, 3);
+		}
+	}
+
+	/* Checks a worker that can't be started again doesn't stop the other
+	 * shard's answers being read, and is started again by a later call */
+	@Test
+	public void testFailedRestart() throws Exception {
+		try (ShardedGL<Object> sharded = new ShardedGL<Object>(
+				TestLists.count(100), 2)) {
+			Path file = sharded.shardFile(0);
+			Path moved = file.resolveSibling("moved.bin");
+			sharded.killWorker(0);
+			Files.move(file, moved);
+			for(int round = 0; round < 2; round += 1){
+				try {
+					sharded.chooseAll((MyChooser<Object> & Serializable)
+							i -> (Integer) i < 1000);
+					fail("failed restart lost");
+				} catch (UncheckedIOException e) {
+					//Expected
+				}
+			}
+			Files.move(moved, file);
+			assertArrayEquals(TestLists.count(100), sharded.toArray());
+			assertEquals(3, sharded.restarts());
+
+			//A checkpoint still empties the log of the shard that wrote its
+			//file, so its new worker doesn't add one again
+			sharded.transformAll((MyTransformer<Object> & Serializable)
+					i -> (Integer) i + 1);
+			sharded.killWorker(0);
+			Files.move(file, moved);
+			try {
+				sharded.checkpoint();
+				fail("failed restart lost");
+			} catch (UncheckedIOException e) {
+				//Expected
+			}
+			Files.move(moved, file);
+			sharded.killWorker(1);
+			Object[] result = sharded.toArray();
+			for(int i = 0; i < 100; i += 1){
+				assertEquals(i + 1, result[i]);
+			}
+		}
+	}
+
+	@Test
+	public void testFailures() throws Exception {
+		try (ShardedGL<Object> sharded = new ShardedGL<Object>(
+				TestLists.count(100), 2)) {
+			checkFailures(sharded);
+		}
+		try {
+			new ShardedGL<Object>(TestLists.count(10), 0);
+			fail("no shards accepted");
+		} catch (IllegalArgumentException e) {
+			//Expected
+		}
+	}
+
+	static void checkFailures(ShardedGL<Object> sharded) throws Exception {
+		try {
+			sharded.chooseAll(i -> true);
+			fail("chooser that isn't Serializable sent");
+		} catch (IllegalArgumentException e) {
+			//Expected
+		}
+		//Only the second shard throws, and is left as it was, while the
+		//first keeps its changes
+		try {
+			sharded.transformAll((MyTransformer<Object> & Serializable)
+					i -> (Integer) i / (75 - (Integer) i));
+			fail("transformer exception lost");
+		} catch (ArithmeticException e) {
+			//Expected
+		}
+		assertEquals(0, sharded.toArray()[0]);
+		assertEquals(1, sharded.toArray()[49]);
+		assertEquals(50, sharded.toArray()[50]);
+		assertEquals(75, sharded.toArray()[75]);
+		assertEquals(1, sharded.restarts());
+		sharded.close();
+		try {
+			sharded.toArray();
+			fail("closed ShardedGL used");
+		} catch (IllegalStateException e) {
+			//Expected
+		}
+	}
+}
@@ -0,0 +1,163 @@
+/**
+ * This file is a test file, checking that StringArenaGL gives the same
+ * answers as ArrayGL, and that the arena versions of our string choosers and
+ * transformer agree with their String versions.
+ * **/
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.*;
+
+@SuppressWarnings("auxiliaryclass")
+public class TestStringArenaGL {
+
+	//Chars from every UTF-8 length, including ones whose upper case is
+	//longer, and a surrogate pair
+	static final String[] ODD = {"\u00e9", "\u00df", "\u03c9", "\u03a9",
+			"\u4e16", "\ud83d\ude00", "\u0130", "\u00c9"};
+
+	static String[] words(int count, long seed) {
+		Random rand = new Random(seed);
+		String[] words = new String[count];
+		for(int i = 0; i < count; i += 1){
+			StringBuilder w = new StringBuilder();
+			for(int c = rand.nextInt(10); c > 0; c -= 1){
+				if(rand.nextInt(8) == 0){
+					w.append(ODD[rand.nextInt(ODD.length)]);
+				} else {
+					char letter = (char) ('a' + rand.nextInt(26));
+					w.append(rand.nextInt(3) == 0
+							? Character.toUpperCase(letter) : letter);
+				}
+			}
+			words[i] = w.toString();
+		}
+		return words;
+	}
+
+	/* Checks the arena methods agree with the String ones for every word */
+	@Test
+	public void testArenaMethodsMatch() {
+		LongWordChooser longWord = new LongWordChooser();
+		CapitalizedWordChooser capitalized = new CapitalizedWordChooser();
+		UpperCaseTransformer upper = new UpperCaseTransformer();
+		for(String w : words(5000, 12)){
+			byte[] bytes = w.getBytes(StandardCharsets.UTF_8);
+			//Put the word in the middle of some other bytes
+			byte[] arena = new byte[bytes.length + 4];
+			System.arraycopy(bytes, 0, arena, 2, bytes.length);
+			int end = 2 + bytes.length;
+			assertEquals(w, longWord.chooseElement(w),
+					longWord.chooseElement(arena, 2, end));
+			assertEquals(w, capitalized.chooseElement(w),
+					capitalized.chooseElement(arena, 2, end));
+			if(upper.transformInPlace(arena, 2, end)){
+				assertEquals(upper.transformElement(w),
+						new String(arena, 2, bytes.length,
+								StandardCharsets.UTF_8));
+			}
+		}
+	}
+
+	/* Checks a mix of steps gives the same list as ArrayGL */
+	@Test
+	public void testMatchesArrayGL() {
+		String[] input = words(20000, 7);
+		ArrayGL<String> array = new ArrayGL<String>(input.clone());
+		StringArenaGL arena = new StringArenaGL(input);
+		MyTransformer<String> exclaim = s -> s + "!";
+		MyChooser<String> notEmpty = s -> s.length() > 1;
+		Object[] steps = {new CapitalizedWordChooser(), exclaim,
+				new UpperCaseTransformer(), new LongWordChooser(),
+				new RemovePluralsTransformer(), notEmpty};
+		for(Object step : steps){
+			if(step instanceof MyChooser){
+				array.chooseAll((MyChooser) step);
+				arena.chooseAll((MyChooser) step);
+			} else {
+				array.transformAll((MyTransformer) step);
+				arena.transformAll((MyTransformer) step);
+			}
+			assertArrayEquals(array.toArray(), arena.toArray());
+		}
+		assertFalse(arena.isEmpty());
+		arena.chooseAll(s -> false);
+		assertTrue(arena.isEmpty());
+		assertEquals(0, arena.toArray().length);
+	}
+
+	/* Checks ASCII words are upper cased without laying the arena out again,
+	 * and other words still come out right */
+	@Test
+	public void testUpperCaseInPlace() {
+		StringArenaGL ascii = new StringArenaGL(new String[] {"cars",
+				"Houses", "", "MiXeD-1"});
+		int[] before = ascii.offsets;
+		ascii.transformAll(new UpperCaseTransformer());
+		assertSame(before, ascii.offsets);
+		assertArrayEquals(new String[] {"CARS", "HOUSES", "", "MIXED-1"},
+				ascii.toArray());
+		StringArenaGL mixed = new StringArenaGL(new String[] {"stra\u00dfe",
+				"cars", "\u00e9cole"});
+		mixed.transformAll(new UpperCaseTransformer());
+		assertArrayEquals(new String[] {"STRASSE", "CARS", "\u00c9COLE"},
+				mixed.toArray());
+		assertEquals(17, mixed.arenaBytes());
+	}
+
+	/* Checks a Turkish default locale doesn't get ASCII upper casing */
+	@Test
+	public void testTurkishLocale() {
+		Locale old = Locale.getDefault();
+		try {
+			Locale.setDefault(new Locale("tr", "TR"));
+			StringArenaGL list = new StringArenaGL(new String[] {"istanbul",
+					"ANKARA", "bursa"});
+			list.transformAll(new UpperCaseTransformer());
+			assertArrayEquals(new String[] {"istanbul".toUpperCase(),
+					"ANKARA", "BURSA"}, list.toArray());
+		} finally {
+			Locale.setDefault(old);
+		}
+	}
+
+	/* Checks nulls are refused, going in and coming out of a transformer */
+	@Test
+	public void testNulls() {
+		try {
+			new StringArenaGL(new String[] {"a", null});
+			fail("null accepted");
+		} catch (NullPointerException e) {
+			//Expected
+		}
+		StringArenaGL list = new StringArenaGL(new String[] {"a", "b"});
+		try {
+			list.transformAll(s -> s.equals("b") ? null : "changed");
+			fail("null accepted");
+		} catch (NullPointerException e) {
+			//Expected
+		}
+		//A failed transformAll leaves the list as it was
+		assertArrayEquals(new String[] {"a", "b"}, list.toArray());
+		//Even when the ASCII words were already upper cased in place
+		StringArenaGL mixed = new StringArenaGL(new String[] {"cars",
+				"\u00e9cole"});
+		try {
+			mixed.transformAll(new UpperCaseTransformer() {
+				@Override
+				public String transformElement(String s) {
+					return null;
+				}
+			});
+			fail("null accepted");
+		} catch (NullPointerException e) {
+			//Expected
+		}
+		assertArrayEquals(new String[] {"cars", "\u00e9cole"},
+				mixed.toArray());
+	}
+}
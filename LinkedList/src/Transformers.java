@@ -11,32 +11,93 @@
  * called.
  * **/
 
+import java.io.Serializable;
+
 /*UpperCaseTransformer has one method which will allow us to manipulate strings,
 * returning their upper case counterparts. */
-class UpperCaseTransformer implements MyTransformer<String> {
+class UpperCaseTransformer implements BatchTransformer<String>,
+		ArenaTransformer, Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	/** transformElement will take an input String, then return its upper case
 	 * counterpart.
 	 *
 	 * @param s, the input string
-	 * @return the upper case version of s
+	 * @return the upper case version of s, which is s itself if it's already
+	 * upper case
 	 * **/
 	public String transformElement(String s) {
-		return s.toUpperCase();
+		//Most of our strings are plain ASCII, and an ASCII string with no
+		//lower case letters is already upper case in every locale, so we can
+		//hand it straight back without making a new String
+		for(int i = 0; i < s.length(); i += 1){
+			char c = s.charAt(i);
+			if(c >= 128 || (c >= 'a' && c <= 'z')){
+				return s.toUpperCase();
+			}
+		}
+		return s;
+	}
+
+	/** transformInPlace upper cases a string straight in its UTF-8 bytes in a
+	 * StringArenaGL's arena. That only works for plain ASCII strings, where
+	 * every letter's upper case takes the same one byte.
+	 *
+	 * @param arena, the bytes
+	 * @param start, the first byte of the string
+	 * @param end, one past the last byte of the string
+	 * @return true if the string was upper cased in place, false if it has
+	 * to go through transformElement instead
+	 * **/
+	@Override
+	public boolean transformInPlace(byte[] arena, int start, int end) {
+		//Check everything before changing anything. Past ASCII the upper
+		//case can take more bytes, like the German sharp s becoming SS, and
+		//in Turkish and Azeri an i becomes a dotted capital I, which isn't
+		//ASCII either
+		for(int i = start; i < end; i += 1){
+			if(arena[i] < 0 || (arena[i] == 'i' && dottedCapitalI())){
+				return false;
+			}
+		}
+		for(int i = start; i < end; i += 1){
+			byte b = arena[i];
+			if(b >= 'a' && b <= 'z'){
+				arena[i] = (byte) (b - ('a' - 'A'));
+			}
+		}
+		return true;
 	}
 
+	/* True if String.toUpperCase turns i into something other than I right
+	 * now, which depends on the default locale */
+	private static boolean dottedCapitalI() {
+		String language = java.util.Locale.getDefault().getLanguage();
+		return language.equals("tr") || language.equals("az");
+	}
+
+	/** {@inheritDoc} **/
+	@Override
+	public void transformBatch(Object[] src, int from, int to) {
+		BatchTransformer.transformEach(this, src, from, to);
+	}
 }
 
 // Add your transformers here
 /* RemovePluralsTransformer has one method which will allow us to manipulate
 * strings, returning their non-plural counterparts. */
-class RemovePluralsTransformer implements MyTransformer<String>{
+class RemovePluralsTransformer implements BatchTransformer<String>,
+		Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	/** transformElement will take an input String, then return its non-plural
 	 * counterpart.
 	 *
 	 * @param s, the input string
-	 * @return the non-plural version of s, if s was interpreted as plural
+	 * @return the non-plural version of s, if s was interpreted as plural,
+	 * which has to be a new String, otherwise s itself
 	 * **/
 	@Override
 	public String transformElement(String s) {
@@ -65,11 +126,20 @@ class RemovePluralsTransformer implements MyTransformer<String>{
 		//long string without an "s" at the end, it isn't plural, so leave it
 		return s;
 	}
+
+	/** {@inheritDoc} **/
+	@Override
+	public void transformBatch(Object[] src, int from, int to) {
+		BatchTransformer.transformEach(this, src, from, to);
+	}
 }
 
 /* IntegerToFibonacciCounterpartTransformer has one method which will allow us
  * to find the fibonacci number corresponding to the integer input. */
-class IntegerToFibonacciCounterpartTransformer implements MyTransformer<Integer>{
+class IntegerToFibonacciCounterpartTransformer
+		implements BatchTransformer<Integer>, Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	/** transformElement will take an integer = 'n', then interpret that 'n' as
 	 * referring to the 'n'th element of fibonacci sequence. If possible, it will
@@ -125,11 +195,20 @@ class IntegerToFibonacciCounterpartTransformer implements MyTransformer<Integer>
 		}
 		return larger;
 	}
+
+	/** {@inheritDoc} **/
+	@Override
+	public void transformBatch(Object[] src, int from, int to) {
+		BatchTransformer.transformEach(this, src, from, to);
+	}
 }
 
 /* DoubleToSquareAreaTransformer has one method which will allow us to manipulate
  * doubles, squaring the input double. */
-class DoubleToSquareAreaTransformer implements MyTransformer<Double>{
+class DoubleToSquareAreaTransformer implements BatchTransformer<Double>,
+		Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	/** transformElement will take a double = 'n', then interpret that 'n' as
 	 * referring to the side length of a square. If possible, it will
@@ -149,4 +228,60 @@ class DoubleToSquareAreaTransformer implements MyTransformer<Double>{
 		//If we have a positive side length, return its square
 		return aDouble*aDouble;
 	}
-}
\ No newline at end of file
+
+	/** {@inheritDoc} **/
+	@Override
+	public void transformBatch(Object[] src, int from, int to) {
+		BatchTransformer.transformEach(this, src, from, to);
+	}
+}
+
+/* IntFibonacciCounterpartTransformer is the int version of
+ * IntegerToFibonacciCounterpartTransformer, to be used with IntGL so that no
+ * element ever gets boxed. */
+class IntFibonacciCounterpartTransformer implements IntTransformer{
+
+	/** transformElement will take an int = 'n', and return the 'n'th element of
+	 * the fibonacci sequence, leaving values below 2 or above 45 unchanged just
+	 * like IntegerToFibonacciCounterpartTransformer.
+	 *
+	 * @param n, the input int
+	 * @return the element of the fibonacci sequence corresponding to n
+	 * **/
+	@Override
+	public int transformElement(int n) {
+		if(n < 2 || n > 45){
+			return n;
+		}
+		//Walk up the sequence with a loop instead of recursing, we already
+		//know the 0th and 1st values so we start counting from the 2nd
+		int smaller = 0;
+		int larger = 1;
+		for(int i = 2; i <= n; i += 1){
+			larger = larger + smaller;
+			smaller = larger - smaller;
+		}
+		return larger;
+	}
+}
+
+/* DoubleSquareAreaTransformer is the double version of
+ * DoubleToSquareAreaTransformer, to be used with DoubleGL so that no element
+ * ever gets boxed. */
+class DoubleSquareAreaTransformer implements DoubleTransformer{
+
+	/** transformElement will take a side length of a square and return its
+	 * area, leaving negative side lengths unchanged just like
+	 * DoubleToSquareAreaTransformer.
+	 *
+	 * @param d, the input side length of the square
+	 * @return the area of a square with side length d
+	 * **/
+	@Override
+	public double transformElement(double d) {
+		if(d < 0){
+			return d;
+		}
+		return d*d;
+	}
+}
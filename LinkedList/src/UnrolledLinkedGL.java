@@ -0,0 +1,236 @@
+/**
+ * This file implements a generic unrolled linked list, where each Node holds a
+ * small array of elements instead of just one. Walking the list only follows
+ * one next pointer per chunk, and elements inside a chunk sit right next to
+ * each other in memory, so scans run close to array speed while the list
+ * still grows and shrinks a chunk at a time like LinkedGL.
+ * **/
+
+import java.util.Arrays;
+
+/* This class implements MyList, so it has to override the 4 methods introduced
+ * there. Every chunk except the last one is kept completely full, which keeps
+ * the number of Nodes (and the memory they cost) as small as possible. It also
+ * implements LazySource, so lazy pipelines run in one walk down our chunks. */
+public class UnrolledLinkedGL<E> implements MyList<E>, LazySource<E> {
+
+    //How many elements each chunk can hold. 64 references fill a few cache
+    //lines, enough to make the per-Node header and next pointer cheap
+    static final int CHUNK_SIZE = 64;
+
+    /* This class defines a chunk of our list. Each Node stores up to CHUNK_SIZE
+     * values, how many of them are in use, and the reference to the next Node
+     * in the sequence. */
+    class Node {
+        Object[] values;
+        int count;
+        Node next;
+
+        public Node(Object[] values, int count, Node next) {
+            this.values = values;
+            this.count = count;
+            this.next = next;
+        }
+    }
+
+    Node front;
+    int size;
+
+    /** This constructor throws an exception if the input array is null,
+     * otherwise it creates a dummy front node and copies the input array into
+     * new chunks of CHUNK_SIZE elements each, appending them in order.
+     *
+     * @param contents, the array to build our list from
+     * **/
+    public UnrolledLinkedGL(E[] contents) {
+        //Check null case
+        if(contents == null){
+            throw new NullPointerException();
+        }
+        //Just like LinkedGL, the dummy node lets us always call front.next
+        this.front = new Node(null, 0, null);
+        this.size = contents.length;
+        Node currNode = this.front;
+        for(int start = 0; start < contents.length; start += CHUNK_SIZE){
+            int count = Math.min(CHUNK_SIZE, contents.length - start);
+            Object[] values = new Object[CHUNK_SIZE];
+            System.arraycopy(contents, start, values, 0, count);
+            currNode.next = new Node(values, count, null);
+            currNode = currNode.next;
+        }
+    }
+
+    /** This method turns our list back into an array, copying a whole chunk at
+     * a time
+     *
+     * @return the array representation of this list.*/
+    @Override
+    @SuppressWarnings("unchecked")
+    public E[] toArray() {
+        E[] toRet = (E[])(new Object[this.size]);
+        int filled = 0;
+        for(Node currNode = this.front.next; currNode != null;
+                currNode = currNode.next){
+            System.arraycopy(currNode.values, 0, toRet, filled, currNode.count);
+            filled += currNode.count;
+        }
+        return toRet;
+    }
+
+    /** transformAll changes every value in every chunk of our list by using
+     * one of the classes that extend MyTransformer
+     *
+     * @param mt, the class which extends from MyTransformer to draw our
+     *            transform method from
+     * */
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void transformAll(MyTransformer mt) {
+        for(Node currNode = this.front.next; currNode != null;
+                currNode = currNode.next){
+            Object[] values = currNode.values;
+            for(int i = 0; i < currNode.count; i += 1){
+                values[i] = mt.transformElement(values[i]);
+            }
+        }
+    }
+
+    /** chooseAll will filter out values from our list which aren't accepted
+     * by the Chooser class called, packing the kept values into as few chunks
+     * as possible without allocating any new ones
+     *
+     * @param mc, the class which extends from MyChooser to draw our
+     *            chooser method from
+     * */
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void chooseAll(MyChooser mc) {
+        //writeNode and writeIndex are where the next kept value goes. They can
+        //only ever trail the value we're reading, so we can compact in place,
+        //moving kept values back into earlier chunks as we go
+        Node writeNode = this.front.next;
+        int writeIndex = 0;
+        int newSize = 0;
+        for(Node readNode = this.front.next; readNode != null;
+                readNode = readNode.next){
+            Object[] values = readNode.values;
+            for(int i = 0; i < readNode.count; i += 1){
+                if(mc.chooseElement(values[i])){
+                    //Move on to the next chunk once this one is full again
+                    if(writeIndex == CHUNK_SIZE){
+                        writeNode.count = CHUNK_SIZE;
+                        writeNode = writeNode.next;
+                        writeIndex = 0;
+                    }
+                    writeNode.values[writeIndex] = values[i];
+                    writeIndex += 1;
+                    newSize += 1;
+                }
+            }
+        }
+        this.size = newSize;
+        if(newSize == 0){
+            this.front.next = null;
+            return;
+        }
+        //Clear out the leftovers past the last kept value so they can be
+        //garbage collected, then drop every chunk after it
+        for(int i = writeIndex; i < writeNode.count; i += 1){
+            writeNode.values[i] = null;
+        }
+        writeNode.count = writeIndex;
+        writeNode.next = null;
+    }
+
+    /** pipelineToArray runs every step of a lazy pipeline over every chunk
+     * in one walk down the list, putting what's left into a new array and
+     * leaving this list unchanged
+     *
+     * @param pipeline, the lazy pipeline to run
+     * @return the values that made it through every step, in order
+     * */
+    @Override
+    @SuppressWarnings("unchecked")
+    public E[] pipelineToArray(LazyList<E> pipeline) {
+        E[] toRet = (E[])(new Object[this.size]);
+        int newSize = 0;
+        for(Node currNode = this.front.next; currNode != null;
+                currNode = currNode.next){
+            Object[] values = currNode.values;
+            for(int i = 0; i < currNode.count; i += 1){
+                Object out = pipeline.apply(values[i]);
+                if(out != LazyList.DROPPED){
+                    toRet[newSize] = (E) out;
+                    newSize += 1;
+                }
+            }
+        }
+        return newSize == this.size ? toRet : Arrays.copyOf(toRet, newSize);
+    }
+
+    /** pipelineAll runs every step of a lazy pipeline over every chunk in one
+     * walk down the list, packing the values that make it through into as
+     * few chunks as possible the same way chooseAll does. If a step throws,
+     * the values already run keep their changes and the rest are left as
+     * they were, the way transformAll leaves them.
+     *
+     * @param pipeline, the lazy pipeline to run
+     * */
+    @Override
+    public void pipelineAll(LazyList<E> pipeline) {
+        Node writeNode = this.front.next;
+        int writeIndex = 0;
+        int newSize = 0;
+        //Once a step throws, we keep walking without running any more steps,
+        //so the values it never got to are still packed in behind the rest
+        Throwable thrown = null;
+        for(Node readNode = this.front.next; readNode != null;
+                readNode = readNode.next){
+            Object[] values = readNode.values;
+            for(int i = 0; i < readNode.count; i += 1){
+                Object out = values[i];
+                if(thrown == null){
+                    try {
+                        out = pipeline.apply(out);
+                    } catch (RuntimeException | Error e) {
+                        thrown = e;
+                    }
+                }
+                if(out != LazyList.DROPPED){
+                    if(writeIndex == CHUNK_SIZE){
+                        writeNode.count = CHUNK_SIZE;
+                        writeNode = writeNode.next;
+                        writeIndex = 0;
+                    }
+                    writeNode.values[writeIndex] = out;
+                    writeIndex += 1;
+                    newSize += 1;
+                }
+            }
+        }
+        this.size = newSize;
+        if(newSize == 0){
+            this.front.next = null;
+        } else {
+            for(int i = writeIndex; i < writeNode.count; i += 1){
+                writeNode.values[i] = null;
+            }
+            writeNode.count = writeIndex;
+            writeNode.next = null;
+        }
+        if(thrown instanceof RuntimeException){
+            throw (RuntimeException) thrown;
+        } else if(thrown != null){
+            throw (Error) thrown;
+        }
+    }
+
+    /** isEmpty returns true if our list only has the dummy node
+     *
+     * @return true if our list is empty, false otherwise
+     * */
+    @Override
+    public boolean isEmpty() {
+        return this.front.next == null;
+    }
+}